@@ -0,0 +1,87 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banking.bulk.AccountImporter;
+import com.banking.bulk.ImportFormat;
+import com.banking.model.AccountImportResult;
+
+/**
+ * Bulk import throughput, in accounts per second, for CSV and JSON input.
+ * 
+ * <p>Every invocation imports {@link #RECORDS} new accounts under a fresh import ID,
+ * so the tables keep growing across iterations as they would during an onboarding.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountImportBenchmark {
+
+    private static final int RECORDS = 100_000;
+
+    @Param({ "CSV", "JSON" })
+    public ImportFormat format;
+
+    private ConfigurableApplicationContext context;
+    private AccountImporter importer;
+    private byte[] input;
+    private int imports;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BankingContext.start();
+        importer = context.getBean(AccountImporter.class);
+        StringBuilder text = new StringBuilder(RECORDS * 64);
+        if (format == ImportFormat.CSV) {
+            text.append("customerId,accountType,balance\n");
+            for (int i = 1; i <= RECORDS; i++) {
+                text.append(i).append(",savings,").append(i % 100_000).append(".25\n");
+            }
+        } else {
+            text.append('[');
+            for (int i = 1; i <= RECORDS; i++) {
+                text.append(i == 1 ? "" : ",").append("{\"customerId\":").append(i)
+                        .append(",\"accountType\":\"savings\",\"balance\":").append(i % 100_000).append(".25}");
+            }
+            text.append(']');
+        }
+        input = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public AccountImportResult importAccounts() {
+        return importer.importAccounts("benchmark-" + imports++, format, new ByteArrayInputStream(input));
+    }
+}
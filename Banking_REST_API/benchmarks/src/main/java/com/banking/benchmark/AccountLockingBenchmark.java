@@ -0,0 +1,86 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.concurrency.AccountLockingPolicy;
+import com.banking.concurrency.AccountLockingPolicy.Operation;
+import com.banking.model.Account;
+import com.banking.repository.AccountRepo;
+
+/**
+ * Throughput of read-modify-write updates that all hit one account, with optimistic
+ * versus pessimistic account locking.
+ * 
+ * <p>Each update reads the account, adds one to its balance and saves it in its own
+ * database transaction, without the lock stripes, as writers in separate instances
+ * would. In optimistic mode a conflicting update fails on the version check and is
+ * retried by {@link AccountLockingPolicy}; in pessimistic mode it waits for the row
+ * lock instead.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountLockingBenchmark {
+
+    @Param({ "optimistic", "pessimistic" })
+    public String locking;
+
+    private ConfigurableApplicationContext context;
+    private AccountLockingPolicy policy;
+    private AccountRepo accountRepo;
+    private TransactionTemplate transactionTemplate;
+    private long accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Enough attempts that no optimistic update gives up under 8 threads
+        context = BankingContext.start("--banking.accounts.locking.mode=" + locking,
+                "--banking.accounts.locking.max-attempts=100");
+        policy = context.getBean(AccountLockingPolicy.class);
+        accountRepo = context.getBean(AccountRepo.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        accountId = BankingContext.createAccounts(context, 1, 0)[0];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Account incrementHotAccount() {
+        return policy.retry(Operation.ACCOUNT_UPDATE, () -> transactionTemplate.execute(status -> {
+            Account account = (policy.isPessimistic()
+                    ? accountRepo.findByIdForUpdate(accountId) : accountRepo.findById(accountId)).orElseThrow();
+            account.setBalance(account.getBalance() + 1);
+            return account;
+        }));
+    }
+}
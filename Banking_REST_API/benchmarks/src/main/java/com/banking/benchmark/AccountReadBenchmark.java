@@ -0,0 +1,75 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banking.model.Account;
+import com.banking.repository.AccountRepo;
+import com.banking.service.AccountService;
+
+/**
+ * Latency of a balance read: through {@link AccountService#getAccount}, which is
+ * served from the account cache, and straight from {@link AccountRepo}.
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountReadBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private AccountRepo accountRepo;
+    private long[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BankingContext.start();
+        accountService = context.getBean(AccountService.class);
+        accountRepo = context.getBean(AccountRepo.class);
+        accountIds = BankingContext.createAccounts(context, ACCOUNTS, 100_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long balanceCached() {
+        return accountService.getAccount(randomId()).getBalance();
+    }
+
+    @Benchmark
+    public long balanceFromDatabase() {
+        Account account = accountRepo.findById(randomId()).orElseThrow();
+        return account.getBalance();
+    }
+
+    private long randomId() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+}
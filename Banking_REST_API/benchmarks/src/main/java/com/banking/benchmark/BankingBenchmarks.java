@@ -0,0 +1,49 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of <code>benchmarks.jar</code>.
+ * 
+ * <p>Accepts the usual JMH command line, but writes results as JSON to
+ * <code>jmh-result.json</code> unless <code>-rf</code> or <code>-rff</code> say
+ * otherwise, so every run leaves a file that can be diffed against the previous one.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public final class BankingBenchmarks {
+
+    /**
+     * Default result file, relative to the working directory.
+     */
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BankingBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            // Listing and help are handled by the stock JMH launcher
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banking.BankingRestApiApplication;
+import com.banking.model.Account;
+import com.banking.service.AccountService;
+
+/**
+ * Starts the banking application for a benchmark, without the web server and on
+ * an embedded in-memory H2 database, so benchmarks run offline and never touch a
+ * real MySQL instance.
+ * 
+ * @author Madhusudan Dande
+ */
+final class BankingContext {
+
+    /**
+     * Overrides the MySQL settings of the application's own
+     * <code>application.properties</code>; command-line arguments take precedence.
+     */
+    private static final String[] H2_ARGUMENTS = {
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.url=jdbc:h2:mem:benchmark-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN"
+    };
+
+    private BankingContext() {
+    }
+
+    /**
+     * Starts a fresh application context with an empty database.
+     * 
+     * @param extraArguments additional <code>--name=value</code> properties
+     * @return the running context; close it in the benchmark's tear-down
+     */
+    static ConfigurableApplicationContext start(String... extraArguments) {
+        String[] arguments = new String[H2_ARGUMENTS.length + extraArguments.length];
+        System.arraycopy(H2_ARGUMENTS, 0, arguments, 0, H2_ARGUMENTS.length);
+        System.arraycopy(extraArguments, 0, arguments, H2_ARGUMENTS.length, extraArguments.length);
+
+        SpringApplication application = new SpringApplication(BankingRestApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(arguments);
+    }
+
+    /**
+     * Creates accounts with the same opening balance.
+     * 
+     * @param context the running application
+     * @param count number of accounts to create
+     * @param openingBalance balance of each account, in minor units
+     * @return the new account IDs
+     */
+    static long[] createAccounts(ConfigurableApplicationContext context, int count, long openingBalance) {
+        AccountService accountService = context.getBean(AccountService.class);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Account account = new Account();
+            account.setAccountType("SAVINGS");
+            account.setBalance(openingBalance);
+            ids.add(accountService.createAccount(account).getAccountId());
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
+import com.banking.repository.TransactionRepo;
+import com.banking.service.TransactionService;
+
+/**
+ * Latency of the history queries over an account with {@link #HISTORY_LENGTH}
+ * transactions, one per minute, among {@link #OTHER_ACCOUNTS} other accounts'
+ * traffic.
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    private static final int HISTORY_LENGTH = 20_000;
+
+    private static final int OTHER_ACCOUNTS = 50;
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private long accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BankingContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        TransactionRepo transactionRepo = context.getBean(TransactionRepo.class);
+        long[] ids = BankingContext.createAccounts(context, OTHER_ACCOUNTS + 1, 0);
+        accountId = ids[0];
+
+        List<Transaction> rows = new ArrayList<>(HISTORY_LENGTH);
+        for (int i = 0; i < HISTORY_LENGTH; i++) {
+            Transaction transaction = new Transaction();
+            boolean outgoing = (i & 1) == 0;
+            long other = ids[1 + i % OTHER_ACCOUNTS];
+            transaction.setFromAccountId(outgoing ? accountId : other);
+            transaction.setToAccountId(outgoing ? other : ids[1 + (i + 1) % OTHER_ACCOUNTS]);
+            transaction.setAmount(100);
+            transaction.setTimestamp(START.plusMinutes(i));
+            transaction.setStatus("SUCCESS");
+            rows.add(transaction);
+        }
+        transactionRepo.saveAll(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * First page of 100, the common "recent activity" screen.
+     */
+    @Benchmark
+    public TransactionPage firstPage() {
+        return transactionService.getHistoryPage(accountId, null, null, 100);
+    }
+
+    /**
+     * A page of 100 deep inside the history; keyset pagination keeps it as cheap as the first.
+     */
+    @Benchmark
+    public TransactionPage deepPage() {
+        LocalDateTime cursor = START.plusMinutes(ThreadLocalRandom.current().nextInt(HISTORY_LENGTH - 200));
+        return transactionService.getHistoryPage(accountId, cursor, Long.MAX_VALUE, 100);
+    }
+
+    /**
+     * One day of history (about 1,440 rows of which half involve the account).
+     */
+    @Benchmark
+    public List<Transaction> oneDayDateRange() {
+        LocalDateTime from = START.plusMinutes(ThreadLocalRandom.current().nextInt(HISTORY_LENGTH - 1440));
+        return transactionService.getTransactionByACcountAndDateRange(accountId, from, from.plusDays(1));
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Throughput of transfers that all credit one hot account, with and without
+ * balance shards.
+ * 
+ * <p>With {@link #shards} set to 0 every transfer queues on the hot account's lock
+ * and row; with shards, credits only contend on their own sender. Compare the
+ * scores across thread counts with <code>-t</code>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotAccountBenchmark {
+
+    private static final int SENDERS = 1_000;
+
+    @Param({ "0", "16" })
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private long[] senderIds;
+    private long hotAccountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BankingContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        senderIds = BankingContext.createAccounts(context, SENDERS, 1_000_000_000L);
+        hotAccountId = BankingContext.createAccounts(context, 1, 0)[0];
+        context.getBean(AccountService.class).setBalanceShards(hotAccountId, shards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Transaction creditHotAccount() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(senderIds[random.nextInt(senderIds.length)]);
+        request.setToAccountId(hotAccountId);
+        request.setAmount(random.nextLong(1, 10_000));
+        return transactionService.transfer(request);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cost of the JSON bodies the controllers read and write, using an
+ * {@link ObjectMapper} configured the way Spring MVC configures it.
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final String TRANSFER_JSON =
+            "{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":500.00,\"idempotencyKey\":\"3f1c2a9e-7d4b-4e0a-9b8f-2c6d5e4a1b0c\"}";
+
+    private ObjectMapper objectMapper;
+    private Account account;
+    private Transaction transaction;
+    private List<Transaction> history;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        account = new Account();
+        account.setAccountId(42);
+        account.setCustomerId(7);
+        account.setAccountType("SAVINGS");
+        account.setBalance(1_234_567);
+        account.setStatus("ACTIVE");
+
+        history = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            Transaction t = new Transaction();
+            t.setTransactionId(1_000L + i);
+            t.setFromAccountId(42L);
+            t.setToAccountId(43L);
+            t.setAmount(12_34);
+            t.setTimestamp(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i));
+            t.setStatus("SUCCESS");
+            history.add(t);
+        }
+        transaction = history.get(0);
+    }
+
+    @Benchmark
+    public String writeAccount() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(account);
+    }
+
+    @Benchmark
+    public String writeTransaction() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(transaction);
+    }
+
+    @Benchmark
+    public String writeHistoryOf100() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(history);
+    }
+
+    @Benchmark
+    public TransferRequest readTransferRequest() throws JsonProcessingException {
+        return objectMapper.readValue(TRANSFER_JSON, TransferRequest.class);
+    }
+}
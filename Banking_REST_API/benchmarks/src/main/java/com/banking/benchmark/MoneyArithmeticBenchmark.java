@@ -0,0 +1,82 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.money.Money;
+
+/**
+ * Measures the balance arithmetic of a transfer: the funds check, the debit and the
+ * credit.
+ * 
+ * <p>{@link #minorUnits} is the path used by the services: checked
+ * <code>long</code> arithmetic through {@link Money}. {@link #bigDecimal} does the
+ * same with {@link BigDecimal} for comparison. Run with <code>-prof gc</code>:
+ * <code>gc.alloc.rate.norm</code> should be about 0 B/op for {@link #minorUnits}.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    private long[] balances;
+    private BigDecimal[] decimalBalances;
+    private long amount;
+    private BigDecimal decimalAmount;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        balances = new long[ACCOUNTS];
+        decimalBalances = new BigDecimal[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            balances[i] = Money.parse("1000000.00");
+            decimalBalances[i] = new BigDecimal("1000000.00");
+        }
+        amount = Money.parse("12.34");
+        decimalAmount = new BigDecimal("12.34");
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from * 7 + 1) & (ACCOUNTS - 1);
+        if (balances[from] >= amount) {
+            balances[from] = Money.subtract(balances[from], amount);
+            balances[to] = Money.add(balances[to], amount);
+        }
+        return balances[to];
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from * 7 + 1) & (ACCOUNTS - 1);
+        if (decimalBalances[from].compareTo(decimalAmount) >= 0) {
+            decimalBalances[from] = decimalBalances[from].subtract(decimalAmount);
+            decimalBalances[to] = decimalBalances[to].add(decimalAmount);
+        }
+        return decimalBalances[to];
+    }
+}
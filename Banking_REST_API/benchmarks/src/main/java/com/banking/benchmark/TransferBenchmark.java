@@ -0,0 +1,98 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.banking.service.TransactionService;
+
+/**
+ * Throughput of {@link TransactionService#transfer} and
+ * {@link TransactionService#transferBatch} against the embedded database.
+ * 
+ * <p>Transfers pick random pairs out of {@link #ACCOUNTS} accounts, so
+ * {@link #transferContended} with several threads also exercises the account
+ * locks.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private static final int BATCH_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private long[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BankingContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        accountIds = BankingContext.createAccounts(context, ACCOUNTS, 1_000_000_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        return transactionService.transfer(randomRequest());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Transaction transferContended() {
+        return transactionService.transfer(randomRequest());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Transaction> transferBatch() {
+        List<TransferRequest> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(randomRequest());
+        }
+        return transactionService.transferBatch(requests);
+    }
+
+    private TransferRequest randomRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(accountIds[random.nextInt(accountIds.length)]);
+        request.setToAccountId(accountIds[random.nextInt(accountIds.length)]);
+        request.setAmount(random.nextLong(1, 10_000));
+        return request;
+    }
+}
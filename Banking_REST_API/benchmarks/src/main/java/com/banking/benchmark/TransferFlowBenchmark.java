@@ -0,0 +1,162 @@
+/**
+ * 
+ */
+package com.banking.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.cache.AccountCache;
+import com.banking.concurrency.StripedAccountLocks;
+import com.banking.ledger.Ledger;
+import com.banking.metrics.JdbcStatementCounter;
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.banking.report.DailyRollups;
+import com.banking.repository.AccountRepo;
+import com.banking.repository.TransactionRepo;
+import com.banking.service.TransactionService;
+
+/**
+ * Latency distribution of one transfer: the conditional-UPDATE flow of
+ * {@link TransactionService#transfer} against the load-check-save flow it replaced.
+ * 
+ * <p>Both run under the same account locks and database transaction; they only
+ * differ in the statements sent. Sample-time mode reports p50/p99/p99.9 per
+ * benchmark, and the number of SQL statements per transfer is printed after every
+ * iteration.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferFlowBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private AccountRepo accountRepo;
+    private TransactionRepo transactionRepo;
+    private Ledger ledger;
+    private DailyRollups dailyRollups;
+    private StripedAccountLocks accountLocks;
+    private AccountCache accountCache;
+    private TransactionTemplate transactionTemplate;
+    private JdbcStatementCounter statementCounter;
+    private long[] accountIds;
+    private long transfers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BankingContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        accountRepo = context.getBean(AccountRepo.class);
+        transactionRepo = context.getBean(TransactionRepo.class);
+        ledger = context.getBean(Ledger.class);
+        dailyRollups = context.getBean(DailyRollups.class);
+        accountLocks = context.getBean(StripedAccountLocks.class);
+        accountCache = context.getBean(AccountCache.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statementCounter = context.getBean(JdbcStatementCounter.class);
+        accountIds = BankingContext.createAccounts(context, ACCOUNTS, 1_000_000_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatements() {
+        statementCounter.reset();
+        transfers = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        System.out.printf("%n%.2f SQL statements per transfer%n", (double) statementCounter.current() / transfers);
+    }
+
+    /**
+     * Two conditional UPDATEs, the audit INSERT, the ledger entries and the daily
+     * rollup upserts.
+     */
+    @Benchmark
+    public Transaction conditionalUpdates() {
+        transfers++;
+        return transactionService.transfer(randomRequest());
+    }
+
+    /**
+     * The previous flow: load both accounts, check the balance in Java, save both
+     * accounts and the audit row. The ledger entries and rollups are written as in
+     * {@link TransactionService#transfer}, so only the debit and credit differ.
+     */
+    @Benchmark
+    public Transaction loadCheckSave() {
+        transfers++;
+        TransferRequest request = randomRequest();
+        return accountLocks.withAccountLocks(request.getFromAccountId(), request.getToAccountId(), () -> {
+            Transaction result = transactionTemplate.execute(status -> {
+                Account from = accountRepo.findById(request.getFromAccountId()).orElseThrow();
+                Account to = accountRepo.findById(request.getToAccountId()).orElseThrow();
+
+                Transaction transaction = new Transaction();
+                transaction.setFromAccountId(request.getFromAccountId());
+                transaction.setToAccountId(request.getToAccountId());
+                transaction.setAmount(request.getAmount());
+                transaction.setTimestamp(LocalDateTime.now());
+                if (from.getBalance() < request.getAmount()) {
+                    transaction.setStatus("FAILED");
+                    Transaction failed = transactionRepo.save(transaction);
+                    dailyRollups.record(failed);
+                    return failed;
+                }
+                from.setBalance(from.getBalance() - request.getAmount());
+                to.setBalance(to.getBalance() + request.getAmount());
+                accountRepo.save(from);
+                accountRepo.save(to);
+                transaction.setStatus("SUCCESS");
+                Transaction recorded = transactionRepo.save(transaction);
+                ledger.recordTransfer(recorded);
+                dailyRollups.record(recorded);
+                return recorded;
+            });
+            accountCache.invalidate(request.getFromAccountId());
+            accountCache.invalidate(request.getToAccountId());
+            return result;
+        });
+    }
+
+    private TransferRequest randomRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(accountIds[random.nextInt(accountIds.length)]);
+        request.setToAccountId(accountIds[random.nextInt(accountIds.length)]);
+        request.setAmount(random.nextLong(1, 10_000));
+        return request;
+    }
+}
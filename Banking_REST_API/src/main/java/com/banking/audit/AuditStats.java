@@ -0,0 +1,109 @@
+/**
+ * 
+ */
+package com.banking.audit;
+
+/**
+ * Point-in-time counters of the {@link TransactionAuditWriter}.
+ * 
+ * @author Madhusudan Dande
+ */
+public class AuditStats {
+
+    /**
+     * Whether records are written asynchronously.
+     */
+    private final boolean async;
+
+    /**
+     * Records currently waiting in the ring buffer.
+     */
+    private final int queueDepth;
+
+    /**
+     * Capacity of the ring buffer.
+     */
+    private final int queueCapacity;
+
+    /**
+     * Records written by the background writer.
+     */
+    private final long recordsWritten;
+
+    /**
+     * Group commits performed by the background writer.
+     */
+    private final long batchesFlushed;
+
+    /**
+     * Records written synchronously because the ring buffer was full.
+     */
+    private final long fallbackWrites;
+
+    /**
+     * Average duration of one group commit, in milliseconds.
+     */
+    private final double averageFlushMillis;
+
+    /**
+     * Longest group commit so far, in milliseconds.
+     */
+    private final double maxFlushMillis;
+
+    /**
+     * Creates a stats snapshot.
+     * 
+     * @param async whether records are written asynchronously
+     * @param queueDepth records waiting in the ring buffer
+     * @param queueCapacity capacity of the ring buffer
+     * @param recordsWritten records written by the background writer
+     * @param batchesFlushed group commits performed
+     * @param fallbackWrites synchronous writes caused by a full buffer
+     * @param averageFlushMillis average group commit duration
+     * @param maxFlushMillis longest group commit duration
+     */
+    public AuditStats(boolean async, int queueDepth, int queueCapacity, long recordsWritten,
+                      long batchesFlushed, long fallbackWrites, double averageFlushMillis,
+                      double maxFlushMillis) {
+        this.async = async;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.recordsWritten = recordsWritten;
+        this.batchesFlushed = batchesFlushed;
+        this.fallbackWrites = fallbackWrites;
+        this.averageFlushMillis = averageFlushMillis;
+        this.maxFlushMillis = maxFlushMillis;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    public long getBatchesFlushed() {
+        return batchesFlushed;
+    }
+
+    public long getFallbackWrites() {
+        return fallbackWrites;
+    }
+
+    public double getAverageFlushMillis() {
+        return averageFlushMillis;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+}
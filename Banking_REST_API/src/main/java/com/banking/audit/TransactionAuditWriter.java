@@ -0,0 +1,390 @@
+/**
+ * 
+ */
+package com.banking.audit;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.config.IdBlockAllocator;
+import com.banking.model.IdGenerators;
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+import com.banking.repository.TransactionRepo;
+
+/**
+ * Writes {@link Transaction} audit records, either synchronously or through an
+ * asynchronous group-commit pipeline.
+ * 
+ * <p><b>Synchronous mode</b> (default): {@link #record} saves the row immediately,
+ * inside the caller's database transaction, exactly like a plain
+ * {@link TransactionRepo#save}.</p>
+ * 
+ * <p><b>Asynchronous mode</b> (<code>banking.audit.async.enabled=true</code>): the record
+ * is given its ID from a block reserved with {@link IdBlockAllocator}, so the ledger
+ * entries written in the same transaction can refer to it. Once the caller's
+ * transaction commits, the record is appended to a bounded ring buffer and
+ * the caller returns straight away. A single background writer drains the buffer and
+ * saves up to <code>batch-size</code> records per database transaction, waiting at
+ * most <code>max-latency</code> for a batch to fill. If the buffer is full, the record
+ * is written synchronously instead (the durable fallback), so records are never
+ * dropped because of back-pressure.</p>
+ * 
+ * <p>Trade-off of asynchronous mode: the returned {@link Transaction} is not saved
+ * yet, and records still in the buffer are lost if the JVM dies before they are
+ * flushed. On a normal shutdown the buffer is drained first.</p>
+ * 
+ * <p>Records carrying an idempotency key are always saved synchronously. The unique
+ * constraint on that key is what rolls back a duplicate transfer, so the insert must
+ * happen in the same database transaction as the balance changes.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class TransactionAuditWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionAuditWriter.class);
+
+    /**
+     * Longest pause between retries of a failed group commit.
+     */
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5_000;
+
+    /**
+     * Insert of a record whose ID is already assigned; see {@link #insertAll}.
+     */
+    static final String INSERT_SQL = "INSERT INTO transaction (transaction_id, from_account_id, to_account_id,"
+            + " amount, timestamp, status, idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Repository used for synchronous writes.
+     */
+    private final TransactionRepo transactionRepo;
+
+    /**
+     * Used for records whose IDs are already assigned.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Hands out the IDs of asynchronous records.
+     */
+    private final IdBlockAllocator idBlocks;
+
+    /**
+     * Runs each group commit in its own database transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Whether the asynchronous pipeline is enabled.
+     */
+    private final boolean async;
+
+    /**
+     * Maximum number of records per group commit.
+     */
+    private final int batchSize;
+
+    /**
+     * Longest time a record waits for its batch to fill.
+     */
+    private final long maxLatencyNanos;
+
+    /**
+     * Bounded ring buffer between request threads and the writer.
+     */
+    private final ArrayBlockingQueue<Transaction> buffer;
+
+    /**
+     * Creates the writer thread; virtual when <code>spring.threads.virtual.enabled</code> is set.
+     */
+    private final ThreadFactory threadFactory;
+
+    private final LongAdder recordsWritten = new LongAdder();
+    private final LongAdder batchesFlushed = new LongAdder();
+    private final LongAdder fallbackWrites = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Creates the writer.
+     * 
+     * @param transactionRepo repository used for synchronous writes
+     * @param jdbcTemplate used for records whose IDs are already assigned
+     * @param idBlocks hands out the IDs of asynchronous records
+     * @param transactionManager transaction manager used for group commits
+     * @param async whether to enable the asynchronous pipeline
+     * @param bufferSize capacity of the ring buffer
+     * @param batchSize maximum records per group commit
+     * @param maxLatency longest time a record waits for its batch to fill
+     * @param virtualThreads whether the application runs in virtual-thread mode
+     */
+    public TransactionAuditWriter(TransactionRepo transactionRepo, JdbcTemplate jdbcTemplate,
+                                  IdBlockAllocator idBlocks, PlatformTransactionManager transactionManager,
+                                  @Value("${banking.audit.async.enabled:false}") boolean async,
+                                  @Value("${banking.audit.async.buffer-size:8192}") int bufferSize,
+                                  @Value("${banking.audit.async.batch-size:500}") int batchSize,
+                                  @Value("${banking.audit.async.max-latency:50ms}") Duration maxLatency,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.transactionRepo = transactionRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idBlocks = idBlocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.async = async;
+        this.batchSize = batchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        // Like Spring Boot, ignore the virtual-thread flag on JVMs older than 21
+        this.threadFactory = virtualThreads && Runtime.version().feature() >= 21
+                ? new VirtualThreadTaskExecutor("transaction-audit-writer-").getVirtualThreadFactory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "transaction-audit-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                };
+    }
+
+    /**
+     * Records one audit row.
+     * 
+     * <p>Call this inside the transaction that moved the money. In asynchronous mode
+     * the record is only queued if that transaction commits.</p>
+     * 
+     * @param transaction the record to write
+     * @return the record with its ID; in synchronous mode the saved entity
+     */
+    public Transaction record(Transaction transaction) {
+        if (!async || transaction.getIdempotencyKey() != null) {
+            return transactionRepo.save(transaction);
+        }
+        transaction.setTransactionId(idBlocks.next(IdGenerators.TRANSACTION));
+        afterCommit(() -> enqueue(transaction));
+        return transaction;
+    }
+
+    /**
+     * Records a list of audit rows; see {@link #record}.
+     * 
+     * @param transactions the records to write
+     * @return the records with their IDs; in synchronous mode the saved entities
+     */
+    public List<Transaction> recordAll(List<Transaction> transactions) {
+        if (!async) {
+            return transactionRepo.saveAll(transactions);
+        }
+        List<Transaction> queued = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (transaction.getIdempotencyKey() != null) {
+                transactionRepo.save(transaction);
+            } else {
+                transaction.setTransactionId(idBlocks.next(IdGenerators.TRANSACTION));
+                queued.add(transaction);
+            }
+        }
+        afterCommit(() -> queued.forEach(this::enqueue));
+        return transactions;
+    }
+
+    /**
+     * Inserts records whose IDs are already assigned, as one JDBC batch, inside the
+     * caller's database transaction.
+     * 
+     * <p>Used for transfers accepted by the {@link com.banking.queue.TransferQueue},
+     * which hands out transaction IDs before the transfer is applied, and for the
+     * asynchronous records of this writer. Such records cannot go through JPA, which
+     * would generate new IDs. The queue's records are never queued here: they are
+     * already written in batches.</p>
+     * 
+     * @param transactions the records to insert, with their IDs
+     */
+    public void insertAll(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, transactions.size(), (statement, transaction) -> {
+            statement.setLong(1, transaction.getTransactionId());
+            statement.setObject(2, transaction.getFromAccountId(), Types.BIGINT);
+            statement.setObject(3, transaction.getToAccountId(), Types.BIGINT);
+            statement.setBigDecimal(4, Money.toDecimal(transaction.getAmount()));
+            statement.setTimestamp(5, Timestamp.valueOf(transaction.getTimestamp()));
+            statement.setString(6, transaction.getStatus());
+            statement.setString(7, transaction.getIdempotencyKey());
+        });
+    }
+
+    /**
+     * Returns the queue and flush counters.
+     * 
+     * @return current {@link AuditStats}
+     */
+    public AuditStats stats() {
+        long batches = batchesFlushed.sum();
+        return new AuditStats(async, buffer.size(), buffer.size() + buffer.remainingCapacity(),
+                recordsWritten.sum(), batches, fallbackWrites.sum(),
+                batches == 0 ? 0 : flushNanos.sum() / 1e6 / batches,
+                maxFlushNanos.get() / 1e6);
+    }
+
+    // ---------------------------------------------------------
+    // Lifecycle
+    // ---------------------------------------------------------
+
+    @Override
+    public void start() {
+        if (async) {
+            running = true;
+            writer = threadFactory.newThread(this::drainLoop);
+            writer.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server, so no request can
+     * enqueue a record once the writer has gone.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+
+    // ---------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------
+
+    /**
+     * Runs the action after the current database transaction commits, or right away
+     * if there is none.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Appends a record to the ring buffer, writing it synchronously if the buffer is
+     * full or the writer is not running.
+     */
+    private void enqueue(Transaction transaction) {
+        if (!running || !buffer.offer(transaction)) {
+            fallbackWrites.increment();
+            insertAll(List.of(transaction));
+        }
+    }
+
+    /**
+     * Background loop: collects up to {@link #batchSize} records, waiting at most
+     * {@link #maxLatencyNanos} after the first one, and group-commits them.
+     */
+    private void drainLoop() {
+        List<Transaction> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Transaction first = buffer.poll(maxLatencyNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Transaction next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: drain whatever is left without waiting
+                buffer.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flushWithRetry(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Group-commits a batch, retrying with exponential back-off while the
+     * application is running.
+     */
+    private void flushWithRetry(List<Transaction> batch) {
+        long backoff = 100;
+        while (true) {
+            try {
+                long start = System.nanoTime();
+                transactionTemplate.executeWithoutResult(status -> insertAll(batch));
+                long elapsed = System.nanoTime() - start;
+                flushNanos.add(elapsed);
+                maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+                batchesFlushed.increment();
+                recordsWritten.add(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Dropping {} audit records during shutdown", batch.size(), e);
+                    return;
+                }
+                log.warn("Audit group commit of {} records failed, retrying in {} ms",
+                        batch.size(), backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
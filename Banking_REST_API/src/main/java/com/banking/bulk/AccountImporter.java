@@ -0,0 +1,511 @@
+/**
+ * 
+ */
+package com.banking.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.cache.CustomerAccountsCache;
+import com.banking.config.IdBlockAllocator;
+import com.banking.model.AccountImport;
+import com.banking.model.AccountImportResult;
+import com.banking.model.IdGenerators;
+import com.banking.model.LedgerEntry;
+import com.banking.money.Money;
+import com.banking.repository.AccountImportChunkRepo;
+import com.banking.repository.AccountImportRepo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Creates accounts in bulk from a streamed JSON array or CSV file.
+ * 
+ * <p>The calling thread only splits the input into chunks of
+ * <code>banking.accounts.import.chunk-size</code> raw records. Each chunk is
+ * validated and inserted on one of <code>banking.accounts.import.threads</code>
+ * worker threads; at most two chunks per thread are waiting or in progress, so a
+ * large input is never held in memory. Valid records are normalised (the account
+ * type is trimmed and upper-cased, every account starts ACTIVE) and the others are
+ * counted as rejected, with a sample of the reasons in the result.</p>
+ * 
+ * <p>A chunk is committed by its own database transaction, which inserts an
+ * {@link com.banking.model.AccountImportChunk} row, the accounts and their OPENING
+ * ledger entries, the last two each as one JDBC batch. The IDs are reserved up front
+ * with {@link IdBlockAllocator}, so the inserts need no generated keys and do not go
+ * through Hibernate. The chunk row makes a chunk commit at most once: a later run of
+ * the same import skips the chunks it lists, and a concurrent run that gets there
+ * second fails on its primary key and rolls back.</p>
+ * 
+ * <p>Imported accounts are not put in the account cache; their first read loads
+ * them. The customers of a committed chunk are invalidated in the
+ * {@link CustomerAccountsCache}.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class AccountImporter {
+
+    /**
+     * Largest number of validation errors reported by a run.
+     */
+    static final int MAX_ERRORS = 100;
+
+    /**
+     * Longest account type accepted; the length of the column.
+     */
+    static final int MAX_ACCOUNT_TYPE_LENGTH = 255;
+
+    private static final Pattern IMPORT_ID = Pattern.compile("[A-Za-z0-9._-]{1," + AccountImport.MAX_ID_LENGTH + "}");
+
+    static final String CHUNK_SQL = "INSERT INTO account_import_chunk (import_id, chunk_no, accepted, rejected,"
+            + " committed_at) VALUES (?, ?, ?, ?, ?)";
+
+    static final String ACCOUNT_SQL = "INSERT INTO bank_details (account_id, customer_id, account_type, balance,"
+            + " status, version) VALUES (?, ?, ?, ?, 'ACTIVE', 0)";
+
+    static final String LEDGER_SQL = "INSERT INTO ledger_entry (entry_id, account_id, amount, kind, transaction_id,"
+            + " timestamp) VALUES (?, ?, ?, '" + LedgerEntry.OPENING + "', NULL, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AccountImportRepo importRepo;
+
+    private final AccountImportChunkRepo chunkRepo;
+
+    private final IdBlockAllocator idBlocks;
+
+    private final CustomerAccountsCache customerAccounts;
+
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Runs each chunk, and each change to the import row, in its own database
+     * transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Number of chunks validated and inserted at the same time.
+     */
+    private final int threads;
+
+    /**
+     * Records per chunk of a new import.
+     */
+    private final int chunkSize;
+
+    /**
+     * Creates the importer.
+     * 
+     * @param jdbcTemplate used for the batch inserts
+     * @param importRepo repository for the import rows
+     * @param chunkRepo repository for the committed chunks
+     * @param idBlocks reserves the account and ledger entry IDs
+     * @param customerAccounts cache of the account IDs of each customer
+     * @param objectMapper supplies the JSON parser
+     * @param transactionManager transaction manager for the chunks
+     * @param threads number of chunks validated and inserted at the same time
+     * @param chunkSize records per chunk of a new import
+     */
+    public AccountImporter(JdbcTemplate jdbcTemplate, AccountImportRepo importRepo,
+                           AccountImportChunkRepo chunkRepo, IdBlockAllocator idBlocks,
+                           CustomerAccountsCache customerAccounts, ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${banking.accounts.import.threads:4}") int threads,
+                           @Value("${banking.accounts.import.chunk-size:5000}") int chunkSize) {
+        if (threads <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("import threads and chunk size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.importRepo = importRepo;
+        this.chunkRepo = chunkRepo;
+        this.idBlocks = idBlocks;
+        this.customerAccounts = customerAccounts;
+        this.jsonFactory = objectMapper.getFactory();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports accounts from an input, or resumes an import that did not complete.
+     * 
+     * <p>An import that already completed is not run again; its result is returned
+     * without reading the input.</p>
+     * 
+     * @param importId client-chosen ID of the import; letters, digits, '.', '_' and
+     *        '-', at most 64 characters
+     * @param format the input format
+     * @param in the input, UTF-8 encoded
+     * @return the result of the import
+     * @throws IllegalArgumentException if the import ID is invalid or the input is
+     *         malformed; chunks committed before the error stay committed
+     * @throws IllegalStateException if the import was started with another format
+     */
+    public AccountImportResult importAccounts(String importId, ImportFormat format, InputStream in) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            throw new IllegalArgumentException("importId must be 1 to " + AccountImport.MAX_ID_LENGTH
+                    + " letters, digits, '.', '_' or '-'");
+        }
+        AccountImport job = transactionTemplate.execute(status -> start(importId, format));
+        if (AccountImport.COMPLETED.equals(job.getStatus())) {
+            return getProgress(importId);
+        }
+        Set<Integer> committed = new HashSet<>(chunkRepo.findChunkNos(importId));
+        int size = job.getChunkSize();
+        long startNanos = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<ChunkResult>> chunks = new ArrayList<>();
+        long skipped = 0;
+        Throwable error = null;
+        try {
+            try {
+                ImportRecordReader reader = ImportRecordReader.create(format, in, jsonFactory);
+                List<String[]> records = new ArrayList<>(size);
+                int chunkNo = 0;
+                String[] record;
+                while (failure.get() == null && (record = reader.next()) != null) {
+                    records.add(record);
+                    if (records.size() == size) {
+                        skipped += submit(executor, inFlight, failure, chunks, committed, importId, chunkNo++,
+                                size, records);
+                        records = new ArrayList<>(size);
+                    }
+                }
+                if (failure.get() == null && !records.isEmpty()) {
+                    skipped += submit(executor, inFlight, failure, chunks, committed, importId, chunkNo, size,
+                            records);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                error = e;
+            }
+            // Let the chunks already handed out finish, so the chunk rows say how far the run got
+            long records = 0;
+            List<String> errors = new ArrayList<>();
+            for (Future<ChunkResult> chunk : chunks) {
+                try {
+                    ChunkResult result = chunk.get();
+                    if (!result.inserted) {
+                        skipped++;
+                        continue;
+                    }
+                    records += result.accepted + result.rejected;
+                    for (String message : result.errors) {
+                        if (errors.size() < MAX_ERRORS) {
+                            errors.add(message);
+                        }
+                    }
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause();
+                    }
+                }
+            }
+            if (error != null) {
+                finish(importId, AccountImport.FAILED, error.getMessage());
+                throw propagate(error);
+            }
+            finish(importId, AccountImport.COMPLETED, null);
+
+            long elapsedMillis = Math.max(1, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+            Object[] totals = chunkRepo.sumForImport(importId, job.getStartedAt()).get(0);
+            return new AccountImportResult(importId, AccountImport.COMPLETED, size, count(totals[0]), skipped,
+                    count(totals[1]), count(totals[2]), errors, elapsedMillis, records * 1000 / elapsedMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(importId, AccountImport.FAILED, "interrupted");
+            throw new IllegalStateException("account import interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the progress of an import from its committed chunks.
+     * 
+     * @param importId the import ID
+     * @return the progress, or {@code null} if there is no such import
+     */
+    public AccountImportResult getProgress(String importId) {
+        AccountImport job = importRepo.findById(importId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        long elapsedMillis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+        Object[] totals = chunkRepo.sumForImport(importId, job.getStartedAt()).get(0);
+        return new AccountImportResult(importId, job.getStatus(), job.getChunkSize(), count(totals[0]), 0,
+                count(totals[1]), count(totals[2]), List.of(), elapsedMillis,
+                count(totals[3]) * 1000 / elapsedMillis);
+    }
+
+    /**
+     * Creates the import row, or marks an existing one as running again.
+     */
+    private AccountImport start(String importId, ImportFormat format) {
+        AccountImport job = importRepo.findById(importId).orElse(null);
+        if (job == null) {
+            job = new AccountImport();
+            job.setImportId(importId);
+            job.setFormat(format.name());
+            job.setChunkSize(chunkSize);
+        } else if (AccountImport.COMPLETED.equals(job.getStatus())) {
+            return job;
+        } else if (!job.getFormat().equals(format.name())) {
+            // Chunk numbers of one format say nothing about an input in the other
+            throw new IllegalStateException("import " + importId + " was started with " + job.getFormat()
+                    + " input");
+        }
+        job.setStatus(AccountImport.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job.setFinishedAt(null);
+        job.setError(null);
+        return importRepo.save(job);
+    }
+
+    private void finish(String importId, String status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> importRepo.findById(importId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setError(error == null || error.length() <= 1000 ? error : error.substring(0, 1000));
+            importRepo.save(job);
+        }));
+    }
+
+    /**
+     * Hands a chunk to a worker, waiting while too many are in flight, unless an
+     * earlier run committed it.
+     * 
+     * @return 1 if the chunk was skipped, otherwise 0
+     */
+    private int submit(ExecutorService executor, Semaphore inFlight, AtomicReference<Throwable> failure,
+                       List<Future<ChunkResult>> chunks, Set<Integer> committed, String importId, int chunkNo,
+                       int size, List<String[]> records) throws InterruptedException {
+        if (committed.contains(chunkNo)) {
+            return 1;
+        }
+        inFlight.acquire();
+        long firstRecordNo = (long) chunkNo * size + 1;
+        chunks.add(executor.submit(() -> {
+            try {
+                return importChunk(importId, chunkNo, firstRecordNo, records);
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                inFlight.release();
+            }
+        }));
+        return 0;
+    }
+
+    /**
+     * Validates one chunk and commits its valid records.
+     */
+    private ChunkResult importChunk(String importId, int chunkNo, long firstRecordNo, List<String[]> records) {
+        List<ValidRecord> valid = new ArrayList<>(records.size());
+        List<String> errors = new ArrayList<>();
+        int rejected = 0;
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                valid.add(validate(records.get(i)));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add("record " + (firstRecordNo + i) + ": " + e.getMessage());
+                }
+            }
+        }
+        int accepted = valid.size();
+        long firstAccountId = accepted == 0 ? 0 : idBlocks.reserve(IdGenerators.ACCOUNT, accepted);
+        long firstEntryId = accepted == 0 ? 0 : idBlocks.reserve(IdGenerators.LEDGER_ENTRY, accepted);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int rejectedCount = rejected;
+
+        boolean inserted = transactionTemplate.execute(status -> {
+            try {
+                jdbcTemplate.update(CHUNK_SQL, importId, chunkNo, accepted, rejectedCount, now);
+            } catch (DuplicateKeyException e) {
+                // Committed by a concurrent run of the same import
+                return false;
+            }
+            if (accepted > 0) {
+                jdbcTemplate.batchUpdate(ACCOUNT_SQL, new Batch(valid) {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ValidRecord account = valid.get(i);
+                        ps.setLong(1, firstAccountId + i);
+                        ps.setLong(2, account.customerId);
+                        ps.setString(3, account.accountType);
+                        ps.setBigDecimal(4, account.balance);
+                    }
+                });
+                jdbcTemplate.batchUpdate(LEDGER_SQL, new Batch(valid) {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, firstEntryId + i);
+                        ps.setLong(2, firstAccountId + i);
+                        ps.setBigDecimal(3, valid.get(i).balance);
+                        ps.setTimestamp(4, now);
+                    }
+                });
+            }
+            return true;
+        });
+        if (inserted) {
+            for (ValidRecord account : valid) {
+                customerAccounts.invalidate(account.customerId);
+            }
+        }
+        return new ChunkResult(inserted, accepted, rejected, errors);
+    }
+
+    /**
+     * Checks and normalises one raw record.
+     * 
+     * @throws IllegalArgumentException naming the first problem found
+     */
+    static ValidRecord validate(String[] record) {
+        if (record[ImportRecordReader.ERROR] != null) {
+            throw new IllegalArgumentException(record[ImportRecordReader.ERROR]);
+        }
+        String customerText = record[ImportRecordReader.CUSTOMER_ID];
+        if (customerText == null || customerText.isBlank()) {
+            throw new IllegalArgumentException("customerId is required");
+        }
+        long customerId;
+        try {
+            customerId = Long.parseLong(customerText.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("customerId must be a whole number");
+        }
+        if (customerId <= 0) {
+            throw new IllegalArgumentException("customerId must be positive");
+        }
+
+        String accountType = record[ImportRecordReader.ACCOUNT_TYPE];
+        if (accountType == null || accountType.isBlank()) {
+            throw new IllegalArgumentException("accountType is required");
+        }
+        accountType = accountType.trim().toUpperCase(Locale.ROOT);
+        if (accountType.length() > MAX_ACCOUNT_TYPE_LENGTH) {
+            throw new IllegalArgumentException("accountType must be at most " + MAX_ACCOUNT_TYPE_LENGTH
+                    + " characters");
+        }
+
+        String balanceText = record[ImportRecordReader.BALANCE];
+        long balance = 0;
+        if (balanceText != null && !balanceText.isBlank()) {
+            try {
+                balance = Money.parse(balanceText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("balance must be a decimal amount");
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("balance must have at most " + Money.SCALE + " decimal places");
+            }
+            if (balance < 0) {
+                throw new IllegalArgumentException("balance must not be negative");
+            }
+        }
+        return new ValidRecord(customerId, accountType, Money.toDecimal(balance));
+    }
+
+    /**
+     * Converts a count from a JPQL aggregate, whatever type the provider chose for it.
+     */
+    private static long count(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private static RuntimeException propagate(Throwable error) {
+        if (error instanceof IOException) {
+            return new IllegalArgumentException("input could not be read: " + error.getMessage(), error);
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        return error instanceof RuntimeException e ? e : new IllegalStateException(error);
+    }
+
+    /**
+     * A record that passed validation, with the balance as the decimal the column
+     * stores.
+     */
+    static final class ValidRecord {
+
+        final long customerId;
+        final String accountType;
+        final BigDecimal balance;
+
+        ValidRecord(long customerId, String accountType, BigDecimal balance) {
+            this.customerId = customerId;
+            this.accountType = accountType;
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * What a worker did with a chunk.
+     */
+    private static final class ChunkResult {
+
+        final boolean inserted;
+        final int accepted;
+        final int rejected;
+        final List<String> errors;
+
+        ChunkResult(boolean inserted, int accepted, int rejected, List<String> errors) {
+            this.inserted = inserted;
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * A JDBC batch with one statement per valid record of a chunk.
+     */
+    private abstract static class Batch implements BatchPreparedStatementSetter {
+
+        private final int size;
+
+        Batch(List<ValidRecord> records) {
+            this.size = records.size();
+        }
+
+        @Override
+        public int getBatchSize() {
+            return size;
+        }
+    }
+}
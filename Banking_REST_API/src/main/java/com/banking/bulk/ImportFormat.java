@@ -0,0 +1,59 @@
+/**
+ * 
+ */
+package com.banking.bulk;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Input formats of a bulk account import.
+ * 
+ * @author Madhusudan Dande
+ */
+public enum ImportFormat {
+
+    /**
+     * A JSON array of account objects, as accepted by
+     * <code>POST /accounts/createAccount</code>.
+     */
+    JSON(MediaType.APPLICATION_JSON),
+
+    /**
+     * Comma-separated values with a header line naming the columns.
+     */
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    ImportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the content type of an input in this format.
+     * @return mediaType
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Looks up the format of a request body by its content type; parameters such as
+     * the charset are ignored.
+     * 
+     * @param contentType the <code>Content-Type</code> header
+     * @return the format
+     * @throws IllegalArgumentException if the content type is neither JSON nor CSV
+     */
+    public static ImportFormat of(String contentType) {
+        if (contentType != null) {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (ImportFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(type)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Content-Type must be application/json or text/csv");
+    }
+}
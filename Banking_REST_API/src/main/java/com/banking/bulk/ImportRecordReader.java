@@ -0,0 +1,232 @@
+/**
+ * 
+ */
+package com.banking.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the raw records of a bulk import one at a time, without holding the input in
+ * memory.
+ * 
+ * <p>A record is the text of its fields, indexed by {@link #CUSTOMER_ID},
+ * {@link #ACCOUNT_TYPE} and {@link #BALANCE}; a missing field is {@code null}. A
+ * record the reader could split but found a problem with, such as a CSV line with
+ * the wrong number of columns, carries the problem at {@link #ERROR}.
+ * Checking the values is left to {@link AccountImporter}, which does it on its worker
+ * threads. The reader only rejects input it cannot split into records, which stops
+ * the import.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public abstract class ImportRecordReader {
+
+    /**
+     * Index of the customer ID in a record.
+     */
+    public static final int CUSTOMER_ID = 0;
+
+    /**
+     * Index of the account type in a record.
+     */
+    public static final int ACCOUNT_TYPE = 1;
+
+    /**
+     * Index of the opening balance in a record.
+     */
+    public static final int BALANCE = 2;
+
+    /**
+     * Index of the problem the reader found with a record, or {@code null}.
+     */
+    public static final int ERROR = 3;
+
+    /**
+     * Field names, in index order; CSV headers and JSON properties use the same ones.
+     */
+    static final String[] FIELDS = { "customerId", "accountType", "balance" };
+
+    /**
+     * Number of records read so far.
+     */
+    private long records;
+
+    /**
+     * Creates a reader for an input.
+     * 
+     * @param format the input format
+     * @param in the input, UTF-8 encoded
+     * @param jsonFactory factory for the JSON parser
+     * @return the reader
+     * @throws IOException if the input cannot be read
+     */
+    public static ImportRecordReader create(ImportFormat format, InputStream in, JsonFactory jsonFactory)
+            throws IOException {
+        return format == ImportFormat.CSV ? new Csv(in) : new Json(jsonFactory.createParser(in));
+    }
+
+    /**
+     * Reads the next record.
+     * 
+     * @return the fields of the record, or {@code null} at the end of the input
+     * @throws IOException if the input cannot be read
+     * @throws IllegalArgumentException if the input is malformed
+     */
+    public final String[] next() throws IOException {
+        String[] record = read();
+        if (record != null) {
+            records++;
+        }
+        return record;
+    }
+
+    /**
+     * Returns the number of records read so far.
+     * @return records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Reads the next record from the input.
+     */
+    abstract String[] read() throws IOException;
+
+    /**
+     * Returns the field index of a CSV header or JSON property, or -1 for one that is
+     * not imported.
+     */
+    static int field(String name) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads CSV with a header line. Columns may be in any order; columns other than
+     * the imported fields are ignored, and the balance column may be left out. Values
+     * are not quoted, so they cannot contain commas. Blank lines are skipped.
+     */
+    static final class Csv extends ImportRecordReader {
+
+        private final BufferedReader reader;
+
+        /**
+         * Field index of each column, or -1.
+         */
+        private final int[] columns;
+
+        Csv(InputStream in) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            String header = nextLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV input must start with a header line");
+            }
+            String[] names = header.split(",", -1);
+            columns = new int[names.length];
+            boolean[] present = new boolean[FIELDS.length];
+            for (int i = 0; i < names.length; i++) {
+                columns[i] = field(names[i].trim());
+                if (columns[i] >= 0) {
+                    present[columns[i]] = true;
+                }
+            }
+            if (!present[CUSTOMER_ID] || !present[ACCOUNT_TYPE]) {
+                throw new IllegalArgumentException("CSV header must name the customerId and accountType columns");
+            }
+        }
+
+        @Override
+        String[] read() throws IOException {
+            String line = nextLine();
+            if (line == null) {
+                return null;
+            }
+            String[] record = new String[FIELDS.length + 1];
+            int column = 0;
+            int start = 0;
+            while (true) {
+                int end = line.indexOf(',', start);
+                if (column < columns.length && columns[column] >= 0) {
+                    record[columns[column]] = end < 0 ? line.substring(start) : line.substring(start, end);
+                }
+                column++;
+                if (end < 0) {
+                    break;
+                }
+                start = end + 1;
+            }
+            if (column != columns.length) {
+                record[ERROR] = "expected " + columns.length + " columns but found " + column;
+            }
+            return record;
+        }
+
+        private String nextLine() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            // A byte order mark would otherwise become part of the first header name
+            return line != null && line.startsWith("\uFEFF") ? line.substring(1) : line;
+        }
+    }
+
+    /**
+     * Reads a JSON array of objects. Properties other than the imported fields are
+     * ignored, like unknown properties of a single account.
+     */
+    static final class Json extends ImportRecordReader {
+
+        private final JsonParser parser;
+
+        Json(JsonParser parser) throws IOException {
+            this.parser = parser;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON input must be an array of accounts");
+            }
+        }
+
+        @Override
+        String[] read() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw malformedJson("expected an account object");
+            }
+            String[] record = new String[FIELDS.length + 1];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                int index = field(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    if (index >= 0) {
+                        throw malformedJson(FIELDS[index] + " must be a single value");
+                    }
+                    parser.skipChildren();
+                } else if (index >= 0 && value != JsonToken.VALUE_NULL) {
+                    record[index] = parser.getText();
+                }
+            }
+            return record;
+        }
+
+        private IllegalArgumentException malformedJson(String message) {
+            return new IllegalArgumentException("record " + (getRecords() + 1) + ": " + message
+                    + " at line " + parser.currentLocation().getLineNr());
+        }
+    }
+}
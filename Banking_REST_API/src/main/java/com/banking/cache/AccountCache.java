@@ -0,0 +1,120 @@
+/**
+ * 
+ */
+package com.banking.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.banking.model.Account;
+import com.banking.money.Money;
+
+/**
+ * Write-through, in-memory cache of {@link Account} balances for the hot
+ * balance-check path.
+ * 
+ * <p>Backed by a {@link LongClockCache} keyed by the primitive account ID. The cache
+ * stores private copies, so neither callers nor JPA can mutate a cached entry; every
+ * read returns a fresh copy.</p>
+ * 
+ * <p>Coherence rules, followed by {@link com.banking.service.AccountService} and
+ * {@link com.banking.service.TransactionService}:</p>
+ * <ul>
+ *   <li>Writers call {@link #put}, or {@link #adjustBalance} when they changed the
+ *       balance in SQL without loading the account, after their database
+ *       transaction commits, while still holding the account's lock stripe.</li>
+ *   <li>Readers that miss load the account and call {@link #putIfAbsent} under the
+ *       same lock stripe, so a value loaded before a concurrent write can never be
+ *       cached after it.</li>
+ * </ul>
+ * 
+ * <p>The cache is local to one JVM. Writes made by other application nodes are not
+ * visible here.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class AccountCache {
+
+    /**
+     * Underlying primitive-keyed cache of account copies.
+     */
+    private final LongClockCache<Account> cache;
+
+    /**
+     * Creates the cache.
+     * 
+     * @param maximumSize maximum number of cached accounts
+     * @param segments number of independently locked segments
+     */
+    public AccountCache(@Value("${banking.cache.accounts.maximum-size:100000}") int maximumSize,
+                        @Value("${banking.cache.accounts.segments:64}") int segments) {
+        this.cache = new LongClockCache<>(maximumSize, segments);
+    }
+
+    /**
+     * Returns a copy of the cached account.
+     * 
+     * @param accountId the account ID
+     * @return a copy of the cached {@link Account}, or {@code null} on a miss
+     */
+    public Account get(long accountId) {
+        Account cached = cache.get(accountId);
+        return cached == null ? null : Account.copyOf(cached);
+    }
+
+    /**
+     * Stores the latest committed state of an account.
+     * 
+     * @param account the account as just written to the database
+     */
+    public void put(Account account) {
+        cache.put(account.getAccountId(), Account.copyOf(account));
+    }
+
+    /**
+     * Stores an account loaded after a miss, unless a writer got there first.
+     * 
+     * @param account the account as just read from the database
+     */
+    public void putIfAbsent(Account account) {
+        cache.putIfAbsent(account.getAccountId(), Account.copyOf(account));
+    }
+
+    /**
+     * Applies a committed balance change to the cached copy, if there is one.
+     * 
+     * <p>Only valid while holding the account's lock stripe, so that the cached
+     * balance is the one the change was applied to. The lookup is not counted in
+     * the {@link #stats}, which only describe reads.</p>
+     * 
+     * @param accountId the account ID
+     * @param delta the change in minor units, negative for a debit
+     */
+    public void adjustBalance(long accountId, long delta) {
+        Account cached = cache.peek(accountId);
+        if (cached != null) {
+            Account updated = Account.copyOf(cached);
+            updated.setBalance(Money.add(updated.getBalance(), delta));
+            cache.put(accountId, updated);
+        }
+    }
+
+    /**
+     * Drops an account from the cache.
+     * 
+     * @param accountId the account ID
+     */
+    public void invalidate(long accountId) {
+        cache.invalidate(accountId);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters.
+     * 
+     * @return current {@link CacheStats}
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
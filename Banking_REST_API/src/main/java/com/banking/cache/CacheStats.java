@@ -0,0 +1,72 @@
+/**
+ * 
+ */
+package com.banking.cache;
+
+/**
+ * Point-in-time counters of a {@link LongClockCache}, used to size the cache.
+ * 
+ * @author Madhusudan Dande
+ */
+public class CacheStats {
+
+    /**
+     * Number of lookups that found a value.
+     */
+    private final long hits;
+
+    /**
+     * Number of lookups that found nothing.
+     */
+    private final long misses;
+
+    /**
+     * Number of entries evicted to make room.
+     */
+    private final long evictions;
+
+    /**
+     * Number of entries currently cached.
+     */
+    private final long size;
+
+    /**
+     * Creates a stats snapshot.
+     * 
+     * @param hits lookups that found a value
+     * @param misses lookups that found nothing
+     * @param evictions entries evicted to make room
+     * @param size entries currently cached
+     */
+    public CacheStats(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits.
+     * @return hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
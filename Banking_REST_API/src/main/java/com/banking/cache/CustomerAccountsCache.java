@@ -0,0 +1,109 @@
+/**
+ * 
+ */
+package com.banking.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory cache of the account IDs of each customer, for
+ * {@link com.banking.service.AccountService#getCustomerAccounts}.
+ * 
+ * <p>Backed by a {@link LongClockCache} keyed by the primitive customer ID. Only the
+ * IDs are cached; the accounts themselves come from the {@link AccountCache}.</p>
+ * 
+ * <p>Coherence rules, followed by {@link com.banking.service.AccountService} and
+ * {@link com.banking.bulk.AccountImporter}:</p>
+ * <ul>
+ *   <li>Writers that add an account to a customer or move it to another one call
+ *       {@link #invalidate} for every customer concerned, after their database
+ *       transaction commits.</li>
+ *   <li>Readers that miss take a {@link #stamp} before loading the IDs and store
+ *       them with {@link #put}, which drops them again if any customer was
+ *       invalidated in the meantime. A list loaded before a concurrent write can
+ *       therefore never stay cached after it.</li>
+ * </ul>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class CustomerAccountsCache {
+
+    /**
+     * Underlying primitive-keyed cache of account ID arrays.
+     */
+    private final LongClockCache<long[]> cache;
+
+    /**
+     * Number of invalidations so far.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     * 
+     * @param maximumSize maximum number of cached customers
+     * @param segments number of independently locked segments
+     */
+    public CustomerAccountsCache(@Value("${banking.cache.customers.maximum-size:100000}") int maximumSize,
+                                 @Value("${banking.cache.accounts.segments:64}") int segments) {
+        this.cache = new LongClockCache<>(maximumSize, segments);
+    }
+
+    /**
+     * Returns the cached account IDs of a customer.
+     * 
+     * @param customerId the customer ID
+     * @return a copy of the account IDs in ascending order, or {@code null} on a miss
+     */
+    public long[] get(long customerId) {
+        long[] accountIds = cache.get(customerId);
+        return accountIds == null ? null : accountIds.clone();
+    }
+
+    /**
+     * Returns the current invalidation stamp, to be passed to {@link #put}.
+     * 
+     * @return the stamp
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Stores the account IDs of a customer loaded after a miss, unless a customer was
+     * invalidated since the stamp was taken.
+     * 
+     * @param customerId the customer ID
+     * @param accountIds the account IDs in ascending order
+     * @param stamp the {@link #stamp} taken before loading them
+     */
+    public void put(long customerId, long[] accountIds, long stamp) {
+        cache.put(customerId, accountIds.clone());
+        if (invalidations.get() != stamp) {
+            cache.invalidate(customerId);
+        }
+    }
+
+    /**
+     * Drops the account IDs of a customer.
+     * 
+     * @param customerId the customer ID
+     */
+    public void invalidate(long customerId) {
+        invalidations.incrementAndGet();
+        cache.invalidate(customerId);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters.
+     * 
+     * @return current {@link CacheStats}
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,357 @@
+/**
+ * 
+ */
+package com.banking.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Bounded, concurrent cache keyed by a primitive {@code long}.
+ * 
+ * <p>The cache is split into independent segments. Each segment keeps its
+ * entries in plain {@code long[]} / {@code Object[]} arrays and finds them through
+ * an open-addressing {@code int[]} index (linear probing, at most half full), so
+ * keys are never boxed and no entry objects are allocated.</p>
+ * 
+ * <p><b>Reads are lock-free:</b> a lookup probes the arrays under a
+ * {@link StampedLock} optimistic stamp and only falls back to a read lock if a
+ * writer changed the segment meanwhile. Writes take the segment's write lock.</p>
+ * 
+ * <p><b>Eviction</b> uses the CLOCK (second-chance) approximation of LRU: every hit
+ * sets a reference bit, and when a segment is full a clock hand sweeps the entries,
+ * clearing set bits and evicting the first entry whose bit is already clear.</p>
+ * 
+ * @param <V> type of the cached values
+ * @author Madhusudan Dande
+ */
+public class LongClockCache<V> {
+
+    /**
+     * Independent hash table segments; the array length is a power of two.
+     */
+    private final Segment[] segments;
+
+    /**
+     * Bit mask used to pick a segment.
+     */
+    private final int segmentMask;
+
+    /**
+     * Number of lookups that found a value.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of lookups that found nothing.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of entries evicted to make room.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache.
+     * 
+     * @param maximumSize maximum number of entries across all segments
+     * @param segmentCount requested number of segments, rounded up to a power of two
+     */
+    public LongClockCache(int maximumSize, int segmentCount) {
+        int count = 1;
+        while (count < segmentCount) {
+            count <<= 1;
+        }
+        int perSegment = Math.max(1, (maximumSize + count - 1) / count);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment, evictions);
+        }
+        this.segmentMask = count - 1;
+    }
+
+    /**
+     * Returns the cached value for a key and marks it as recently used.
+     * 
+     * @param key the key
+     * @return the cached value, or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = mix(key);
+        Object value = segmentFor(hash).get(key, (int) hash, true);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return (V) value;
+    }
+
+    /**
+     * Returns the cached value for a key without counting a hit or a miss and
+     * without marking it as recently used.
+     * 
+     * <p>For writers that update an entry in place, so that writes do not skew the
+     * hit ratio of reads.</p>
+     * 
+     * @param key the key
+     * @return the cached value, or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V peek(long key) {
+        long hash = mix(key);
+        return (V) segmentFor(hash).get(key, (int) hash, false);
+    }
+
+    /**
+     * Stores a value, replacing any existing value for the key.
+     * 
+     * @param key the key
+     * @param value the value; must not be {@code null}
+     */
+    public void put(long key, V value) {
+        long hash = mix(key);
+        segmentFor(hash).put(key, (int) hash, value, true);
+    }
+
+    /**
+     * Stores a value only if the key is not cached yet.
+     * 
+     * <p>Used when populating the cache after a miss, so that a value loaded before a
+     * concurrent write can never replace the newer value that write stored.</p>
+     * 
+     * @param key the key
+     * @param value the value; must not be {@code null}
+     */
+    public void putIfAbsent(long key, V value) {
+        long hash = mix(key);
+        segmentFor(hash).put(key, (int) hash, value, false);
+    }
+
+    /**
+     * Removes a key from the cache.
+     * 
+     * @param key the key
+     */
+    public void invalidate(long key) {
+        long hash = mix(key);
+        segmentFor(hash).remove(key, (int) hash);
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     * 
+     * @return current {@link CacheStats}
+     */
+    public CacheStats stats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    /**
+     * MurmurHash3 64-bit finaliser; spreads sequential IDs over all bits.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * One segment: a fixed array of entries swept by the clock hand, plus an
+     * open-addressing index from key to entry.
+     * 
+     * <p>Entries never move, so the hand visits them in the order they were filled;
+     * a freed entry is reused right behind the hand and so becomes the newest.</p>
+     */
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private final LongAdder evictions;
+
+        /** Entry arrays, indexed by entry number. */
+        private final long[] keys;
+        private final Object[] values;
+        private final byte[] referenced;
+
+        /** Hash index; holds entry number + 1, or 0 for an empty slot. */
+        private final int[] index;
+        private final int mask;
+
+        /** Stack of unused entry numbers. */
+        private final int[] free;
+        private int freeCount;
+
+        private volatile int size;
+        private int hand;
+
+        Segment(int capacity, LongAdder evictions) {
+            this.evictions = evictions;
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.referenced = new byte[capacity];
+            int length = 2;
+            while (length < capacity * 2) {
+                length <<= 1;
+            }
+            this.index = new int[length];
+            this.mask = length - 1;
+            this.free = new int[capacity];
+            for (int entry = capacity - 1; entry >= 0; entry--) {
+                free[freeCount++] = entry;
+            }
+        }
+
+        Object get(long key, int hash, boolean touch) {
+            long stamp = lock.tryOptimisticRead();
+            int entry = entryOf(key, hash);
+            Object value = entry < 0 ? null : values[entry];
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    entry = entryOf(key, hash);
+                    value = entry < 0 ? null : values[entry];
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            if (touch && value != null) {
+                // Benign race: at worst a just-replaced entry gets a second chance
+                referenced[entry] = 1;
+            }
+            return value;
+        }
+
+        void put(long key, int hash, Object value, boolean replace) {
+            long stamp = lock.writeLock();
+            try {
+                int entry = entryOf(key, hash);
+                if (entry >= 0) {
+                    if (replace) {
+                        values[entry] = value;
+                        referenced[entry] = 1;
+                    }
+                    return;
+                }
+                if (freeCount == 0) {
+                    evictOne();
+                }
+                entry = free[--freeCount];
+                keys[entry] = key;
+                values[entry] = value;
+                referenced[entry] = 0;
+
+                int slot = hash & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = entry + 1;
+                size++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slotOf(key, hash);
+                if (slot >= 0) {
+                    removeAt(slot);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int entryOf(long key, int hash) {
+            int slot = slotOf(key, hash);
+            return slot < 0 ? -1 : index[slot] - 1;
+        }
+
+        /**
+         * Probes the index for a key. Bounded by the index length so that an
+         * optimistic read racing with a writer can never loop forever.
+         */
+        private int slotOf(long key, int hash) {
+            int slot = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int entry = index[slot] - 1;
+                if (entry < 0) {
+                    return -1;
+                }
+                if (keys[entry] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Advances the clock hand until an entry without a reference bit is found.
+         */
+        private void evictOne() {
+            while (true) {
+                int entry = hand;
+                hand = hand + 1 == keys.length ? 0 : hand + 1;
+                if (values[entry] == null) {
+                    continue;
+                }
+                if (referenced[entry] != 0) {
+                    referenced[entry] = 0;
+                    continue;
+                }
+                removeAt(slotOf(keys[entry], (int) mix(keys[entry])));
+                evictions.increment();
+                return;
+            }
+        }
+
+        /**
+         * Removes the entry referenced by an index slot, using backward-shift
+         * deletion so every probe chain stays intact without tombstones.
+         */
+        private void removeAt(int slot) {
+            int entry = index[slot] - 1;
+            values[entry] = null;
+            referenced[entry] = 0;
+            free[freeCount++] = entry;
+            size--;
+
+            int gap = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (index[next] == 0) {
+                    break;
+                }
+                int home = (int) mix(keys[index[next] - 1]) & mask;
+                if (!cyclicallyBetween(gap, home, next)) {
+                    index[gap] = index[next];
+                    gap = next;
+                }
+            }
+            index[gap] = 0;
+        }
+
+        /**
+         * Whether {@code home} lies in the cyclic range {@code (from, to]}.
+         */
+        private boolean cyclicallyBetween(int from, int home, int to) {
+            return from <= to ? from < home && home <= to : from < home || home <= to;
+        }
+    }
+}
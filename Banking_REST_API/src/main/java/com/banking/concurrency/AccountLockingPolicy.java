@@ -0,0 +1,184 @@
+/**
+ * 
+ */
+package com.banking.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * How read-modify-write updates of accounts are protected in the database, and how
+ * they are retried when they lose a race.
+ * 
+ * <p>The {@link StripedAccountLocks} only serialise writers within one JVM. Writers
+ * in other instances, and the native balance UPDATEs, are caught by the database
+ * in one of two ways, chosen with <code>banking.accounts.locking.mode</code>:</p>
+ * <ul>
+ *   <li><b>optimistic</b> (default): accounts are read without locks and saved
+ *       with a check of their {@link com.banking.model.Account#getVersion()
+ *       version}. A lost race fails at commit with an
+ *       {@link OptimisticLockingFailureException} and nobody ever waits.</li>
+ *   <li><b>pessimistic</b>: accounts are read with <code>SELECT ... FOR
+ *       UPDATE</code>, so a competing writer waits for the commit instead of
+ *       failing. Row locks are held for the whole transaction.</li>
+ * </ul>
+ * 
+ * <p>{@link #retry} repeats a failed attempt, each time in a new database
+ * transaction, up to <code>max-attempts</code> times. It waits between attempts
+ * with exponential back-off and jitter, starting at <code>initial-backoff</code>
+ * and capped at <code>max-backoff</code>, so writers that collided do not collide
+ * again. Deadlocks and lock timeouts of the pessimistic mode are retried the same
+ * way.</p>
+ * 
+ * <p>Meters, tagged with <i>operation</i>:</p>
+ * <ul>
+ *   <li><code>banking.account.conflicts</code>: attempts that lost a race, also
+ *       tagged with <i>lock</i> (optimistic or pessimistic).</li>
+ *   <li><code>banking.account.retries</code>: attempts repeated after a conflict.</li>
+ *   <li><code>banking.account.retries.exhausted</code>: operations that still
+ *       failed after the last attempt.</li>
+ * </ul>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class AccountLockingPolicy {
+
+    /**
+     * How account rows are protected while they are read and written back.
+     */
+    public enum Mode {
+        /** Version check on save; conflicts are retried. */
+        OPTIMISTIC,
+        /** <code>SELECT ... FOR UPDATE</code>; competing writers wait. */
+        PESSIMISTIC
+    }
+
+    /**
+     * Operations that read accounts and write them back.
+     */
+    public enum Operation {
+        /** A deposit or customer change through {@code AccountService}. */
+        ACCOUNT_UPDATE,
+        /** A batch of transfers applied in memory. */
+        TRANSFER_BATCH;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    private final Mode mode;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffNanos;
+
+    private final long maxBackoffNanos;
+
+    private final Counter[] optimisticConflicts = new Counter[Operation.values().length];
+    private final Counter[] pessimisticConflicts = new Counter[Operation.values().length];
+    private final Counter[] retries = new Counter[Operation.values().length];
+    private final Counter[] exhausted = new Counter[Operation.values().length];
+
+    /**
+     * Creates the policy and registers its meters.
+     * 
+     * @param mode optimistic or pessimistic
+     * @param maxAttempts attempts per operation, including the first
+     * @param initialBackoff wait before the first retry
+     * @param maxBackoff longest wait between two attempts
+     * @param registry the application's meter registry
+     */
+    public AccountLockingPolicy(@Value("${banking.accounts.locking.mode:optimistic}") Mode mode,
+                                @Value("${banking.accounts.locking.max-attempts:5}") int maxAttempts,
+                                @Value("${banking.accounts.locking.initial-backoff:5ms}") Duration initialBackoff,
+                                @Value("${banking.accounts.locking.max-backoff:200ms}") Duration maxBackoff,
+                                MeterRegistry registry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("banking.accounts.locking.max-attempts must be at least 1");
+        }
+        this.mode = mode;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        for (Operation operation : Operation.values()) {
+            int i = operation.ordinal();
+            optimisticConflicts[i] = conflictCounter(registry, operation, "optimistic");
+            pessimisticConflicts[i] = conflictCounter(registry, operation, "pessimistic");
+            retries[i] = Counter.builder("banking.account.retries")
+                    .description("Account updates repeated after a conflict")
+                    .tag("operation", operation.tag)
+                    .register(registry);
+            exhausted[i] = Counter.builder("banking.account.retries.exhausted")
+                    .description("Account updates that still conflicted on their last attempt")
+                    .tag("operation", operation.tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Returns whether accounts are read with <code>SELECT ... FOR UPDATE</code>.
+     * 
+     * @return {@code true} in the pessimistic mode
+     */
+    public boolean isPessimistic() {
+        return mode == Mode.PESSIMISTIC;
+    }
+
+    /**
+     * Runs an attempt, and runs it again after a conflict until it succeeds or the
+     * attempts are used up.
+     * 
+     * <p>Each attempt must start and finish its own database transaction, and must
+     * not leave changes behind in objects the next attempt reuses.</p>
+     * 
+     * @param operation what the attempt does, for the meters
+     * @param attempt the work to run
+     * @return the result of the first successful attempt
+     * @throws ConcurrencyFailureException from the last attempt, if every attempt
+     *         conflicted, or from the current one if the thread is interrupted
+     */
+    public <T> T retry(Operation operation, Supplier<T> attempt) {
+        int i = operation.ordinal();
+        long backoff = initialBackoffNanos;
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                (e instanceof OptimisticLockingFailureException ? optimisticConflicts : pessimisticConflicts)[i]
+                        .increment();
+                if (attempts >= maxAttempts) {
+                    exhausted[i].increment();
+                    throw e;
+                }
+                retries[i].increment();
+                // Between half and all of the current back-off, so colliding writers drift apart
+                long pause = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(backoff * 2, maxBackoffNanos);
+            }
+        }
+    }
+
+    private static Counter conflictCounter(MeterRegistry registry, Operation operation, String lock) {
+        return Counter.builder("banking.account.conflicts")
+                .description("Account updates that lost a race with another writer")
+                .tag("operation", operation.tag)
+                .tag("lock", lock)
+                .register(registry);
+    }
+}
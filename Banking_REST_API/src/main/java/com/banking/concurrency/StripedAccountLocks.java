@@ -0,0 +1,164 @@
+/**
+ * 
+ */
+package com.banking.concurrency;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped, deadlock-free locking for operations that modify account balances.
+ * 
+ * <p>Every account ID is hashed onto one of a fixed number of {@link ReentrantLock}
+ * stripes. Operations touching the same account always contend on the same stripe,
+ * while operations on unrelated accounts usually land on different stripes and run
+ * fully in parallel.</p>
+ * 
+ * <p>When two accounts are involved, their stripes are always acquired in ascending
+ * stripe order. Ordering by stripe rather than by raw account ID is what makes this
+ * deadlock-free: two IDs in ascending order can hash onto stripes in descending order,
+ * so the stripe index is the only order every caller can agree on.</p>
+ * 
+ * <p>The locks are held for the whole database transaction of the caller, so the
+ * caller must start its transaction <b>inside</b> the supplied action. They only
+ * coordinate threads within one JVM.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class StripedAccountLocks {
+
+    /**
+     * Lock stripes; the array length is always a power of two.
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Bit mask used to map a hashed account ID onto a stripe index.
+     */
+    private final int mask;
+
+    /**
+     * Creates the lock stripes.
+     * 
+     * @param stripeCount requested number of stripes, rounded up to a power of two
+     */
+    public StripedAccountLocks(@Value("${banking.transfer.lock-stripes:1024}") int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Runs the given action while holding the lock of a single account.
+     * 
+     * @param accountId the account being modified
+     * @param action the work to run under the lock
+     * @return the result of the action
+     */
+    public <T> T withAccountLock(long accountId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeFor(accountId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the given action while holding the locks of both accounts.
+     * 
+     * <p>If both accounts map onto the same stripe, that stripe is locked only once.</p>
+     * 
+     * @param firstAccountId one of the accounts being modified
+     * @param secondAccountId the other account being modified
+     * @param action the work to run under both locks
+     * @return the result of the action
+     */
+    public <T> T withAccountLocks(long firstAccountId, long secondAccountId, Supplier<T> action) {
+        int first = stripeFor(firstAccountId);
+        int second = stripeFor(secondAccountId);
+        if (first == second) {
+            return withAccountLock(firstAccountId, action);
+        }
+
+        ReentrantLock lower = stripes[Math.min(first, second)];
+        ReentrantLock upper = stripes[Math.max(first, second)];
+        lower.lock();
+        try {
+            upper.lock();
+            try {
+                return action.get();
+            } finally {
+                upper.unlock();
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    /**
+     * Runs the given action while holding the locks of all given accounts.
+     * 
+     * <p>Used by batch operations. The distinct stripes are acquired in ascending
+     * order, so this never deadlocks with the single- or two-account variants.</p>
+     * 
+     * @param accountIds the accounts being modified
+     * @param action the work to run under all locks
+     * @return the result of the action
+     */
+    public <T> T withAccountLocks(Collection<Long> accountIds, Supplier<T> action) {
+        int[] indexes = accountIds.stream()
+                .mapToInt(this::stripeFor)
+                .distinct()
+                .toArray();
+        Arrays.sort(indexes);
+
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lock stripes.
+     * 
+     * @return stripe count (a power of two)
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Maps an account ID onto a stripe index.
+     * 
+     * <p>The ID is multiplied by the 64-bit golden ratio constant so that sequential
+     * IDs spread evenly over all stripes.</p>
+     * 
+     * @param accountId the account ID
+     * @return index into {@link #stripes}
+     */
+    int stripeFor(long accountId) {
+        return (int) ((accountId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
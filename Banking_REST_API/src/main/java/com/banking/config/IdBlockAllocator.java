@@ -0,0 +1,120 @@
+/**
+ * 
+ */
+package com.banking.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.model.IdGenerators;
+
+/**
+ * Reserves ranges of IDs from the <b>id_generator</b> table for rows that are
+ * inserted with plain JDBC instead of through Hibernate.
+ * 
+ * <p>A range is a whole number of the blocks Hibernate's <i>pooled</i> optimizer
+ * uses. With the <code>@TableGenerator</code> mappings of the entities (initial value
+ * 0), a generator value <i>V</i> read by Hibernate stands for the IDs
+ * <i>V - {@link IdGenerators#ALLOCATION_SIZE} + 2</i> to <i>V + 1</i>, and the next
+ * block starts after that. Moving the generator forward by <i>n</i> blocks therefore
+ * hands out exactly the <i>n</i> blocks Hibernate would have read next, and neither
+ * side can get an ID the other already has.</p>
+ * 
+ * <p>The reservation commits in its own database transaction, so the row lock on
+ * the generator is held only for the one UPDATE. IDs of a range that ends up unused
+ * are simply skipped, as Hibernate skips the rest of a block on restart.</p>
+ * 
+ * <p>Callers that need one ID at a time use {@link #next}, which hands them out of
+ * a range of {@link #BLOCK_SIZE} reserved per generator and shared by all callers
+ * of this node.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class IdBlockAllocator {
+
+    private static final String RESERVE_SQL = "UPDATE " + IdGenerators.TABLE + " SET "
+            + IdGenerators.VALUE_COLUMN + " = " + IdGenerators.VALUE_COLUMN + " + ? WHERE "
+            + IdGenerators.NAME_COLUMN + " = ?";
+
+    private static final String READ_SQL = "SELECT " + IdGenerators.VALUE_COLUMN + " FROM "
+            + IdGenerators.TABLE + " WHERE " + IdGenerators.NAME_COLUMN + " = ?";
+
+    /**
+     * IDs reserved per round-trip to the <b>id_generator</b> table by {@link #next}.
+     */
+    public static final int BLOCK_SIZE = 10 * IdGenerators.ALLOCATION_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs each reservation in a new database transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Next unused ID and end of the range reserved by {@link #next}, per generator.
+     */
+    private final Map<String, long[]> ranges = new HashMap<>();
+
+    /**
+     * Creates the allocator.
+     * 
+     * @param jdbcTemplate used for the generator statements
+     * @param transactionManager transaction manager for the reservations
+     */
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Hands out one ID, reserving a new range of {@link #BLOCK_SIZE} when the
+     * generator's current range is used up.
+     * 
+     * @param generator generator row name, for example {@link IdGenerators#TRANSACTION}
+     * @return an ID no other caller, node or Hibernate gets
+     * @throws IllegalStateException if the generator row does not exist
+     */
+    public synchronized long next(String generator) {
+        long[] range = ranges.computeIfAbsent(generator, name -> new long[2]);
+        if (range[0] == range[1]) {
+            range[0] = reserve(generator, BLOCK_SIZE);
+            range[1] = range[0] + BLOCK_SIZE;
+        }
+        return range[0]++;
+    }
+
+    /**
+     * Reserves a range of consecutive IDs.
+     * 
+     * @param generator generator row name, for example {@link IdGenerators#ACCOUNT}
+     * @param count number of IDs needed; rounded up to whole blocks
+     * @return the first ID of the range
+     * @throws IllegalArgumentException if the count is not positive
+     * @throws IllegalStateException if the generator row does not exist
+     */
+    public long reserve(String generator, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        long blocks = (count + IdGenerators.ALLOCATION_SIZE - 1) / IdGenerators.ALLOCATION_SIZE;
+        long size = blocks * IdGenerators.ALLOCATION_SIZE;
+        Long next = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(RESERVE_SQL, size, generator) == 0) {
+                throw new IllegalStateException("no id generator " + generator);
+            }
+            return jdbcTemplate.queryForObject(READ_SQL, Long.class, generator);
+        });
+        // The reserved blocks are the ones Hibernate would have read as next - size,
+        // next - size + 50, ...; the first of them starts 48 below its value
+        return next - size - IdGenerators.ALLOCATION_SIZE + 2;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * 
+ */
+package com.banking.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.banking.model.IdGenerators;
+
+/**
+ * Moves the table-backed ID generators past any keys that already exist.
+ * 
+ * <p>Rows created while {@code Account} and {@code Transaction} still used
+ * <code>AUTO_INCREMENT</code> keys are unknown to the <b>id_generator</b> table, so a
+ * fresh generator would hand out IDs that collide with them. On startup this seeder
+ * raises each generator to at least <code>MAX(id) + allocationSize + 1</code>. It never
+ * lowers a generator, so running it on every start is safe.</p>
+ * 
+ * <p>Seeding happens once all singletons exist, which is before the web server and
+ * the lifecycle components (the audit writer, the transfer queue) start, so no insert
+ * can draw an ID from an unseeded generator.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class IdGeneratorSeeder implements SmartInitializingSingleton {
+
+    /**
+     * JDBC access used for the seeding statements.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor-based dependency injection for {@link JdbcTemplate}.
+     * 
+     * @param jdbcTemplate template bound to the application datasource
+     */
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate) {
+        super();
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Seeds the generators of all tables with pooled IDs.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        seed(IdGenerators.ACCOUNT, "bank_details", "account_id");
+        seed(IdGenerators.TRANSACTION, "transaction", "transaction_id");
+        seed(IdGenerators.LEDGER_ENTRY, "ledger_entry", "entry_id");
+    }
+
+    /**
+     * Raises one generator above the highest key of its table.
+     * 
+     * @param generator generator row name
+     * @param table entity table
+     * @param idColumn primary key column of the entity table
+     */
+    private void seed(String generator, String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+        long floor = maxId + IdGenerators.ALLOCATION_SIZE + 1;
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + IdGenerators.TABLE + " WHERE " + IdGenerators.NAME_COLUMN + " = ?",
+                Integer.class, generator);
+        if (rows == 0) {
+            jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+                    + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", generator, floor);
+        } else {
+            jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? WHERE "
+                    + IdGenerators.NAME_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?",
+                    floor, generator, floor);
+        }
+    }
+}
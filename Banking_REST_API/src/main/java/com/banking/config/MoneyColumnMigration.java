@@ -0,0 +1,112 @@
+/**
+ * 
+ */
+package com.banking.config;
+
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts the money columns created before balances and amounts were exact from
+ * <code>DOUBLE</code> to <code>DECIMAL(19,2)</code>.
+ * 
+ * <p>Hibernate's <code>ddl-auto=update</code> adds missing columns but never changes
+ * the type of an existing one, so <b>bank_details.balance</b> and
+ * <b>transaction.amount</b> stay <code>DOUBLE</code> on databases created before the
+ * change, and the conditional balance UPDATEs would keep comparing floats. On
+ * startup this migration checks the type of both columns and converts any that is
+ * still approximate:</p>
+ * <pre>
+ * UPDATE bank_details SET balance = ROUND(CAST(balance AS DECIMAL(65,10)), 2);
+ * ALTER TABLE bank_details MODIFY balance DECIMAL(19,2) NOT NULL;
+ * UPDATE transaction SET amount = ROUND(CAST(amount AS DECIMAL(65,10)), 2);
+ * ALTER TABLE transaction MODIFY amount DECIMAL(19,2) NOT NULL;
+ * </pre>
+ * 
+ * <p><b>Rounding policy for legacy rows:</b> a value with binary drift, such as
+ * <code>0.30000000000000004</code>, becomes the nearest cent, with halves rounded
+ * away from zero. Rounding the exact decimal first keeps the result independent of
+ * how the database rounds doubles; the same rule is used by
+ * {@link com.banking.money.Money#fromStoredDecimal} when such a row is read before
+ * it is migrated.</p>
+ * 
+ * <p>Both statements rewrite the whole table. On a large production table, run them
+ * by hand in a maintenance window before deploying; this migration then finds the
+ * columns already converted and does nothing. It runs once all singletons exist,
+ * before the web server starts.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class MoneyColumnMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MoneyColumnMigration.class);
+
+    /**
+     * JDBC access used for the migration statements.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor-based dependency injection for {@link JdbcTemplate}.
+     * 
+     * @param jdbcTemplate template bound to the application datasource
+     */
+    public MoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        super();
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Converts every money column that is still approximate.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate("bank_details", "balance");
+        migrate("transaction", "amount");
+    }
+
+    /**
+     * Rounds one column to cents and changes its type to <code>DECIMAL(19,2)</code>,
+     * if it is still <code>DOUBLE</code>, <code>FLOAT</code> or <code>REAL</code>.
+     * 
+     * @param table table name
+     * @param column money column of the table
+     * @return {@code true} if the column was converted
+     */
+    public boolean migrate(String table, String column) {
+        if (!isApproximate(table, column)) {
+            return false;
+        }
+        int rows = jdbcTemplate.update("UPDATE " + table + " SET " + column + " = ROUND(CAST(" + column
+                + " AS DECIMAL(65,10)), 2)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY " + column + " DECIMAL(19,2) NOT NULL");
+        log.info("Converted {}.{} to DECIMAL(19,2), rounding {} rows to cents", table, column, rows);
+        return true;
+    }
+
+    /**
+     * Tells whether a column exists and has a floating-point type.
+     */
+    private boolean isApproximate(String table, String column) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(),
+                    connection.getSchema(), table, column)) {
+                while (columns.next()) {
+                    int type = columns.getInt("DATA_TYPE");
+                    if (type == Types.DOUBLE || type == Types.FLOAT || type == Types.REAL) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+}
@@ -3,36 +3,70 @@
  */
 package com.banking.controller;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.banking.bulk.ImportFormat;
+import com.banking.cache.CacheStats;
+import com.banking.listing.AccountField;
 import com.banking.model.Account;
+import com.banking.model.AccountBalance;
+import com.banking.model.AccountImportResult;
+import com.banking.model.AccountPage;
+import com.banking.model.LedgerBalance;
+import com.banking.money.Money;
 import com.banking.service.AccountService;
 
 /**
  * REST controller that exposes endpoints for managing bank accounts.
  * 
  * <p>This controller provides APIs to create new accounts, retrieve account details,
- * view all accounts, deposit funds, and update customer IDs.</p>
+ * fetch the balances of many accounts at once, view all accounts (in full, page by
+ * page or as a stream), deposit funds, update customer IDs, shard hot accounts,
+ * read past balances and import accounts in bulk.</p>
  * 
  * <p>It delegates business logic to the {@link AccountService}, 
  * keeping controller methods focused on handling HTTP requests and responses.</p>
  * 
  * <p>All endpoints in this controller are prefixed with <b>"/accounts"</b>.</p>
  * 
+ * <p>Not loaded in the <code>reactive</code> profile, where
+ * {@link com.banking.reactive.ReactiveAccountController} serves account creation,
+ * lookups, deposits and customer changes.</p>
+ * 
  * @author Madhusudan Dande
  */
+@Profile("!reactive")
 @RestController
 @RequestMapping("/accounts")
 public class AccountController {
 
+    /**
+     * Media type of newline-delimited JSON responses.
+     */
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     /**
      * Service layer dependency that handles business logic related to accounts.
      */
@@ -72,6 +106,59 @@ public class AccountController {
         return service.createAccount(account);
     }
 
+    /**
+     * Creates accounts in bulk from a JSON array or CSV file in the request body.
+     * 
+     * <p>The body is streamed, so its size is not limited by memory. Records are
+     * validated in parallel and committed in chunks; the result counts the accounts
+     * created and the records rejected, with the first validation errors. If the
+     * import fails part-way, sending the same body again with the same
+     * <code>importId</code> resumes it after the last committed chunk.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * POST /accounts/import?importId=partner-2025-11
+     * Content-Type: text/csv
+     * 
+     * customerId,accountType,balance
+     * 101,SAVINGS,5000.00
+     * 102,CURRENT,0
+     * </pre>
+     * 
+     * @param importId client-chosen ID of the import
+     * @param contentType <code>application/json</code> or <code>text/csv</code>
+     * @param body the request body
+     * @return the {@link AccountImportResult}
+     */
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, "text/csv" })
+    public AccountImportResult importAccounts(@RequestParam String importId,
+                                              @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                              InputStream body) {
+        try {
+            return service.importAccounts(importId, ImportFormat.of(contentType), body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the progress of a bulk import, read from its committed chunks.
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /accounts/import/partner-2025-11
+     * </pre>
+     * 
+     * @param importId the import ID
+     * @return the {@link AccountImportResult} so far, or {@code null} if there is no such import
+     */
+    @GetMapping("/import/{importId}")
+    public AccountImportResult importProgress(@PathVariable("importId") String importId) {
+        return service.getImportProgress(importId);
+    }
+
     /**
      * Retrieves account details by account ID.
      * 
@@ -88,6 +175,52 @@ public class AccountController {
         return service.getAccount(id);
     }
 
+    /**
+     * Retrieves the balances and statuses of several accounts in one call.
+     * 
+     * <p>Cached accounts are answered from memory and the rest with chunked
+     * <code>IN (...)</code> queries, so a dashboard showing 200 accounts makes one
+     * request and at most one database round-trip. Use the POST form for lists too
+     * long for a URL.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /accounts/balances?ids=1,2,3
+     * </pre>
+     * 
+     * @param ids the account IDs, at most {@link AccountService#MAX_BALANCE_IDS}
+     * @return one {@link AccountBalance} per existing account, in request order
+     */
+    @GetMapping("/balances")
+    public List<AccountBalance> getBalances(@RequestParam List<Long> ids) {
+        return balances(ids);
+    }
+
+    /**
+     * Same as {@link #getBalances}, with the account IDs as a JSON array in the body.
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * POST /accounts/balances
+     * [1, 2, 3]
+     * </pre>
+     * 
+     * @param ids the account IDs, at most {@link AccountService#MAX_BALANCE_IDS}
+     * @return one {@link AccountBalance} per existing account, in request order
+     */
+    @PostMapping("/balances")
+    public List<AccountBalance> postBalances(@RequestBody List<Long> ids) {
+        return balances(ids);
+    }
+
+    private List<AccountBalance> balances(List<Long> ids) {
+        try {
+            return service.getBalances(ids);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     /**
      * Retrieves all existing bank accounts.
      * 
@@ -96,6 +229,9 @@ public class AccountController {
      * GET /accounts/getAllAccounts
      * </pre>
      * 
+     * <p>Returns every account in one response; for large tables use
+     * <code>/getAllAccounts/page</code> or <code>/getAllAccounts/stream</code>.</p>
+     * 
      * @return a list of all {@link Account} objects stored in the database
      */
     @GetMapping("/getAllAccounts")
@@ -103,6 +239,75 @@ public class AccountController {
         return service.getAllAccount();
     }
 
+    /**
+     * Retrieves one page of accounts in account ID order.
+     * 
+     * <p>For keyset pagination, pass the <code>nextAfterId</code> of the previous
+     * page as <code>afterId</code>; deep pages are as cheap as the first one. For
+     * offset pagination, pass a zero-based <code>page</code> instead. The optional
+     * <code>status</code> and <code>accountType</code> filters must match exactly.
+     * <code>fields</code> selects the properties returned, for example
+     * <code>accountId,balance</code>; the account ID is always included.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /accounts/getAllAccounts/page?size=500&amp;afterId=1200&amp;status=ACTIVE&amp;fields=balance
+     * </pre>
+     * 
+     * @param page zero-based page number for offset pagination
+     * @param afterId nextAfterId from the previous page for keyset pagination
+     * @param size page size, at most 1000
+     * @param status only accounts with this status
+     * @param accountType only accounts of this type
+     * @param fields comma-separated properties to return; all when omitted
+     * @return the {@link AccountPage} with the items and the cursor of the next page
+     */
+    @GetMapping("/getAllAccounts/page")
+    public AccountPage getPage(@RequestParam(required = false) Integer page,
+                               @RequestParam(required = false) Long afterId,
+                               @RequestParam(defaultValue = "100") int size,
+                               @RequestParam(required = false) String status,
+                               @RequestParam(required = false) String accountType,
+                               @RequestParam(required = false) String fields) {
+        try {
+            return service.getAccountPage(AccountField.parse(fields), status, accountType, page, afterId, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Streams all matching accounts as newline-delimited JSON, for full exports.
+     * 
+     * <p>One object per line in account ID order, written as the rows are read from
+     * a database cursor, so the response never has to fit in memory. Takes the same
+     * filters and <code>fields</code> as <code>/getAllAccounts/page</code>.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /accounts/getAllAccounts/stream?status=ACTIVE&amp;fields=customerId,balance
+     * </pre>
+     * 
+     * @param status only accounts with this status
+     * @param accountType only accounts of this type
+     * @param fields comma-separated properties to return; all when omitted
+     * @return streaming response with content type application/x-ndjson
+     */
+    @GetMapping("/getAllAccounts/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String accountType,
+                                                        @RequestParam(required = false) String fields) {
+        Set<AccountField> selected;
+        try {
+            // Checked here: once the body is streaming, the status can no longer change
+            selected = AccountField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        StreamingResponseBody body = out -> service.streamAccounts(selected, status, accountType, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     /**
      * Deposits a specified amount into an existing account.
      * 
@@ -111,16 +316,28 @@ public class AccountController {
      * 
      * <p>Example Request:</p>
      * <pre>
-     * PUT /accounts/1/deposit/1000
+     * PUT /accounts/1/deposit/1000.50
      * </pre>
      * 
      * @param id the account ID where funds will be deposited
-     * @param amount the amount to deposit (positive value)
-     * @return the updated {@link Account} entity after the balance change
+     * @param amount the decimal amount to deposit (positive value), at most two decimal places
+     * @return the updated {@link Account} entity after the balance change; 409 if
+     *         concurrent writers kept winning until the retries ran out
      */
     @PutMapping("/{Id}/deposit/{amount}")
-    public Account deposit(@PathVariable("Id") Long id, @PathVariable("amount") double amount) {
-        return service.updateBalance(id, amount);
+    public Account deposit(@PathVariable("Id") Long id, @PathVariable("amount") BigDecimal amount) {
+        long minorUnits;
+        try {
+            minorUnits = Money.fromDecimal(amount);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "amount must have at most " + Money.SCALE + " decimal places");
+        }
+        try {
+            return service.updateBalance(id, minorUnits);
+        } catch (ConcurrencyFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "account " + id + " is busy, retry later");
+        }
     }
 
     /**
@@ -135,10 +352,81 @@ public class AccountController {
      * 
      * @param id the account ID whose customer ID needs to be updated
      * @param custId the new customer ID to link
-     * @return the updated {@link Account} entity after the change
+     * @return the updated {@link Account} entity after the change; 409 if
+     *         concurrent writers kept winning until the retries ran out
      */
     @PutMapping("/{id}/updateCustId/{custId}")
     public Account updateCustId(@PathVariable("id") Long id, @PathVariable("custId") Long custId) {
-        return service.updateCustomerId(id, custId);
+        try {
+            return service.updateCustomerId(id, custId);
+        } catch (ConcurrencyFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "account " + id + " is busy, retry later");
+        }
+    }
+
+    /**
+     * Returns the balance an account had at a point in time.
+     * 
+     * <p>The balance is rebuilt from the account ledger: the latest periodic
+     * snapshot plus the entries after it.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /accounts/1/balanceAt?timestamp=2025-11-01T10:15:30
+     * </pre>
+     * 
+     * @param id the account ID
+     * @param timestamp the point in time, in ISO format
+     * @return the {@link LedgerBalance} at that time
+     */
+    @GetMapping("/{id}/balanceAt")
+    public LedgerBalance balanceAt(@PathVariable("id") Long id, @RequestParam String timestamp) {
+        return service.getBalanceAt(id, LocalDateTime.parse(timestamp));
+    }
+
+    /**
+     * Spreads the credits of a hot account across balance shards.
+     * 
+     * <p>Transfers into an account with N shards credit one of N sub-balances, so
+     * they no longer wait for each other. Reads and debits add the shards up. Pass
+     * 0 to turn sharding off; the shards are always folded back into the balance
+     * first.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * PUT /accounts/1/balanceShards/16
+     * </pre>
+     * 
+     * @param id the account ID
+     * @param shards the new shard count
+     * @return the updated {@link Account}, with its total balance
+     */
+    @PutMapping("/{id}/balanceShards/{shards}")
+    public Account setBalanceShards(@PathVariable("id") Long id, @PathVariable("shards") int shards) {
+        try {
+            return service.setBalanceShards(id, shards);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the counters of the in-memory account cache.
+     * 
+     * <p>Use the hit rate and eviction count to size
+     * <code>banking.cache.accounts.maximum-size</code>.</p>
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /accounts/cache/stats
+     * </pre>
+     * 
+     * @return the current {@link CacheStats}
+     */
+    @GetMapping("/cache/stats")
+    public CacheStats cacheStats() {
+        return service.getCacheStats();
     }
 }
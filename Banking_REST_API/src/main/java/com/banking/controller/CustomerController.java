@@ -0,0 +1,60 @@
+/**
+ * 
+ */
+package com.banking.controller;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banking.model.CustomerAccounts;
+import com.banking.service.AccountService;
+
+/**
+ * REST controller that exposes the accounts of a customer.
+ * 
+ * <p>All endpoints in this controller are prefixed with <b>"/customers"</b>.</p>
+ * 
+ * <p>Not loaded in the <code>reactive</code> profile, where
+ * {@link com.banking.reactive.ReactiveCustomerController} serves these endpoints.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("!reactive")
+@RestController
+@RequestMapping("/customers")
+public class CustomerController {
+
+    /**
+     * Service layer dependency that handles business logic related to accounts.
+     */
+    private final AccountService service;
+
+    /**
+     * Constructor-based dependency injection for {@link AccountService}.
+     * 
+     * @param service the service layer instance for account operations
+     */
+    public CustomerController(AccountService service) {
+        super();
+        this.service = service;
+    }
+
+    /**
+     * Retrieves all accounts of a customer with their total balance.
+     * 
+     * <p>Example Request:</p>
+     * <pre>
+     * GET /customers/101/accounts
+     * </pre>
+     * 
+     * @param id the customer ID
+     * @return the {@link CustomerAccounts}; empty for a customer without accounts
+     */
+    @GetMapping("/{id}/accounts")
+    public CustomerAccounts getAccounts(@PathVariable("id") long id) {
+        return service.getCustomerAccounts(id);
+    }
+}
@@ -8,21 +8,47 @@
 
 package com.banking.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.banking.audit.AuditStats;
+import com.banking.model.AccountTotals;
 import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
 import com.banking.model.TransferRequest;
+import com.banking.queue.TransferQueue;
+import com.banking.queue.TransferQueueStats;
 import com.banking.service.TransactionService;
+import com.banking.statement.StatementExporter;
+import com.banking.statement.StatementFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
  * REST Controller for managing transactions between accounts.
@@ -31,36 +57,140 @@ import com.banking.service.TransactionService;
  * 
  * Provides the following APIs:
  *  - POST /transfer → transfer money between accounts
+ *  - POST /transfers/batch → transfer money for a list of requests in one go
+ *  - POST /transfer/queued → accept a transfer for background processing (202, status PENDING)
  *  - GET /byTransactionId/{tid} → get details of a transaction by ID
+ *  - GET /byTransactionId/{tid}/await → wait for the outcome of a queued transfer
  *  - GET /history/{accountId} → get all transactions related to an account
+ *  - GET /history/{accountId}/page → get one keyset-paginated page of history
+ *  - GET /history/{accountId}/stream → stream the whole history as NDJSON
  *  - GET /history/{accountId}/daterange → get transactions within a specific date range
+ *  - GET /history/{accountId}/statement → stream the statement of a period as CSV or NDJSON
+ *  - GET /totals/{accountId} → debit, credit and failure totals of an account over a range of days
+ *  - GET /audit/stats → queue depth and flush latency of the audit writer
+ *  - GET /queue/stats → queue depth and batch latency of the transfer queue
+ * 
+ * Not loaded in the "reactive" profile, where
+ * {@link com.banking.reactive.ReactiveTransactionController} serves the transfer,
+ * history and totals endpoints.
  */
+@Profile("!reactive")
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
 
+    /**
+     * Media type of newline-delimited JSON responses.
+     */
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private TransactionService service;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StatementExporter statementExporter;
+
+    @Autowired
+    private TransferQueue transferQueue;
+
     /**
      * Transfers an amount from one account to another.
      * 
+     * <p>The optional <code>idempotencyKey</code> (or an <code>Idempotency-Key</code>
+     * header) makes the call safe to retry: repeating it returns the original
+     * transaction instead of moving the money again.</p>
+     * 
      * @param request TransferRequest object containing sender account ID, 
      *                receiver account ID, and transfer amount.
+     * @param idempotencyKey optional header used when the body has no key
      * @return Transaction object with transfer details and status (SUCCESS or FAILED).
      * 
      * Example JSON Body:
      * {
      *   "fromAccountId": 1,
      *   "toAccountId": 2,
-     *   "amount": 5000
+     *   "amount": 5000,
+     *   "idempotencyKey": "3f1c2a9e-7d4b-4e0a-9b8f-2c6d5e4a1b0c"
      * }
      */
     @PostMapping("/transfer")
-    public Transaction transfer(@RequestBody TransferRequest request) {
+    public Transaction transfer(@RequestBody TransferRequest request,
+                                @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (request.getIdempotencyKey() == null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        validateIdempotencyKey(request);
         return service.transfer(request);
     }
 
+    /**
+     * Performs a batch of transfers in a single database transaction.
+     * 
+     * <p>All involved accounts are loaded with one query and all writes are sent
+     * as JDBC batches, which is far cheaper than calling /transfer per item.</p>
+     * 
+     * @param requests list of TransferRequest objects.
+     * @return one Transaction per request, in request order, each with its own
+     *         status (SUCCESS or FAILED).
+     * 
+     * Example JSON Body:
+     * [
+     *   { "fromAccountId": 1, "toAccountId": 2, "amount": 500 },
+     *   { "fromAccountId": 2, "toAccountId": 3, "amount": 250 }
+     * ]
+     */
+    @PostMapping("/transfers/batch")
+    public List<Transaction> transferBatch(@RequestBody List<TransferRequest> requests) {
+        requests.forEach(this::validateIdempotencyKey);
+        return service.transferBatch(requests);
+    }
+
+    /**
+     * Accepts a transfer for background processing and returns at once.
+     * 
+     * <p>Requires <code>banking.transfer.queue.enabled=true</code>. The response is
+     * <b>202 Accepted</b> with the transaction ID and status <b>"PENDING"</b>;
+     * transfers from the same account are applied in the order they were accepted.
+     * Poll /byTransactionId/{tid} or call /byTransactionId/{tid}/await for the final
+     * status. A queued transfer is lost if the server crashes before applying it, so
+     * send an idempotency key and retry with it if the outcome never appears.</p>
+     * 
+     * @param request the transfer details, as for /transfer
+     * @param idempotencyKey optional header used when the body has no key
+     * @return the PENDING transaction, or the original transaction of a known key;
+     *         503 if the queue is disabled or full
+     */
+    @PostMapping("/transfer/queued")
+    public ResponseEntity<Transaction> transferQueued(@RequestBody TransferRequest request,
+                                                      @RequestHeader(name = "Idempotency-Key", required = false)
+                                                      String idempotencyKey) {
+        if (request.getIdempotencyKey() == null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        validateIdempotencyKey(request);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(transferQueue.submit(request));
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Rejects idempotency keys that are blank or too long to store.
+     * 
+     * @param request the transfer request to check
+     */
+    private void validateIdempotencyKey(TransferRequest request) {
+        String key = request.getIdempotencyKey();
+        if (key != null && (key.isBlank() || key.length() > TransferRequest.MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "idempotencyKey must be 1 to " + TransferRequest.MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+    }
+
     /**
      * Retrieves details of a specific transaction using its ID.
      * 
@@ -69,18 +199,119 @@ public class TransactionController {
      */
     @GetMapping("/byTransactionId/{tid}")
     public Transaction getTransaction(@PathVariable("tid") Long transactionId) {
-        return service.getTransationById(transactionId);
+        Transaction pending = transferQueue.getPending(transactionId);
+        return pending != null ? pending : service.getTransationById(transactionId);
     }
 
     /**
-     * Retrieves all transactions (both sent and received) for a given account.
+     * Waits for a queued transfer to be applied, without holding a request thread.
+     * 
+     * @param transactionId ID returned by /transfer/queued
+     * @param timeoutSeconds longest wait, at most 60 seconds
+     * @return the SUCCESS or FAILED transaction; still PENDING if the wait timed out;
+     *         the stored transaction if it was not queued
+     */
+    @GetMapping("/byTransactionId/{tid}/await")
+    public CompletableFuture<Transaction> awaitTransaction(@PathVariable("tid") Long transactionId,
+                                                           @RequestParam(defaultValue = "30") int timeoutSeconds) {
+        Transaction pending = transferQueue.getPending(transactionId);
+        CompletableFuture<Transaction> outcome = transferQueue.await(transactionId);
+        if (pending == null || outcome == null) {
+            return CompletableFuture.completedFuture(service.getTransationById(transactionId));
+        }
+        return outcome.copy()
+                .completeOnTimeout(pending, Math.min(Math.max(timeoutSeconds, 0), 60), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Retrieves all transactions (both sent and received) for a given account as a
+     * JSON array, oldest first.
+     * 
+     * <p>Kept for existing clients; new ones should use /history/{accountId}/page or
+     * /history/{accountId}/stream. The array is written page by page as the rows are
+     * read, like the NDJSON stream, so a long history is never held in memory.</p>
      * 
      * @param accountId ID of the account.
-     * @return List of Transaction objects related to the given account.
+     * @return streaming response with a JSON array of Transaction objects.
      */
     @GetMapping("/history/{accountId}")
-    public List<Transaction> getHistory(@PathVariable("accountId") Long accountId) {
-        return service.getTransactionByAccount(accountId);
+    public ResponseEntity<StreamingResponseBody> getHistory(@PathVariable("accountId") Long accountId) {
+        // Flushed once at the end rather than after every element
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.createGenerator(out)) {
+                json.writeStartArray();
+                service.forEachInHistory(accountId, transaction -> writeElement(writer, json, transaction));
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Writes one object as the next element of a JSON array.
+     */
+    private void writeElement(ObjectWriter writer, JsonGenerator json, Object value) {
+        try {
+            writer.writeValue(json, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retrieves one page of the history of an account, oldest first.
+     * 
+     * <p>Uses keyset (cursor) pagination on timestamp and transaction ID, so deep
+     * pages are as cheap as the first one.</p>
+     * 
+     * @param accountId      ID of the account.
+     * @param afterTimestamp nextAfterTimestamp from the previous page (omit for the first page).
+     * @param afterId        nextAfterId from the previous page (omit for the first page).
+     * @param size           page size, at most 1000.
+     * @return TransactionPage with the items and the cursor of the next page.
+     * 
+     * Example API Call:
+     * GET /transactions/history/1/page?size=100&afterTimestamp=2025-11-01T10:15:30&afterId=42
+     */
+    @GetMapping("/history/{accountId}/page")
+    public TransactionPage getHistoryPage(
+            @PathVariable("accountId") Long accountId,
+            @RequestParam(required = false) String afterTimestamp,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int size) {
+
+        LocalDateTime after = afterTimestamp != null ? LocalDateTime.parse(afterTimestamp) : null;
+        return service.getHistoryPage(accountId, after, afterId, size);
+    }
+
+    /**
+     * Streams the complete history of an account as newline-delimited JSON.
+     * 
+     * <p>One Transaction object per line, oldest first. Rows are written page by
+     * page as they are read from the database, so the response never has to fit in
+     * memory.</p>
+     * 
+     * @param accountId ID of the account.
+     * @return streaming response with content type application/x-ndjson.
+     */
+    @GetMapping("/history/{accountId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamHistory(@PathVariable("accountId") Long accountId) {
+        StreamingResponseBody body = out -> service.forEachInHistory(accountId,
+                transaction -> writeLine(out, transaction));
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Writes one object as a single NDJSON line.
+     */
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -107,4 +338,101 @@ public class TransactionController {
         // Fetch transactions for the given account and date range
         return service.getTransactionByACcountAndDateRange(accountId, start, end);
     }
+
+    /**
+     * Streams the statement of an account for a date range.
+     * 
+     * <p>An opening line with the balance before <code>startDate</code>, one line per
+     * balance change with the running balance, and a closing line with the totals and
+     * the closing balance. Deposits and withdrawals are included, failed transfers are
+     * not. Rows are written as they are read from the database cursor, so memory use
+     * does not depend on the size of the statement; a response without its closing
+     * line was cut short.</p>
+     * 
+     * @param accountId ID of the account.
+     * @param startDate Start date in ISO format (inclusive).
+     * @param endDate   End date in ISO format (inclusive).
+     * @param format    "csv" (default) or "ndjson".
+     * @return streaming response with content type text/csv or application/x-ndjson.
+     * 
+     * Example API Call:
+     * GET /transactions/history/1/statement?startDate=2025-11-01T00:00:00&endDate=2025-11-30T23:59:59&format=csv
+     */
+    @GetMapping("/history/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @PathVariable("accountId") Long accountId,
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        LocalDateTime start = LocalDateTime.parse(startDate);
+        LocalDateTime end = LocalDateTime.parse(endDate);
+        StatementFormat statementFormat;
+        try {
+            statementFormat = StatementFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        // Checked here: once the body is streaming, the status can no longer change
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endDate must not be before startDate");
+        }
+
+        StreamingResponseBody body = out -> statementExporter.export(accountId, start, end, statementFormat, out);
+        String fileName = "statement-" + accountId + "-" + start.toLocalDate() + "."
+                + statementFormat.getFileExtension();
+        return ResponseEntity.ok()
+                .contentType(statementFormat.getMediaType())
+                .headers(headers -> headers.setContentDisposition(
+                        ContentDisposition.attachment().filename(fileName).build()))
+                .body(body);
+    }
+
+    /**
+     * Retrieves the transfer totals of an account over a range of days.
+     * 
+     * <p>Answered from per-account daily rollups, so a year costs at most 365 rows
+     * however busy the account is. Failed transfers are counted for the sender only.</p>
+     * 
+     * @param accountId ID of the account.
+     * @param startDate First day in ISO format (e.g. "2025-11-01").
+     * @param endDate   Last day in ISO format, inclusive (e.g. "2025-11-30").
+     * @return AccountTotals with debit, credit and failure counts and sums.
+     * 
+     * Example API Call:
+     * GET /transactions/totals/1?startDate=2025-11-01&endDate=2025-11-30
+     */
+    @GetMapping("/totals/{accountId}")
+    public AccountTotals getTotals(
+            @PathVariable("accountId") Long accountId,
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endDate must not be before startDate");
+        }
+        return service.getAccountTotals(accountId, start, end);
+    }
+
+    /**
+     * Returns the counters of the transaction audit writer.
+     * 
+     * @return AuditStats with queue depth, flush latency and fallback write counts.
+     */
+    @GetMapping("/audit/stats")
+    public AuditStats getAuditStats() {
+        return service.getAuditStats();
+    }
+
+    /**
+     * Returns the counters of the transfer queue.
+     * 
+     * @return TransferQueueStats with queue depth, batch counts and latency.
+     */
+    @GetMapping("/queue/stats")
+    public TransferQueueStats getQueueStats() {
+        return transferQueue.stats();
+    }
 }
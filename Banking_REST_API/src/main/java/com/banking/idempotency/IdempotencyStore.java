@@ -0,0 +1,239 @@
+/**
+ * 
+ */
+package com.banking.idempotency;
+
+import java.time.Duration;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact in-memory map from transfer idempotency keys to the ID of the
+ * {@link com.banking.model.Transaction} they produced.
+ * 
+ * <p>Keys are not stored as strings. Each key is reduced to a 64-bit hash, and the
+ * store keeps only that hash, the transaction ID and an expiry time in three
+ * parallel primitive arrays: 20 bytes per slot, about 30 bytes per key at the
+ * maximum load factor. Millions of keys therefore fit in tens of megabytes, and a
+ * lookup is a single O(1) probe with no database access.</p>
+ * 
+ * <p>A hash match is only a candidate: callers must compare the key stored on the
+ * returned transaction. Entries expire after <code>banking.idempotency.ttl</code>;
+ * expired entries are skipped by lookups and dropped when a segment is rebuilt.
+ * Beyond the TTL, or after a restart, duplicates are still caught by the unique
+ * constraint on the transaction table.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * Returned by {@link #lookup} when the key is unknown or expired.
+     */
+    public static final long ABSENT = -1;
+
+    /**
+     * Segments are rebuilt once this fraction of their slots is used.
+     */
+    private static final double MAX_LOAD = 0.7;
+
+    private static final int SEGMENTS = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * How long a key is remembered, in seconds.
+     */
+    private final int ttlSeconds;
+
+    /**
+     * Time origin of the compact expiry timestamps.
+     */
+    private final long epochNanos = System.nanoTime();
+
+    /**
+     * Creates the store.
+     * 
+     * @param ttl how long a key is remembered
+     */
+    public IdempotencyStore(@Value("${banking.idempotency.ttl:24h}") Duration ttl) {
+        this.ttlSeconds = (int) Math.min(Integer.MAX_VALUE / 2, ttl.toSeconds());
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Looks up the transaction created for a key.
+     * 
+     * @param key the idempotency key
+     * @return the candidate transaction ID, or {@link #ABSENT}
+     */
+    public long lookup(String key) {
+        long hash = hash(key);
+        return segmentFor(hash).lookup(hash, now());
+    }
+
+    /**
+     * Remembers the transaction created for a key.
+     * 
+     * @param key the idempotency key
+     * @param transactionId ID of the transaction it produced
+     */
+    public void remember(String key, long transactionId) {
+        long hash = hash(key);
+        int now = now();
+        segmentFor(hash).remember(hash, transactionId, now + ttlSeconds, now);
+    }
+
+    /**
+     * Returns the number of slots in use, including expired entries not yet dropped.
+     * 
+     * @return used slot count
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.used;
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 58) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Seconds since the store was created.
+     */
+    private int now() {
+        return (int) ((System.nanoTime() - epochNanos) / 1_000_000_000L);
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's characters, finished with the MurmurHash3 mixer.
+     * Zero marks an empty slot, so it is remapped.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * One growable open-addressing table (linear probing).
+     */
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private long[] hashes = new long[1024];
+        private long[] transactionIds = new long[1024];
+        private int[] expiresAt = new int[1024];
+        private volatile int used;
+
+        long lookup(long hash, int now) {
+            long stamp = lock.tryOptimisticRead();
+            long result = find(hashes, transactionIds, expiresAt, hash, now);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    result = find(hashes, transactionIds, expiresAt, hash, now);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return result;
+        }
+
+        void remember(long hash, long transactionId, int expiry, int now) {
+            long stamp = lock.writeLock();
+            try {
+                if (used + 1 > hashes.length * MAX_LOAD) {
+                    rebuild(now);
+                }
+                int mask = hashes.length - 1;
+                int slot = (int) hash & mask;
+                while (hashes[slot] != 0 && hashes[slot] != hash) {
+                    slot = (slot + 1) & mask;
+                }
+                if (hashes[slot] == 0) {
+                    used++;
+                }
+                hashes[slot] = hash;
+                transactionIds[slot] = transactionId;
+                expiresAt[slot] = expiry;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Copies the live entries into a fresh table, doubling it only if dropping
+         * the expired entries did not free enough room.
+         */
+        private void rebuild(int now) {
+            int live = 0;
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] != 0 && expiresAt[i] > now) {
+                    live++;
+                }
+            }
+            int length = hashes.length;
+            if (live + 1 > length * MAX_LOAD / 2) {
+                length <<= 1;
+            }
+
+            long[] newHashes = new long[length];
+            long[] newIds = new long[length];
+            int[] newExpiry = new int[length];
+            int mask = length - 1;
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] != 0 && expiresAt[i] > now) {
+                    int slot = (int) hashes[i] & mask;
+                    while (newHashes[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    newHashes[slot] = hashes[i];
+                    newIds[slot] = transactionIds[i];
+                    newExpiry[slot] = expiresAt[i];
+                }
+            }
+            hashes = newHashes;
+            transactionIds = newIds;
+            expiresAt = newExpiry;
+            used = live;
+        }
+
+        /**
+         * Probes for a hash. Bounded by the table length so that an optimistic read
+         * racing with a rebuild can never loop forever or index out of bounds.
+         */
+        private static long find(long[] hashes, long[] ids, int[] expiry, long hash, int now) {
+            int length = Math.min(hashes.length, Math.min(ids.length, expiry.length));
+            int mask = Integer.highestOneBit(length) - 1;
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = hashes[slot];
+                if (candidate == 0) {
+                    return ABSENT;
+                }
+                if (candidate == hash) {
+                    return expiry[slot] > now ? ids[slot] : ABSENT;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return ABSENT;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * 
+ */
+package com.banking.ledger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.banking.model.BalanceSnapshot;
+import com.banking.model.LedgerBalance;
+import com.banking.model.LedgerEntry;
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+import com.banking.repository.BalanceSnapshotRepo;
+import com.banking.repository.LedgerEntryRepo;
+
+/**
+ * Append-only ledger of every balance change, and point-in-time balances read
+ * from it.
+ * 
+ * <p>{@link com.banking.service.TransactionService} and
+ * {@link com.banking.service.AccountService} call the <code>record</code> methods
+ * inside the database transaction that changes the balance, so the ledger and
+ * <code>Account.balance</code> always commit together. A transfer becomes two
+ * entries, a debit and a credit; a deposit or withdrawal one.</p>
+ * 
+ * <p>Every entry is stamped with the time it is written, not with the time of the
+ * request: a transfer may wait for its lock stripes or sit in the
+ * {@link com.banking.queue.TransferQueue} for a while, and an entry dated before a
+ * snapshot cut that had already been taken would never be counted. The
+ * {@link LedgerSnapshotter}'s settle delay then only has to cover the time from the
+ * write to the commit.</p>
+ * 
+ * <p>{@link #balanceAt} starts from the latest {@link BalanceSnapshot} at or before
+ * the requested time and adds only the entries after it, so its cost depends on the
+ * snapshot interval, not on the length of the account's history. Snapshots are taken
+ * by the {@link LedgerSnapshotter}.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class Ledger {
+
+    /**
+     * Start of the replay window when an account has no snapshot yet.
+     */
+    static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LedgerEntryRepo entryRepo;
+
+    private final BalanceSnapshotRepo snapshotRepo;
+
+    /**
+     * Creates the ledger.
+     * 
+     * @param entryRepo repository for ledger entries
+     * @param snapshotRepo repository for balance snapshots
+     */
+    public Ledger(LedgerEntryRepo entryRepo, BalanceSnapshotRepo snapshotRepo) {
+        this.entryRepo = entryRepo;
+        this.snapshotRepo = snapshotRepo;
+    }
+
+    /**
+     * Records a balance change that is not part of a transfer.
+     * 
+     * @param accountId the account whose balance changed
+     * @param amount the signed change in minor units
+     * @param kind {@link LedgerEntry#OPENING} or {@link LedgerEntry#DEPOSIT}
+     */
+    public void record(long accountId, long amount, String kind) {
+        entryRepo.save(entry(accountId, amount, kind, null, LocalDateTime.now()));
+    }
+
+    /**
+     * Records the debit and credit of a successful transfer.
+     * 
+     * @param transaction the transfer, as returned by the audit writer
+     */
+    public void recordTransfer(Transaction transaction) {
+        entryRepo.saveAll(transferEntries(transaction, LocalDateTime.now()));
+    }
+
+    /**
+     * Records the debits and credits of the successful transfers in a list; the
+     * others are skipped.
+     * 
+     * @param transactions the transfers, as returned by the audit writer
+     */
+    public void recordTransfers(List<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        LocalDateTime now = LocalDateTime.now();
+        for (Transaction transaction : transactions) {
+            if ("SUCCESS".equals(transaction.getStatus())) {
+                entries.addAll(transferEntries(transaction, now));
+            }
+        }
+        entryRepo.saveAll(entries);
+    }
+
+    /**
+     * Reconstructs the balance of an account at a point in time.
+     * 
+     * @param accountId the account ID
+     * @param asOf the point in time
+     * @return the balance, with the snapshot and number of entries it was built from
+     */
+    public LedgerBalance balanceAt(long accountId, LocalDateTime asOf) {
+        BalanceSnapshot snapshot = snapshotRepo
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, asOf)
+                .orElse(null);
+        LocalDateTime after = snapshot == null ? BEGINNING : snapshot.getAsOf();
+        long balance = snapshot == null ? 0 : snapshot.getBalance();
+
+        Object[] tail = entryRepo.sumForAccount(accountId, after, asOf).get(0);
+        balance = Money.add(balance, Money.fromDecimal(decimal(tail[0])));
+        return new LedgerBalance(accountId, asOf, balance,
+                snapshot == null ? null : snapshot.getAsOf(), ((Number) tail[1]).longValue());
+    }
+
+    /**
+     * Converts a native query's numeric column to a decimal, whatever type the
+     * driver chose for it.
+     */
+    static BigDecimal decimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static List<LedgerEntry> transferEntries(Transaction transaction, LocalDateTime timestamp) {
+        return List.of(
+                entry(transaction.getFromAccountId(), -transaction.getAmount(), LedgerEntry.TRANSFER,
+                        transaction.getTransactionId(), timestamp),
+                entry(transaction.getToAccountId(), transaction.getAmount(), LedgerEntry.TRANSFER,
+                        transaction.getTransactionId(), timestamp));
+    }
+
+    private static LedgerEntry entry(long accountId, long amount, String kind, Long transactionId,
+                                     LocalDateTime timestamp) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setAccountId(accountId);
+        entry.setAmount(amount);
+        entry.setKind(kind);
+        entry.setTransactionId(transactionId);
+        entry.setTimestamp(timestamp);
+        return entry;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * 
+ */
+package com.banking.ledger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.model.Account;
+import com.banking.model.BalanceSnapshot;
+import com.banking.model.LedgerEntry;
+import com.banking.money.Money;
+import com.banking.repository.AccountRepo;
+import com.banking.repository.BalanceSnapshotRepo;
+import com.banking.repository.LedgerEntryRepo;
+import com.banking.shard.BalanceShards;
+
+/**
+ * Materialises the ledger into periodic {@link BalanceSnapshot}s.
+ * 
+ * <p>Every <code>banking.ledger.snapshot.interval</code> a new snapshot time (the
+ * <i>cut</i>) is chosen, <code>banking.ledger.snapshot.settle-delay</code> in the
+ * past so that entries written just before it have committed. Entries are stamped
+ * when they are written (see {@link Ledger}), so the delay only has to cover a
+ * database transaction, not a request's wait for locks or a queue. For every
+ * account with entries since the previous cut, the new snapshot is its previous
+ * snapshot plus the sum of those entries; all accounts are handled by one grouped
+ * query over the window. Accounts without entries in the window keep their previous
+ * snapshot, which is still exact.</p>
+ * 
+ * <p>The previous snapshot is always looked up as of the previous cut, so two nodes
+ * running the job at the same time still produce correct, if redundant, snapshots.</p>
+ * 
+ * <p>On startup, every account that has no ledger entry yet, such as one created
+ * before the ledger existed, gets an opening entry with its current balance. Its
+ * history starts there.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class LedgerSnapshotter implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerSnapshotter.class);
+
+    /**
+     * Accounts handled per query and per JDBC batch.
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    private final AccountRepo accountRepo;
+
+    private final LedgerEntryRepo entryRepo;
+
+    private final BalanceSnapshotRepo snapshotRepo;
+
+    private final BalanceShards balanceShards;
+
+    /**
+     * Runs each snapshot and each backfill chunk in one database transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * How far behind the current time the snapshot cut is taken.
+     */
+    private final Duration settleDelay;
+
+    /**
+     * Creates the snapshotter.
+     * 
+     * @param accountRepo repository used to find accounts without ledger entries
+     * @param entryRepo repository for ledger entries
+     * @param snapshotRepo repository for balance snapshots
+     * @param balanceShards used to read the full balance of sharded accounts
+     * @param transactionManager transaction manager used for snapshots
+     * @param settleDelay how far behind the current time the snapshot cut is taken
+     */
+    public LedgerSnapshotter(AccountRepo accountRepo, LedgerEntryRepo entryRepo,
+                             BalanceSnapshotRepo snapshotRepo, BalanceShards balanceShards,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${banking.ledger.snapshot.settle-delay:1m}") Duration settleDelay) {
+        this.accountRepo = accountRepo;
+        this.entryRepo = entryRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.balanceShards = balanceShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleDelay = settleDelay;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int opened = backfillOpeningEntries();
+        if (opened > 0) {
+            log.info("Recorded opening ledger entries for {} accounts", opened);
+        }
+    }
+
+    /**
+     * Takes the periodic snapshot.
+     */
+    @Scheduled(fixedDelayString = "${banking.ledger.snapshot.interval:1h}",
+            initialDelayString = "${banking.ledger.snapshot.interval:1h}")
+    public void takeScheduledSnapshot() {
+        int accounts = takeSnapshot(LocalDateTime.now().minus(settleDelay));
+        log.debug("Ledger snapshot covered {} accounts", accounts);
+    }
+
+    /**
+     * Snapshots every account with ledger entries between the previous cut and this
+     * one.
+     * 
+     * @param time the snapshot time; must be later than every earlier cut. It is
+     *        truncated to the microsecond precision of the timestamp columns.
+     * @return the number of snapshots written
+     */
+    public int takeSnapshot(LocalDateTime time) {
+        LocalDateTime cut = time.truncatedTo(ChronoUnit.MICROS);
+        return transactionTemplate.execute(status -> {
+            LocalDateTime latest = snapshotRepo.findLatestAsOf();
+            LocalDateTime previous = latest == null ? Ledger.BEGINNING : latest;
+            if (!cut.isAfter(previous)) {
+                return 0;
+            }
+
+            List<Object[]> deltas = entryRepo.sumByAccount(previous, cut);
+            for (int from = 0; from < deltas.size(); from += CHUNK_SIZE) {
+                snapshotChunk(deltas.subList(from, Math.min(from + CHUNK_SIZE, deltas.size())), previous, cut);
+            }
+            return deltas.size();
+        });
+    }
+
+    /**
+     * Adds one chunk of window sums to the accounts' previous snapshots.
+     */
+    private void snapshotChunk(List<Object[]> deltas, LocalDateTime previous, LocalDateTime cut) {
+        List<Long> accountIds = new ArrayList<>(deltas.size());
+        for (Object[] delta : deltas) {
+            accountIds.add(((Number) delta[0]).longValue());
+        }
+        Map<Long, Long> previousBalances = new HashMap<>();
+        for (Object[] row : snapshotRepo.findLatestBalances(accountIds, previous)) {
+            previousBalances.put(((Number) row[0]).longValue(), Money.fromDecimal(Ledger.decimal(row[1])));
+        }
+
+        List<BalanceSnapshot> snapshots = new ArrayList<>(deltas.size());
+        for (Object[] delta : deltas) {
+            long accountId = ((Number) delta[0]).longValue();
+            BalanceSnapshot snapshot = new BalanceSnapshot();
+            snapshot.setAccountId(accountId);
+            snapshot.setAsOf(cut);
+            snapshot.setBalance(Money.add(previousBalances.getOrDefault(accountId, 0L),
+                    Money.fromDecimal(Ledger.decimal(delta[1]))));
+            snapshots.add(snapshot);
+        }
+        snapshotRepo.saveAll(snapshots);
+    }
+
+    /**
+     * Gives every account without ledger entries an opening entry with its current
+     * balance.
+     * 
+     * @return the number of accounts backfilled
+     */
+    public int backfillOpeningEntries() {
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Account> accounts = transactionTemplate.execute(status -> {
+                List<Account> chunk = accountRepo.findWithoutLedgerEntries(from, PageRequest.of(0, CHUNK_SIZE));
+                List<LedgerEntry> entries = new ArrayList<>(chunk.size());
+                for (Account account : chunk) {
+                    long balance = balanceShards.isSharded(account.getAccountId())
+                            ? balanceShards.withShards(account).getBalance()
+                            : account.getBalance();
+                    LedgerEntry entry = new LedgerEntry();
+                    entry.setAccountId(account.getAccountId());
+                    entry.setAmount(balance);
+                    entry.setKind(LedgerEntry.OPENING);
+                    entry.setTimestamp(LocalDateTime.now());
+                    entries.add(entry);
+                }
+                entryRepo.saveAll(entries);
+                return chunk;
+            });
+            if (accounts.isEmpty()) {
+                return total;
+            }
+            total += accounts.size();
+            afterId = accounts.get(accounts.size() - 1).getAccountId();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * 
+ */
+package com.banking.listing;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The account properties a listing can select, with their JSON names and columns.
+ * 
+ * <p>Only these names ever reach the SQL of a listing, so the <code>fields</code>
+ * parameter cannot inject anything into it.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public enum AccountField {
+
+    ACCOUNT_ID("accountId", "account_id"),
+    CUSTOMER_ID("customerId", "customer_id"),
+    ACCOUNT_TYPE("accountType", "account_type"),
+    BALANCE("balance", "balance"),
+    STATUS("status", "status"),
+    BALANCE_SHARDS("balanceShards", "balance_shards");
+
+    private final String property;
+
+    private final String column;
+
+    AccountField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    /**
+     * Returns the JSON property name, as in {@link com.banking.model.Account}.
+     * @return property
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns the column of <b>Bank_Details</b>.
+     * @return column
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Parses a comma-separated list of property names. The account ID is always
+     * selected, because it is the cursor of the next page.
+     * 
+     * @param fields property names such as <code>"balance,status"</code>, or
+     *        {@code null} or blank for all of them
+     * @return the selected fields, in declaration order
+     * @throws IllegalArgumentException if a name is not a known property
+     */
+    public static Set<AccountField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(AccountField.class);
+        }
+        Set<AccountField> selected = EnumSet.of(ACCOUNT_ID);
+        for (String name : fields.split(",")) {
+            selected.add(of(name.trim()));
+        }
+        return selected;
+    }
+
+    private static AccountField of(String property) {
+        for (AccountField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("unknown account field: " + property);
+    }
+}
@@ -0,0 +1,284 @@
+/**
+ * 
+ */
+package com.banking.listing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.concurrency.StripedAccountLocks;
+import com.banking.model.Account;
+import com.banking.model.AccountPage;
+import com.banking.model.AccountRow;
+import com.banking.money.Money;
+import com.banking.repository.AccountRepo;
+import com.banking.shard.BalanceShards;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lists accounts page by page or as one stream, selecting only the requested
+ * columns.
+ * 
+ * <p>Rows are read with plain JDBC, never as entities, so a listing costs neither
+ * a persistence context nor the columns nobody asked for. A page holds each row as
+ * an {@link AccountRow} with the unselected fields left {@code null}; the stream
+ * writes the columns of each row straight to JSON. Every listing is in account ID order, the order of the
+ * primary key. A keyset page (<code>afterId</code>) starts with a seek on the
+ * primary key, so deep pages cost the same as the first one; an offset page
+ * (<code>page</code>) has to skip the rows before it and suits only shallow pages.
+ * Status and type filters are applied to the rows as they are scanned.</p>
+ * 
+ * <p>{@link #stream} writes one JSON object per line straight from a database
+ * cursor, fetching {@link #FETCH_SIZE} rows at a time; on MySQL that needs
+ * <code>useCursorFetch=true</code> in the JDBC URL.</p>
+ * 
+ * <p>Balances of sharded accounts include their shards.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class AccountListing {
+
+    /**
+     * Largest page returned.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Rows fetched per round-trip when streaming.
+     */
+    static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AccountRepo accountRepo;
+
+    private final StripedAccountLocks accountLocks;
+
+    private final BalanceShards balanceShards;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Creates the listing.
+     * 
+     * @param jdbcTemplate used to read the accounts
+     * @param accountRepo used to re-read sharded accounts
+     * @param accountLocks lock stripes held while a sharded balance is added up
+     * @param balanceShards adds the shards to the balances of sharded accounts
+     * @param objectMapper whose factory writes the streamed rows
+     * @param transactionManager transaction manager for the read-only stream
+     */
+    public AccountListing(JdbcTemplate jdbcTemplate, AccountRepo accountRepo, StripedAccountLocks accountLocks,
+                          BalanceShards balanceShards, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepo = accountRepo;
+        this.accountLocks = accountLocks;
+        this.balanceShards = balanceShards;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Reads one page of accounts.
+     * 
+     * @param fields the fields to select
+     * @param status only accounts with this status, or {@code null} for all
+     * @param accountType only accounts of this type, or {@code null} for all
+     * @param page zero-based page number for offset pagination, or {@code null}
+     * @param afterId last account ID of the previous page for keyset pagination, or
+     *        {@code null}
+     * @param size page size, at most {@link #MAX_PAGE_SIZE}
+     * @return the page, with the cursor of the next one
+     * @throws IllegalArgumentException if both a page number and a cursor are given,
+     *         or the page number is negative
+     */
+    public AccountPage page(Set<AccountField> fields, String status, String accountType, Integer page,
+                            Long afterId, int size) {
+        if (page != null && afterId != null) {
+            throw new IllegalArgumentException("pass either page or afterId, not both");
+        }
+        if (page != null && page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = select(fields, status, accountType, afterId, args);
+        // Ask for one extra row to learn whether another page exists
+        sql.append(" LIMIT ?");
+        args.add(limit + 1);
+        if (page != null) {
+            sql.append(" OFFSET ?");
+            args.add((long) page * limit);
+        }
+        List<AccountRow> rows = jdbcTemplate.query(sql.toString(), (row, rowNum) -> read(row, fields),
+                args.toArray());
+
+        AccountPage result = new AccountPage();
+        result.setPage(page);
+        result.setHasMore(rows.size() > limit);
+        result.setItems(result.isHasMore() ? rows.subList(0, limit) : rows);
+        if (!result.getItems().isEmpty()) {
+            result.setNextAfterId(result.getItems().get(result.getItems().size() - 1).accountId());
+        }
+        return result;
+    }
+
+    /**
+     * Writes every matching account as one JSON object per line, leaving out
+     * {@code null} values as a page does.
+     * 
+     * @param fields the fields to select
+     * @param status only accounts with this status, or {@code null} for all
+     * @param accountType only accounts of this type, or {@code null} for all
+     * @param out the stream to write to; it is flushed but not closed
+     * @return the number of accounts written
+     * @throws UncheckedIOException if the stream cannot be written
+     */
+    public long stream(Set<AccountField> fields, String status, String accountType, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sql = select(fields, status, accountType, null, args).toString();
+        return readOnlyTransaction.execute(tx -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.setRootValueSeparator(null);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                long[] count = new long[1];
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql);
+                    statement.setFetchSize(FETCH_SIZE);
+                    for (int i = 0; i < args.size(); i++) {
+                        statement.setObject(i + 1, args.get(i));
+                    }
+                    return statement;
+                }, (ResultSet row) -> {
+                    write(json, row, fields);
+                    count[0]++;
+                });
+                json.flush();
+                return count[0];
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static StringBuilder select(Set<AccountField> fields, String status, String accountType, Long afterId,
+                                        List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        String separator = "";
+        for (AccountField field : fields) {
+            sql.append(separator).append(field.getColumn());
+            separator = ", ";
+        }
+        sql.append(" FROM bank_details WHERE account_id > ?");
+        args.add(afterId != null ? afterId : 0L);
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status);
+        }
+        if (accountType != null) {
+            sql.append(" AND account_type = ?");
+            args.add(accountType);
+        }
+        return sql.append(" ORDER BY account_id");
+    }
+
+    private AccountRow read(ResultSet row, Set<AccountField> fields) throws SQLException {
+        long accountId = 0;
+        Long customerId = null;
+        String accountType = null;
+        Long balance = null;
+        String status = null;
+        Integer balanceShards = null;
+        int column = 1;
+        for (AccountField field : fields) {
+            switch (field) {
+                case ACCOUNT_ID -> accountId = row.getLong(column);
+                case CUSTOMER_ID -> customerId = row.getLong(column);
+                case ACCOUNT_TYPE -> accountType = row.getString(column);
+                case BALANCE -> balance = balance(row, column, accountId);
+                case STATUS -> status = row.getString(column);
+                case BALANCE_SHARDS -> {
+                    int shards = row.getInt(column);
+                    balanceShards = row.wasNull() ? null : shards;
+                }
+            }
+            column++;
+        }
+        return new AccountRow(accountId, customerId, accountType, balance, status, balanceShards);
+    }
+
+    private void write(JsonGenerator json, ResultSet row, Set<AccountField> fields) throws SQLException {
+        try {
+            json.writeStartObject();
+            long accountId = 0;
+            int column = 1;
+            for (AccountField field : fields) {
+                switch (field) {
+                    case ACCOUNT_ID -> {
+                        accountId = row.getLong(column);
+                        json.writeNumberField(field.getProperty(), accountId);
+                    }
+                    case CUSTOMER_ID -> json.writeNumberField(field.getProperty(), row.getLong(column));
+                    case BALANCE -> json.writeNumberField(field.getProperty(),
+                            Money.toDecimal(balance(row, column, accountId)));
+                    case BALANCE_SHARDS -> {
+                        int shards = row.getInt(column);
+                        if (!row.wasNull()) {
+                            json.writeNumberField(field.getProperty(), shards);
+                        }
+                    }
+                    default -> {
+                        String value = row.getString(column);
+                        if (value != null) {
+                            json.writeStringField(field.getProperty(), value);
+                        }
+                    }
+                }
+                column++;
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the balance column in minor units, adding the shards of a sharded
+     * account. The account ID comes first in every selection, so it has been read by
+     * then.
+     */
+    private long balance(ResultSet row, int column, long accountId) throws SQLException {
+        if (balanceShards.isSharded(accountId)) {
+            return totalBalance(accountId);
+        }
+        return Money.fromStoredDecimal(row.getBigDecimal(column));
+    }
+
+    /**
+     * Reads the balance of a sharded account, with its shards, under its lock
+     * stripe so that no sweep runs in between.
+     */
+    private long totalBalance(long accountId) {
+        return accountLocks.withAccountLock(accountId, () -> accountRepo.findById(accountId)
+                .map(balanceShards::withShards).map(Account::getBalance).orElse(0L));
+    }
+}
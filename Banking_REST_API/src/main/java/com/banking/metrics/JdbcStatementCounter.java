@@ -0,0 +1,166 @@
+/**
+ * 
+ */
+package com.banking.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements sent to the database on the current thread.
+ * 
+ * <p>Installed as a {@link BeanPostProcessor} that wraps the application's
+ * {@link DataSource}, so every statement is seen at the JDBC layer whoever issues
+ * it: Hibernate, <code>JdbcTemplate</code>, the table ID generator or plain JDBC.
+ * A statement counts once when it is prepared or created. A JDBC batch is sent
+ * with its statement and so counts once as well; only further
+ * <code>executeBatch</code> calls on the same statement count again, which keeps
+ * the count a good proxy for database round-trips.</p>
+ * 
+ * <p>The wrapper is a class-based proxy, so the bean keeps its type (for example
+ * <code>HikariDataSource</code>) for code that unwraps or injects it.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class JdbcStatementCounter implements BeanPostProcessor {
+
+    /**
+     * Statements sent by each thread since its last {@link #reset}.
+     */
+    private final ThreadLocal<int[]> counts = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            Object result = invocation.proceed();
+            if (result instanceof Connection connection) {
+                return proxy(Connection.class, new CountingConnection(connection));
+            }
+            return result;
+        });
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    /**
+     * Starts a new count on the current thread.
+     */
+    public void reset() {
+        counts.get()[0] = 0;
+    }
+
+    /**
+     * Returns the statements sent on the current thread since {@link #reset}.
+     * 
+     * @return statement count
+     */
+    public int current() {
+        return counts.get()[0];
+    }
+
+    private void increment() {
+        counts.get()[0]++;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(JdbcStatementCounter.class.getClassLoader(),
+                new Class<?>[] {type}, handler));
+    }
+
+    /**
+     * Calls the wrapped object, rethrowing what it threw rather than the reflection wrapper.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Counts each statement a connection prepares or creates and wraps it to see its batches.
+     * 
+     * <p>Equality is identity, so the proxy can be compared with itself by the
+     * transaction managers that hold it.</p>
+     */
+    private final class CountingConnection implements InvocationHandler {
+
+        private final Connection target;
+
+        CountingConnection(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                case "prepareCall":
+                case "createStatement":
+                    Statement statement = (Statement) JdbcStatementCounter.invoke(target, method, args);
+                    increment();
+                    return proxy(method.getReturnType().asSubclass(Statement.class),
+                            new CountingStatement(statement));
+                default:
+                    return JdbcStatementCounter.invoke(target, method, args);
+            }
+        }
+    }
+
+    /**
+     * Counts the <code>executeBatch</code> calls of a statement after its first one.
+     */
+    private final class CountingStatement implements InvocationHandler {
+
+        private final Statement target;
+
+        /**
+         * Whether the statement has sent a batch yet.
+         */
+        private boolean batched;
+
+        CountingStatement(Statement target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "executeBatch":
+                case "executeLargeBatch":
+                    if (batched) {
+                        increment();
+                    }
+                    batched = true;
+                    return JdbcStatementCounter.invoke(target, method, args);
+                default:
+                    return JdbcStatementCounter.invoke(target, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * 
+ */
+package com.banking.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements each HTTP request issued, as the distribution
+ * summary <code>banking.http.jdbc.statements</code> tagged with the request's
+ * <i>method</i> and <i>uri</i> template.
+ * 
+ * <p>Counts come from {@link JdbcStatementCounter}. Only statements run on the
+ * request thread are seen, so for streamed responses the count covers the work done
+ * before streaming starts.</p>
+ * 
+ * <p>The summaries are registered once per method and URI template and kept in a
+ * map, so a request costs two hash lookups rather than a meter builder and a
+ * registry lookup.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class JdbcStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final JdbcStatementCounter statementCounter;
+    private final MeterRegistry registry;
+
+    /**
+     * Registered summaries, by HTTP method and then by URI template.
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, DistributionSummary>> summaries =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates the filter.
+     * 
+     * @param statementCounter per-thread statement counter
+     * @param registry the application's meter registry
+     */
+    public JdbcStatementMetricsFilter(JdbcStatementCounter statementCounter, MeterRegistry registry) {
+        this.statementCounter = statementCounter;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        statementCounter.reset();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            summary(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN")
+                    .record(statementCounter.current());
+        }
+    }
+
+    /**
+     * Returns the summary of one method and URI template, registering it on first use.
+     */
+    private DistributionSummary summary(String method, String uri) {
+        ConcurrentHashMap<String, DistributionSummary> byUri = summaries.get(method);
+        if (byUri == null) {
+            byUri = summaries.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        }
+        DistributionSummary summary = byUri.get(uri);
+        if (summary == null) {
+            summary = byUri.computeIfAbsent(uri, u -> DistributionSummary.builder("banking.http.jdbc.statements")
+                    .description("SQL statements issued per HTTP request")
+                    .baseUnit("statements")
+                    .tag("method", method)
+                    .tag("uri", u)
+                    .register(registry));
+        }
+        return summary;
+    }
+}
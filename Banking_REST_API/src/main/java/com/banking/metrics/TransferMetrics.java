@@ -0,0 +1,200 @@
+/**
+ * 
+ */
+package com.banking.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for the transfer hot path.
+ * 
+ * <ul>
+ *   <li><code>banking.transfer</code>: a timer of each single transfer end to end,
+ *       tagged with <i>outcome</i> and <i>reason</i> (see {@link Reason}). Its
+ *       count is the number of transfers per outcome.</li>
+ *   <li><code>banking.transfer.step</code>: a timer per {@link Step}, tagged with
+ *       <i>step</i>.</li>
+ *   <li><code>banking.transfer.batch</code>: a timer of each batch, and
+ *       <code>banking.transfer.batch.items</code>, a counter of batch items per
+ *       outcome and reason.</li>
+ * </ul>
+ * 
+ * <p>Every meter is registered up front and kept in an array indexed by enum
+ * ordinal, so recording is a {@link System#nanoTime()} call and a histogram update
+ * with no registry lookup. Percentile histograms are switched on in
+ * <code>application.properties</code>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class TransferMetrics {
+
+    /**
+     * Phases of a single transfer. Debit and credit run in ascending account ID
+     * order, so either may come first.
+     */
+    public enum Step {
+        /** Waiting for the stripe locks of both accounts. */
+        LOCK_WAIT,
+        /** The conditional UPDATE withdrawing from the source account. */
+        DEBIT,
+        /** The conditional UPDATE depositing into the destination account. */
+        CREDIT,
+        /** Recording the audit row and the ledger entries. */
+        AUDIT,
+        /** Committing the database transaction. */
+        COMMIT;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    /**
+     * Why a transfer ended the way it did.
+     */
+    public enum Reason {
+        /** Money moved. */
+        COMPLETED("SUCCESS"),
+        /** A request without a source or destination account ID. */
+        MISSING_ACCOUNT_ID("FAILED"),
+        /** A zero or negative amount. */
+        INVALID_AMOUNT("FAILED"),
+        /** The source or destination account does not exist. */
+        ACCOUNT_NOT_FOUND("FAILED"),
+        /** The source or destination account is not active. */
+        ACCOUNT_INACTIVE("FAILED"),
+        /** The source balance is lower than the amount. */
+        INSUFFICIENT_FUNDS("FAILED"),
+        /** A new balance would not fit in 64 bits. */
+        BALANCE_OVERFLOW("FAILED"),
+        /** The idempotency key was already processed; the original was returned. */
+        IDEMPOTENT_REPLAY("REPLAYED"),
+        /** The transfer threw an exception. */
+        EXCEPTION("ERROR");
+
+        private final String outcome;
+        private final String tag = name().toLowerCase();
+
+        Reason(String outcome) {
+            this.outcome = outcome;
+        }
+
+        /**
+         * Returns the outcome tag, which matches the transaction status where there is one.
+         * 
+         * @return SUCCESS, FAILED, REPLAYED or ERROR
+         */
+        public String getOutcome() {
+            return outcome;
+        }
+    }
+
+    private final Timer[] transferTimers = new Timer[Reason.values().length];
+    private final Counter[] batchItemCounters = new Counter[Reason.values().length];
+    private final Timer[] stepTimers = new Timer[Step.values().length];
+    private final Timer batchTimer;
+
+    /**
+     * Registers all transfer meters.
+     * 
+     * @param registry the application's meter registry
+     */
+    public TransferMetrics(MeterRegistry registry) {
+        for (Reason reason : Reason.values()) {
+            transferTimers[reason.ordinal()] = Timer.builder("banking.transfer")
+                    .description("Single transfers, end to end")
+                    .tag("outcome", reason.outcome)
+                    .tag("reason", reason.tag)
+                    .register(registry);
+            batchItemCounters[reason.ordinal()] = Counter.builder("banking.transfer.batch.items")
+                    .description("Items of batch transfers")
+                    .tag("outcome", reason.outcome)
+                    .tag("reason", reason.tag)
+                    .register(registry);
+        }
+        for (Step step : Step.values()) {
+            stepTimers[step.ordinal()] = Timer.builder("banking.transfer.step")
+                    .description("Phases of a single transfer")
+                    .tag("step", step.tag)
+                    .register(registry);
+        }
+        batchTimer = Timer.builder("banking.transfer.batch")
+                .description("Batch transfers, end to end")
+                .register(registry);
+    }
+
+    /**
+     * Starts timing a single transfer.
+     * 
+     * @return a trace to record the transfer's steps and outcome on
+     */
+    public Trace start() {
+        return new Trace(System.nanoTime());
+    }
+
+    /**
+     * Records a finished batch.
+     * 
+     * @param startNanos {@link System#nanoTime()} when the batch started
+     */
+    public void recordBatch(long startNanos) {
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts one batch item.
+     * 
+     * @param reason how the item ended
+     */
+    public void countBatchItem(Reason reason) {
+        batchItemCounters[reason.ordinal()].increment();
+    }
+
+    /**
+     * Timing state of one single transfer. Not thread-safe; used by the thread
+     * running the transfer.
+     */
+    public final class Trace {
+
+        private final long startNanos;
+        private long lastNanos;
+        private Reason reason = Reason.COMPLETED;
+
+        private Trace(long startNanos) {
+            this.startNanos = startNanos;
+            this.lastNanos = startNanos;
+        }
+
+        /**
+         * Records the time since the previous step (or the start) against a step.
+         * 
+         * @param step the step that just finished
+         */
+        public void step(Step step) {
+            long now = System.nanoTime();
+            stepTimers[step.ordinal()].record(now - lastNanos, TimeUnit.NANOSECONDS);
+            lastNanos = now;
+        }
+
+        /**
+         * Marks the transfer as ended for a reason other than {@link Reason#COMPLETED}.
+         * 
+         * @param reason why it ended
+         */
+        public void reason(Reason reason) {
+            this.reason = reason;
+        }
+
+        /**
+         * Records the end-to-end time and outcome of the transfer.
+         */
+        public void finish() {
+            transferTimers[reason.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
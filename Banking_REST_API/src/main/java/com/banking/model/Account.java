@@ -3,11 +3,22 @@
  */
 package com.banking.model;
 
+import com.banking.money.MoneyConverter;
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 
 /**
  * Represents the Account entity for storing customer banking details.
@@ -19,22 +30,35 @@ import jakarta.persistence.Table;
  * <p>Used by the Banking/Wallet REST API for account-related operations 
  * like create, update, deposit, withdraw, and transfer.</p>
  * 
+ * <p>{@link #version} is checked and incremented by Hibernate on every entity
+ * update; the native balance UPDATEs increment it too. An entity saved after
+ * another writer changed the row fails instead of overwriting that change.</p>
+ * 
  * @author Madhusudan Dande
  */
 @Entity
-@Table(name = "Bank_Details")
+@Table(name = "Bank_Details", indexes = {
+        @Index(name = "idx_bank_details_customer", columnList = "customerId, accountId")
+})
 public class Account {
 
     /**
      * Unique account identifier (Primary Key).
-     * Auto-generated by the database.
+     * Allocated in blocks from the <b>id_generator</b> table (see {@link IdGenerators}).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.ACCOUNT)
+    @TableGenerator(name = IdGenerators.ACCOUNT,
+            table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.ACCOUNT,
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private long accountId;
 
     /**
-     * Customer ID to whom this account belongs.
+     * Customer ID to whom this account belongs. Indexed together with the account
+     * ID, so a customer's accounts are read in order from the index.
      */
     private long customerId;
 
@@ -44,15 +68,34 @@ public class Account {
     private String accountType;
 
     /**
-     * Current available balance in the account.
+     * Current available balance in the account, in minor units (see
+     * {@link com.banking.money.Money}). Stored as DECIMAL and exposed in JSON as a
+     * decimal amount.
      */
-    private double balance;
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long balance;
 
     /**
      * Current status of the account (e.g., "Active", "Inactive", "Closed").
      */
     private String status;
 
+    /**
+     * Number of {@link AccountShard} sub-balances that credits to this account are
+     * spread across; {@code null} or 0 for an ordinary account.
+     */
+    private Integer balanceShards;
+
+    /**
+     * Optimistic-lock version, incremented by every write to the row.
+     */
+    @Version
+    @JsonIgnore
+    private long version;
+
     // ---------------------------------------------------------
     // Getters and Setters
     // ---------------------------------------------------------
@@ -107,17 +150,17 @@ public class Account {
 
     /**
      * Returns the current balance of the account.
-     * @return balance
+     * @return balance in minor units
      */
-    public double getBalance() {
+    public long getBalance() {
         return balance;
     }
 
     /**
      * Updates the account balance.
-     * @param balance the new balance value
+     * @param balance the new balance value in minor units
      */
-    public void setBalance(double balance) {
+    public void setBalance(long balance) {
         this.balance = balance;
     }
 
@@ -136,4 +179,54 @@ public class Account {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    /**
+     * Returns the number of balance shards.
+     * @return balanceShards, {@code null} or 0 if the account is not sharded
+     */
+    public Integer getBalanceShards() {
+        return balanceShards;
+    }
+
+    /**
+     * Sets the number of balance shards.
+     * @param balanceShards the shard count, 0 for an ordinary account
+     */
+    public void setBalanceShards(Integer balanceShards) {
+        this.balanceShards = balanceShards;
+    }
+
+    /**
+     * Returns the optimistic-lock version.
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic-lock version; only Hibernate and copies should call this.
+     * @param version the row version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns a detached copy of an account, safe to change without affecting the
+     * original or the persistence context.
+     * @param source the account to copy
+     * @return a new {@link Account} with the same field values
+     */
+    public static Account copyOf(Account source) {
+        Account copy = new Account();
+        copy.setAccountId(source.getAccountId());
+        copy.setCustomerId(source.getCustomerId());
+        copy.setAccountType(source.getAccountType());
+        copy.setBalance(source.getBalance());
+        copy.setStatus(source.getStatus());
+        copy.setBalanceShards(source.getBalanceShards());
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
 }
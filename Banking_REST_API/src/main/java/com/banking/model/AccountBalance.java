@@ -0,0 +1,82 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Balance and status of one account, as returned by the multi-account balance
+ * lookup.
+ * 
+ * <p>Read with a JPQL constructor expression, so the rows are never loaded as
+ * managed {@link Account} entities.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public class AccountBalance {
+
+    /**
+     * The account ID.
+     */
+    private final long accountId;
+
+    /**
+     * Current balance in minor units; includes the shards of a sharded account.
+     */
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    private final long balance;
+
+    /**
+     * Current status of the account.
+     */
+    private final String status;
+
+    /**
+     * Creates the projection.
+     * 
+     * @param accountId the account ID
+     * @param balance the balance in minor units
+     * @param status the account status
+     */
+    public AccountBalance(long accountId, long balance, String status) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.status = status;
+    }
+
+    /**
+     * Creates the projection of an account already loaded.
+     * 
+     * @param account the account
+     * @return its balance and status
+     */
+    public static AccountBalance of(Account account) {
+        return new AccountBalance(account.getAccountId(), account.getBalance(), account.getStatus());
+    }
+
+    /**
+     * Returns the account ID.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Returns the balance in minor units.
+     * @return balance
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the account status.
+     * @return status
+     */
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import com.banking.money.MoneyConverter;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Transfer totals of one account for one day: what it sent, what it received and
+ * how many of its transfers failed.
+ * 
+ * <p>Rows are kept up to date by every transfer (see
+ * {@link com.banking.report.DailyRollups}), so a report over a date range reads one
+ * row per day instead of every {@link Transaction} in it. The day is the local date
+ * of the transaction's timestamp.</p>
+ * 
+ * <p>An account can have several rows for the same day, told apart by
+ * {@link #getSlot() slot}. Credits to a sharded account (see
+ * {@link com.banking.shard.BalanceShards}) are spread over as many slots as it has
+ * shards, so they do not all queue on one row lock; everything else uses slot 0.
+ * Reports add the slots up.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "account_daily_rollup")
+@IdClass(AccountDailyRollup.Key.class)
+public class AccountDailyRollup {
+
+    /**
+     * The account these totals belong to.
+     */
+    @Id
+    private long accountId;
+
+    /**
+     * The day the totals cover.
+     */
+    @Id
+    private LocalDate rollupDate;
+
+    /**
+     * Spreads the updates of hot accounts over several rows; 0 for most accounts.
+     */
+    @Id
+    private int slot;
+
+    /**
+     * Number of successful transfers sent.
+     */
+    private long debitCount;
+
+    /**
+     * Sum of the successful transfers sent, in minor units.
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    private long debitTotal;
+
+    /**
+     * Number of successful transfers received.
+     */
+    private long creditCount;
+
+    /**
+     * Sum of the successful transfers received, in minor units.
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    private long creditTotal;
+
+    /**
+     * Number of transfers sent that failed.
+     */
+    private long failedCount;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the account ID.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Sets the account ID.
+     * @param accountId the account ID
+     */
+    public void setAccountId(long accountId) {
+        this.accountId = accountId;
+    }
+
+    /**
+     * Returns the day the totals cover.
+     * @return rollupDate
+     */
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    /**
+     * Sets the day the totals cover.
+     * @param rollupDate the day
+     */
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    /**
+     * Returns the slot number.
+     * @return slot
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Sets the slot number.
+     * @param slot the slot number
+     */
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the number of successful transfers sent.
+     * @return debitCount
+     */
+    public long getDebitCount() {
+        return debitCount;
+    }
+
+    /**
+     * Sets the number of successful transfers sent.
+     * @param debitCount the count
+     */
+    public void setDebitCount(long debitCount) {
+        this.debitCount = debitCount;
+    }
+
+    /**
+     * Returns the sum of the successful transfers sent.
+     * @return debitTotal in minor units
+     */
+    public long getDebitTotal() {
+        return debitTotal;
+    }
+
+    /**
+     * Sets the sum of the successful transfers sent.
+     * @param debitTotal the sum in minor units
+     */
+    public void setDebitTotal(long debitTotal) {
+        this.debitTotal = debitTotal;
+    }
+
+    /**
+     * Returns the number of successful transfers received.
+     * @return creditCount
+     */
+    public long getCreditCount() {
+        return creditCount;
+    }
+
+    /**
+     * Sets the number of successful transfers received.
+     * @param creditCount the count
+     */
+    public void setCreditCount(long creditCount) {
+        this.creditCount = creditCount;
+    }
+
+    /**
+     * Returns the sum of the successful transfers received.
+     * @return creditTotal in minor units
+     */
+    public long getCreditTotal() {
+        return creditTotal;
+    }
+
+    /**
+     * Sets the sum of the successful transfers received.
+     * @param creditTotal the sum in minor units
+     */
+    public void setCreditTotal(long creditTotal) {
+        this.creditTotal = creditTotal;
+    }
+
+    /**
+     * Returns the number of transfers sent that failed.
+     * @return failedCount
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Sets the number of transfers sent that failed.
+     * @param failedCount the count
+     */
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * Composite primary key: account ID, day and slot.
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long accountId;
+        private LocalDate rollupDate;
+        private int slot;
+
+        public Key() {
+        }
+
+        public Key(long accountId, LocalDate rollupDate, int slot) {
+            this.accountId = accountId;
+            this.rollupDate = rollupDate;
+            this.slot = slot;
+        }
+
+        public long getAccountId() {
+            return accountId;
+        }
+
+        public LocalDate getRollupDate() {
+            return rollupDate;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.accountId == accountId
+                    && Objects.equals(key.rollupDate, rollupDate) && key.slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, rollupDate, slot);
+        }
+    }
+}
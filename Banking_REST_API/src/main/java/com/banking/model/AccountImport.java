@@ -0,0 +1,202 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A bulk account import, identified by a client-chosen ID.
+ * 
+ * <p>The input of an import is split into chunks of {@link #getChunkSize()} records,
+ * numbered from 0. Every chunk is committed on its own together with an
+ * {@link AccountImportChunk} row, so the chunk rows say exactly how far an
+ * interrupted import got. Sending the same input again under the same ID skips those
+ * chunks, which is why the chunk size of an import never changes once it has
+ * started.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "account_import")
+public class AccountImport {
+
+    /**
+     * Maximum length of an import ID.
+     */
+    public static final int MAX_ID_LENGTH = 64;
+
+    /**
+     * The import is reading its input, or was interrupted without noticing.
+     */
+    public static final String RUNNING = "RUNNING";
+
+    /**
+     * Every chunk of the input has been committed.
+     */
+    public static final String COMPLETED = "COMPLETED";
+
+    /**
+     * The last run stopped on an error; running it again resumes it.
+     */
+    public static final String FAILED = "FAILED";
+
+    /**
+     * Client-chosen import ID.
+     */
+    @Id
+    @Column(length = MAX_ID_LENGTH)
+    private String importId;
+
+    /**
+     * Input format, JSON or CSV.
+     */
+    private String format;
+
+    /**
+     * Records per chunk.
+     */
+    private int chunkSize;
+
+    /**
+     * RUNNING, COMPLETED or FAILED.
+     */
+    private String status;
+
+    /**
+     * When the latest run started.
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * When the latest run ended, or {@code null} while it is running.
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * Why the latest run failed, or {@code null}.
+     */
+    @Column(length = 1000)
+    private String error;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the import ID.
+     * @return importId
+     */
+    public String getImportId() {
+        return importId;
+    }
+
+    /**
+     * Sets the import ID.
+     * @param importId the import ID
+     */
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    /**
+     * Returns the input format.
+     * @return format
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the input format.
+     * @param format JSON or CSV
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns the number of records per chunk.
+     * @return chunkSize
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of records per chunk.
+     * @param chunkSize records per chunk
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the status.
+     * @return status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the status.
+     * @param status RUNNING, COMPLETED or FAILED
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Returns when the latest run started.
+     * @return startedAt
+     */
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Sets when the latest run started.
+     * @param startedAt the start time
+     */
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Returns when the latest run ended.
+     * @return finishedAt, or {@code null} while running
+     */
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Sets when the latest run ended.
+     * @param finishedAt the end time
+     */
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Returns why the latest run failed.
+     * @return error, or {@code null}
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets why the latest run failed.
+     * @param error the error message
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
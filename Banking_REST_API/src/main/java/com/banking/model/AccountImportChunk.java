@@ -0,0 +1,168 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Marks one chunk of an {@link AccountImport} as committed.
+ * 
+ * <p>The row is inserted in the same database transaction as the chunk's accounts,
+ * before them. Its primary key therefore also stops two runs of the same import from
+ * both inserting a chunk: the second insert fails and its transaction rolls back.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "account_import_chunk")
+@IdClass(AccountImportChunk.Key.class)
+public class AccountImportChunk {
+
+    /**
+     * The import this chunk belongs to.
+     */
+    @Id
+    private String importId;
+
+    /**
+     * Position of the chunk in the input, from 0.
+     */
+    @Id
+    private int chunkNo;
+
+    /**
+     * Number of accounts created from the chunk.
+     */
+    private int accepted;
+
+    /**
+     * Number of records of the chunk that failed validation.
+     */
+    private int rejected;
+
+    /**
+     * When the chunk was committed.
+     */
+    private LocalDateTime committedAt;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the import ID.
+     * @return importId
+     */
+    public String getImportId() {
+        return importId;
+    }
+
+    /**
+     * Sets the import ID.
+     * @param importId the import ID
+     */
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    /**
+     * Returns the position of the chunk in the input.
+     * @return chunkNo
+     */
+    public int getChunkNo() {
+        return chunkNo;
+    }
+
+    /**
+     * Sets the position of the chunk in the input.
+     * @param chunkNo the chunk number
+     */
+    public void setChunkNo(int chunkNo) {
+        this.chunkNo = chunkNo;
+    }
+
+    /**
+     * Returns the number of accounts created from the chunk.
+     * @return accepted
+     */
+    public int getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Sets the number of accounts created from the chunk.
+     * @param accepted the count
+     */
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    /**
+     * Returns the number of records that failed validation.
+     * @return rejected
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Sets the number of records that failed validation.
+     * @param rejected the count
+     */
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * Returns when the chunk was committed.
+     * @return committedAt
+     */
+    public LocalDateTime getCommittedAt() {
+        return committedAt;
+    }
+
+    /**
+     * Sets when the chunk was committed.
+     * @param committedAt the commit time
+     */
+    public void setCommittedAt(LocalDateTime committedAt) {
+        this.committedAt = committedAt;
+    }
+
+    /**
+     * Composite primary key: import ID and chunk number.
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String importId;
+        private int chunkNo;
+
+        public Key() {
+        }
+
+        public Key(String importId, int chunkNo) {
+            this.importId = importId;
+            this.chunkNo = chunkNo;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Objects.equals(key.importId, importId) && key.chunkNo == chunkNo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(importId, chunkNo);
+        }
+    }
+}
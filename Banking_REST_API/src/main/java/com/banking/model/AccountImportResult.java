@@ -0,0 +1,176 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.util.List;
+
+/**
+ * Outcome or progress of a bulk account import (see {@link AccountImport}).
+ * 
+ * <p>The counts cover every chunk committed so far, including those of earlier runs
+ * of the same import; the timing covers the latest run only.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public class AccountImportResult {
+
+    /**
+     * The import ID.
+     */
+    private final String importId;
+
+    /**
+     * RUNNING, COMPLETED or FAILED.
+     */
+    private final String status;
+
+    /**
+     * Records per chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * Number of chunks committed.
+     */
+    private final long chunks;
+
+    /**
+     * Number of chunks the latest run skipped because an earlier run committed them.
+     */
+    private final long skippedChunks;
+
+    /**
+     * Number of accounts created.
+     */
+    private final long accepted;
+
+    /**
+     * Number of records that failed validation.
+     */
+    private final long rejected;
+
+    /**
+     * The first validation errors of the latest run, each naming its record number.
+     */
+    private final List<String> errors;
+
+    /**
+     * Duration of the latest run, or of the run so far.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Records validated and committed per second by the latest run.
+     */
+    private final long recordsPerSecond;
+
+    /**
+     * Creates the result.
+     * 
+     * @param importId the import ID
+     * @param status RUNNING, COMPLETED or FAILED
+     * @param chunkSize records per chunk
+     * @param chunks number of chunks committed
+     * @param skippedChunks number of chunks skipped by the latest run
+     * @param accepted number of accounts created
+     * @param rejected number of records that failed validation
+     * @param errors the first validation errors of the latest run
+     * @param elapsedMillis duration of the latest run
+     * @param recordsPerSecond records committed per second by the latest run
+     */
+    public AccountImportResult(String importId, String status, int chunkSize, long chunks, long skippedChunks,
+                               long accepted, long rejected, List<String> errors, long elapsedMillis,
+                               long recordsPerSecond) {
+        this.importId = importId;
+        this.status = status;
+        this.chunkSize = chunkSize;
+        this.chunks = chunks;
+        this.skippedChunks = skippedChunks;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.elapsedMillis = elapsedMillis;
+        this.recordsPerSecond = recordsPerSecond;
+    }
+
+    /**
+     * Returns the import ID.
+     * @return importId
+     */
+    public String getImportId() {
+        return importId;
+    }
+
+    /**
+     * Returns the status.
+     * @return status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of records per chunk.
+     * @return chunkSize
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the number of chunks committed.
+     * @return chunks
+     */
+    public long getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the number of chunks skipped by the latest run.
+     * @return skippedChunks
+     */
+    public long getSkippedChunks() {
+        return skippedChunks;
+    }
+
+    /**
+     * Returns the number of accounts created.
+     * @return accepted
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Returns the number of records that failed validation.
+     * @return rejected
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the first validation errors of the latest run.
+     * @return errors
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the duration of the latest run.
+     * @return elapsedMillis
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the records committed per second by the latest run.
+     * @return recordsPerSecond
+     */
+    public long getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.util.List;
+
+/**
+ * One page of accounts, in account ID order, with the selected fields of each.
+ * 
+ * <p>To fetch the next page with keyset pagination, pass {@link #getNextAfterId()}
+ * back as the <code>afterId</code> request parameter; with offset pagination,
+ * increase <code>page</code>. Keyset pages cost the same at any depth; offset pages
+ * get slower the further they are.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public class AccountPage {
+
+    /**
+     * Accounts on this page, each holding only the selected fields.
+     */
+    private List<AccountRow> items;
+
+    /**
+     * Zero-based page number for offset pagination, or {@code null} for keyset
+     * pagination.
+     */
+    private Integer page;
+
+    /**
+     * Account ID of the last item, or {@code null} if the page is empty.
+     */
+    private Long nextAfterId;
+
+    /**
+     * Whether more accounts follow this page.
+     */
+    private boolean hasMore;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the accounts on this page.
+     * @return items
+     */
+    public List<AccountRow> getItems() {
+        return items;
+    }
+
+    /**
+     * Sets the accounts on this page.
+     * @param items accounts ordered by account ID
+     */
+    public void setItems(List<AccountRow> items) {
+        this.items = items;
+    }
+
+    /**
+     * Returns the page number of an offset page.
+     * @return page, or {@code null} for a keyset page
+     */
+    public Integer getPage() {
+        return page;
+    }
+
+    /**
+     * Sets the page number of an offset page.
+     * @param page zero-based page number, or {@code null}
+     */
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    /**
+     * Returns the cursor account ID for the next page.
+     * @return nextAfterId
+     */
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    /**
+     * Sets the cursor account ID for the next page.
+     * @param nextAfterId ID of the last item on this page
+     */
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    /**
+     * Returns whether more accounts follow this page.
+     * @return hasMore
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Sets whether more accounts follow this page.
+     * @param hasMore {@code true} if another page exists
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * One account of an {@link AccountPage}, holding only the selected fields.
+ * 
+ * <p>A field that was not selected is {@code null} and left out of the JSON, so a
+ * page carries just the properties asked for, under their {@link Account} names
+ * and in the same order. The account ID is always selected.</p>
+ * 
+ * @param accountId the account ID
+ * @param customerId the customer ID, if selected
+ * @param accountType the account type, if selected
+ * @param balance the balance in minor units, including the shards of a sharded
+ *        account, if selected
+ * @param status the account status, if selected
+ * @param balanceShards the shard count, if selected and set
+ * 
+ * @author Madhusudan Dande
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AccountRow(long accountId, Long customerId, String accountType,
+                         @JsonSerialize(using = MoneyJson.Serializer.class) Long balance, String status,
+                         Integer balanceShards) {
+}
@@ -0,0 +1,134 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.banking.money.MoneyConverter;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * One sub-balance of a hot {@link Account}.
+ * 
+ * <p>An account with <code>balanceShards</code> set to N owns N rows in
+ * <b>bank_account_shard</b>, numbered 0 to N-1. Transfers into the account credit
+ * a random shard instead of the account's own row, so concurrent credits no longer
+ * queue on one row lock. The account's balance is its own row plus the sum of its
+ * shards; debits move the shards back into the account's row when they need to.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "bank_account_shard")
+@IdClass(AccountShard.Key.class)
+public class AccountShard {
+
+    /**
+     * The account this shard belongs to.
+     */
+    @Id
+    private long accountId;
+
+    /**
+     * Shard number, from 0 to the account's shard count minus one.
+     */
+    @Id
+    private int shard;
+
+    /**
+     * Credits collected by this shard and not yet moved to the account, in minor
+     * units (see {@link com.banking.money.Money}).
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    private long balance;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the ID of the owning account.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Sets the ID of the owning account.
+     * @param accountId the account ID
+     */
+    public void setAccountId(long accountId) {
+        this.accountId = accountId;
+    }
+
+    /**
+     * Returns the shard number.
+     * @return shard
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * Sets the shard number.
+     * @param shard the shard number
+     */
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * Returns the balance held by this shard.
+     * @return balance in minor units
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Sets the balance held by this shard.
+     * @param balance the balance in minor units
+     */
+    public void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * Composite primary key: account ID and shard number.
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long accountId;
+        private int shard;
+
+        public Key() {
+        }
+
+        public Key(long accountId, int shard) {
+            this.accountId = accountId;
+            this.shard = shard;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.accountId == accountId && key.shard == shard;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, shard);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.time.LocalDate;
+
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Transfer totals of an account over a range of days, read from its
+ * {@link AccountDailyRollup} rows.
+ * 
+ * @author Madhusudan Dande
+ */
+public class AccountTotals {
+
+    /**
+     * The account ID.
+     */
+    private final long accountId;
+
+    /**
+     * First day of the range.
+     */
+    private final LocalDate startDate;
+
+    /**
+     * Last day of the range, inclusive.
+     */
+    private final LocalDate endDate;
+
+    /**
+     * Number of successful transfers sent.
+     */
+    private final long debitCount;
+
+    /**
+     * Sum of the successful transfers sent, in minor units.
+     */
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    private final long debits;
+
+    /**
+     * Number of successful transfers received.
+     */
+    private final long creditCount;
+
+    /**
+     * Sum of the successful transfers received, in minor units.
+     */
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    private final long credits;
+
+    /**
+     * Number of transfers sent that failed.
+     */
+    private final long failedCount;
+
+    /**
+     * Number of days in the range with any transfer.
+     */
+    private final long activeDays;
+
+    /**
+     * Creates the totals.
+     * 
+     * @param accountId the account ID
+     * @param startDate first day of the range
+     * @param endDate last day of the range, inclusive
+     * @param debitCount number of successful transfers sent
+     * @param debits sum of the successful transfers sent, in minor units
+     * @param creditCount number of successful transfers received
+     * @param credits sum of the successful transfers received, in minor units
+     * @param failedCount number of transfers sent that failed
+     * @param activeDays number of days with any transfer
+     */
+    public AccountTotals(long accountId, LocalDate startDate, LocalDate endDate, long debitCount, long debits,
+                         long creditCount, long credits, long failedCount, long activeDays) {
+        this.accountId = accountId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.debitCount = debitCount;
+        this.debits = debits;
+        this.creditCount = creditCount;
+        this.credits = credits;
+        this.failedCount = failedCount;
+        this.activeDays = activeDays;
+    }
+
+    /**
+     * Returns the account ID.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Returns the first day of the range.
+     * @return startDate
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Returns the last day of the range.
+     * @return endDate
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Returns the number of successful transfers sent.
+     * @return debitCount
+     */
+    public long getDebitCount() {
+        return debitCount;
+    }
+
+    /**
+     * Returns the sum of the successful transfers sent.
+     * @return debits in minor units
+     */
+    public long getDebits() {
+        return debits;
+    }
+
+    /**
+     * Returns the number of successful transfers received.
+     * @return creditCount
+     */
+    public long getCreditCount() {
+        return creditCount;
+    }
+
+    /**
+     * Returns the sum of the successful transfers received.
+     * @return credits in minor units
+     */
+    public long getCredits() {
+        return credits;
+    }
+
+    /**
+     * Returns the number of transfers sent that failed.
+     * @return failedCount
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of days in the range with any transfer.
+     * @return activeDays
+     */
+    public long getActiveDays() {
+        return activeDays;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import com.banking.money.MoneyConverter;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Materialised balance of an account at a point in time: the sum of all its
+ * {@link LedgerEntry} rows with a timestamp at or before {@link #getAsOf()}.
+ * 
+ * <p>Snapshots are taken periodically for every account that had entries since the
+ * previous snapshot, all with the same <i>asOf</i>. The balance at any later time is
+ * the latest snapshot plus the entries after it, so a point-in-time query reads one
+ * snapshot and a short tail of entries instead of the whole history.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "balance_snapshot")
+@IdClass(BalanceSnapshot.Key.class)
+public class BalanceSnapshot {
+
+    /**
+     * The account this snapshot belongs to.
+     */
+    @Id
+    private long accountId;
+
+    /**
+     * Every ledger entry up to and including this time is part of the balance.
+     */
+    @Id
+    private LocalDateTime asOf;
+
+    /**
+     * Balance at {@link #asOf}, in minor units (see {@link com.banking.money.Money}).
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    private long balance;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the account ID.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Sets the account ID.
+     * @param accountId the account ID
+     */
+    public void setAccountId(long accountId) {
+        this.accountId = accountId;
+    }
+
+    /**
+     * Returns the time the balance was taken at.
+     * @return asOf
+     */
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    /**
+     * Sets the time the balance was taken at.
+     * @param asOf the snapshot time
+     */
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+
+    /**
+     * Returns the balance at {@link #getAsOf()}.
+     * @return balance in minor units
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Sets the balance at {@link #getAsOf()}.
+     * @param balance the balance in minor units
+     */
+    public void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * Composite primary key: account ID and snapshot time.
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long accountId;
+        private LocalDateTime asOf;
+
+        public Key() {
+        }
+
+        public Key(long accountId, LocalDateTime asOf) {
+            this.accountId = accountId;
+            this.asOf = asOf;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.accountId == accountId && Objects.equals(key.asOf, asOf);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, asOf);
+        }
+    }
+}
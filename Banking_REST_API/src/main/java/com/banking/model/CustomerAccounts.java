@@ -0,0 +1,70 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.util.List;
+
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * All accounts of a customer, with their total balance.
+ * 
+ * @author Madhusudan Dande
+ */
+public class CustomerAccounts {
+
+    /**
+     * The customer ID.
+     */
+    private final long customerId;
+
+    /**
+     * The customer's accounts, in account ID order.
+     */
+    private final List<Account> accounts;
+
+    /**
+     * Sum of the balances of the accounts, in minor units.
+     */
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    private final long totalBalance;
+
+    /**
+     * Creates the result.
+     * 
+     * @param customerId the customer ID
+     * @param accounts the customer's accounts, in account ID order
+     * @param totalBalance sum of their balances, in minor units
+     */
+    public CustomerAccounts(long customerId, List<Account> accounts, long totalBalance) {
+        this.customerId = customerId;
+        this.accounts = accounts;
+        this.totalBalance = totalBalance;
+    }
+
+    /**
+     * Returns the customer ID.
+     * @return customerId
+     */
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Returns the customer's accounts.
+     * @return accounts
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Returns the sum of the balances of the accounts.
+     * @return totalBalance
+     */
+    public long getTotalBalance() {
+        return totalBalance;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+/**
+ * Shared settings for the table-backed, block-allocating ID generators.
+ * 
+ * <p>{@link Account}, {@link Transaction} and {@link LedgerEntry} take their primary
+ * keys from the <b>id_generator</b> table instead of MySQL <code>AUTO_INCREMENT</code>
+ * columns.
+ * Hibernate reserves a block of {@link #ALLOCATION_SIZE} IDs per round-trip (the
+ * <i>pooled</i> optimizer) and hands them out from memory. Because the ID is known
+ * before the row is inserted, Hibernate can group inserts into JDBC batches, which
+ * it cannot do with <code>GenerationType.IDENTITY</code>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public final class IdGenerators {
+
+    /**
+     * Table holding the next free value of every generator.
+     */
+    public static final String TABLE = "id_generator";
+
+    /**
+     * Primary key column naming the generator.
+     */
+    public static final String NAME_COLUMN = "sequence_name";
+
+    /**
+     * Column holding the generator's next value.
+     */
+    public static final String VALUE_COLUMN = "next_val";
+
+    /**
+     * Generator row used by {@link Account}.
+     */
+    public static final String ACCOUNT = "account_id";
+
+    /**
+     * Generator row used by {@link Transaction}.
+     */
+    public static final String TRANSACTION = "transaction_id";
+
+    /**
+     * Generator row used by {@link LedgerEntry}.
+     */
+    public static final String LEDGER_ENTRY = "ledger_entry_id";
+
+    /**
+     * Number of IDs reserved per round-trip; matches <code>hibernate.jdbc.batch_size</code>.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
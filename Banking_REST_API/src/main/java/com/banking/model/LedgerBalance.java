@@ -0,0 +1,105 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.time.LocalDateTime;
+
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Balance of an account at a point in time, reconstructed from the ledger.
+ * 
+ * <p>The balance is the latest {@link BalanceSnapshot} at or before {@link #getAsOf()}
+ * plus the {@link LedgerEntry} rows after it. {@link #getSnapshotAsOf()} and
+ * {@link #getReplayedEntries()} show how much of the ledger had to be replayed.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public class LedgerBalance {
+
+    /**
+     * The account ID.
+     */
+    private final long accountId;
+
+    /**
+     * The point in time the balance is for.
+     */
+    private final LocalDateTime asOf;
+
+    /**
+     * Balance at {@link #asOf}, in minor units.
+     */
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    private final long balance;
+
+    /**
+     * Time of the snapshot the replay started from, or {@code null} if there was none.
+     */
+    private final LocalDateTime snapshotAsOf;
+
+    /**
+     * Number of ledger entries added to the snapshot.
+     */
+    private final long replayedEntries;
+
+    /**
+     * Creates a point-in-time balance.
+     * 
+     * @param accountId the account ID
+     * @param asOf the point in time
+     * @param balance the balance in minor units
+     * @param snapshotAsOf time of the snapshot used, or {@code null}
+     * @param replayedEntries number of entries replayed after the snapshot
+     */
+    public LedgerBalance(long accountId, LocalDateTime asOf, long balance,
+                         LocalDateTime snapshotAsOf, long replayedEntries) {
+        this.accountId = accountId;
+        this.asOf = asOf;
+        this.balance = balance;
+        this.snapshotAsOf = snapshotAsOf;
+        this.replayedEntries = replayedEntries;
+    }
+
+    /**
+     * Returns the account ID.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Returns the point in time the balance is for.
+     * @return asOf
+     */
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    /**
+     * Returns the balance at {@link #getAsOf()}.
+     * @return balance in minor units
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the time of the snapshot the replay started from.
+     * @return snapshotAsOf, or {@code null} if the whole ledger was replayed
+     */
+    public LocalDateTime getSnapshotAsOf() {
+        return snapshotAsOf;
+    }
+
+    /**
+     * Returns the number of ledger entries added to the snapshot.
+     * @return replayedEntries
+     */
+    public long getReplayedEntries() {
+        return replayedEntries;
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.time.LocalDateTime;
+
+import com.banking.money.MoneyConverter;
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+
+/**
+ * One immutable debit or credit in the append-only account ledger.
+ * 
+ * <p>Every change to an account's balance is also written here, in the same
+ * database transaction: the opening balance, each side of a transfer and each
+ * deposit or withdrawal. An account's balance at any time is therefore the sum of
+ * its entries up to that time. {@link BalanceSnapshot}s keep that sum from having to
+ * start at the beginning of the history.</p>
+ * 
+ * <p>The index on <i>(accountId, timestamp)</i> serves the tail replay of one
+ * account; the index on <i>timestamp</i> serves the snapshot job, which reads all
+ * entries since the previous snapshot.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "ledger_entry", indexes = {
+        @Index(name = "idx_ledger_entry_account_time", columnList = "accountId, timestamp"),
+        @Index(name = "idx_ledger_entry_time", columnList = "timestamp")
+})
+public class LedgerEntry {
+
+    /**
+     * Kind of the opening entry of an account.
+     */
+    public static final String OPENING = "OPENING";
+
+    /**
+     * Kind of the two entries of a transfer.
+     */
+    public static final String TRANSFER = "TRANSFER";
+
+    /**
+     * Kind of a deposit or withdrawal made through the account API.
+     */
+    public static final String DEPOSIT = "DEPOSIT";
+
+    /**
+     * Unique entry identifier (Primary Key).
+     * Allocated in blocks from the <b>id_generator</b> table (see {@link IdGenerators}).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.LEDGER_ENTRY)
+    @TableGenerator(name = IdGenerators.LEDGER_ENTRY,
+            table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.LEDGER_ENTRY,
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long entryId;
+
+    /**
+     * Account whose balance changed.
+     */
+    private long accountId;
+
+    /**
+     * Signed change in minor units (see {@link com.banking.money.Money}): positive
+     * for a credit, negative for a debit.
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long amount;
+
+    /**
+     * What caused the change: {@link #OPENING}, {@link #TRANSFER} or {@link #DEPOSIT}.
+     */
+    private String kind;
+
+    /**
+     * The transfer this entry belongs to; {@code null} for other kinds, and for
+     * transfers whose audit record is written asynchronously.
+     */
+    private Long transactionId;
+
+    /**
+     * When the change took effect.
+     */
+    private LocalDateTime timestamp;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the entry ID.
+     * @return entryId
+     */
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    /**
+     * Sets the entry ID.
+     * @param entryId the unique ID of the entry
+     */
+    public void setEntryId(Long entryId) {
+        this.entryId = entryId;
+    }
+
+    /**
+     * Returns the account ID.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Sets the account whose balance changed.
+     * @param accountId the account ID
+     */
+    public void setAccountId(long accountId) {
+        this.accountId = accountId;
+    }
+
+    /**
+     * Returns the signed amount.
+     * @return amount in minor units
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Sets the signed amount.
+     * @param amount the change in minor units, negative for a debit
+     */
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    /**
+     * Returns the kind of entry.
+     * @return kind
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Sets the kind of entry.
+     * @param kind {@link #OPENING}, {@link #TRANSFER} or {@link #DEPOSIT}
+     */
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Returns the ID of the transfer this entry belongs to.
+     * @return transactionId, or {@code null}
+     */
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Sets the ID of the transfer this entry belongs to.
+     * @param transactionId the transaction ID
+     */
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    /**
+     * Returns when the change took effect.
+     * @return timestamp
+     */
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets when the change took effect.
+     * @param timestamp date and time of the change
+     */
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Marker of a rebuild of the {@link AccountDailyRollup} rows that has not
+ * finished yet.
+ * 
+ * <p>Written by {@link com.banking.report.RollupBackfill} when it first builds the
+ * rollups from the transaction history, and deleted once the day it did so has been
+ * rebuilt too. Keeping it in the database rather than in memory lets a restart on
+ * that day, or on another node, pick up where the previous run stopped.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Entity
+@Table(name = "rollup_rebuild")
+public class RollupRebuild {
+
+    /**
+     * The day the rollups were deployed: every day before it is rebuilt on startup,
+     * this one once it has ended.
+     */
+    @Id
+    private LocalDate deployDay;
+
+    /**
+     * Whether the days before {@link #deployDay} have been rebuilt.
+     */
+    private boolean historyBuilt;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the day the rollups were deployed.
+     * @return deployDay
+     */
+    public LocalDate getDeployDay() {
+        return deployDay;
+    }
+
+    /**
+     * Sets the day the rollups were deployed.
+     * @param deployDay the day
+     */
+    public void setDeployDay(LocalDate deployDay) {
+        this.deployDay = deployDay;
+    }
+
+    /**
+     * Returns whether the days before the deploy day have been rebuilt.
+     * @return historyBuilt
+     */
+    public boolean isHistoryBuilt() {
+        return historyBuilt;
+    }
+
+    /**
+     * Sets whether the days before the deploy day have been rebuilt.
+     * @param historyBuilt {@code true} once they have
+     */
+    public void setHistoryBuilt(boolean historyBuilt) {
+        this.historyBuilt = historyBuilt;
+    }
+}
@@ -5,11 +5,21 @@ package com.banking.model;
 
 import java.time.LocalDateTime;
 
+import com.banking.money.MoneyConverter;
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Represents a transaction record between two accounts in the banking system.
@@ -20,18 +30,37 @@ import jakarta.persistence.Table;
  * <p>It is used for maintaining a complete transaction history and 
  * tracking the flow of funds in the system.</p>
  * 
+ * <p>The composite indexes on <i>(fromAccountId, timestamp)</i> and
+ * <i>(toAccountId, timestamp)</i> let an account's history for a date range be
+ * read as two index range scans (see {@link com.banking.repository.TransactionRepo}).</p>
+ * 
+ * <p>The unique constraint on <i>idempotencyKey</i> guarantees that a retried
+ * transfer is recorded at most once, even across restarts. Rows without a key are
+ * not constrained.</p>
+ * 
  * @author Madhusudan Dande
  */
 @Entity
-@Table(name = "Transaction")
+@Table(name = "Transaction", indexes = {
+        @Index(name = "idx_transaction_from_time", columnList = "fromAccountId, timestamp"),
+        @Index(name = "idx_transaction_to_time", columnList = "toAccountId, timestamp")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_transaction_idempotency_key", columnNames = "idempotencyKey")
+})
 public class Transaction {
 
     /**
      * Unique transaction identifier (Primary Key).
-     * Automatically generated by the database.
+     * Allocated in blocks from the <b>id_generator</b> table (see {@link IdGenerators}).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.TRANSACTION)
+    @TableGenerator(name = IdGenerators.TRANSACTION,
+            table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.TRANSACTION,
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long transactionId;
 
     /**
@@ -45,9 +74,14 @@ public class Transaction {
     private Long toAccountId;
 
     /**
-     * Amount transferred during the transaction.
+     * Amount transferred during the transaction, in minor units (see
+     * {@link com.banking.money.Money}).
      */
-    private double amount;
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long amount;
 
     /**
      * Date and time when the transaction occurred.
@@ -59,6 +93,12 @@ public class Transaction {
      */
     private String status;
 
+    /**
+     * Client-supplied key identifying the transfer request, or {@code null}.
+     */
+    @Column(length = TransferRequest.MAX_IDEMPOTENCY_KEY_LENGTH)
+    private String idempotencyKey;
+
     // ---------------------------------------------------------
     // Getters and Setters
     // ---------------------------------------------------------
@@ -113,17 +153,17 @@ public class Transaction {
 
     /**
      * Returns the transaction amount.
-     * @return amount
+     * @return amount in minor units
      */
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
     /**
      * Sets the transaction amount.
-     * @param amount value of money transferred
+     * @param amount value of money transferred, in minor units
      */
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
@@ -158,4 +198,38 @@ public class Transaction {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    /**
+     * Returns the idempotency key of the request that created this transaction.
+     * @return idempotencyKey
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Sets the idempotency key of the request that created this transaction.
+     * @param idempotencyKey client-supplied key, or {@code null}
+     */
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    /**
+     * Returns a detached copy of a transaction, safe to change without affecting the
+     * original or the persistence context.
+     * @param source the transaction to copy
+     * @return a new {@link Transaction} with the same field values
+     */
+    public static Transaction copyOf(Transaction source) {
+        Transaction copy = new Transaction();
+        copy.setTransactionId(source.getTransactionId());
+        copy.setFromAccountId(source.getFromAccountId());
+        copy.setToAccountId(source.getToAccountId());
+        copy.setAmount(source.getAmount());
+        copy.setTimestamp(source.getTimestamp());
+        copy.setStatus(source.getStatus());
+        copy.setIdempotencyKey(source.getIdempotencyKey());
+        return copy;
+    }
 }
@@ -0,0 +1,109 @@
+/**
+ * 
+ */
+package com.banking.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of an account's transaction history, returned by keyset pagination.
+ * 
+ * <p>Pages are ordered by <i>(timestamp, transactionId)</i>. To fetch the next page,
+ * pass {@link #getNextAfterTimestamp()} and {@link #getNextAfterId()} back as the
+ * <code>afterTimestamp</code> and <code>afterId</code> request parameters. Unlike
+ * offset pagination, the cost of a page does not grow with its position in the
+ * history.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public class TransactionPage {
+
+    /**
+     * Transactions on this page, oldest first.
+     */
+    private List<Transaction> items;
+
+    /**
+     * Timestamp of the last item, or {@code null} if the page is empty.
+     */
+    private LocalDateTime nextAfterTimestamp;
+
+    /**
+     * Transaction ID of the last item, or {@code null} if the page is empty.
+     */
+    private Long nextAfterId;
+
+    /**
+     * Whether more transactions follow this page.
+     */
+    private boolean hasMore;
+
+    // ---------------------------------------------------------
+    // Getters and Setters
+    // ---------------------------------------------------------
+
+    /**
+     * Returns the transactions on this page.
+     * @return items
+     */
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    /**
+     * Sets the transactions on this page.
+     * @param items transactions ordered by timestamp and ID
+     */
+    public void setItems(List<Transaction> items) {
+        this.items = items;
+    }
+
+    /**
+     * Returns the cursor timestamp for the next page.
+     * @return nextAfterTimestamp
+     */
+    public LocalDateTime getNextAfterTimestamp() {
+        return nextAfterTimestamp;
+    }
+
+    /**
+     * Sets the cursor timestamp for the next page.
+     * @param nextAfterTimestamp timestamp of the last item on this page
+     */
+    public void setNextAfterTimestamp(LocalDateTime nextAfterTimestamp) {
+        this.nextAfterTimestamp = nextAfterTimestamp;
+    }
+
+    /**
+     * Returns the cursor transaction ID for the next page.
+     * @return nextAfterId
+     */
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    /**
+     * Sets the cursor transaction ID for the next page.
+     * @param nextAfterId ID of the last item on this page
+     */
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    /**
+     * Returns whether more transactions follow this page.
+     * @return hasMore
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Sets whether more transactions follow this page.
+     * @param hasMore {@code true} if another page exists
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -3,6 +3,10 @@
  */
 package com.banking.model;
 
+import com.banking.money.MoneyJson;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 /**
  * Represents a request payload for transferring money between two accounts.
  * 
@@ -12,6 +16,10 @@ package com.banking.model;
  * <p>It includes the source account ID, destination account ID, 
  * and the amount to be transferred.</p>
  * 
+ * <p>An optional idempotency key makes the request safe to retry: every request
+ * with the same key returns the {@link Transaction} created by the first one, and
+ * the money moves only once.</p>
+ * 
  * <p>This object is typically sent from the client (e.g., frontend or Postman)
  * to the backend REST controller during a transfer request.</p>
  * 
@@ -19,6 +27,11 @@ package com.banking.model;
  */
 public class TransferRequest {
 
+    /**
+     * Longest accepted idempotency key; fits a UUID with room to spare.
+     */
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
     /**
      * Account ID from which the amount will be debited.
      */
@@ -30,9 +43,17 @@ public class TransferRequest {
     private Long toAccountId;
 
     /**
-     * Amount of money to be transferred.
+     * Amount of money to be transferred, in minor units (see
+     * {@link com.banking.money.Money}). Sent in JSON as a decimal amount.
+     */
+    @JsonSerialize(using = MoneyJson.Serializer.class)
+    @JsonDeserialize(using = MoneyJson.Deserializer.class)
+    private long amount;
+
+    /**
+     * Optional client-generated key identifying this request across retries.
      */
-    private double amount;
+    private String idempotencyKey;
 
     // ---------------------------------------------------------
     // Getters and Setters
@@ -72,17 +93,33 @@ public class TransferRequest {
 
     /**
      * Returns the amount to be transferred.
-     * @return amount
+     * @return amount in minor units
      */
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
     /**
      * Sets the amount to be transferred.
-     * @param amount the value of money to transfer between accounts
+     * @param amount the value of money to transfer between accounts, in minor units
      */
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
+
+    /**
+     * Returns the idempotency key.
+     * @return idempotencyKey, or {@code null} if the request is not retry-safe
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Sets the idempotency key.
+     * @param idempotencyKey client-generated key, for example a UUID
+     */
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
 }
@@ -0,0 +1,120 @@
+/**
+ * 
+ */
+package com.banking.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on primitive <code>long</code> minor units (cents).
+ * 
+ * <p>Balances and amounts are held as a whole number of minor units, so
+ * <code>12.34</code> is stored as <code>1234</code>. Adding and comparing them is
+ * exact, never drifts the way <code>double</code> sums do, and needs no boxing or
+ * {@link BigDecimal} objects on the hot path.</p>
+ * 
+ * <p>{@link #add} and {@link #subtract} are checked: on overflow they throw
+ * {@link ArithmeticException} instead of silently wrapping. Conversion to and from
+ * decimal only happens at the edges: the database (see {@link MoneyConverter}) and
+ * JSON (see {@link MoneyJson}).</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public final class Money {
+
+    /**
+     * Number of decimal places in a minor unit.
+     */
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Adds two amounts.
+     * 
+     * @param a minor units
+     * @param b minor units
+     * @return {@code a + b}
+     * @throws ArithmeticException if the result overflows
+     */
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Subtracts one amount from another.
+     * 
+     * @param a minor units
+     * @param b minor units
+     * @return {@code a - b}
+     * @throws ArithmeticException if the result overflows
+     */
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Converts a decimal amount to minor units.
+     * 
+     * @param amount decimal amount, for example {@code 12.34}
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount has more than {@link #SCALE}
+     *         decimal places or does not fit in a {@code long}
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a decimal amount read from the database to minor units, rounding it
+     * to the nearest minor unit, halves away from zero.
+     * 
+     * <p>Rows written while balances and amounts were <code>DOUBLE</code> columns can
+     * hold binary drift such as {@code 0.30000000000000004}. They are read as the
+     * nearest cent ({@code 0.30}) rather than rejected, which is the same rounding
+     * {@link com.banking.config.MoneyColumnMigration} applies when it converts those
+     * columns to <code>DECIMAL(19,2)</code>. Input from clients still goes through
+     * the strict {@link #fromDecimal}.</p>
+     * 
+     * @param amount decimal amount as stored
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount does not fit in a {@code long}
+     */
+    public static long fromStoredDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts minor units to a decimal amount.
+     * 
+     * @param minorUnits the amount in minor units
+     * @return the decimal amount with {@link #SCALE} decimal places
+     */
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Parses a decimal string such as {@code "12.34"} to minor units.
+     * 
+     * @param text the decimal amount
+     * @return the amount in minor units
+     * @throws NumberFormatException if the text is not a number
+     * @throws ArithmeticException if the amount is not a whole number of minor units
+     */
+    public static long parse(String text) {
+        return fromDecimal(new BigDecimal(text.trim()));
+    }
+
+    /**
+     * Formats minor units as a plain decimal string such as {@code "12.34"}.
+     * 
+     * @param minorUnits the amount in minor units
+     * @return the decimal representation
+     */
+    public static String format(long minorUnits) {
+        return toDecimal(minorUnits).toPlainString();
+    }
+}
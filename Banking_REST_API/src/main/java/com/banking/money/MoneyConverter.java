@@ -0,0 +1,35 @@
+/**
+ * 
+ */
+package com.banking.money;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * JPA converter storing {@link Money} minor units in a <code>DECIMAL(19,2)</code>
+ * column.
+ * 
+ * <p>The column keeps the human-readable decimal amount, so SQL reports and
+ * existing rows are unaffected, while the entity works with a primitive
+ * <code>long</code>. Values are read with {@link Money#fromStoredDecimal}, so a
+ * legacy row with <code>DOUBLE</code> drift loads as the nearest cent instead of
+ * failing the whole query.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minorUnits) {
+        return minorUnits == null ? null : Money.toDecimal(minorUnits);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.fromStoredDecimal(amount);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * 
+ */
+package com.banking.money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+/**
+ * Jackson (de)serializers that keep the JSON API in decimal amounts while the
+ * model holds {@link Money} minor units.
+ * 
+ * <p>Annotate a minor-unit <code>long</code> field with
+ * <code>@JsonSerialize(using = MoneyJson.Serializer.class)</code> and
+ * <code>@JsonDeserialize(using = MoneyJson.Deserializer.class)</code>. It is then
+ * written as a number such as <code>12.34</code>, and read from a number or a
+ * numeric string. Input with fractions of a minor unit is rejected rather than
+ * rounded.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public final class MoneyJson {
+
+    private MoneyJson() {
+    }
+
+    /**
+     * Writes minor units as a decimal JSON number.
+     */
+    public static class Serializer extends JsonSerializer<Long> {
+
+        @Override
+        public void serialize(Long minorUnits, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(Money.toDecimal(minorUnits));
+        }
+    }
+
+    /**
+     * Reads a decimal JSON number or string as minor units.
+     */
+    public static class Deserializer extends JsonDeserializer<Long> {
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            BigDecimal amount;
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                amount = parser.getDecimalValue();
+            } else if (token == JsonToken.VALUE_STRING) {
+                try {
+                    amount = new BigDecimal(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw InvalidFormatException.from(parser, "Not a decimal amount", parser.getText(), Long.class);
+                }
+            } else {
+                return (Long) context.handleUnexpectedToken(Long.class, parser);
+            }
+
+            try {
+                return Money.fromDecimal(amount);
+            } catch (ArithmeticException e) {
+                throw InvalidFormatException.from(parser,
+                        "Amount must have at most " + Money.SCALE + " decimal places and fit in 64 bits",
+                        amount, Long.class);
+            }
+        }
+    }
+}
@@ -0,0 +1,485 @@
+/**
+ * 
+ */
+package com.banking.queue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.banking.config.IdBlockAllocator;
+import com.banking.model.IdGenerators;
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.banking.service.TransactionService;
+
+/**
+ * Accepts transfers into in-process queues and applies them in the background, in
+ * micro-batches.
+ * 
+ * <p>Enabled with <code>banking.transfer.queue.enabled=true</code>. {@link #submit}
+ * gives the transfer its transaction ID and returns it at once with status
+ * <b>"PENDING"</b>; the IDs come from blocks reserved with {@link IdBlockAllocator},
+ * so accepting a transfer costs no database round-trip. The transfer is then put on
+ * one of <code>partitions</code> bounded queues, chosen by its source account ID,
+ * and each queue is drained by a single worker. Transfers from the same account are
+ * therefore applied in the order they were accepted.</p>
+ * 
+ * <p>A worker collects up to <code>batch-size</code> transfers, waiting at most
+ * <code>max-latency</code> after the first one, and applies them through
+ * {@link TransactionService#transferAccepted}: one database transaction, one query
+ * for the accounts and JDBC batches for the writes. A spike therefore turns into
+ * fewer, larger transactions instead of one per request. If a batch fails as a
+ * whole, its transfers are retried one by one, so only the offending transfer is
+ * affected. A transfer that still fails after <code>max-attempts</code> tries is
+ * recorded as <b>"FAILED"</b> under its transaction ID, so it does not hold up its
+ * queue and its outcome can still be looked up.</p>
+ * 
+ * <p>Until a transfer is applied, {@link #getPending} returns it as PENDING and
+ * {@link #await} lets a caller wait for the outcome. A full queue rejects new
+ * transfers instead of growing, and transfers still queued are lost if the JVM dies;
+ * on a normal shutdown the queues are drained first. Clients that need to retry
+ * safely should send an idempotency key.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class TransferQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferQueue.class);
+
+    /**
+     * Longest pause between retries of a transfer that failed for another reason
+     * than its own data.
+     */
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5_000;
+
+    private final TransactionService transactionService;
+
+    private final IdBlockAllocator idBlocks;
+
+    /**
+     * Whether queued transfers are accepted.
+     */
+    private final boolean enabled;
+
+    /**
+     * Maximum number of transfers applied in one database transaction.
+     */
+    private final int batchSize;
+
+    /**
+     * Longest time a transfer waits for its batch to fill.
+     */
+    private final long maxLatencyNanos;
+
+    /**
+     * Tries of a transfer applied on its own before it is recorded as failed.
+     */
+    private final int maxAttempts;
+
+    /**
+     * One bounded queue per partition, each drained by its own worker.
+     */
+    private final List<ArrayBlockingQueue<Pending>> partitions;
+
+    /**
+     * Creates the worker threads; virtual when <code>spring.threads.virtual.enabled</code> is set.
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * Accepted transfers not applied yet, by transaction ID.
+     */
+    private final ConcurrentHashMap<Long, Pending> pendingById = new ConcurrentHashMap<>();
+
+    /**
+     * Accepted transfers not applied yet, by idempotency key.
+     */
+    private final ConcurrentHashMap<String, Pending> pendingByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder applyNanos = new LongAdder();
+    private final AtomicLong maxApplyNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * Creates the queue.
+     * 
+     * @param transactionService applies the batches
+     * @param idBlocks reserves the transaction IDs handed out on acceptance
+     * @param enabled whether queued transfers are accepted
+     * @param partitions number of queues and workers
+     * @param capacity maximum number of transfers waiting in each queue
+     * @param batchSize maximum transfers applied in one database transaction
+     * @param maxLatency longest time a transfer waits for its batch to fill
+     * @param maxAttempts tries of a transfer applied on its own before it is recorded
+     *        as failed
+     * @param virtualThreads whether the application runs in virtual-thread mode
+     */
+    public TransferQueue(TransactionService transactionService, IdBlockAllocator idBlocks,
+                         @Value("${banking.transfer.queue.enabled:false}") boolean enabled,
+                         @Value("${banking.transfer.queue.partitions:8}") int partitions,
+                         @Value("${banking.transfer.queue.capacity:10000}") int capacity,
+                         @Value("${banking.transfer.queue.batch-size:200}") int batchSize,
+                         @Value("${banking.transfer.queue.max-latency:10ms}") Duration maxLatency,
+                         @Value("${banking.transfer.queue.max-attempts:10}") int maxAttempts,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.transactionService = transactionService;
+        this.idBlocks = idBlocks;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.partitions = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            this.partitions.add(new ArrayBlockingQueue<>(capacity));
+        }
+        // Like Spring Boot, ignore the virtual-thread flag on JVMs older than 21
+        this.threadFactory = virtualThreads && Runtime.version().feature() >= 21
+                ? new VirtualThreadTaskExecutor("transfer-queue-").getVirtualThreadFactory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                };
+    }
+
+    /**
+     * Accepts a transfer for background processing.
+     * 
+     * <p>A transfer whose idempotency key is already known is not queued again: the
+     * original transaction is returned, PENDING if it is itself still queued.</p>
+     * 
+     * @param request the transfer details
+     * @return a copy of the accepted {@link Transaction}, with its ID and status
+     *         PENDING, or the original transaction of a known idempotency key
+     * @throws IllegalStateException if queued transfers are disabled
+     * @throws RejectedExecutionException if the queue of the source account is full
+     */
+    public Transaction submit(TransferRequest request) {
+        if (!running) {
+            throw new IllegalStateException("queued transfers are disabled");
+        }
+        String key = request.getIdempotencyKey();
+        Transaction original = transactionService.findByIdempotencyKey(key, false);
+        if (original != null) {
+            return original;
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(request.getFromAccountId());
+        transaction.setToAccountId(request.getToAccountId());
+        transaction.setAmount(request.getAmount());
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setIdempotencyKey(key);
+        transaction.setStatus("PENDING");
+        Pending pending = new Pending(transaction);
+        if (key != null) {
+            Pending queued = pendingByKey.putIfAbsent(key, pending);
+            if (queued != null) {
+                return Transaction.copyOf(queued.accepted);
+            }
+        }
+        transaction.setTransactionId(idBlocks.next(IdGenerators.TRANSACTION));
+
+        pendingById.put(transaction.getTransactionId(), pending);
+        if (!partitionOf(request.getFromAccountId()).offer(pending)) {
+            forget(pending);
+            rejected.increment();
+            throw new RejectedExecutionException("transfer queue of account " + request.getFromAccountId()
+                    + " is full");
+        }
+        accepted.increment();
+        return Transaction.copyOf(transaction);
+    }
+
+    /**
+     * Returns a transfer that was accepted but not applied yet.
+     * 
+     * @param transactionId the transaction ID
+     * @return a copy of the PENDING transaction, or {@code null} if it is not queued
+     */
+    public Transaction getPending(long transactionId) {
+        Pending pending = pendingById.get(transactionId);
+        return pending == null ? null : Transaction.copyOf(pending.accepted);
+    }
+
+    /**
+     * Returns the outcome of a queued transfer once it has been applied.
+     * 
+     * @param transactionId the transaction ID
+     * @return completes with the SUCCESS or FAILED transaction after it commits, or
+     *         {@code null} if the transfer is not queued
+     */
+    public CompletableFuture<Transaction> await(long transactionId) {
+        Pending pending = pendingById.get(transactionId);
+        return pending == null ? null : pending.outcome;
+    }
+
+    /**
+     * Returns the queue and batch counters.
+     * 
+     * @return current {@link TransferQueueStats}
+     */
+    public TransferQueueStats stats() {
+        int depth = 0;
+        int maxDepth = 0;
+        int capacity = 0;
+        for (ArrayBlockingQueue<Pending> partition : partitions) {
+            depth += partition.size();
+            maxDepth = Math.max(maxDepth, partition.size());
+            capacity += partition.size() + partition.remainingCapacity();
+        }
+        long batchCount = batches.sum();
+        return new TransferQueueStats(enabled, partitions.size(), depth, maxDepth, capacity,
+                accepted.sum(), rejected.sum(), applied.sum(), batchCount,
+                batchCount == 0 ? 0 : applyNanos.sum() / 1e6 / batchCount,
+                maxApplyNanos.get() / 1e6);
+    }
+
+    // ---------------------------------------------------------
+    // Lifecycle
+    // ---------------------------------------------------------
+
+    @Override
+    public void start() {
+        if (enabled) {
+            running = true;
+            for (int i = 0; i < partitions.size(); i++) {
+                ArrayBlockingQueue<Pending> partition = partitions.get(i);
+                Thread worker = threadFactory.newThread(() -> drainLoop(partition));
+                worker.setName("transfer-queue-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server, so no request can
+     * queue a transfer once the workers have gone, and before the audit writer.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 3072;
+    }
+
+    // ---------------------------------------------------------
+    // Internals
+    // ---------------------------------------------------------
+
+    private ArrayBlockingQueue<Pending> partitionOf(Long fromAccountId) {
+        int hash = fromAccountId == null ? 0 : Long.hashCode(fromAccountId * 0x9E3779B97F4A7C15L);
+        return partitions.get(Math.floorMod(hash, partitions.size()));
+    }
+
+    /**
+     * Background loop of one partition: collects up to {@link #batchSize} transfers,
+     * waiting at most {@link #maxLatencyNanos} after the first one, and applies them.
+     */
+    private void drainLoop(ArrayBlockingQueue<Pending> partition) {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !partition.isEmpty()) {
+            try {
+                Pending first = partition.poll(maxLatencyNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (batch.size() < batchSize) {
+                    partition.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = partition.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: apply whatever is left without waiting
+                partition.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                applyBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Applies a batch in one database transaction, or its transfers one by one if
+     * that fails.
+     */
+    private void applyBatch(List<Pending> batch) {
+        List<Transaction> transfers = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            // The batch works on copies, so the accepted records stay PENDING
+            transfers.add(pending.accepted);
+        }
+        long start = System.nanoTime();
+        List<Transaction> results;
+        try {
+            results = transactionService.transferAccepted(transfers);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                applyAlone(batch.get(0));
+                return;
+            }
+            log.warn("Batch of {} queued transfers failed, applying them one by one", batch.size(), e);
+            batch.forEach(this::applyAlone);
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        applyNanos.add(elapsed);
+        maxApplyNanos.accumulateAndGet(elapsed, Math::max);
+        batches.increment();
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), results.get(i));
+        }
+    }
+
+    /**
+     * Applies one transfer on its own, retrying with exponential back-off while the
+     * application is running, up to {@link #maxAttempts} tries, if the failure is not
+     * caused by the transfer itself.
+     */
+    private void applyAlone(Pending pending) {
+        long backoff = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                complete(pending, transactionService.transferAccepted(List.of(pending.accepted)).get(0));
+                batches.increment();
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another transfer with the same idempotency key was applied first
+                Transaction original = transactionService.findByIdempotencyKey(
+                        pending.accepted.getIdempotencyKey(), true);
+                if (original != null) {
+                    complete(pending, original);
+                    return;
+                }
+                fail(pending, e);
+                return;
+            } catch (RuntimeException e) {
+                if (!running || attempt >= maxAttempts) {
+                    fail(pending, e);
+                    return;
+                }
+                log.warn("Queued transfer {} failed (attempt {} of {}), retrying in {} ms",
+                        pending.accepted.getTransactionId(), attempt, maxAttempts, backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void complete(Pending pending, Transaction result) {
+        applied.increment();
+        forget(pending);
+        pending.outcome.complete(result);
+    }
+
+    /**
+     * Records a transfer that could not be applied as FAILED, or drops it if even
+     * that is not possible.
+     */
+    private void fail(Pending pending, RuntimeException cause) {
+        Long transactionId = pending.accepted.getTransactionId();
+        Transaction failed;
+        try {
+            failed = transactionService.failAccepted(pending.accepted);
+        } catch (RuntimeException e) {
+            e.addSuppressed(cause);
+            log.error("Dropping queued transfer {}", transactionId, e);
+            forget(pending);
+            pending.outcome.completeExceptionally(cause);
+            return;
+        }
+        log.error("Queued transfer {} could not be applied, recorded as FAILED", transactionId, cause);
+        forget(pending);
+        pending.outcome.complete(failed);
+    }
+
+    private void forget(Pending pending) {
+        Transaction transaction = pending.accepted;
+        if (transaction.getTransactionId() != null) {
+            pendingById.remove(transaction.getTransactionId(), pending);
+        }
+        if (transaction.getIdempotencyKey() != null) {
+            pendingByKey.remove(transaction.getIdempotencyKey(), pending);
+        }
+    }
+
+    /**
+     * A transfer that was accepted but not applied yet.
+     */
+    private static final class Pending {
+
+        /**
+         * The transfer as accepted, with status PENDING; never changed.
+         */
+        final Transaction accepted;
+
+        /**
+         * Completes with the applied or the FAILED transaction, or exceptionally if
+         * the transfer had to be dropped.
+         */
+        final CompletableFuture<Transaction> outcome = new CompletableFuture<>();
+
+        Pending(Transaction accepted) {
+            this.accepted = accepted;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * 
+ */
+package com.banking.queue;
+
+/**
+ * Point-in-time counters of the {@link TransferQueue}.
+ * 
+ * @author Madhusudan Dande
+ */
+public class TransferQueueStats {
+
+    /**
+     * Whether queued transfers are accepted.
+     */
+    private final boolean enabled;
+
+    /**
+     * Number of partitions, each with its own queue and worker.
+     */
+    private final int partitions;
+
+    /**
+     * Transfers currently waiting in all partitions.
+     */
+    private final int queueDepth;
+
+    /**
+     * Transfers waiting in the fullest partition.
+     */
+    private final int maxPartitionDepth;
+
+    /**
+     * Combined capacity of all partitions.
+     */
+    private final int queueCapacity;
+
+    /**
+     * Transfers accepted since startup.
+     */
+    private final long accepted;
+
+    /**
+     * Transfers rejected because their partition was full.
+     */
+    private final long rejected;
+
+    /**
+     * Transfers applied, whether they succeeded or failed.
+     */
+    private final long applied;
+
+    /**
+     * Database transactions used to apply them.
+     */
+    private final long batches;
+
+    /**
+     * Average duration of one batch, in milliseconds.
+     */
+    private final double averageApplyMillis;
+
+    /**
+     * Longest batch so far, in milliseconds.
+     */
+    private final double maxApplyMillis;
+
+    /**
+     * Creates a stats snapshot.
+     * 
+     * @param enabled whether queued transfers are accepted
+     * @param partitions number of partitions
+     * @param queueDepth transfers waiting in all partitions
+     * @param maxPartitionDepth transfers waiting in the fullest partition
+     * @param queueCapacity combined capacity of all partitions
+     * @param accepted transfers accepted
+     * @param rejected transfers rejected by a full partition
+     * @param applied transfers applied
+     * @param batches database transactions used to apply them
+     * @param averageApplyMillis average batch duration
+     * @param maxApplyMillis longest batch duration
+     */
+    public TransferQueueStats(boolean enabled, int partitions, int queueDepth, int maxPartitionDepth,
+                              int queueCapacity, long accepted, long rejected, long applied, long batches,
+                              double averageApplyMillis, double maxApplyMillis) {
+        this.enabled = enabled;
+        this.partitions = partitions;
+        this.queueDepth = queueDepth;
+        this.maxPartitionDepth = maxPartitionDepth;
+        this.queueCapacity = queueCapacity;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.applied = applied;
+        this.batches = batches;
+        this.averageApplyMillis = averageApplyMillis;
+        this.maxApplyMillis = maxApplyMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getMaxPartitionDepth() {
+        return maxPartitionDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getApplied() {
+        return applied;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public double getAverageApplyMillis() {
+        return averageApplyMillis;
+    }
+
+    public double getMaxApplyMillis() {
+        return maxApplyMillis;
+    }
+}
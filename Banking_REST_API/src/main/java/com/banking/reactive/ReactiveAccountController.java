@@ -0,0 +1,117 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.math.BigDecimal;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.banking.controller.AccountController;
+import com.banking.model.Account;
+import com.banking.money.Money;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link AccountController}, loaded in the
+ * <code>reactive</code> profile.
+ * 
+ * <p>Serves account creation, lookups, the list of all accounts, deposits and
+ * customer changes with the same URLs and bodies. Bulk imports, paged and streamed
+ * listings, past balances, balance shards and the cache counters are only served
+ * by the servlet stack.</p>
+ * 
+ * <p>All endpoints in this controller are prefixed with <b>"/accounts"</b>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping("/accounts")
+public class ReactiveAccountController {
+
+    private final ReactiveAccountService service;
+
+    /**
+     * Creates the controller.
+     * 
+     * @param service the reactive account service
+     */
+    public ReactiveAccountController(ReactiveAccountService service) {
+        this.service = service;
+    }
+
+    /**
+     * Creates a new bank account with status <b>"ACTIVE"</b>.
+     * 
+     * @param account the {@link Account} to create
+     * @return the created account with its generated ID
+     */
+    @PostMapping("/createAccount")
+    public Mono<Account> create(@RequestBody Account account) {
+        return service.createAccount(account);
+    }
+
+    /**
+     * Retrieves an account by ID.
+     * 
+     * @param id the account ID
+     * @return the account, or an empty body if not found
+     */
+    @GetMapping("/getAccount/{Id}")
+    public Mono<Account> getAccount(@PathVariable("Id") Long id) {
+        return service.getAccount(id);
+    }
+
+    /**
+     * Retrieves all accounts as a JSON array, in account ID order.
+     * 
+     * @return the accounts, written as they are read
+     */
+    @GetMapping("/getAllAccounts")
+    public Flux<Account> getAll() {
+        return service.getAllAccounts();
+    }
+
+    /**
+     * Adds an amount to an account's balance; see {@link AccountController#deposit}.
+     * 
+     * @param id the account ID
+     * @param amount the decimal amount, at most two decimal places
+     * @return the updated account, or an empty body if not found
+     */
+    @PutMapping("/{Id}/deposit/{amount}")
+    public Mono<Account> deposit(@PathVariable("Id") Long id, @PathVariable("amount") BigDecimal amount) {
+        long minorUnits;
+        try {
+            minorUnits = Money.fromDecimal(amount);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "amount must have at most " + Money.SCALE + " decimal places");
+        }
+        return service.updateBalance(id, minorUnits);
+    }
+
+    /**
+     * Links an account to another customer.
+     * 
+     * @param id the account ID
+     * @param custId the new customer ID
+     * @return the updated account, or an empty body if not found
+     */
+    @PutMapping("/{id}/updateCustId/{custId}")
+    public Mono<Account> updateCustId(@PathVariable("id") Long id, @PathVariable("custId") Long custId) {
+        return service.updateCustomerId(id, custId);
+    }
+}
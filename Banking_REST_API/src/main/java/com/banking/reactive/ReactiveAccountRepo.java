@@ -0,0 +1,270 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.math.BigDecimal;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.banking.model.Account;
+import com.banking.money.Money;
+import com.banking.repository.AccountRepo;
+import com.banking.repository.AccountShardRepo;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link AccountRepo} and {@link AccountShardRepo}, for the
+ * reactive profile.
+ * 
+ * <p>The conditional debit and credit UPDATEs are the same statements as in the JPA
+ * repositories. Accounts are read with the sum of their shards in the same
+ * statement, so the balance of a sharded account is consistent without taking its
+ * lock stripe: a sweep moves shard balances into the account's row in one
+ * database transaction, and a single statement sees either all of it or none.</p>
+ * 
+ * <p>Every method returns the number of rows changed, where the JPA repository
+ * returns an <code>int</code>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveAccountRepo {
+
+    /**
+     * Account columns, with the balance including the shards.
+     */
+    static final String SELECT_SQL =
+            "SELECT a.account_id, a.customer_id, a.account_type, a.status, a.balance_shards,"
+            + " a.balance + COALESCE((SELECT SUM(s.balance) FROM bank_account_shard s"
+            + " WHERE s.account_id = a.account_id), 0) AS balance"
+            + " FROM bank_details a";
+
+    static final String INSERT_SQL =
+            "INSERT INTO bank_details (account_id, customer_id, account_type, balance, status, version)"
+            + " VALUES (:accountId, :customerId, :accountType, :balance, :status, 0)";
+
+    /**
+     * Adds a signed amount unless the balance would leave the range of
+     * {@link Money} minor units.
+     */
+    static final String ADD_TO_BALANCE_SQL =
+            "UPDATE bank_details SET balance = balance + :amount, version = version + 1"
+            + " WHERE account_id = :accountId AND balance BETWEEN :floor AND :ceiling";
+
+    static final String LOCK_CUSTOMER_ID_SQL =
+            "SELECT customer_id FROM bank_details WHERE account_id = :accountId FOR UPDATE";
+
+    static final String UPDATE_CUSTOMER_ID_SQL =
+            "UPDATE bank_details SET customer_id = :customerId, version = version + 1"
+            + " WHERE account_id = :accountId";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Creates the repository.
+     * 
+     * @param databaseClient R2DBC client of the reactive profile
+     */
+    public ReactiveAccountRepo(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Reads an account, with its shards added to the balance.
+     * 
+     * @param accountId the account ID
+     * @return the account, or empty if it does not exist
+     */
+    public Mono<Account> findById(long accountId) {
+        return databaseClient.sql(SELECT_SQL + " WHERE a.account_id = :accountId")
+                .bind("accountId", accountId)
+                .map(ReactiveAccountRepo::account)
+                .one();
+    }
+
+    /**
+     * Reads every account in account ID order, with shards added to the balances.
+     * 
+     * @return the accounts, fetched as the subscriber requests them
+     */
+    public Flux<Account> findAll() {
+        return databaseClient.sql(SELECT_SQL + " ORDER BY a.account_id")
+                .map(ReactiveAccountRepo::account)
+                .all();
+    }
+
+    /**
+     * Reads the accounts of a customer from the <i>(customerId, accountId)</i> index.
+     * 
+     * @param customerId the customer ID
+     * @return the accounts in account ID order
+     */
+    public Flux<Account> findByCustomerIdOrderByAccountId(long customerId) {
+        return databaseClient.sql(SELECT_SQL + " WHERE a.customer_id = :customerId ORDER BY a.account_id")
+                .bind("customerId", customerId)
+                .map(ReactiveAccountRepo::account)
+                .all();
+    }
+
+    /**
+     * Reads the status of an account.
+     * 
+     * @param accountId the account ID
+     * @return the status, or empty if the account does not exist
+     */
+    public Mono<String> findStatus(long accountId) {
+        return databaseClient.sql("SELECT status FROM bank_details WHERE account_id = :accountId")
+                .bind("accountId", accountId)
+                .map(row -> row.get(0, String.class))
+                .one();
+    }
+
+    /**
+     * Inserts a new account.
+     * 
+     * @param account the account, with its ID already assigned
+     * @return completes once the row is written
+     */
+    public Mono<Void> insert(Account account) {
+        return databaseClient.sql(INSERT_SQL)
+                .bind("accountId", account.getAccountId())
+                .bind("customerId", account.getCustomerId())
+                .bind("accountType", account.getAccountType())
+                .bind("balance", Money.toDecimal(account.getBalance()))
+                .bind("status", account.getStatus())
+                .then();
+    }
+
+    /**
+     * Same as {@link AccountRepo#debit}.
+     * 
+     * @param accountId the account to debit
+     * @param amount the positive decimal amount to withdraw
+     * @return 1 if the balance was debited, 0 otherwise
+     */
+    public Mono<Long> debit(long accountId, BigDecimal amount) {
+        return databaseClient.sql(AccountRepo.DEBIT_SQL)
+                .bind("accountId", accountId)
+                .bind("amount", amount)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Same as {@link AccountRepo#credit}.
+     * 
+     * @param accountId the account to credit
+     * @param amount the positive decimal amount to deposit
+     * @param ceiling the largest balance the account may hold before the credit
+     * @return 1 if the balance was credited, 0 otherwise
+     */
+    public Mono<Long> credit(long accountId, BigDecimal amount, BigDecimal ceiling) {
+        return databaseClient.sql(AccountRepo.CREDIT_SQL)
+                .bind("accountId", accountId)
+                .bind("amount", amount)
+                .bind("ceiling", ceiling)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Adds a signed amount to a balance, whatever the account's status, unless the
+     * result would overflow.
+     * 
+     * @param accountId the account ID
+     * @param amount the change in minor units
+     * @return 1 if the balance was changed, 0 if the account does not exist or the
+     *         balance would overflow
+     */
+    public Mono<Long> addToBalance(long accountId, long amount) {
+        long floor = amount < 0 ? Long.MIN_VALUE - amount : Long.MIN_VALUE;
+        long ceiling = amount > 0 ? Long.MAX_VALUE - amount : Long.MAX_VALUE;
+        return databaseClient.sql(ADD_TO_BALANCE_SQL)
+                .bind("accountId", accountId)
+                .bind("amount", Money.toDecimal(amount))
+                .bind("floor", Money.toDecimal(floor))
+                .bind("ceiling", Money.toDecimal(ceiling))
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Links an account to another customer.
+     * 
+     * <p>Must run inside a database transaction; the row stays write-locked until
+     * it ends.</p>
+     * 
+     * @param accountId the account ID
+     * @param customerId the new customer ID
+     * @return the previous customer ID, or empty if the account does not exist
+     */
+    public Mono<Long> updateCustomerId(long accountId, long customerId) {
+        return databaseClient.sql(LOCK_CUSTOMER_ID_SQL)
+                .bind("accountId", accountId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(previous -> databaseClient.sql(UPDATE_CUSTOMER_ID_SQL)
+                        .bind("accountId", accountId)
+                        .bind("customerId", customerId)
+                        .then()
+                        .thenReturn(previous));
+    }
+
+    /**
+     * Same as {@link AccountShardRepo#credit}.
+     * 
+     * @param accountId the owning account
+     * @param shard the shard number
+     * @param amount the positive decimal amount to deposit
+     * @param ceiling the largest balance the shard may hold before the credit
+     * @return 1 if the shard was credited, 0 otherwise
+     */
+    public Mono<Long> creditShard(long accountId, int shard, BigDecimal amount, BigDecimal ceiling) {
+        return databaseClient.sql(AccountShardRepo.CREDIT_SQL)
+                .bind("accountId", accountId)
+                .bind("shard", shard)
+                .bind("amount", amount)
+                .bind("ceiling", ceiling)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Same as {@link AccountShardRepo#lockBalances}.
+     * 
+     * @param accountId the owning account
+     * @return the shard balances, write-locked until the transaction ends
+     */
+    public Flux<BigDecimal> lockShardBalances(long accountId) {
+        return databaseClient.sql(AccountShardRepo.LOCK_BALANCES_SQL)
+                .bind("accountId", accountId)
+                .map(row -> row.get(0, BigDecimal.class))
+                .all();
+    }
+
+    /**
+     * Same as {@link AccountShardRepo#zeroBalances}.
+     * 
+     * @param accountId the owning account
+     * @return the number of shards reset
+     */
+    public Mono<Long> zeroShardBalances(long accountId) {
+        return databaseClient.sql(AccountShardRepo.ZERO_BALANCES_SQL)
+                .bind("accountId", accountId)
+                .fetch().rowsUpdated();
+    }
+
+    private static Account account(Readable row) {
+        Account account = new Account();
+        account.setAccountId(row.get("account_id", Long.class));
+        account.setCustomerId(row.get("customer_id", Long.class));
+        account.setAccountType(row.get("account_type", String.class));
+        account.setBalance(Money.fromStoredDecimal(row.get("balance", BigDecimal.class)));
+        account.setStatus(row.get("status", String.class));
+        account.setBalanceShards(row.get("balance_shards", Integer.class));
+        return account;
+    }
+}
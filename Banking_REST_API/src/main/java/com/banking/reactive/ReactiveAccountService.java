@@ -0,0 +1,170 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.banking.cache.AccountCache;
+import com.banking.cache.CustomerAccountsCache;
+import com.banking.model.Account;
+import com.banking.model.CustomerAccounts;
+import com.banking.model.IdGenerators;
+import com.banking.model.LedgerEntry;
+import com.banking.money.Money;
+import com.banking.service.AccountService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link AccountService}: account creation, lookups,
+ * deposits and customer changes through R2DBC.
+ * 
+ * <p>Reads go to the database, not to the {@link AccountCache}: one statement
+ * returns the account with its shards, and the cache entries could not be kept
+ * exact without the lock stripes. Writes invalidate the cache entries they make
+ * stale, so the servlet-only endpoints running in the same instance (balances at a
+ * point in time, shard changes) never see an old balance.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Service
+public class ReactiveAccountService {
+
+    private final ReactiveAccountRepo repo;
+
+    private final ReactiveLedger ledger;
+
+    private final ReactiveIdAllocator ids;
+
+    /**
+     * Runs each change in one reactive database transaction.
+     */
+    private final TransactionalOperator transactionalOperator;
+
+    private final AccountCache accountCache;
+
+    private final CustomerAccountsCache customerAccounts;
+
+    /**
+     * Creates the service.
+     * 
+     * @param repo repository for accounts
+     * @param ledger ledger receiving the opening balances and deposits
+     * @param ids allocator of account IDs
+     * @param transactionalOperator reactive transaction boundary for changes
+     * @param accountCache account cache invalidated by changes
+     * @param customerAccounts cache of the account IDs of each customer
+     */
+    public ReactiveAccountService(ReactiveAccountRepo repo, ReactiveLedger ledger, ReactiveIdAllocator ids,
+                                  TransactionalOperator transactionalOperator, AccountCache accountCache,
+                                  CustomerAccountsCache customerAccounts) {
+        this.repo = repo;
+        this.ledger = ledger;
+        this.ids = ids;
+        this.transactionalOperator = transactionalOperator;
+        this.accountCache = accountCache;
+        this.customerAccounts = customerAccounts;
+    }
+
+    /**
+     * Creates a new account with status <b>"ACTIVE"</b> and records its opening
+     * balance in the ledger.
+     * 
+     * @param account the {@link Account} to create
+     * @return the created account with its generated ID
+     */
+    public Mono<Account> createAccount(Account account) {
+        account.setStatus("ACTIVE");
+        return ids.next(IdGenerators.ACCOUNT)
+                .flatMap(accountId -> {
+                    account.setAccountId(accountId);
+                    return repo.insert(account)
+                            .then(ledger.record(accountId, account.getBalance(), LedgerEntry.OPENING))
+                            .thenReturn(account)
+                            .as(transactionalOperator::transactional);
+                })
+                .doOnSuccess(created -> customerAccounts.invalidate(created.getCustomerId()));
+    }
+
+    /**
+     * Retrieves an account by ID; the balance of a sharded account includes its shards.
+     * 
+     * @param id the account ID
+     * @return the account, or empty if not found
+     */
+    public Mono<Account> getAccount(long id) {
+        return repo.findById(id);
+    }
+
+    /**
+     * Streams every account in account ID order.
+     * 
+     * @return the accounts, read as the subscriber requests them
+     */
+    public Flux<Account> getAllAccounts() {
+        return repo.findAll();
+    }
+
+    /**
+     * Retrieves all accounts of a customer and their total balance, with one query
+     * on the customer index.
+     * 
+     * @param customerId the customer ID
+     * @return the {@link CustomerAccounts}; empty for a customer without accounts
+     */
+    public Mono<CustomerAccounts> getCustomerAccounts(long customerId) {
+        return repo.findByCustomerIdOrderByAccountId(customerId)
+                .collectList()
+                .map(accounts -> {
+                    long total = 0;
+                    for (Account account : accounts) {
+                        total = Money.add(total, account.getBalance());
+                    }
+                    return new CustomerAccounts(customerId, accounts, total);
+                });
+    }
+
+    /**
+     * Adds an amount to an account's balance, whatever its status, and records it
+     * in the ledger as a DEPOSIT.
+     * 
+     * @param id the account ID
+     * @param amount the signed amount in minor units
+     * @return the updated account, or empty if not found; fails with
+     *         {@link ArithmeticException} if the balance would overflow
+     */
+    public Mono<Account> updateBalance(long id, long amount) {
+        return repo.addToBalance(id, amount)
+                .flatMap(updated -> updated == 1
+                        ? ledger.record(id, amount, LedgerEntry.DEPOSIT).thenReturn(true)
+                        // No row changed: either no such account or an overflow
+                        : repo.findStatus(id).flatMap(status -> Mono.<Boolean>error(
+                                new ArithmeticException("balance of account " + id + " would overflow"))))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(updated -> accountCache.invalidate(id))
+                .flatMap(updated -> repo.findById(id));
+    }
+
+    /**
+     * Links an account to another customer.
+     * 
+     * @param id the account ID
+     * @param custId the new customer ID
+     * @return the updated account, or empty if not found
+     */
+    public Mono<Account> updateCustomerId(long id, long custId) {
+        return repo.updateCustomerId(id, custId)
+                .as(transactionalOperator::transactional)
+                .doOnNext(previous -> {
+                    accountCache.invalidate(id);
+                    customerAccounts.invalidate(previous);
+                    customerAccounts.invalidate(custId);
+                })
+                .flatMap(previous -> repo.findById(id));
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banking.controller.CustomerController;
+import com.banking.model.CustomerAccounts;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link CustomerController}, loaded in the
+ * <code>reactive</code> profile.
+ * 
+ * <p>All endpoints in this controller are prefixed with <b>"/customers"</b>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping("/customers")
+public class ReactiveCustomerController {
+
+    private final ReactiveAccountService service;
+
+    /**
+     * Creates the controller.
+     * 
+     * @param service the reactive account service
+     */
+    public ReactiveCustomerController(ReactiveAccountService service) {
+        this.service = service;
+    }
+
+    /**
+     * Retrieves all accounts of a customer with their total balance.
+     * 
+     * @param id the customer ID
+     * @return the {@link CustomerAccounts}; empty for a customer without accounts
+     */
+    @GetMapping("/{id}/accounts")
+    public Mono<CustomerAccounts> getAccounts(@PathVariable("id") long id) {
+        return service.getCustomerAccounts(id);
+    }
+}
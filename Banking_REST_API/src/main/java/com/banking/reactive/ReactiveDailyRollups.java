@@ -0,0 +1,120 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+import com.banking.model.AccountTotals;
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+import com.banking.report.DailyRollups;
+import com.banking.repository.AccountDailyRollupRepo;
+import com.banking.shard.BalanceShards;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the per-account daily transfer totals up to date through R2DBC, and
+ * answers range reports from them, like {@link DailyRollups}.
+ * 
+ * <p>{@link #record} must be subscribed inside the reactive database transaction of
+ * the transfer. It sends the same upserts as {@link DailyRollups}: a debit on the
+ * sender's slot 0 and a credit on a random slot of a sharded receiver, in key
+ * order.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Component
+public class ReactiveDailyRollups {
+
+    private final DatabaseClient databaseClient;
+
+    private final BalanceShards balanceShards;
+
+    /**
+     * Creates the component.
+     * 
+     * @param databaseClient R2DBC client of the reactive profile
+     * @param balanceShards tells which accounts spread their credits over several slots
+     */
+    public ReactiveDailyRollups(DatabaseClient databaseClient, BalanceShards balanceShards) {
+        this.databaseClient = databaseClient;
+        this.balanceShards = balanceShards;
+    }
+
+    /**
+     * Adds a completed transfer to the daily totals.
+     * 
+     * @param transaction the transfer, with status SUCCESS or FAILED
+     * @return completes once the totals are written
+     */
+    public Mono<Void> record(Transaction transaction) {
+        Long fromAccountId = transaction.getFromAccountId();
+        LocalDate day = transaction.getTimestamp().toLocalDate();
+        long amount = transaction.getAmount();
+        if (!"SUCCESS".equals(transaction.getStatus())) {
+            return fromAccountId == null ? Mono.empty() : upsert(fromAccountId, day, 0, 0, 0, 0, 0, 1);
+        }
+        long toAccountId = transaction.getToAccountId();
+        int shards = balanceShards.shardCount(toAccountId);
+        int slot = shards > 1 ? ThreadLocalRandom.current().nextInt(shards) : 0;
+        if (fromAccountId == toAccountId && slot == 0) {
+            return upsert(fromAccountId, day, 0, 1, amount, 1, amount, 0);
+        }
+        Mono<Void> debit = upsert(fromAccountId, day, 0, 1, amount, 0, 0, 0);
+        Mono<Void> credit = upsert(toAccountId, day, slot, 0, 0, 1, amount, 0);
+        // Key order, as DailyRollups writes them
+        boolean debitFirst = fromAccountId < toAccountId || (fromAccountId == toAccountId && slot > 0);
+        return debitFirst ? debit.then(credit) : credit.then(debit);
+    }
+
+    /**
+     * Adds up the daily totals of an account over a range of days.
+     * 
+     * @param accountId the account ID
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @return the totals; all zero for an account without transfers
+     */
+    public Mono<AccountTotals> totals(long accountId, LocalDate startDate, LocalDate endDate) {
+        return databaseClient.sql(AccountDailyRollupRepo.SUM_FOR_ACCOUNT_SQL)
+                .bind("accountId", accountId)
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map(row -> new AccountTotals(accountId, startDate, endDate,
+                        count(row, 0), money(row, 1), count(row, 2), money(row, 3), count(row, 4), count(row, 5)))
+                .one();
+    }
+
+    private Mono<Void> upsert(long accountId, LocalDate day, int slot, long debitCount, long debits,
+                              long creditCount, long credits, long failedCount) {
+        return databaseClient.sql(DailyRollups.UPSERT_SQL)
+                .bind(0, accountId)
+                .bind(1, day)
+                .bind(2, slot)
+                .bind(3, debitCount)
+                .bind(4, Money.toDecimal(debits))
+                .bind(5, creditCount)
+                .bind(6, Money.toDecimal(credits))
+                .bind(7, failedCount)
+                .then();
+    }
+
+    private static long count(Readable row, int index) {
+        return ((Number) row.get(index)).longValue();
+    }
+
+    private static long money(Readable row, int index) {
+        Object value = row.get(index);
+        return Money.fromDecimal(value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString()));
+    }
+}
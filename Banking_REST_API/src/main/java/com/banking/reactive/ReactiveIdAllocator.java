@@ -0,0 +1,159 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import com.banking.config.IdBlockAllocator;
+import com.banking.model.IdGenerators;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands out entity IDs for rows inserted through R2DBC, from the same
+ * <b>id_generator</b> rows Hibernate uses.
+ * 
+ * <p>Works like Hibernate's <i>pooled</i> optimizer: a block of
+ * {@link IdGenerators#ALLOCATION_SIZE} IDs is reserved with one UPDATE and one
+ * SELECT, in its own database transaction, and then handed out from memory. The
+ * block arithmetic is that of {@link IdBlockAllocator}, so Hibernate, the bulk
+ * importer and this allocator never hand out the same ID. Callers that find the
+ * block used up while a reservation is in flight wait for that reservation rather
+ * than starting another.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Component
+public class ReactiveIdAllocator {
+
+    private static final String RESERVE_SQL = "UPDATE " + IdGenerators.TABLE + " SET "
+            + IdGenerators.VALUE_COLUMN + " = " + IdGenerators.VALUE_COLUMN + " + :size WHERE "
+            + IdGenerators.NAME_COLUMN + " = :generator";
+
+    private static final String READ_SQL = "SELECT " + IdGenerators.VALUE_COLUMN + " FROM "
+            + IdGenerators.TABLE + " WHERE " + IdGenerators.NAME_COLUMN + " = :generator";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Runs each reservation in a new database transaction.
+     */
+    private final TransactionalOperator newTransaction;
+
+    /**
+     * Current block of each generator, by generator name.
+     */
+    private final ConcurrentHashMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the allocator.
+     * 
+     * @param databaseClient used for the generator statements
+     * @param transactionManager reactive transaction manager for the reservations
+     */
+    public ReactiveIdAllocator(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.newTransaction = TransactionalOperator.create(transactionManager, definition);
+    }
+
+    /**
+     * Returns the next ID of a generator.
+     * 
+     * @param generator generator row name, for example {@link IdGenerators#ACCOUNT}
+     * @return the ID; fails with {@link IllegalStateException} if the generator row
+     *         does not exist
+     */
+    public Mono<Long> next(String generator) {
+        Block block = blocks.computeIfAbsent(generator, Block::new);
+        return Mono.defer(() -> {
+            long id = block.take();
+            if (id != Block.EMPTY) {
+                return Mono.just(id);
+            }
+            return block.refill(this::reserve).then(next(generator));
+        });
+    }
+
+    /**
+     * Reserves the next block of a generator.
+     * 
+     * @return the first ID of the block
+     */
+    private Mono<Long> reserve(String generator) {
+        long size = IdGenerators.ALLOCATION_SIZE;
+        Mono<Long> next = databaseClient.sql(RESERVE_SQL)
+                .bind("size", size)
+                .bind("generator", generator)
+                .fetch().rowsUpdated()
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new IllegalStateException("no id generator " + generator))
+                        : databaseClient.sql(READ_SQL)
+                                .bind("generator", generator)
+                                .map(row -> row.get(0, Long.class))
+                                .one());
+        // See IdBlockAllocator#reserve for why the block starts 48 below its value
+        return next.as(newTransaction::transactional)
+                .map(value -> value - size - IdGenerators.ALLOCATION_SIZE + 2);
+    }
+
+    /**
+     * The IDs of one generator that are reserved but not yet handed out.
+     */
+    private static final class Block {
+
+        static final long EMPTY = -1;
+
+        private final String generator;
+
+        private long next;
+
+        private long limit;
+
+        /**
+         * Reservation in flight, shared by every caller that found the block empty.
+         */
+        private Mono<Void> refill;
+
+        Block(String generator) {
+            this.generator = generator;
+        }
+
+        synchronized long take() {
+            return next < limit ? next++ : EMPTY;
+        }
+
+        synchronized Mono<Void> refill(Function<String, Mono<Long>> reserve) {
+            if (refill == null) {
+                refill = reserve.apply(generator)
+                        .doOnNext(this::install)
+                        .doOnError(e -> clear())
+                        .then()
+                        .cache();
+            }
+            return refill;
+        }
+
+        private synchronized void install(long first) {
+            next = first;
+            limit = first + IdGenerators.ALLOCATION_SIZE;
+            refill = null;
+        }
+
+        private synchronized void clear() {
+            refill = null;
+        }
+    }
+}
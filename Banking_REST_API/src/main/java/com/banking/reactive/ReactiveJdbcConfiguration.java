@@ -0,0 +1,44 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Keeps the JDBC {@link DataSource} in the <code>reactive</code> profile.
+ * 
+ * <p>Spring Boot does not configure a DataSource once an R2DBC connection factory
+ * exists, but JPA still serves the schema, the ID generator seeding and the
+ * scheduled jobs (balance snapshots, rollup backfills) in this
+ * profile. The pool is built from the usual <code>spring.datasource.*</code>
+ * properties.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveJdbcConfiguration {
+
+    /**
+     * Creates the Hikari pool used by JPA and JDBC.
+     * 
+     * @param properties the <code>spring.datasource.*</code> properties
+     * @return the DataSource
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
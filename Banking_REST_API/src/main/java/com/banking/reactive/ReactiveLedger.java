@@ -0,0 +1,97 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.time.LocalDateTime;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Component;
+
+import com.banking.ledger.Ledger;
+import com.banking.model.IdGenerators;
+import com.banking.model.LedgerEntry;
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Appends {@link LedgerEntry} rows through R2DBC, like the <code>record</code>
+ * methods of {@link Ledger}.
+ * 
+ * <p>Must be subscribed inside the reactive database transaction that changes the
+ * balance, so the entries commit with it. Point-in-time balances and snapshots are
+ * still served by {@link Ledger} and its snapshotter, which read the same rows.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Component
+public class ReactiveLedger {
+
+    static final String INSERT_SQL =
+            "INSERT INTO ledger_entry (entry_id, account_id, amount, kind, transaction_id, timestamp)"
+            + " VALUES (:entryId, :accountId, :amount, :kind, :transactionId, :timestamp)";
+
+    private final DatabaseClient databaseClient;
+
+    private final ReactiveIdAllocator ids;
+
+    /**
+     * Creates the ledger writer.
+     * 
+     * @param databaseClient R2DBC client of the reactive profile
+     * @param ids allocator of the entry IDs
+     */
+    public ReactiveLedger(DatabaseClient databaseClient, ReactiveIdAllocator ids) {
+        this.databaseClient = databaseClient;
+        this.ids = ids;
+    }
+
+    /**
+     * Records a balance change that is not part of a transfer.
+     * 
+     * @param accountId the account whose balance changed
+     * @param amount the signed change in minor units
+     * @param kind {@link LedgerEntry#OPENING} or {@link LedgerEntry#DEPOSIT}
+     * @return completes once the entry is written
+     */
+    public Mono<Void> record(long accountId, long amount, String kind) {
+        return insert(accountId, amount, kind, null, LocalDateTime.now());
+    }
+
+    /**
+     * Records the debit and credit of a successful transfer, stamped with the time
+     * they are written, as {@link Ledger} does.
+     * 
+     * @param transaction the transfer, with its ID assigned
+     * @return completes once both entries are written
+     */
+    public Mono<Void> recordTransfer(Transaction transaction) {
+        return Mono.defer(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            return insert(transaction.getFromAccountId(), -transaction.getAmount(), LedgerEntry.TRANSFER,
+                    transaction.getTransactionId(), now)
+                    .then(insert(transaction.getToAccountId(), transaction.getAmount(), LedgerEntry.TRANSFER,
+                            transaction.getTransactionId(), now));
+        });
+    }
+
+    private Mono<Void> insert(long accountId, long amount, String kind, Long transactionId,
+                              LocalDateTime timestamp) {
+        return ids.next(IdGenerators.LEDGER_ENTRY).flatMap(entryId -> {
+            GenericExecuteSpec spec = databaseClient.sql(INSERT_SQL)
+                    .bind("entryId", entryId)
+                    .bind("accountId", accountId)
+                    .bind("amount", Money.toDecimal(amount))
+                    .bind("kind", kind)
+                    .bind("timestamp", timestamp);
+            spec = transactionId != null ? spec.bind("transactionId", transactionId)
+                    : spec.bindNull("transactionId", Long.class);
+            return spec.then();
+        });
+    }
+}
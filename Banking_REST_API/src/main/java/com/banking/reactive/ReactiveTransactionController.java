@@ -0,0 +1,170 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.banking.controller.TransactionController;
+import com.banking.model.AccountTotals;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
+import com.banking.model.TransferRequest;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link TransactionController}, loaded in the
+ * <code>reactive</code> profile.
+ * 
+ * <p>Serves the same URLs and bodies for the transfer, lookup, history and totals
+ * endpoints. The history endpoints return a {@link Flux}: rows are read from the
+ * database only as fast as the client consumes the response, so a slow reader
+ * holds back the query instead of filling memory. Batch transfers, statements and
+ * the audit writer counters are only served by the servlet stack.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping("/transactions")
+public class ReactiveTransactionController {
+
+    private final ReactiveTransactionService service;
+
+    /**
+     * Creates the controller.
+     * 
+     * @param service the reactive transaction service
+     */
+    public ReactiveTransactionController(ReactiveTransactionService service) {
+        this.service = service;
+    }
+
+    /**
+     * Transfers an amount from one account to another; see
+     * {@link TransactionController#transfer}.
+     * 
+     * @param request the transfer details
+     * @param idempotencyKey optional header used when the body has no key
+     * @return the transaction, with status SUCCESS or FAILED
+     */
+    @PostMapping("/transfer")
+    public Mono<Transaction> transfer(@RequestBody TransferRequest request,
+                                      @RequestHeader(name = "Idempotency-Key", required = false)
+                                      String idempotencyKey) {
+        if (request.getIdempotencyKey() == null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        String key = request.getIdempotencyKey();
+        if (key != null && (key.isBlank() || key.length() > TransferRequest.MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "idempotencyKey must be 1 to " + TransferRequest.MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        return service.transfer(request);
+    }
+
+    /**
+     * Retrieves a transaction by ID.
+     * 
+     * @param transactionId the transaction ID
+     * @return the transaction, or an empty body if not found
+     */
+    @GetMapping("/byTransactionId/{tid}")
+    public Mono<Transaction> getTransaction(@PathVariable("tid") Long transactionId) {
+        return service.getTransactionById(transactionId);
+    }
+
+    /**
+     * Retrieves all transactions of an account as a JSON array, oldest first.
+     * 
+     * @param accountId the account ID
+     * @return the transactions, written as they are read
+     */
+    @GetMapping("/history/{accountId}")
+    public Flux<Transaction> getHistory(@PathVariable("accountId") Long accountId) {
+        return service.getHistory(accountId);
+    }
+
+    /**
+     * Retrieves one keyset-paginated page of the history of an account; see
+     * {@link TransactionController#getHistoryPage}.
+     * 
+     * @param accountId the account ID
+     * @param afterTimestamp nextAfterTimestamp from the previous page
+     * @param afterId nextAfterId from the previous page
+     * @param size page size, at most 1000
+     * @return the {@link TransactionPage}
+     */
+    @GetMapping("/history/{accountId}/page")
+    public Mono<TransactionPage> getHistoryPage(@PathVariable("accountId") Long accountId,
+                                                @RequestParam(required = false) String afterTimestamp,
+                                                @RequestParam(required = false) Long afterId,
+                                                @RequestParam(defaultValue = "100") int size) {
+        LocalDateTime after = afterTimestamp != null ? LocalDateTime.parse(afterTimestamp) : null;
+        return service.getHistoryPage(accountId, after, afterId, size);
+    }
+
+    /**
+     * Streams the complete history of an account as newline-delimited JSON, one
+     * transaction per line, oldest first.
+     * 
+     * @param accountId the account ID
+     * @return the transactions, fetched as the client reads them
+     */
+    @GetMapping(value = "/history/{accountId}/stream", produces = "application/x-ndjson")
+    public Flux<Transaction> streamHistory(@PathVariable("accountId") Long accountId) {
+        return service.getHistory(accountId);
+    }
+
+    /**
+     * Retrieves the transactions of an account within a date range.
+     * 
+     * @param accountId the account ID
+     * @param startDate start date in ISO format, inclusive
+     * @param endDate end date in ISO format, inclusive
+     * @return the transactions in the range, oldest first
+     */
+    @GetMapping("/history/{accountId}/daterange")
+    public Flux<Transaction> getHistoryByDateRange(@PathVariable("accountId") Long accountId,
+                                                   @RequestParam String startDate,
+                                                   @RequestParam String endDate) {
+        return service.getHistoryInDateRange(accountId, LocalDateTime.parse(startDate),
+                LocalDateTime.parse(endDate));
+    }
+
+    /**
+     * Retrieves the transfer totals of an account over a range of days, from the
+     * daily rollups.
+     * 
+     * @param accountId the account ID
+     * @param startDate first day in ISO format
+     * @param endDate last day in ISO format, inclusive
+     * @return the {@link AccountTotals}
+     */
+    @GetMapping("/totals/{accountId}")
+    public Mono<AccountTotals> getTotals(@PathVariable("accountId") Long accountId,
+                                         @RequestParam String startDate,
+                                         @RequestParam String endDate) {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endDate must not be before startDate");
+        }
+        return service.getAccountTotals(accountId, start, end);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+import com.banking.repository.TransactionRepo;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link TransactionRepo}, for the reactive profile.
+ * 
+ * <p>The history queries are the native SQL of {@link TransactionRepo}, so they use
+ * the same indexes.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveTransactionRepo {
+
+    static final String INSERT_SQL =
+            "INSERT INTO transaction (transaction_id, from_account_id, to_account_id, amount, timestamp, status,"
+            + " idempotency_key) VALUES (:transactionId, :fromAccountId, :toAccountId, :amount, :timestamp,"
+            + " :status, :idempotencyKey)";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Creates the repository.
+     * 
+     * @param databaseClient R2DBC client of the reactive profile
+     */
+    public ReactiveTransactionRepo(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Reads a transaction by ID.
+     * 
+     * @param transactionId the transaction ID
+     * @return the transaction, or empty if it does not exist
+     */
+    public Mono<Transaction> findById(long transactionId) {
+        return databaseClient.sql("SELECT * FROM transaction WHERE transaction_id = :transactionId")
+                .bind("transactionId", transactionId)
+                .map(ReactiveTransactionRepo::transaction)
+                .one();
+    }
+
+    /**
+     * Reads the transaction created for an idempotency key.
+     * 
+     * @param idempotencyKey the client-supplied key
+     * @return the transaction, or empty if no transfer used the key
+     */
+    public Mono<Transaction> findByIdempotencyKey(String idempotencyKey) {
+        return databaseClient.sql("SELECT * FROM transaction WHERE idempotency_key = :idempotencyKey")
+                .bind("idempotencyKey", idempotencyKey)
+                .map(ReactiveTransactionRepo::transaction)
+                .one();
+    }
+
+    /**
+     * Inserts a transaction.
+     * 
+     * @param transaction the transaction, with its ID already assigned
+     * @return completes once the row is written; fails with
+     *         {@link org.springframework.dao.DataIntegrityViolationException} if the
+     *         idempotency key is taken
+     */
+    public Mono<Void> insert(Transaction transaction) {
+        GenericExecuteSpec spec = databaseClient.sql(INSERT_SQL)
+                .bind("transactionId", transaction.getTransactionId())
+                .bind("amount", Money.toDecimal(transaction.getAmount()))
+                .bind("timestamp", transaction.getTimestamp())
+                .bind("status", transaction.getStatus());
+        spec = bindNullable(spec, "fromAccountId", transaction.getFromAccountId(), Long.class);
+        spec = bindNullable(spec, "toAccountId", transaction.getToAccountId(), Long.class);
+        spec = bindNullable(spec, "idempotencyKey", transaction.getIdempotencyKey(), String.class);
+        return spec.then();
+    }
+
+    /**
+     * Same as {@link TransactionRepo#findHistoryPage}.
+     * 
+     * @param accountId the account ID
+     * @param afterTimestamp timestamp of the last transaction already seen
+     * @param afterId ID of the last transaction already seen
+     * @param limit maximum number of rows to return
+     * @return up to <code>limit</code> transactions after the cursor
+     */
+    public Flux<Transaction> findHistoryPage(long accountId, LocalDateTime afterTimestamp, long afterId,
+                                             int limit) {
+        return databaseClient.sql(TransactionRepo.HISTORY_PAGE_SQL)
+                .bind("accountId", accountId)
+                .bind("afterTimestamp", afterTimestamp)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveTransactionRepo::transaction)
+                .all();
+    }
+
+    /**
+     * Same as {@link TransactionRepo#findHistoryInDateRange}.
+     * 
+     * @param accountId the account ID
+     * @param startDate start of the range, inclusive
+     * @param endDate end of the range, inclusive
+     * @return the transactions in the range, oldest first
+     */
+    public Flux<Transaction> findHistoryInDateRange(long accountId, LocalDateTime startDate,
+                                                    LocalDateTime endDate) {
+        return databaseClient.sql(TransactionRepo.HISTORY_IN_DATE_RANGE_SQL)
+                .bind("accountId", accountId)
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map(ReactiveTransactionRepo::transaction)
+                .all();
+    }
+
+    private static <T> GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, T value,
+                                                       Class<T> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static Transaction transaction(Readable row) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(row.get("transaction_id", Long.class));
+        transaction.setFromAccountId(row.get("from_account_id", Long.class));
+        transaction.setToAccountId(row.get("to_account_id", Long.class));
+        transaction.setAmount(Money.fromStoredDecimal(row.get("amount", BigDecimal.class)));
+        transaction.setTimestamp(row.get("timestamp", LocalDateTime.class));
+        transaction.setStatus(row.get("status", String.class));
+        transaction.setIdempotencyKey(row.get("idempotency_key", String.class));
+        return transaction;
+    }
+}
@@ -0,0 +1,387 @@
+/**
+ * 
+ */
+package com.banking.reactive;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.banking.cache.AccountCache;
+import com.banking.idempotency.IdempotencyStore;
+import com.banking.model.AccountTotals;
+import com.banking.model.IdGenerators;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
+import com.banking.model.TransferRequest;
+import com.banking.money.Money;
+import com.banking.repository.TransactionRepo;
+import com.banking.service.TransactionService;
+import com.banking.shard.BalanceShards;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link TransactionService}: transfers, history and totals
+ * through R2DBC, without blocking a thread on the database.
+ * 
+ * <p>A transfer makes the same statements as {@link TransactionService#transfer},
+ * inside one reactive database transaction ({@link TransactionalOperator}): the
+ * conditional debit and credit UPDATEs in ascending account ID order, the
+ * {@link Transaction} row, the two ledger entries and the daily rollups. If either
+ * UPDATE matches no row the transaction rolls back and the transfer is recorded as
+ * <b>"FAILED"</b> in a transaction of its own.</p>
+ * 
+ * <p>The {@link com.banking.concurrency.StripedAccountLocks} are not taken: a lock
+ * held by a thread cannot be held across asynchronous steps. They are not needed
+ * for the balances, which the conditional UPDATEs and the row locks keep correct,
+ * but without them the {@link AccountCache} cannot be adjusted exactly, so the
+ * entries of both accounts are invalidated after each transfer instead. A debit
+ * that finds a sharded account's own row short sweeps the shards into it under
+ * their row locks, as {@link BalanceShards#sweep} does.</p>
+ * 
+ * <p>Idempotency keys work as in {@link TransactionService}: known keys are answered
+ * from the {@link IdempotencyStore}, and the unique constraint on the key catches
+ * concurrent duplicates.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Profile("reactive")
+@Service
+public class ReactiveTransactionService {
+
+    /**
+     * Cursor used for the first history page; earlier than any transaction.
+     */
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ReactiveTransactionRepo transactionRepo;
+
+    private final ReactiveAccountRepo accountRepo;
+
+    private final ReactiveLedger ledger;
+
+    private final ReactiveDailyRollups dailyRollups;
+
+    private final ReactiveIdAllocator ids;
+
+    /**
+     * Runs each transfer in one reactive database transaction.
+     */
+    private final TransactionalOperator transactionalOperator;
+
+    private final AccountCache accountCache;
+
+    private final IdempotencyStore idempotencyStore;
+
+    private final BalanceShards balanceShards;
+
+    /**
+     * Creates the service.
+     * 
+     * @param transactionRepo repository for transaction records
+     * @param accountRepo repository for account balances
+     * @param ledger ledger receiving the debit and credit of each transfer
+     * @param dailyRollups per-account daily totals updated by each transfer
+     * @param ids allocator of transaction IDs
+     * @param transactionalOperator reactive transaction boundary for transfers
+     * @param accountCache account cache invalidated after each transfer
+     * @param idempotencyStore store of idempotency keys already processed
+     * @param balanceShards shard counts of hot accounts
+     */
+    public ReactiveTransactionService(ReactiveTransactionRepo transactionRepo, ReactiveAccountRepo accountRepo,
+                                      ReactiveLedger ledger, ReactiveDailyRollups dailyRollups,
+                                      ReactiveIdAllocator ids, TransactionalOperator transactionalOperator,
+                                      AccountCache accountCache, IdempotencyStore idempotencyStore,
+                                      BalanceShards balanceShards) {
+        this.transactionRepo = transactionRepo;
+        this.accountRepo = accountRepo;
+        this.ledger = ledger;
+        this.dailyRollups = dailyRollups;
+        this.ids = ids;
+        this.transactionalOperator = transactionalOperator;
+        this.accountCache = accountCache;
+        this.idempotencyStore = idempotencyStore;
+        this.balanceShards = balanceShards;
+    }
+
+    /**
+     * Transfers funds from one account to another.
+     * 
+     * <p>Follows the rules of {@link TransactionService#transfer}: a missing account
+     * ID, an amount that is not positive, an unknown or inactive account,
+     * insufficient funds or an overflowing balance make the transfer FAILED.</p>
+     * 
+     * @param request the {@link TransferRequest} object containing transfer details
+     * @return the persisted {@link Transaction} record (either SUCCESS or FAILED)
+     */
+    public Mono<Transaction> transfer(TransferRequest request) {
+        String key = request.getIdempotencyKey();
+        return findReplay(key)
+                .switchIfEmpty(Mono.defer(() -> doTransfer(request)))
+                // Another request with the same key won the race on the unique constraint
+                .onErrorResume(DataIntegrityViolationException.class, e -> findPersistedReplay(key)
+                        .switchIfEmpty(Mono.error(e)));
+    }
+
+    private Mono<Transaction> doTransfer(TransferRequest request) {
+        Transaction transaction = newTransaction(request);
+        return ids.next(IdGenerators.TRANSACTION).flatMap(transactionId -> {
+            transaction.setTransactionId(transactionId);
+            if (request.getFromAccountId() == null || request.getToAccountId() == null
+                    || request.getAmount() <= 0) {
+                return fail(transaction);
+            }
+            long fromAccountId = request.getFromAccountId();
+            long toAccountId = request.getToAccountId();
+            return applyTransfer(request, transaction)
+                    .as(transactionalOperator::transactional)
+                    // Rolled back; record the failure in its own transaction
+                    .onErrorResume(TransferRejectedException.class, e -> fail(transaction))
+                    .doOnSuccess(result -> {
+                        accountCache.invalidate(fromAccountId);
+                        accountCache.invalidate(toAccountId);
+                    });
+        }).map(this::remember);
+    }
+
+    /**
+     * Moves the funds with two conditional UPDATEs and records the transaction.
+     * 
+     * <p>Must be subscribed inside a reactive database transaction.</p>
+     */
+    private Mono<Transaction> applyTransfer(TransferRequest request, Transaction transaction) {
+        long fromAccountId = request.getFromAccountId();
+        long toAccountId = request.getToAccountId();
+        BigDecimal amount = Money.toDecimal(request.getAmount());
+        BigDecimal ceiling = Money.toDecimal(Long.MAX_VALUE - request.getAmount());
+
+        // Lock the two rows in ascending ID order; shard rows always come last
+        Mono<Void> debit = debit(fromAccountId, amount);
+        Mono<Void> credit = credit(toAccountId, amount, ceiling);
+        Mono<Void> moves = fromAccountId <= toAccountId || balanceShards.isSharded(toAccountId)
+                ? debit.then(credit)
+                : credit.then(debit);
+
+        return moves.then(Mono.defer(() -> {
+            transaction.setStatus("SUCCESS");
+            return transactionRepo.insert(transaction)
+                    .then(ledger.recordTransfer(transaction))
+                    .then(dailyRollups.record(transaction))
+                    .thenReturn(transaction);
+        }));
+    }
+
+    private Mono<Void> debit(long accountId, BigDecimal amount) {
+        return accountRepo.debit(accountId, amount)
+                .flatMap(updated -> updated == 0 && balanceShards.isSharded(accountId)
+                        // The account's own row was short; add its shards to it and retry
+                        ? sweep(accountId).flatMap(swept -> swept ? accountRepo.debit(accountId, amount)
+                                : Mono.just(0L))
+                        : Mono.just(updated))
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new TransferRejectedException(accountId))
+                        : Mono.empty());
+    }
+
+    private Mono<Void> credit(long accountId, BigDecimal amount, BigDecimal ceiling) {
+        int shards = balanceShards.shardCount(accountId);
+        Mono<Long> credited = shards == 0
+                ? accountRepo.credit(accountId, amount, ceiling)
+                // Falls back to the own row if the shard count was just lowered
+                : accountRepo.creditShard(accountId, ThreadLocalRandom.current().nextInt(shards), amount, ceiling)
+                        .flatMap(updated -> updated == 1 ? Mono.just(updated)
+                                : accountRepo.credit(accountId, amount, ceiling));
+        return credited.flatMap(updated -> updated == 0
+                ? Mono.error(new TransferRejectedException(accountId))
+                : Mono.empty());
+    }
+
+    /**
+     * Moves the balances of all shards of an account into its own row, like
+     * {@link BalanceShards#sweep}. The shard rows stay write-locked until the
+     * transaction ends, which keeps concurrent sweeps apart.
+     */
+    private Mono<Boolean> sweep(long accountId) {
+        return accountRepo.lockShardBalances(accountId)
+                .reduce(0L, (total, balance) -> Money.add(total, Money.fromDecimal(balance)))
+                .flatMap(total -> total == 0 ? Mono.just(false)
+                        : accountRepo.credit(accountId, Money.toDecimal(total),
+                                Money.toDecimal(Long.MAX_VALUE - total))
+                                .flatMap(updated -> updated == 0 ? Mono.just(false)
+                                        : accountRepo.zeroShardBalances(accountId).thenReturn(true)));
+    }
+
+    /**
+     * Marks a transaction as FAILED and records it, together with the sender's
+     * failure count, in its own database transaction.
+     */
+    private Mono<Transaction> fail(Transaction transaction) {
+        transaction.setStatus("FAILED");
+        return transactionRepo.insert(transaction)
+                .then(dailyRollups.record(transaction))
+                .thenReturn(transaction)
+                .as(transactionalOperator::transactional);
+    }
+
+    private static Transaction newTransaction(TransferRequest request) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(request.getFromAccountId());
+        transaction.setToAccountId(request.getToAccountId());
+        transaction.setAmount(request.getAmount());
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setIdempotencyKey(request.getIdempotencyKey());
+        return transaction;
+    }
+
+    /**
+     * Returns the transaction already created for an idempotency key known to the
+     * {@link IdempotencyStore}.
+     */
+    private Mono<Transaction> findReplay(String key) {
+        if (key == null) {
+            return Mono.empty();
+        }
+        long transactionId = idempotencyStore.lookup(key);
+        if (transactionId == IdempotencyStore.ABSENT) {
+            return Mono.empty();
+        }
+        return transactionRepo.findById(transactionId).filter(original -> key.equals(original.getIdempotencyKey()));
+    }
+
+    /**
+     * Loads the transaction for an idempotency key from the database and remembers it.
+     */
+    private Mono<Transaction> findPersistedReplay(String key) {
+        if (key == null) {
+            return Mono.empty();
+        }
+        return transactionRepo.findByIdempotencyKey(key).map(this::remember);
+    }
+
+    private Transaction remember(Transaction transaction) {
+        if (transaction.getIdempotencyKey() != null && transaction.getTransactionId() != null) {
+            idempotencyStore.remember(transaction.getIdempotencyKey(), transaction.getTransactionId());
+        }
+        return transaction;
+    }
+
+    /**
+     * Retrieves a transaction record by its unique transaction ID.
+     * 
+     * @param transactionId the unique ID of the transaction
+     * @return the transaction, or empty if not found
+     */
+    public Mono<Transaction> getTransactionById(long transactionId) {
+        return transactionRepo.findById(transactionId);
+    }
+
+    /**
+     * Streams every transaction of an account, oldest first.
+     * 
+     * <p>Like {@link TransactionService#forEachInHistory}, the history is read in
+     * keyset pages of {@link TransactionRepo#STREAM_PAGE_SIZE} rows. The next page is
+     * only queried once the subscriber has asked for the rows of the previous one.</p>
+     * 
+     * @param accountId the account ID
+     * @return the transactions sent or received by the account
+     */
+    public Flux<Transaction> getHistory(long accountId) {
+        return streamPage(accountId, HISTORY_START, 0)
+                .expand(page -> {
+                    if (page.size() < TransactionRepo.STREAM_PAGE_SIZE) {
+                        return Mono.empty();
+                    }
+                    Transaction last = page.get(page.size() - 1);
+                    return streamPage(accountId, last.getTimestamp(), last.getTransactionId());
+                })
+                .concatMapIterable(page -> page);
+    }
+
+    private Mono<List<Transaction>> streamPage(long accountId, LocalDateTime afterTimestamp, long afterId) {
+        return transactionRepo.findHistoryPage(accountId, afterTimestamp, afterId, TransactionRepo.STREAM_PAGE_SIZE)
+                .collectList();
+    }
+
+    /**
+     * Retrieves one page of an account's history using keyset pagination, like
+     * {@link TransactionService#getHistoryPage}.
+     * 
+     * @param accountId the account ID
+     * @param afterTimestamp timestamp of the last transaction already seen, or {@code null}
+     * @param afterId ID of the last transaction already seen, or {@code null}
+     * @param size requested page size, capped at {@link TransactionService#MAX_PAGE_SIZE}
+     * @return the {@link TransactionPage} with the cursor for the next page
+     */
+    public Mono<TransactionPage> getHistoryPage(long accountId, LocalDateTime afterTimestamp, Long afterId,
+                                                int size) {
+        int limit = Math.max(1, Math.min(size, TransactionService.MAX_PAGE_SIZE));
+
+        // Ask for one extra row to learn whether another page exists
+        return transactionRepo.findHistoryPage(accountId,
+                afterTimestamp != null ? afterTimestamp : HISTORY_START,
+                afterId != null ? afterId : 0L,
+                limit + 1)
+                .collectList()
+                .map(rows -> page(rows, limit));
+    }
+
+    private static TransactionPage page(List<Transaction> rows, int limit) {
+        TransactionPage page = new TransactionPage();
+        page.setHasMore(rows.size() > limit);
+        page.setItems(page.isHasMore() ? rows.subList(0, limit) : rows);
+        if (!page.getItems().isEmpty()) {
+            Transaction last = page.getItems().get(page.getItems().size() - 1);
+            page.setNextAfterTimestamp(last.getTimestamp());
+            page.setNextAfterId(last.getTransactionId());
+        }
+        return page;
+    }
+
+    /**
+     * Streams the transactions of an account within a date range, oldest first.
+     * 
+     * @param accountId the account ID
+     * @param startDate the start of the date range
+     * @param endDate the end of the date range
+     * @return the transactions in the range
+     */
+    public Flux<Transaction> getHistoryInDateRange(long accountId, LocalDateTime startDate,
+                                                   LocalDateTime endDate) {
+        return transactionRepo.findHistoryInDateRange(accountId, startDate, endDate);
+    }
+
+    /**
+     * Returns the transfer totals of an account over a range of days, from the
+     * daily rollups.
+     * 
+     * @param accountId the account ID
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @return the {@link AccountTotals} of the range
+     */
+    public Mono<AccountTotals> getAccountTotals(long accountId, LocalDate startDate, LocalDate endDate) {
+        return dailyRollups.totals(accountId, startDate, endDate);
+    }
+
+    /**
+     * Signals that a conditional UPDATE matched no row, so that the reactive
+     * transaction rolls back.
+     */
+    private static final class TransferRejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        TransferRejectedException(long accountId) {
+            super("account " + accountId, null, false, false);
+        }
+    }
+}
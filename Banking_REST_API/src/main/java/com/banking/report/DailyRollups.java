@@ -0,0 +1,171 @@
+/**
+ * 
+ */
+package com.banking.report;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.banking.model.AccountDailyRollup;
+import com.banking.model.AccountTotals;
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+import com.banking.repository.AccountDailyRollupRepo;
+import com.banking.shard.BalanceShards;
+
+/**
+ * Keeps the per-account daily transfer totals ({@link AccountDailyRollup}) up to
+ * date, and answers range reports from them.
+ * 
+ * <p>{@link com.banking.service.TransactionService} calls {@link #record} inside the
+ * database transaction of each transfer, so the totals commit or roll back with
+ * it. A successful transfer adds a debit to the sender's day and a credit to the
+ * receiver's; a failed one adds a failure to the sender's. The changes of a transfer
+ * or a batch are merged per row and sent as one JDBC batch of upserts that add to
+ * the existing totals, in key order, so concurrent writers lock the rows in the same
+ * order.</p>
+ * 
+ * <p>A report over N days reads at most N rows per slot from the primary key, no
+ * matter how many transfers the account made. {@link RollupBackfill} rebuilds
+ * past days from the transaction table.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class DailyRollups {
+
+    /**
+     * Adds a change to a row, creating it if needed. Understood by MySQL and by H2 in
+     * MySQL mode. Also sent by {@link com.banking.reactive.ReactiveDailyRollups}.
+     */
+    public static final String UPSERT_SQL =
+            "INSERT INTO account_daily_rollup (account_id, rollup_date, slot, debit_count, debit_total,"
+            + " credit_count, credit_total, failed_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE debit_count = debit_count + VALUES(debit_count),"
+            + " debit_total = debit_total + VALUES(debit_total),"
+            + " credit_count = credit_count + VALUES(credit_count),"
+            + " credit_total = credit_total + VALUES(credit_total),"
+            + " failed_count = failed_count + VALUES(failed_count)";
+
+    /**
+     * Orders the changes by primary key.
+     */
+    private static final Comparator<AccountDailyRollup.Key> KEY_ORDER =
+            Comparator.comparingLong(AccountDailyRollup.Key::getAccountId)
+                    .thenComparing(AccountDailyRollup.Key::getRollupDate)
+                    .thenComparingInt(AccountDailyRollup.Key::getSlot);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AccountDailyRollupRepo rollupRepo;
+
+    private final BalanceShards balanceShards;
+
+    /**
+     * Creates the component.
+     * 
+     * @param jdbcTemplate used for the upserts
+     * @param rollupRepo used to read the totals
+     * @param balanceShards tells which accounts spread their credits over several slots
+     */
+    public DailyRollups(JdbcTemplate jdbcTemplate, AccountDailyRollupRepo rollupRepo,
+                        BalanceShards balanceShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepo = rollupRepo;
+        this.balanceShards = balanceShards;
+    }
+
+    /**
+     * Adds a completed transfer to the daily totals.
+     * 
+     * @param transaction the transfer, with status SUCCESS or FAILED
+     */
+    public void record(Transaction transaction) {
+        recordAll(List.of(transaction));
+    }
+
+    /**
+     * Adds a list of completed transfers to the daily totals.
+     * 
+     * @param transactions the transfers, each with status SUCCESS or FAILED
+     */
+    public void recordAll(List<Transaction> transactions) {
+        Map<AccountDailyRollup.Key, long[]> changes = new TreeMap<>(KEY_ORDER);
+        for (Transaction transaction : transactions) {
+            add(changes, transaction);
+        }
+        write(changes);
+    }
+
+    /**
+     * Adds up the daily totals of an account over a range of days.
+     * 
+     * @param accountId the account ID
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @return the totals; all zero for an account without transfers
+     */
+    public AccountTotals totals(long accountId, LocalDate startDate, LocalDate endDate) {
+        Object[] row = rollupRepo.sumForAccount(accountId, startDate, endDate).get(0);
+        return new AccountTotals(accountId, startDate, endDate,
+                count(row[0]), money(row[1]), count(row[2]), money(row[3]), count(row[4]), count(row[5]));
+    }
+
+    /**
+     * Sends changes as one JDBC batch of upserts, in the iteration order of the map.
+     * 
+     * @param changes per row: debit count, debit total, credit count, credit total
+     *        and failed count to add
+     */
+    void write(Map<AccountDailyRollup.Key, long[]> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        changes.forEach((key, change) -> rows.add(new Object[] {
+                key.getAccountId(), Date.valueOf(key.getRollupDate()), key.getSlot(),
+                change[0], Money.toDecimal(change[1]), change[2], Money.toDecimal(change[3]), change[4] }));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    private void add(Map<AccountDailyRollup.Key, long[]> changes, Transaction transaction) {
+        Long fromAccountId = transaction.getFromAccountId();
+        LocalDate day = transaction.getTimestamp().toLocalDate();
+        if ("SUCCESS".equals(transaction.getStatus())) {
+            long[] debit = change(changes, new AccountDailyRollup.Key(fromAccountId, day, 0));
+            debit[0]++;
+            debit[1] = Money.add(debit[1], transaction.getAmount());
+
+            long toAccountId = transaction.getToAccountId();
+            int shards = balanceShards.shardCount(toAccountId);
+            int slot = shards > 1 ? ThreadLocalRandom.current().nextInt(shards) : 0;
+            long[] credit = change(changes, new AccountDailyRollup.Key(toAccountId, day, slot));
+            credit[2]++;
+            credit[3] = Money.add(credit[3], transaction.getAmount());
+        } else if (fromAccountId != null) {
+            change(changes, new AccountDailyRollup.Key(fromAccountId, day, 0))[4]++;
+        }
+    }
+
+    private static long[] change(Map<AccountDailyRollup.Key, long[]> changes, AccountDailyRollup.Key key) {
+        return changes.computeIfAbsent(key, k -> new long[5]);
+    }
+
+    private static long count(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private static long money(Object value) {
+        return Money.fromDecimal(value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString()));
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * 
+ */
+package com.banking.report;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.model.AccountDailyRollup;
+import com.banking.model.RollupRebuild;
+import com.banking.money.Money;
+import com.banking.repository.AccountDailyRollupRepo;
+import com.banking.repository.RollupRebuildRepo;
+import com.banking.repository.TransactionRepo;
+
+/**
+ * Rebuilds the {@link AccountDailyRollup} rows of past days from the transaction
+ * table.
+ * 
+ * <p>The accounts are split into ranges of <code>banking.rollups.backfill.chunk-size</code>
+ * account IDs, read through the sender and receiver indexes of the transaction
+ * table; ranges without any transfer are skipped. Each range is grouped by account
+ * and day in the database and rebuilt by its own database transaction, on one of
+ * <code>banking.rollups.backfill.threads</code> threads: the range's rows for the
+ * days are deleted and the totals inserted. As
+ * every row of an account is rebuilt by the same chunk, the inserted totals are the
+ * complete ones, not additions. Running the rebuild again, on this node or on
+ * another one at the same time, therefore writes the same totals; a chunk that fails
+ * rolls back and leaves its rows as they were.</p>
+ * 
+ * <p>Only days that have ended can be rebuilt, because transfers keep adding to the
+ * current day. Live transfers keep the totals of every day exact from the day the
+ * rollups are deployed, so the job only has two things to do. On startup, if there
+ * are no totals for any day before today yet, it builds the whole history up to
+ * yesterday. That leaves the transfers made earlier on the deploy day, before the
+ * rollups existed: the first <code>banking.rollups.rebuild-cron</code> run after that
+ * day has ended rebuilds it once. Every later run does nothing.</p>
+ * 
+ * <p>Progress is kept in a {@link RollupRebuild} row, committed before the history
+ * is built and deleted once the deploy day has been rebuilt, so a restart in
+ * between neither forgets the deploy day nor leaves a half-built history.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class RollupBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupBackfill.class);
+
+    /**
+     * Start of the full rebuild run on startup.
+     */
+    static final LocalDate BEGINNING = LocalDate.of(1970, 1, 1);
+
+    /**
+     * Rows inserted per JDBC batch.
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * Daily totals of the transactions of an account ID range in a time range, per
+     * account and day, in key order. Each transaction counts for its sender (a debit
+     * or a failure) and, if it succeeded, for its receiver (a credit).
+     */
+    static final String CHUNK_SQL =
+            "SELECT account_id, rollup_date, SUM(debit_count), SUM(debit_total), SUM(credit_count),"
+            + " SUM(credit_total), SUM(failed_count) FROM ("
+            + " SELECT from_account_id AS account_id, CAST(timestamp AS DATE) AS rollup_date,"
+            + " CASE WHEN status = 'SUCCESS' THEN 1 ELSE 0 END AS debit_count,"
+            + " CASE WHEN status = 'SUCCESS' THEN amount ELSE 0 END AS debit_total,"
+            + " 0 AS credit_count, 0 AS credit_total,"
+            + " CASE WHEN status = 'SUCCESS' THEN 0 ELSE 1 END AS failed_count"
+            + " FROM transaction WHERE from_account_id BETWEEN ? AND ? AND timestamp >= ? AND timestamp < ?"
+            + " UNION ALL"
+            + " SELECT to_account_id, CAST(timestamp AS DATE), 0, 0, 1, amount, 0"
+            + " FROM transaction WHERE to_account_id BETWEEN ? AND ? AND timestamp >= ? AND timestamp < ?"
+            + " AND status = 'SUCCESS'"
+            + ") changes GROUP BY account_id, rollup_date ORDER BY account_id, rollup_date";
+
+    /**
+     * Insert of a rebuilt row. The chunk has deleted the row first, so unlike
+     * {@link DailyRollups#UPSERT_SQL} it never adds to existing totals.
+     */
+    static final String INSERT_SQL =
+            "INSERT INTO account_daily_rollup (account_id, rollup_date, slot, debit_count, debit_total,"
+            + " credit_count, credit_total, failed_count) VALUES (?, ?, 0, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AccountDailyRollupRepo rollupRepo;
+
+    private final RollupRebuildRepo rebuildRepo;
+
+    private final TransactionRepo transactionRepo;
+
+    /**
+     * Runs each chunk in its own database transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Number of chunks rebuilt at the same time.
+     */
+    private final int threads;
+
+    /**
+     * Account IDs per chunk.
+     */
+    private final long chunkSize;
+
+    /**
+     * Creates the job.
+     * 
+     * @param jdbcTemplate used to read the transaction table and insert the totals
+     * @param rollupRepo used to delete the rows being rebuilt
+     * @param rebuildRepo keeps the progress of the first rebuild
+     * @param transactionRepo used to find the account ID ranges
+     * @param transactionManager transaction manager for the chunks
+     * @param threads number of chunks rebuilt at the same time
+     * @param chunkSize account IDs per chunk
+     */
+    public RollupBackfill(JdbcTemplate jdbcTemplate, AccountDailyRollupRepo rollupRepo,
+                          RollupRebuildRepo rebuildRepo, TransactionRepo transactionRepo,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${banking.rollups.backfill.threads:4}") int threads,
+                          @Value("${banking.rollups.backfill.chunk-size:1000}") long chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepo = rollupRepo;
+        this.rebuildRepo = rebuildRepo;
+        this.transactionRepo = transactionRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        buildHistory(LocalDate.now());
+    }
+
+    /**
+     * Builds the rollups of every day before the deploy day, unless that is done.
+     * 
+     * @param today the day the application starts on
+     */
+    void buildHistory(LocalDate today) {
+        RollupRebuild pending = rebuildRepo.findFirstByOrderByDeployDay().orElse(null);
+        if (pending == null) {
+            if (rollupRepo.existsByRollupDateBefore(today) || transactionRepo.count() == 0) {
+                return;
+            }
+            pending = new RollupRebuild();
+            pending.setDeployDay(today);
+            pending = rebuildRepo.save(pending);
+        }
+        if (!pending.isHistoryBuilt()) {
+            int rows = rebuild(BEGINNING, pending.getDeployDay());
+            pending.setHistoryBuilt(true);
+            rebuildRepo.save(pending);
+            log.info("Built {} daily rollup rows from the transaction history", rows);
+        }
+    }
+
+    /**
+     * Rebuilds the day the rollups were deployed, once it has ended.
+     */
+    @Scheduled(cron = "${banking.rollups.rebuild-cron:0 5 0 * * *}")
+    public void rebuildDeployDay() {
+        RollupRebuild pending = rebuildRepo.findFirstByOrderByDeployDay().orElse(null);
+        // Until the history is built, the next startup still has to do that first
+        if (pending == null || !pending.isHistoryBuilt()
+                || !pending.getDeployDay().isBefore(LocalDate.now())) {
+            return;
+        }
+        LocalDate day = pending.getDeployDay();
+        int rows = rebuild(day, day.plusDays(1));
+        rebuildRepo.delete(pending);
+        log.info("Rebuilt {} daily rollup rows for {}", rows, day);
+    }
+
+    /**
+     * Rebuilds the rollups of a range of past days from the transaction table.
+     * 
+     * @param startDate first day, inclusive
+     * @param untilDate day after the last one; today at the latest
+     * @return the number of rollup rows inserted
+     * @throws IllegalArgumentException if the range is empty or includes today
+     */
+    public int rebuild(LocalDate startDate, LocalDate untilDate) {
+        if (!startDate.isBefore(untilDate)) {
+            throw new IllegalArgumentException("startDate must be before untilDate");
+        }
+        if (untilDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("only days that have ended can be rebuilt");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            Long first = nextAccountId(Long.MIN_VALUE);
+            while (first != null) {
+                long last = first > Long.MAX_VALUE - chunkSize ? Long.MAX_VALUE : first + chunkSize - 1;
+                long chunkFirst = first;
+                chunks.add(executor.submit(() -> rebuildChunk(chunkFirst, last, startDate, untilDate)));
+                first = last == Long.MAX_VALUE ? null : nextAccountId(last);
+            }
+            int rows = 0;
+            for (Future<Integer> chunk : chunks) {
+                rows += chunk.get();
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("rollup rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("rollup rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replaces the rows of one account ID range with totals computed from the
+     * transaction table.
+     * 
+     * <p>Holds at most one JDBC batch of rows in memory.</p>
+     */
+    private int rebuildChunk(long firstId, long lastId, LocalDate startDate, LocalDate untilDate) {
+        Timestamp start = Timestamp.valueOf(startDate.atStartOfDay());
+        Timestamp until = Timestamp.valueOf(untilDate.atStartOfDay());
+        Object[] args = { firstId, lastId, start, until, firstId, lastId, start, until };
+
+        return transactionTemplate.execute(status -> {
+            rollupRepo.deleteDays(firstId, lastId, startDate, untilDate);
+            List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            int[] rows = new int[1];
+            // Already in key order, so concurrent chunks lock rows in the same order
+            jdbcTemplate.query(CHUNK_SQL, row -> {
+                batch.add(new Object[] {
+                        row.getLong(1), Date.valueOf(row.getDate(2).toLocalDate()),
+                        row.getLong(3), Money.toDecimal(Money.fromStoredDecimal(row.getBigDecimal(4))),
+                        row.getLong(5), Money.toDecimal(Money.fromStoredDecimal(row.getBigDecimal(6))),
+                        row.getLong(7) });
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    rows[0] += insert(batch);
+                }
+            }, args);
+            rows[0] += insert(batch);
+            return rows[0];
+        });
+    }
+
+    private int insert(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        int rows = batch.size();
+        batch.clear();
+        return rows;
+    }
+
+    /**
+     * Returns the lowest account ID above the given one that sent or received a
+     * transfer, {@code null} if there is none.
+     */
+    private Long nextAccountId(long afterAccountId) {
+        Object[] next = transactionRepo.findNextAccountIds(afterAccountId).get(0);
+        Long sender = next[0] == null ? null : ((Number) next[0]).longValue();
+        Long receiver = next[1] == null ? null : ((Number) next[1]).longValue();
+        if (sender == null || receiver == null) {
+            return sender == null ? receiver : sender;
+        }
+        return Math.min(sender, receiver);
+    }
+}
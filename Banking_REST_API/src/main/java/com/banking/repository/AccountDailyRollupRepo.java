@@ -0,0 +1,76 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.banking.model.AccountDailyRollup;
+
+/**
+ * Repository for the per-account daily transfer totals (see
+ * {@link AccountDailyRollup}).
+ * 
+ * <p>Rows are written by {@link com.banking.report.DailyRollups} with an upsert that
+ * adds to the existing totals, which JPA cannot express, and by
+ * {@link com.banking.report.RollupBackfill} with plain inserts; this interface only
+ * reads and deletes them. The primary key <i>(account_id, rollup_date, slot)</i> is the
+ * index for reading an account's days in a range.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public interface AccountDailyRollupRepo extends JpaRepository<AccountDailyRollup, AccountDailyRollup.Key> {
+
+    /**
+     * Native SQL behind {@link #sumForAccount}; a range scan on the primary key.
+     */
+    String SUM_FOR_ACCOUNT_SQL =
+            "SELECT COALESCE(SUM(debit_count), 0), COALESCE(SUM(debit_total), 0),"
+            + " COALESCE(SUM(credit_count), 0), COALESCE(SUM(credit_total), 0),"
+            + " COALESCE(SUM(failed_count), 0), COUNT(DISTINCT rollup_date)"
+            + " FROM account_daily_rollup"
+            + " WHERE account_id = :accountId AND rollup_date BETWEEN :startDate AND :endDate";
+
+    /**
+     * Adds up the daily totals of one account over a range of days.
+     * 
+     * @param accountId the account ID
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @return a single row: debit count, decimal debit total, credit count, decimal
+     *         credit total, failed count and the number of days with rows
+     */
+    @Query(value = SUM_FOR_ACCOUNT_SQL, nativeQuery = true)
+    public List<Object[]> sumForAccount(@Param("accountId") long accountId,
+                                        @Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
+
+    /**
+     * Tells whether there are totals for any day before a given one.
+     * 
+     * @param date the day
+     * @return {@code true} if some row is for an earlier day
+     */
+    public boolean existsByRollupDateBefore(LocalDate date);
+
+    /**
+     * Deletes the totals of a range of accounts for a range of days.
+     * 
+     * @param firstAccountId first account ID, inclusive
+     * @param lastAccountId last account ID, inclusive
+     * @param startDate first day, inclusive
+     * @param untilDate day after the last one
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM AccountDailyRollup r WHERE r.accountId BETWEEN :firstAccountId AND :lastAccountId"
+            + " AND r.rollupDate >= :startDate AND r.rollupDate < :untilDate")
+    public int deleteDays(@Param("firstAccountId") long firstAccountId, @Param("lastAccountId") long lastAccountId,
+                          @Param("startDate") LocalDate startDate, @Param("untilDate") LocalDate untilDate);
+}
@@ -0,0 +1,47 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.banking.model.AccountImportChunk;
+
+/**
+ * Repository for the committed chunks of bulk account imports (see
+ * {@link AccountImportChunk}).
+ * 
+ * <p>Chunk rows are inserted by {@link com.banking.bulk.AccountImporter} with plain
+ * JDBC in the transaction of their accounts; this interface only reads them.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public interface AccountImportChunkRepo extends JpaRepository<AccountImportChunk, AccountImportChunk.Key> {
+
+    /**
+     * Returns the numbers of the chunks of an import that are committed.
+     * 
+     * @param importId the import ID
+     * @return the chunk numbers, in no particular order
+     */
+    @Query("SELECT c.chunkNo FROM AccountImportChunk c WHERE c.importId = :importId")
+    public List<Integer> findChunkNos(@Param("importId") String importId);
+
+    /**
+     * Adds up the committed chunks of an import.
+     * 
+     * @param importId the import ID
+     * @param since start of the latest run
+     * @return a single row: number of chunks, accepted records, rejected records, and
+     *         records of the chunks committed since the given time
+     */
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.accepted), 0), COALESCE(SUM(c.rejected), 0),"
+            + " COALESCE(SUM(CASE WHEN c.committedAt >= :since THEN c.accepted + c.rejected ELSE 0 END), 0)"
+            + " FROM AccountImportChunk c WHERE c.importId = :importId")
+    public List<Object[]> sumForImport(@Param("importId") String importId, @Param("since") LocalDateTime since);
+}
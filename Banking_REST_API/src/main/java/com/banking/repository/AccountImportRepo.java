@@ -0,0 +1,16 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.banking.model.AccountImport;
+
+/**
+ * Repository for bulk account imports (see {@link AccountImport}).
+ * 
+ * @author Madhusudan Dande
+ */
+public interface AccountImportRepo extends JpaRepository<AccountImport, String> {
+}
@@ -3,8 +3,22 @@
  */
 package com.banking.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import com.banking.model.Account;
+import com.banking.model.AccountBalance;
+
+import jakarta.persistence.LockModeType;
 
 /**
  * Repository interface for managing {@link Account} entities.
@@ -15,12 +29,146 @@ import com.banking.model.Account;
  * <p>Spring Data JPA automatically implements the basic data access logic 
  * (like save, findById, findAll, delete, etc.) based on this interface.</p>
  * 
- * <p>Custom query methods (e.g., findByCustomerId, findByStatus) can be added here 
- * if specific database queries are required in the future.</p>
+ * <p>{@link #debit} and {@link #credit} change a balance with a single conditional
+ * UPDATE. The condition and the change are applied atomically by the database, so
+ * no read is needed beforehand. The number of updated rows (0 or 1) tells the
+ * caller whether the change was allowed. Both take the amount as a decimal (see
+ * {@link com.banking.money.Money#toDecimal}), matching the column type. Every
+ * UPDATE here also increments the {@link Account#getVersion() version}, so an
+ * entity read before it can no longer be saved over it.</p>
+ * 
+ * <p>{@link #findByIdForUpdate} and {@link #findAllByIdForUpdate} read with
+ * <code>SELECT ... FOR UPDATE</code>, for the pessimistic locking mode (see
+ * {@link com.banking.concurrency.AccountLockingPolicy}).</p>
+ * 
+ * <p>{@link #findByCustomerIdOrderByAccountId} reads a customer's accounts from the
+ * <i>(customerId, accountId)</i> index, already in order.</p>
  * 
  * @author Madhusudan Dande
  */
 public interface AccountRepo extends JpaRepository<Account, Long> {
-    // You can define custom finder methods here, for example:
-    // Optional<Account> findByCustomerId(Long customerId);
+
+    /**
+     * Native SQL behind {@link #debit}.
+     */
+    String DEBIT_SQL =
+            "UPDATE bank_details SET balance = balance - :amount, version = version + 1"
+            + " WHERE account_id = :accountId AND balance >= :amount AND status = 'ACTIVE'";
+
+    /**
+     * Native SQL behind {@link #credit}. The ceiling keeps the balance within the
+     * range of {@link com.banking.money.Money} minor units.
+     */
+    String CREDIT_SQL =
+            "UPDATE bank_details SET balance = balance + :amount, version = version + 1"
+            + " WHERE account_id = :accountId AND balance <= :ceiling AND status = 'ACTIVE'";
+
+    /**
+     * Withdraws an amount if the account is active and holds at least that much.
+     * 
+     * @param accountId the account to debit
+     * @param amount the positive decimal amount to withdraw
+     * @return 1 if the balance was debited, 0 if the account does not exist, is not
+     *         active or has insufficient funds
+     */
+    @Modifying
+    @Query(value = DEBIT_SQL, nativeQuery = true)
+    public int debit(@Param("accountId") long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Deposits an amount if the account is active and the new balance stays at or
+     * below the largest representable balance.
+     * 
+     * @param accountId the account to credit
+     * @param amount the positive decimal amount to deposit
+     * @param ceiling the largest balance the account may hold before the credit
+     * @return 1 if the balance was credited, 0 if the account does not exist, is not
+     *         active or the balance would overflow
+     */
+    @Modifying
+    @Query(value = CREDIT_SQL, nativeQuery = true)
+    public int credit(@Param("accountId") long accountId, @Param("amount") BigDecimal amount,
+                      @Param("ceiling") BigDecimal ceiling);
+
+    /**
+     * Reads an account and write-locks its row until the end of the transaction.
+     * 
+     * @param accountId the account ID
+     * @return the account, or empty if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId = :accountId")
+    public Optional<Account> findByIdForUpdate(@Param("accountId") long accountId);
+
+    /**
+     * Reads several accounts and write-locks their rows until the end of the
+     * transaction. Rows are locked in account ID order, like the transfer UPDATEs.
+     * 
+     * @param accountIds the account IDs; unknown IDs are skipped
+     * @return the existing accounts, in account ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId IN :accountIds ORDER BY a.accountId")
+    public List<Account> findAllByIdForUpdate(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Finds the accounts whose credits are spread across balance shards.
+     * 
+     * @param shards the shard count to exceed, normally 0
+     * @return the sharded accounts
+     */
+    public List<Account> findByBalanceShardsGreaterThan(int shards);
+
+    /**
+     * Finds all accounts of a customer.
+     * 
+     * @param customerId the customer ID
+     * @return the customer's accounts, in account ID order
+     */
+    public List<Account> findByCustomerIdOrderByAccountId(long customerId);
+
+    /**
+     * Reads the balances and statuses of several accounts in one query, without
+     * loading them as entities.
+     * 
+     * <p>Balances are the accounts' own rows only; shards are not added.</p>
+     * 
+     * @param accountIds the account IDs; unknown IDs are skipped
+     * @return one {@link AccountBalance} per existing account, in no particular order
+     */
+    @Query("SELECT new com.banking.model.AccountBalance(a.accountId, a.balance, a.status)"
+            + " FROM Account a WHERE a.accountId IN :accountIds")
+    public List<AccountBalance> findBalances(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Reads the status of an account without loading it.
+     * 
+     * @param accountId the account ID
+     * @return the status, or {@code null} if the account does not exist
+     */
+    @Query("SELECT a.status FROM Account a WHERE a.accountId = :accountId")
+    public String findStatus(@Param("accountId") long accountId);
+
+    /**
+     * Sets the number of balance shards of an account without loading it.
+     * 
+     * @param accountId the account ID
+     * @param shards the new shard count
+     * @return 1 if the account was updated, 0 if it does not exist
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balanceShards = :shards, a.version = a.version + 1"
+            + " WHERE a.accountId = :accountId")
+    public int updateBalanceShards(@Param("accountId") long accountId, @Param("shards") int shards);
+
+    /**
+     * Finds accounts that have no entry in the ledger yet, in account ID order.
+     * 
+     * @param afterId only accounts with a larger ID are returned
+     * @param page the maximum number of accounts to return
+     * @return the next accounts without ledger entries
+     */
+    @Query("SELECT a FROM Account a WHERE a.accountId > :afterId AND NOT EXISTS"
+            + " (SELECT e.entryId FROM LedgerEntry e WHERE e.accountId = a.accountId) ORDER BY a.accountId")
+    public List<Account> findWithoutLedgerEntries(@Param("afterId") long afterId, Pageable page);
 }
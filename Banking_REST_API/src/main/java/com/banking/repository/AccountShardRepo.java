@@ -0,0 +1,109 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.banking.model.AccountShard;
+
+/**
+ * Repository for the sub-balances of hot accounts (see {@link AccountShard}).
+ * 
+ * <p>Like {@link AccountRepo#credit}, {@link #credit} is a single conditional
+ * UPDATE whose row count tells the caller whether it was applied. It checks the
+ * owning account's status in the same statement, so a credit can never land in a
+ * shard of an account that has just been frozen or closed.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public interface AccountShardRepo extends JpaRepository<AccountShard, AccountShard.Key> {
+
+    /**
+     * Native SQL behind {@link #credit}.
+     */
+    String CREDIT_SQL =
+            "UPDATE bank_account_shard SET balance = balance + :amount"
+            + " WHERE account_id = :accountId AND shard = :shard AND balance <= :ceiling"
+            + " AND EXISTS (SELECT 1 FROM bank_details WHERE account_id = :accountId AND status = 'ACTIVE')";
+
+    /**
+     * Native SQL behind {@link #zeroBalances}.
+     */
+    String ZERO_BALANCES_SQL = "UPDATE bank_account_shard SET balance = 0 WHERE account_id = :accountId";
+
+    /**
+     * Native SQL behind {@link #lockBalances}.
+     */
+    String LOCK_BALANCES_SQL = "SELECT balance FROM bank_account_shard WHERE account_id = :accountId FOR UPDATE";
+
+    /**
+     * Native SQL behind {@link #sumBalances}.
+     */
+    String SUM_BALANCES_SQL =
+            "SELECT COALESCE(SUM(balance), 0) FROM bank_account_shard WHERE account_id = :accountId";
+
+    /**
+     * Deposits an amount into one shard if the owning account is active and the
+     * shard's balance stays at or below the largest representable balance.
+     * 
+     * @param accountId the owning account
+     * @param shard the shard number
+     * @param amount the positive decimal amount to deposit
+     * @param ceiling the largest balance the shard may hold before the credit
+     * @return 1 if the shard was credited, 0 if it does not exist, the account is not
+     *         active or the shard would overflow
+     */
+    @Modifying
+    @Query(value = CREDIT_SQL, nativeQuery = true)
+    public int credit(@Param("accountId") long accountId, @Param("shard") int shard,
+                      @Param("amount") BigDecimal amount, @Param("ceiling") BigDecimal ceiling);
+
+    /**
+     * Reads and write-locks the balances of all shards of an account, blocking
+     * credits to them until the current database transaction ends.
+     * 
+     * <p>Returns plain values rather than entities, so a persistence context that
+     * outlives the transaction can never serve a stale shard.</p>
+     * 
+     * @param accountId the owning account
+     * @return the decimal shard balances
+     */
+    @Query(value = LOCK_BALANCES_SQL, nativeQuery = true)
+    public List<BigDecimal> lockBalances(@Param("accountId") long accountId);
+
+    /**
+     * Resets the balance of every shard of an account to zero.
+     * 
+     * @param accountId the owning account
+     * @return the number of shards updated
+     */
+    @Modifying
+    @Query(value = ZERO_BALANCES_SQL, nativeQuery = true)
+    public int zeroBalances(@Param("accountId") long accountId);
+
+    /**
+     * Deletes every shard of an account.
+     * 
+     * @param accountId the owning account
+     * @return the number of shards deleted
+     */
+    @Modifying
+    @Query("DELETE FROM AccountShard s WHERE s.accountId = :accountId")
+    public int deleteByAccountId(@Param("accountId") long accountId);
+
+    /**
+     * Adds up the shards of an account with one statement, without locking them.
+     * 
+     * @param accountId the owning account
+     * @return the decimal sum of the shard balances, zero if there are none
+     */
+    @Query(value = SUM_BALANCES_SQL, nativeQuery = true)
+    public BigDecimal sumBalances(@Param("accountId") long accountId);
+}
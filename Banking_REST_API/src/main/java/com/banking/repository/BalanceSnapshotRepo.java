@@ -0,0 +1,65 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.banking.model.BalanceSnapshot;
+
+/**
+ * Repository for the periodic {@link BalanceSnapshot}s of the account ledger.
+ * 
+ * <p>The primary key <i>(account_id, as_of)</i> doubles as the index for finding
+ * the latest snapshot of an account at or before a given time.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public interface BalanceSnapshotRepo extends JpaRepository<BalanceSnapshot, BalanceSnapshot.Key> {
+
+    /**
+     * Native SQL behind {@link #findLatestBalances}.
+     */
+    String LATEST_BALANCES_SQL =
+            "SELECT s.account_id, s.balance FROM balance_snapshot s"
+            + " WHERE s.account_id IN (:accountIds) AND s.as_of = ("
+            + " SELECT MAX(l.as_of) FROM balance_snapshot l"
+            + " WHERE l.account_id = s.account_id AND l.as_of <= :asOf)";
+
+    /**
+     * Finds the latest snapshot of an account taken at or before a time.
+     * 
+     * @param accountId the account ID
+     * @param asOf the latest acceptable snapshot time
+     * @return the snapshot, if any
+     */
+    public Optional<BalanceSnapshot> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(
+            long accountId, LocalDateTime asOf);
+
+    /**
+     * Returns the time of the most recent snapshot run.
+     * 
+     * @return the latest snapshot time, or {@code null} if there are no snapshots
+     */
+    @Query("SELECT MAX(s.asOf) FROM BalanceSnapshot s")
+    public LocalDateTime findLatestAsOf();
+
+    /**
+     * Reads the balance of each account's latest snapshot taken at or before a time.
+     * 
+     * @param accountIds the accounts to look up
+     * @param asOf the latest acceptable snapshot time
+     * @return one row per account that has such a snapshot: the account ID and the
+     *         decimal balance
+     */
+    @Query(value = LATEST_BALANCES_SQL, nativeQuery = true)
+    public List<Object[]> findLatestBalances(@Param("accountIds") Collection<Long> accountIds,
+                                             @Param("asOf") LocalDateTime asOf);
+}
@@ -0,0 +1,66 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.banking.model.LedgerEntry;
+
+/**
+ * Repository for the append-only account ledger (see {@link LedgerEntry}).
+ * 
+ * <p>Entries are only ever inserted. Both queries below add entries up inside a
+ * time window, <i>(after, until]</i>, so that a window starting at a
+ * {@link com.banking.model.BalanceSnapshot} never counts an entry the snapshot
+ * already includes.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public interface LedgerEntryRepo extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Native SQL behind {@link #sumForAccount}; a range scan on the
+     * <i>(account_id, timestamp)</i> index.
+     */
+    String SUM_FOR_ACCOUNT_SQL =
+            "SELECT COALESCE(SUM(amount), 0), COUNT(*) FROM ledger_entry"
+            + " WHERE account_id = :accountId AND timestamp > :after AND timestamp <= :until";
+
+    /**
+     * Native SQL behind {@link #sumByAccount}; a range scan on the <i>timestamp</i>
+     * index.
+     */
+    String SUM_BY_ACCOUNT_SQL =
+            "SELECT account_id, SUM(amount) FROM ledger_entry"
+            + " WHERE timestamp > :after AND timestamp <= :until GROUP BY account_id";
+
+    /**
+     * Adds up the entries of one account inside a time window.
+     * 
+     * @param accountId the account ID
+     * @param after start of the window, exclusive
+     * @param until end of the window, inclusive
+     * @return a single row: the decimal sum and the number of entries
+     */
+    @Query(value = SUM_FOR_ACCOUNT_SQL, nativeQuery = true)
+    public List<Object[]> sumForAccount(@Param("accountId") long accountId,
+                                        @Param("after") LocalDateTime after,
+                                        @Param("until") LocalDateTime until);
+
+    /**
+     * Adds up the entries of every account that has any inside a time window.
+     * 
+     * @param after start of the window, exclusive
+     * @param until end of the window, inclusive
+     * @return one row per account: the account ID and the decimal sum
+     */
+    @Query(value = SUM_BY_ACCOUNT_SQL, nativeQuery = true)
+    public List<Object[]> sumByAccount(@Param("after") LocalDateTime after,
+                                       @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,27 @@
+/**
+ * 
+ */
+package com.banking.repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.banking.model.RollupRebuild;
+
+/**
+ * Repository for the marker of an unfinished rollup rebuild (see
+ * {@link RollupRebuild}). There is at most one row.
+ * 
+ * @author Madhusudan Dande
+ */
+public interface RollupRebuildRepo extends JpaRepository<RollupRebuild, LocalDate> {
+
+    /**
+     * Finds the unfinished rebuild, if any.
+     * 
+     * @return the earliest marker
+     */
+    public Optional<RollupRebuild> findFirstByOrderByDeployDay();
+}
@@ -5,8 +5,11 @@ package com.banking.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.banking.model.Transaction;
 
@@ -24,40 +27,120 @@ import com.banking.model.Transaction;
  * from method names based on naming conventions.</p>
  * 
  * <p>Use this repository in the service layer to interact with the database 
- * without writing explicit SQL or JPQL queries.</p>
+ * without writing explicit SQL or JPQL queries. The exception is the date-range
+ * history, which needs hand-written SQL to use the indexes on {@link Transaction}.</p>
  * 
  * @author Madhusudan Dande
  */
 public interface TransactionRepo extends JpaRepository<Transaction, Long> {
 
     /**
-     * Retrieves a list of all transactions where the given account ID 
-     * was either the sender or the receiver.
+     * Native SQL behind {@link #findHistoryInDateRange}.
      * 
-     * <p>This method is useful for fetching complete transaction history 
-     * for a particular account, regardless of whether it was a debit or credit transaction.</p>
+     * <p>Written as a UNION of two branches so that each branch is a range scan on
+     * one of the composite indexes declared on {@link Transaction}. A single
+     * <code>WHERE (from = ? OR to = ?) AND timestamp BETWEEN ...</code> cannot use
+     * either index and falls back to a full table scan. UNION (not UNION ALL) also
+     * removes the duplicate a self-transfer would produce.</p>
+     */
+    String HISTORY_IN_DATE_RANGE_SQL =
+            "SELECT * FROM transaction"
+            + " WHERE from_account_id = :accountId AND timestamp BETWEEN :startDate AND :endDate"
+            + " UNION"
+            + " SELECT * FROM transaction"
+            + " WHERE to_account_id = :accountId AND timestamp BETWEEN :startDate AND :endDate"
+            + " ORDER BY timestamp, transaction_id";
+
+    /**
+     * Native SQL behind {@link #findHistoryPage}.
+     * 
+     * <p>Keyset pagination on <i>(timestamp, transaction_id)</i>: each branch seeks
+     * directly past the cursor on its composite index and reads at most
+     * <code>:limit</code> rows, so a page costs the same at the end of a long
+     * history as at its start.</p>
+     */
+    String HISTORY_PAGE_SQL =
+            "SELECT * FROM ("
+            + " (SELECT * FROM transaction WHERE from_account_id = :accountId"
+            + " AND (timestamp > :afterTimestamp OR (timestamp = :afterTimestamp AND transaction_id > :afterId))"
+            + " ORDER BY timestamp, transaction_id LIMIT :limit)"
+            + " UNION"
+            + " (SELECT * FROM transaction WHERE to_account_id = :accountId"
+            + " AND (timestamp > :afterTimestamp OR (timestamp = :afterTimestamp AND transaction_id > :afterId))"
+            + " ORDER BY timestamp, transaction_id LIMIT :limit)"
+            + ") page ORDER BY timestamp, transaction_id LIMIT :limit";
+
+    /**
+     * Native SQL behind {@link #findNextAccountIds}.
+     */
+    String NEXT_ACCOUNT_IDS_SQL =
+            "SELECT (SELECT MIN(from_account_id) FROM transaction WHERE from_account_id > :afterAccountId),"
+            + " (SELECT MIN(to_account_id) FROM transaction WHERE to_account_id > :afterAccountId)";
+
+    /**
+     * Rows read per {@link #findHistoryPage} call when a whole history is streamed.
      * 
-     * @param fromAccountId the account ID from which money was sent
-     * @param toAccountId the account ID to which money was received
-     * @return a list of {@link Transaction} objects related to the provided account IDs
+     * <p>A single query for the whole history would have to be a UNION with an outer
+     * ORDER BY, which the database materialises and sorts in full before the first
+     * row arrives. Pages keep that sort down to two index-ordered runs of this many
+     * rows.</p>
      */
-    public List<Transaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
+    int STREAM_PAGE_SIZE = 500;
+
+    /**
+     * Retrieves the transaction created by the request with the given idempotency key.
+     * 
+     * @param idempotencyKey the client-supplied key
+     * @return the matching {@link Transaction}, if any
+     */
+    public Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
     
     /**
-     * Retrieves all transactions for the given account IDs within a specified date range.
+     * Retrieves all transactions sent or received by an account within a specified date range.
      * 
      * <p>This method is typically used to generate filtered transaction statements 
-     * or reports for a customer between two timestamps.</p>
+     * or reports for a customer between two timestamps. Both bounds are inclusive
+     * and results are ordered by timestamp.</p>
      * 
-     * @param fromAccountId the account ID from which money was sent
-     * @param toAccountId the account ID to which money was received
+     * @param accountId the account ID that sent or received money
      * @param startDate the start date and time of the filter range
      * @param endDate the end date and time of the filter range
      * @return a list of {@link Transaction} objects within the specified date range
      */
-    public List<Transaction> findByFromAccountIdOrToAccountIdAndTimestampBetween(
-            Long fromAccountId,
-            Long toAccountId,
-            LocalDateTime startDate,
-            LocalDateTime endDate);
+    @Query(value = HISTORY_IN_DATE_RANGE_SQL, nativeQuery = true)
+    public List<Transaction> findHistoryInDateRange(
+            @Param("accountId") Long accountId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Retrieves one page of an account's history after the given cursor.
+     * 
+     * <p>Pass the timestamp and ID of the last transaction already seen; for the
+     * first page use a timestamp before any transaction and an ID of 0.</p>
+     * 
+     * @param accountId the account ID that sent or received money
+     * @param afterTimestamp timestamp of the last transaction already seen
+     * @param afterId ID of the last transaction already seen
+     * @param limit maximum number of transactions to return
+     * @return up to {@code limit} {@link Transaction} objects ordered by timestamp and ID
+     */
+    @Query(value = HISTORY_PAGE_SQL, nativeQuery = true)
+    public List<Transaction> findHistoryPage(
+            @Param("accountId") Long accountId,
+            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    /**
+     * Returns the lowest sender and the lowest receiver account ID above a given
+     * one, for splitting the table into account ID ranges without visiting the gaps
+     * between them. Each is a single seek on its index.
+     * 
+     * @param afterAccountId the account ID to look past
+     * @return a single row: the next sender and the next receiver, {@code null}
+     *         where there is none
+     */
+    @Query(value = NEXT_ACCOUNT_IDS_SQL, nativeQuery = true)
+    public List<Object[]> findNextAccountIds(@Param("afterAccountId") long afterAccountId);
 }
@@ -3,12 +3,43 @@
  */
 package com.banking.service;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.banking.bulk.AccountImporter;
+import com.banking.bulk.ImportFormat;
+import com.banking.cache.AccountCache;
+import com.banking.cache.CacheStats;
+import com.banking.cache.CustomerAccountsCache;
+import com.banking.concurrency.AccountLockingPolicy;
+import com.banking.concurrency.AccountLockingPolicy.Operation;
+import com.banking.concurrency.StripedAccountLocks;
+import com.banking.ledger.Ledger;
+import com.banking.listing.AccountField;
+import com.banking.listing.AccountListing;
 import com.banking.model.Account;
+import com.banking.model.AccountBalance;
+import com.banking.model.AccountImportResult;
+import com.banking.model.AccountPage;
+import com.banking.model.CustomerAccounts;
+import com.banking.model.LedgerBalance;
+import com.banking.model.LedgerEntry;
+import com.banking.money.Money;
 import com.banking.repository.AccountRepo;
+import com.banking.shard.BalanceShards;
 
 /**
  * Service class that provides business logic for managing {@link Account} entities.
@@ -23,58 +54,314 @@ import com.banking.repository.AccountRepo;
  * <p>It ensures that all account-related logic is centralized and reusable
  * across multiple controllers if needed.</p>
  * 
+ * <p>Updates to an existing account take the same {@link StripedAccountLocks} as
+ * {@link TransactionService#transfer}, so they never overwrite a concurrent transfer.
+ * Writers in other instances are caught by the database, with a version check or
+ * a row lock as the {@link AccountLockingPolicy} says; an update that loses the
+ * race is retried with back-off.</p>
+ * 
+ * <p>Single-account reads are served from the {@link AccountCache}; every write
+ * refreshes the cache after it commits. The account IDs of each customer are kept
+ * in the {@link CustomerAccountsCache}, which writes that add an account to a
+ * customer or move it to another one invalidate.</p>
+ * 
+ * <p>Every balance change is also appended to the {@link Ledger} in the same
+ * database transaction, which makes past balances reconstructable.</p>
+ * 
+ * <p>Accounts whose credits are spread across {@link BalanceShards} are never
+ * cached; their reads add the shards to the account's own balance.</p>
+ * 
  * @author Madhusudan Dande
  */
 @Service
 public class AccountService {
 
+    /**
+     * Largest number of account IDs accepted by {@link #getBalances}.
+     */
+    public static final int MAX_BALANCE_IDS = 10_000;
+
+    /**
+     * Account IDs per <code>IN (...)</code> query of {@link #getBalances}. Hibernate
+     * pads each list to the next power of two, so a few statement shapes serve every
+     * chunk.
+     */
+    static final int BALANCE_CHUNK_SIZE = 1024;
+
     /**
      * Repository used for performing CRUD operations on account data.
      */
     private final AccountRepo repo;
 
+    /**
+     * Per-account lock stripes shared with {@link TransactionService}.
+     */
+    private final StripedAccountLocks accountLocks;
+
+    /**
+     * Runs each read-modify-write update in a single database transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Write-through cache for single-account reads.
+     */
+    private final AccountCache accountCache;
+
+    /**
+     * Sub-balances of hot accounts.
+     */
+    private final BalanceShards balanceShards;
+
+    /**
+     * Database-side locking and retries of account updates.
+     */
+    private final AccountLockingPolicy accountLocking;
+
+    /**
+     * Append-only record of every balance change.
+     */
+    private final Ledger ledger;
+
+    /**
+     * Cache of the account IDs of each customer.
+     */
+    private final CustomerAccountsCache customerAccounts;
+
+    /**
+     * Creates accounts in bulk from streamed input.
+     */
+    private final AccountImporter accountImporter;
+
+    /**
+     * Pages and streams accounts without loading them as entities.
+     */
+    private final AccountListing accountListing;
+
     /**
      * Constructor-based dependency injection for {@link AccountRepo}.
      * 
      * @param repo the repository instance used for database operations
+     * @param accountLocks lock stripes guarding account updates
+     * @param transactionManager transaction manager used for account updates
+     * @param accountCache cache for single-account reads
+     * @param customerAccounts cache of the account IDs of each customer
+     * @param balanceShards sub-balances of hot accounts
+     * @param accountLocking database-side locking and retries of updates
+     * @param ledger ledger receiving opening balances, deposits and withdrawals
+     * @param accountImporter bulk importer for large numbers of new accounts
+     * @param accountListing pages and streams accounts
      */
-    public AccountService(AccountRepo repo) {
+    public AccountService(AccountRepo repo, StripedAccountLocks accountLocks,
+                          PlatformTransactionManager transactionManager,
+                          AccountCache accountCache, CustomerAccountsCache customerAccounts,
+                          BalanceShards balanceShards, AccountLockingPolicy accountLocking,
+                          Ledger ledger, AccountImporter accountImporter,
+                          AccountListing accountListing) {
         super();
         this.repo = repo;
+        this.accountLocks = accountLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accountCache = accountCache;
+        this.customerAccounts = customerAccounts;
+        this.balanceShards = balanceShards;
+        this.accountLocking = accountLocking;
+        this.ledger = ledger;
+        this.accountImporter = accountImporter;
+        this.accountListing = accountListing;
     }
     
     /**
      * Creates a new bank account and saves it to the database.
      * 
-     * <p>When an account is created, its default status is set to <b>"ACTIVE"</b>.</p>
+     * <p>When an account is created, its default status is set to <b>"ACTIVE"</b>.
+     * Its opening balance is the first entry in the {@link Ledger}.</p>
      * 
      * @param account the {@link Account} object containing account details
      * @return the saved {@link Account} entity with generated account ID
      */
     public Account createAccount(Account account) {
         account.setStatus("ACTIVE");
-        return repo.save(account);
+        Account saved = transactionTemplate.execute(status -> {
+            Account created = repo.save(account);
+            ledger.record(created.getAccountId(), created.getBalance(), LedgerEntry.OPENING);
+            return created;
+        });
+        accountCache.put(saved);
+        customerAccounts.invalidate(saved.getCustomerId());
+        return saved;
     }
     
+    /**
+     * Creates accounts in bulk from a JSON array or CSV file, or resumes an import
+     * that did not complete.
+     * 
+     * <p>The records are validated in parallel and inserted with their OPENING ledger
+     * entries in chunks, each committed on its own; see {@link AccountImporter}.
+     * Sending the same input again with the same import ID skips the chunks already
+     * committed.</p>
+     * 
+     * @param importId client-chosen ID of the import
+     * @param format the input format
+     * @param in the input, UTF-8 encoded
+     * @return the {@link AccountImportResult}
+     * @throws IllegalArgumentException if the import ID is invalid or the input is malformed
+     * @throws IllegalStateException if the import was started with another format
+     */
+    public AccountImportResult importAccounts(String importId, ImportFormat format, InputStream in) {
+        return accountImporter.importAccounts(importId, format, in);
+    }
+
+    /**
+     * Returns the progress of a bulk import.
+     * 
+     * @param importId the import ID
+     * @return the {@link AccountImportResult} so far, or {@code null} if there is no such import
+     */
+    public AccountImportResult getImportProgress(String importId) {
+        return accountImporter.getProgress(importId);
+    }
+
     /**
      * Retrieves an account by its unique account ID.
      * 
+     * <p>Served from the {@link AccountCache} when possible; a miss loads the account
+     * from the database under its lock stripe and caches it.</p>
+     * 
      * @param id the unique account ID
      * @return the corresponding {@link Account} object if found, otherwise {@code null}
      */
     public Account getAccount(Long id) {
-        return repo.findById(id).orElse(null);
+        if (id == null) {
+            return null;
+        }
+        if (balanceShards.isSharded(id)) {
+            return accountLocks.withAccountLock(id,
+                    () -> repo.findById(id).map(balanceShards::withShards).orElse(null));
+        }
+        Account cached = accountCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        // Load under the account's lock so a transfer cannot commit in between
+        return accountLocks.withAccountLock(id, () -> {
+            Account account = repo.findById(id).orElse(null);
+            if (account != null) {
+                accountCache.putIfAbsent(account);
+            }
+            return account;
+        });
     }
     
+    /**
+     * Retrieves the balances and statuses of several accounts at once.
+     * 
+     * <p>Accounts in the {@link AccountCache} are answered from it. The rest are read
+     * as {@link AccountBalance} projections, {@link #BALANCE_CHUNK_SIZE} IDs per
+     * <code>IN (...)</code> query, so 200 accounts cost at most one round-trip
+     * instead of 200. The projections hold too little to be cached, so the cache is
+     * left as it is. Sharded accounts are read one by one through
+     * {@link #getAccount}, so their balances include the shards.</p>
+     * 
+     * <p>Each balance is a committed value, but the balances are not read at a
+     * single point in time.</p>
+     * 
+     * @param ids the account IDs; {@code null} and repeated IDs are ignored
+     * @return one {@link AccountBalance} per existing account, in request order;
+     *         unknown IDs are left out
+     * @throws IllegalArgumentException if more than {@link #MAX_BALANCE_IDS} IDs are given
+     */
+    public List<AccountBalance> getBalances(Collection<Long> ids) {
+        if (ids.size() > MAX_BALANCE_IDS) {
+            throw new IllegalArgumentException("at most " + MAX_BALANCE_IDS + " account IDs per request");
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+
+        Map<Long, AccountBalance> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : requested) {
+            Account account = balanceShards.isSharded(id) ? getAccount(id) : accountCache.get(id);
+            if (account != null) {
+                found.put(id, AccountBalance.of(account));
+            } else if (!balanceShards.isSharded(id)) {
+                misses.add(id);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += BALANCE_CHUNK_SIZE) {
+            List<Long> chunk = misses.subList(from, Math.min(from + BALANCE_CHUNK_SIZE, misses.size()));
+            for (AccountBalance balance : repo.findBalances(chunk)) {
+                found.put(balance.getAccountId(), balance);
+            }
+        }
+
+        List<AccountBalance> result = new ArrayList<>(found.size());
+        for (Long id : requested) {
+            AccountBalance balance = found.get(id);
+            if (balance != null) {
+                result.add(balance);
+            }
+        }
+        return result;
+    }
+
     /**
      * Retrieves all accounts stored in the database.
      * 
+     * <p>Sharded accounts are re-read through {@link #getAccount} so that their
+     * balances include the shards.</p>
+     * 
+     * <p>Loads every account as an entity; prefer {@link #getAccountPage} or
+     * {@link #streamAccounts} for large tables.</p>
+     * 
      * @return a list of all {@link Account} entities
      */
     public List<Account> getAllAccount() {
-        return repo.findAll();
+        List<Account> accounts = repo.findAll();
+        List<Account> result = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            result.add(balanceShards.isSharded(account.getAccountId())
+                    ? getAccount(account.getAccountId()) : account);
+        }
+        return result;
     }
     
+    /**
+     * Retrieves one page of accounts in account ID order, with only the selected
+     * fields.
+     * 
+     * <p>Pass either a page number (offset pagination) or the last account ID of the
+     * previous page (keyset pagination, as cheap at any depth); neither gives the
+     * first page. See {@link AccountListing}.</p>
+     * 
+     * @param fields the fields to select
+     * @param status only accounts with this status, or {@code null} for all
+     * @param accountType only accounts of this type, or {@code null} for all
+     * @param page zero-based page number, or {@code null}
+     * @param afterId last account ID of the previous page, or {@code null}
+     * @param size page size, at most {@link AccountListing#MAX_PAGE_SIZE}
+     * @return the {@link AccountPage}
+     * @throws IllegalArgumentException if both a page number and a cursor are given
+     */
+    public AccountPage getAccountPage(Set<AccountField> fields, String status, String accountType,
+                                      Integer page, Long afterId, int size) {
+        return accountListing.page(fields, status, accountType, page, afterId, size);
+    }
+
+    /**
+     * Writes every matching account, with only the selected fields, as one JSON
+     * object per line, straight from a database cursor.
+     * 
+     * @param fields the fields to select
+     * @param status only accounts with this status, or {@code null} for all
+     * @param accountType only accounts of this type, or {@code null} for all
+     * @param out the stream to write to
+     * @return the number of accounts written
+     */
+    public long streamAccounts(Set<AccountField> fields, String status, String accountType, OutputStream out) {
+        return accountListing.stream(fields, status, accountType, out);
+    }
+
     /**
      * Updates the balance of an existing account.
      * 
@@ -83,16 +370,17 @@ public class AccountService {
      * can be passed to reduce the balance).</p>
      * 
      * @param id the account ID whose balance will be updated
-     * @param amount the amount to adjust the balance by (can be positive or negative)
+     * @param amount the amount to adjust the balance by, in minor units (can be positive or negative)
      * @return the updated {@link Account} entity if found, otherwise {@code null}
+     * @throws ArithmeticException if the new balance would overflow; nothing is changed
+     * @throws org.springframework.dao.ConcurrencyFailureException if another writer
+     *         kept winning until the retries ran out; nothing is changed
      */
-    public Account updateBalance(Long id, double amount) {
-        Account account = getAccount(id);
-        if (account != null) {
-            account.setBalance(account.getBalance() + amount);
-            return repo.save(account);
-        }
-        return null;
+    public Account updateBalance(Long id, long amount) {
+        return updateAccount(id, account -> {
+            account.setBalance(Money.add(account.getBalance(), amount));
+            ledger.record(id, amount, LedgerEntry.DEPOSIT);
+        });
     }
     
     /**
@@ -104,13 +392,158 @@ public class AccountService {
      * @param id the account ID whose customer ID will be updated
      * @param custId the new customer ID to be linked
      * @return the updated {@link Account} entity if found, otherwise {@code null}
+     * @throws org.springframework.dao.ConcurrencyFailureException if another writer
+     *         kept winning until the retries ran out; nothing is changed
      */
     public Account updateCustomerId(Long id, Long custId) {
-        Account account = getAccount(id);
-        if (account != null) {
+        long[] previous = new long[1];
+        // Saving the whole entity also writes the balance, so this needs the lock too
+        Account updated = updateAccount(id, account -> {
+            previous[0] = account.getCustomerId();
             account.setCustomerId(custId);
-            return repo.save(account);
+        });
+        if (updated != null) {
+            customerAccounts.invalidate(previous[0]);
+            customerAccounts.invalidate(custId);
         }
-        return null;
+        return updated;
+    }
+
+    /**
+     * Retrieves all accounts of a customer and their total balance.
+     * 
+     * <p>If the customer's account IDs are cached and all of those accounts are in
+     * the {@link AccountCache}, no query is made. Otherwise the accounts are read
+     * with one query on the customer index, and their IDs are cached. Balances of
+     * sharded accounts include their shards.</p>
+     * 
+     * @param customerId the customer ID
+     * @return the {@link CustomerAccounts}; empty for a customer without accounts
+     */
+    public CustomerAccounts getCustomerAccounts(long customerId) {
+        long[] accountIds = customerAccounts.get(customerId);
+        List<Account> accounts = accountIds == null ? null : cachedAccounts(accountIds);
+        if (accounts == null) {
+            long stamp = customerAccounts.stamp();
+            accounts = repo.findByCustomerIdOrderByAccountId(customerId);
+            accountIds = new long[accounts.size()];
+            for (int i = 0; i < accountIds.length; i++) {
+                Account account = accounts.get(i);
+                accountIds[i] = account.getAccountId();
+                if (balanceShards.isSharded(account.getAccountId())) {
+                    accounts.set(i, getAccount(account.getAccountId()));
+                }
+            }
+            customerAccounts.put(customerId, accountIds, stamp);
+        }
+        long total = 0;
+        for (Account account : accounts) {
+            total = Money.add(total, account.getBalance());
+        }
+        return new CustomerAccounts(customerId, accounts, total);
+    }
+
+    /**
+     * Reconstructs the balance of an account at a point in time from the ledger.
+     * 
+     * <p>Reads the latest balance snapshot at or before that time and adds the
+     * ledger entries after it.</p>
+     * 
+     * @param id the account ID
+     * @param asOf the point in time
+     * @return the {@link LedgerBalance}; zero for a time before the account existed
+     */
+    public LedgerBalance getBalanceAt(Long id, LocalDateTime asOf) {
+        return ledger.balanceAt(id, asOf);
+    }
+
+    /**
+     * Spreads the credits of a hot account across a number of balance shards, or
+     * turns sharding off again with 0.
+     * 
+     * <p>The balances of the old shards are first moved into the account's own
+     * balance, so the total is unchanged.</p>
+     * 
+     * @param id the account ID
+     * @param shards the new shard count, from 0 to
+     *        <code>banking.accounts.max-balance-shards</code>
+     * @return the updated {@link Account} if found, otherwise {@code null}
+     * @throws IllegalArgumentException if the shard count is out of range
+     * @throws IllegalStateException if the account is not active
+     */
+    public Account setBalanceShards(Long id, int shards) {
+        return accountLocks.withAccountLock(id, () -> {
+            boolean found = transactionTemplate.execute(status -> balanceShards.reshard(id, shards));
+            accountCache.invalidate(id);
+            if (!found) {
+                return null;
+            }
+            balanceShards.register(id, shards);
+            return getAccount(id);
+        });
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the account cache.
+     * 
+     * @return current {@link CacheStats}
+     */
+    public CacheStats getCacheStats() {
+        return accountCache.stats();
+    }
+
+    /**
+     * Looks up accounts in the {@link AccountCache}.
+     * 
+     * @param accountIds the account IDs
+     * @return copies of the accounts, or {@code null} if any of them is not cached
+     *         or is sharded
+     */
+    private List<Account> cachedAccounts(long[] accountIds) {
+        List<Account> accounts = new ArrayList<>(accountIds.length);
+        for (long accountId : accountIds) {
+            Account account = balanceShards.isSharded(accountId) ? null : accountCache.get(accountId);
+            if (account == null) {
+                return null;
+            }
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    /**
+     * Applies a change to an account under its lock and in one database transaction,
+     * then refreshes the cache with the committed state.
+     * 
+     * <p>If another writer changed the row in the meantime, the whole attempt is
+     * rolled back and repeated, so the change must not have side effects outside
+     * the database transaction.</p>
+     * 
+     * @param id the account ID to update
+     * @param change the modification to apply to the loaded entity
+     * @return the updated {@link Account} entity if found, otherwise {@code null}
+     */
+    private Account updateAccount(Long id, Consumer<Account> change) {
+        // The stripe is released between attempts, so the back-off holds up nobody
+        return accountLocking.retry(Operation.ACCOUNT_UPDATE, () -> accountLocks.withAccountLock(id, () -> {
+            Account updated = transactionTemplate.execute(status -> {
+                // Always modify the database copy, never the cached one
+                Account account = (accountLocking.isPessimistic() ? repo.findByIdForUpdate(id) : repo.findById(id))
+                        .orElse(null);
+                if (account != null) {
+                    change.accept(account);
+                    return repo.save(account);
+                }
+                return null;
+            });
+            if (updated == null) {
+                return null;
+            }
+            if (balanceShards.isSharded(id)) {
+                return balanceShards.withShards(updated);
+            }
+            accountCache.put(updated);
+            return updated;
+        }));
     }
 }
@@ -3,16 +3,45 @@
  */
 package com.banking.service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.banking.audit.AuditStats;
+import com.banking.audit.TransactionAuditWriter;
+import com.banking.cache.AccountCache;
+import com.banking.concurrency.AccountLockingPolicy;
+import com.banking.concurrency.AccountLockingPolicy.Operation;
+import com.banking.concurrency.StripedAccountLocks;
+import com.banking.idempotency.IdempotencyStore;
+import com.banking.ledger.Ledger;
+import com.banking.metrics.TransferMetrics;
+import com.banking.metrics.TransferMetrics.Reason;
+import com.banking.metrics.TransferMetrics.Step;
 import com.banking.model.Account;
+import com.banking.model.AccountTotals;
 import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
 import com.banking.model.TransferRequest;
+import com.banking.money.Money;
+import com.banking.report.DailyRollups;
 import com.banking.repository.AccountRepo;
 import com.banking.repository.TransactionRepo;
+import com.banking.shard.BalanceShards;
 
 /**
  * Service class that handles all transaction-related business logic 
@@ -25,11 +54,42 @@ import com.banking.repository.TransactionRepo;
  * <p>It ensures data consistency between account balances and transaction records,
  * handling failure conditions like insufficient funds or invalid account IDs.</p>
  * 
+ * <p>Transfers hold the {@link StripedAccountLocks} of both accounts for the whole
+ * database transaction, so concurrent transfers touching the same account are
+ * serialised while unrelated transfers run in parallel. The {@link AccountCache} is
+ * refreshed with the committed balances before the locks are released.</p>
+ * 
+ * <p>Requests carrying an idempotency key are checked against the
+ * {@link IdempotencyStore}, again under the account locks, so a retry returns the
+ * original {@link Transaction} without loading or changing any account. The unique
+ * constraint on the key catches duplicates the store does not know about, for
+ * example after a restart.</p>
+ * 
+ * <p>Credits to a hot account with {@link BalanceShards} go to one of its shards and
+ * do not take its lock, so they no longer queue behind each other.</p>
+ * 
+ * <p>Batches read their accounts and write them back, so they also rely on the
+ * {@link AccountLockingPolicy} against writers in other instances: a batch that
+ * loses a version check is rolled back and applied again from scratch.</p>
+ * 
+ * <p>Every transfer is timed step by step and counted by outcome through
+ * {@link TransferMetrics}.</p>
+ * 
  * @author Madhusudan Dande
  */
 @Service
 public class TransactionService {
 
+    /**
+     * Largest page the keyset history API will return.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Cursor used for the first history page; earlier than any transaction.
+     */
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     /**
      * Repository used for performing CRUD operations on transaction data.
      */
@@ -40,16 +100,96 @@ public class TransactionService {
      */
     private final AccountRepo accountRepo;
 
+    /**
+     * Per-account lock stripes guarding balance updates.
+     */
+    private final StripedAccountLocks accountLocks;
+
+    /**
+     * Runs each transfer in a single database transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Write-through cache kept coherent with every balance change.
+     */
+    private final AccountCache accountCache;
+
+    /**
+     * Writes the {@link Transaction} audit records, synchronously or in the background.
+     */
+    private final TransactionAuditWriter auditWriter;
+
+    /**
+     * Maps idempotency keys to the transactions they created.
+     */
+    private final IdempotencyStore idempotencyStore;
+
+    /**
+     * Timers and counters for the transfer paths.
+     */
+    private final TransferMetrics transferMetrics;
+
+    /**
+     * Sub-balances of hot accounts.
+     */
+    private final BalanceShards balanceShards;
+
+    /**
+     * Database-side locking and retries of batches.
+     */
+    private final AccountLockingPolicy accountLocking;
+
+    /**
+     * Append-only record of every balance change.
+     */
+    private final Ledger ledger;
+
+    /**
+     * Per-account daily totals used by reports.
+     */
+    private final DailyRollups dailyRollups;
+
     /**
      * Constructor-based dependency injection for {@link TransactionRepo} and {@link AccountRepo}.
      * 
      * @param transactionRepo repository for transaction records
      * @param accountRepo repository for account data
+     * @param accountLocks lock stripes shared with {@link AccountService}
+     * @param transactionManager transaction manager used for transfers
+     * @param accountCache account cache refreshed after each transfer
+     * @param auditWriter writer for transaction audit records
+     * @param idempotencyStore store of idempotency keys already processed
+     * @param transferMetrics meters for transfer steps and outcomes
+     * @param balanceShards sub-balances of hot accounts
+     * @param accountLocking database-side locking and retries of batches
+     * @param ledger ledger receiving the debit and credit of each transfer
+     * @param dailyRollups per-account daily totals updated by each transfer
      */
-    public TransactionService(TransactionRepo transactionRepo, AccountRepo accountRepo) {
+    public TransactionService(TransactionRepo transactionRepo, AccountRepo accountRepo,
+                              StripedAccountLocks accountLocks,
+                              PlatformTransactionManager transactionManager,
+                              AccountCache accountCache,
+                              TransactionAuditWriter auditWriter,
+                              IdempotencyStore idempotencyStore,
+                              TransferMetrics transferMetrics,
+                              BalanceShards balanceShards,
+                              AccountLockingPolicy accountLocking,
+                              Ledger ledger,
+                              DailyRollups dailyRollups) {
         super();
         this.transactionRepo = transactionRepo;
         this.accountRepo = accountRepo;
+        this.accountLocks = accountLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accountCache = accountCache;
+        this.auditWriter = auditWriter;
+        this.idempotencyStore = idempotencyStore;
+        this.transferMetrics = transferMetrics;
+        this.balanceShards = balanceShards;
+        this.accountLocking = accountLocking;
+        this.ledger = ledger;
+        this.dailyRollups = dailyRollups;
     }
 
     /**
@@ -57,53 +197,527 @@ public class TransactionService {
      * 
      * <p>This method performs the following steps:</p>
      * <ul>
-     *   <li>Validates that both sender and receiver accounts exist.</li>
-     *   <li>Checks that the sender has sufficient balance.</li>
-     *   <li>Debits the sender’s account and credits the receiver’s account.</li>
+     *   <li>Debits the sender’s account with a conditional UPDATE that only matches
+     *       an active account holding at least the amount.</li>
+     *   <li>Credits the receiver’s account with a conditional UPDATE that only
+     *       matches an active account.</li>
      *   <li>Creates and stores a {@link Transaction} record for auditing purposes.</li>
+     *   <li>Appends a debit and a credit entry to the {@link Ledger}.</li>
+     *   <li>Adds the transfer to both accounts' {@link DailyRollups}.</li>
      * </ul>
      * 
-     * <p>If validation fails (invalid account or insufficient funds), 
-     * the transaction is marked as <b>"FAILED"</b>.</p>
+     * <p>That is two UPDATE statements and two INSERTs (the ledger entries go in one
+     * JDBC batch), with no reads: the row count of each UPDATE decides between
+     * SUCCESS and FAILED. The two rows are updated in ascending account ID order, so
+     * concurrent transfers between the same accounts cannot deadlock in the
+     * database, even across application instances.</p>
+     * 
+     * <p>The audit record goes through the {@link TransactionAuditWriter}. With the
+     * asynchronous audit pipeline enabled it is written after the transfer commits,
+     * under the transaction ID it was given up front, which the ledger entries
+     * already refer to.</p>
+     * 
+     * <p>If either UPDATE matches no row (unknown or inactive account, insufficient
+     * funds, or a balance that would overflow), the database transaction is rolled
+     * back and the transaction is recorded as <b>"FAILED"</b>. So is a request with
+     * a missing account ID or an amount that is not positive. Amounts are
+     * {@link Money} minor units and all arithmetic is exact.</p>
+     * 
+     * <p>The locks of both accounts are held throughout, which keeps the
+     * {@link AccountCache} exact: it is adjusted by the amount after the commit.
+     * The exception is a credit to a sharded account (see {@link BalanceShards}):
+     * only the sender's lock is taken, and the receiver is credited on one of its
+     * shards after the debit.</p>
+     * 
+     * <p>If the request carries an idempotency key that was already processed, the
+     * original transaction is returned and nothing else happens.</p>
      * 
      * @param request the {@link TransferRequest} object containing transfer details
      * @return the persisted {@link Transaction} record (either SUCCESS or FAILED)
      */
     public Transaction transfer(TransferRequest request) {
-        Transaction transaction = new Transaction();
+        TransferMetrics.Trace trace = transferMetrics.start();
+        try {
+            Transaction original = findReplay(request.getIdempotencyKey());
+            if (original != null) {
+                trace.reason(Reason.IDEMPOTENT_REPLAY);
+                return original;
+            }
+
+            try {
+                return doTransfer(request, trace);
+            } catch (DataIntegrityViolationException e) {
+                // Another request with the same key won the race on the unique constraint
+                original = findPersistedReplay(request.getIdempotencyKey());
+                if (original == null) {
+                    throw e;
+                }
+                trace.reason(Reason.IDEMPOTENT_REPLAY);
+                return original;
+            }
+        } catch (RuntimeException e) {
+            trace.reason(Reason.EXCEPTION);
+            throw e;
+        } finally {
+            trace.finish();
+        }
+    }
 
-        // Set transaction details from request
+    /**
+     * Performs a transfer that is not a known replay.
+     * 
+     * @param request the transfer details
+     * @param trace receives the step timings and outcome
+     * @return the persisted {@link Transaction} record (either SUCCESS or FAILED)
+     */
+    private Transaction doTransfer(TransferRequest request, TransferMetrics.Trace trace) {
+        Transaction transaction = newTransaction(request);
+
+        // Without both account IDs there is nothing to lock or move
+        if (request.getFromAccountId() == null || request.getToAccountId() == null) {
+            return remember(fail(transaction, trace, Reason.MISSING_ACCOUNT_ID));
+        }
+        if (request.getAmount() <= 0) {
+            return remember(fail(transaction, trace, Reason.INVALID_AMOUNT));
+        }
+
+        long fromAccountId = request.getFromAccountId();
+        long toAccountId = request.getToAccountId();
+        boolean shardedCredit = fromAccountId != toAccountId && balanceShards.isSharded(toAccountId);
+        Supplier<Transaction> locked = () -> {
+            trace.step(Step.LOCK_WAIT);
+
+            // A concurrent retry may have completed while we waited for the locks
+            Transaction replay = findReplay(request.getIdempotencyKey());
+            if (replay != null) {
+                trace.reason(Reason.IDEMPOTENT_REPLAY);
+                return replay;
+            }
+
+            Transaction result;
+            try {
+                result = transactionTemplate.execute(status -> applyTransfer(request, transaction, trace));
+            } catch (TransferRejectedException e) {
+                // Rolled back; record the failure in its own transaction
+                return remember(fail(transaction, trace, rejectionReason(e)));
+            }
+            trace.step(Step.COMMIT);
+            accountCache.adjustBalance(fromAccountId, -request.getAmount());
+            if (shardedCredit) {
+                // Not locked, so never adjust; only set if sharding was just turned off
+                accountCache.invalidate(toAccountId);
+            } else {
+                accountCache.adjustBalance(toAccountId, request.getAmount());
+            }
+            return remember(result);
+        };
+        return shardedCredit
+                ? accountLocks.withAccountLock(fromAccountId, locked)
+                : accountLocks.withAccountLocks(fromAccountId, toAccountId, locked);
+    }
+
+    /**
+     * Moves the funds with two conditional UPDATEs and records the transaction.
+     * 
+     * <p>Must be called inside a database transaction while the locks of both
+     * accounts are held.</p>
+     * 
+     * @param request the transfer details
+     * @param transaction the transaction record to complete and persist
+     * @param trace receives the step timings
+     * @return the persisted SUCCESS {@link Transaction} record
+     * @throws TransferRejectedException if either UPDATE matched no row; the caller
+     *         must let the database transaction roll back
+     */
+    private Transaction applyTransfer(TransferRequest request, Transaction transaction,
+                                      TransferMetrics.Trace trace) {
+        long fromAccountId = request.getFromAccountId();
+        long toAccountId = request.getToAccountId();
+        BigDecimal amount = Money.toDecimal(request.getAmount());
+        BigDecimal ceiling = Money.toDecimal(Long.MAX_VALUE - request.getAmount());
+
+        // Lock the two rows in ascending ID order; shard rows always come last
+        if (fromAccountId <= toAccountId || balanceShards.isSharded(toAccountId)) {
+            debit(fromAccountId, amount, trace);
+            credit(toAccountId, amount, ceiling, trace);
+        } else {
+            credit(toAccountId, amount, ceiling, trace);
+            debit(fromAccountId, amount, trace);
+        }
+
+        // Mark transaction successful
+        transaction.setStatus("SUCCESS");
+        Transaction recorded = auditWriter.record(transaction);
+        ledger.recordTransfer(recorded);
+        dailyRollups.record(recorded);
+        trace.step(Step.AUDIT);
+        return recorded;
+    }
+
+    private void debit(long accountId, BigDecimal amount, TransferMetrics.Trace trace) {
+        int updated = accountRepo.debit(accountId, amount);
+        if (updated == 0 && balanceShards.isSharded(accountId) && balanceShards.sweep(accountId)) {
+            // The account's own row was short; its shards have now been added to it
+            updated = accountRepo.debit(accountId, amount);
+        }
+        trace.step(Step.DEBIT);
+        if (updated == 0) {
+            throw new TransferRejectedException(accountId, true);
+        }
+    }
+
+    private void credit(long accountId, BigDecimal amount, BigDecimal ceiling, TransferMetrics.Trace trace) {
+        int updated = balanceShards.credit(accountId, amount, ceiling);
+        trace.step(Step.CREDIT);
+        if (updated == 0) {
+            throw new TransferRejectedException(accountId, false);
+        }
+    }
+
+    /**
+     * Works out why a conditional UPDATE matched no row. Only runs on the failure
+     * path, after the rollback and still under the account locks.
+     * 
+     * @param rejection the rejected debit or credit
+     * @return the failure reason
+     */
+    private Reason rejectionReason(TransferRejectedException rejection) {
+        Account account = accountRepo.findById(rejection.accountId).orElse(null);
+        if (account == null) {
+            return Reason.ACCOUNT_NOT_FOUND;
+        }
+        if (!"ACTIVE".equals(account.getStatus())) {
+            return Reason.ACCOUNT_INACTIVE;
+        }
+        return rejection.debit ? Reason.INSUFFICIENT_FUNDS : Reason.BALANCE_OVERFLOW;
+    }
+
+    /**
+     * Marks a transaction as FAILED and records it, together with the sender's
+     * failure count.
+     * 
+     * @param transaction the transaction record to complete and persist
+     * @param trace receives the audit timing and the failure reason
+     * @param reason why the transfer failed
+     * @return the recorded {@link Transaction}
+     */
+    private Transaction fail(Transaction transaction, TransferMetrics.Trace trace, Reason reason) {
+        trace.reason(reason);
+        transaction.setStatus("FAILED");
+        Transaction recorded = transactionTemplate.execute(status -> {
+            Transaction failed = auditWriter.record(transaction);
+            dailyRollups.record(failed);
+            return failed;
+        });
+        trace.step(Step.AUDIT);
+        return recorded;
+    }
+
+    /**
+     * Transfers funds for a whole batch of requests in one database transaction.
+     * 
+     * <p>Instead of two loads and two saves per transfer, this method:</p>
+     * <ul>
+     *   <li>Locks every account involved in the batch.</li>
+     *   <li>Loads all of those accounts with a single query.</li>
+     *   <li>Applies the transfers in memory, in request order, so later items see
+     *       the balances left by earlier ones.</li>
+     *   <li>Writes the changed accounts and all {@link Transaction} records through
+     *       JDBC batches.</li>
+     * </ul>
+     * 
+     * <p>Each item succeeds or fails on its own, by the same rules as
+     * {@link #transfer}; a failed item (for example an unknown account or
+     * insufficient funds) does not affect the rest of the batch. An item whose
+     * idempotency key was already processed, in an earlier request or earlier in
+     * this batch, is answered with the original transaction and not applied.</p>
+     * 
+     * <p>The batch holds the locks of every account, including sharded ones, so it
+     * sweeps the shards of sharded senders first and credits sharded receivers on
+     * their own row.</p>
+     * 
+     * <p>If another instance changes one of the accounts before the commit, the
+     * batch is rolled back and applied again, up to the attempts allowed by the
+     * {@link AccountLockingPolicy}.</p>
+     * 
+     * @param requests the transfers to perform
+     * @return one persisted {@link Transaction} per request, in request order
+     */
+    public List<Transaction> transferBatch(List<TransferRequest> requests) {
+        List<Transaction> transfers = new ArrayList<>(requests.size());
+        for (TransferRequest request : requests) {
+            transfers.add(newTransaction(request));
+        }
+        return runBatch(transfers, false);
+    }
+
+    /**
+     * Applies transfers accepted by the {@link com.banking.queue.TransferQueue}, as one
+     * batch.
+     * 
+     * <p>Works like {@link #transferBatch}, except that each transfer already carries
+     * the transaction ID and timestamp it was given when it was accepted. Those
+     * records are inserted with their IDs as one JDBC batch. The given records are
+     * not changed; the results are copies with their final status.</p>
+     * 
+     * @param transfers the accepted transfers, in the order they must be applied
+     * @return one persisted {@link Transaction} per transfer, in the same order; a
+     *         transfer whose idempotency key was already processed is answered with
+     *         the original transaction
+     */
+    public List<Transaction> transferAccepted(List<Transaction> transfers) {
+        return runBatch(transfers, true);
+    }
+
+    /**
+     * Records a transfer accepted by the {@link com.banking.queue.TransferQueue} that
+     * could not be applied as <b>"FAILED"</b>, under the ID it was accepted with.
+     * 
+     * <p>No balance changes. The record and the sender's failure count commit
+     * together, like those of any other failed transfer.</p>
+     * 
+     * @param transfer the accepted transfer; it is not changed
+     * @return the persisted FAILED copy
+     */
+    public Transaction failAccepted(Transaction transfer) {
+        Transaction failed = Transaction.copyOf(transfer);
+        failed.setStatus("FAILED");
+        transactionTemplate.executeWithoutResult(status -> {
+            auditWriter.insertAll(List.of(failed));
+            dailyRollups.record(failed);
+        });
+        return remember(failed);
+    }
+
+    /**
+     * Runs a batch of transfers under the locks of every account involved.
+     * 
+     * @param transfers new transaction records, one per transfer; each attempt
+     *        works on copies, so these are never changed
+     * @param assignedIds whether the records already have their IDs
+     * @return one persisted {@link Transaction} per transfer, in order
+     */
+    private List<Transaction> runBatch(List<Transaction> transfers, boolean assignedIds) {
+        Set<Long> accountIds = new LinkedHashSet<>();
+        for (Transaction transfer : transfers) {
+            if (transfer.getFromAccountId() != null && transfer.getToAccountId() != null) {
+                accountIds.add(transfer.getFromAccountId());
+                accountIds.add(transfer.getToAccountId());
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        List<Transaction> batchResults = accountLocking.retry(Operation.TRANSFER_BATCH,
+                () -> accountLocks.withAccountLocks(accountIds, () -> {
+            // Each attempt gets its own records: a rolled-back one leaves statuses and IDs behind
+            List<Transaction> attempt = new ArrayList<>(transfers.size());
+            for (Transaction transfer : transfers) {
+                attempt.add(Transaction.copyOf(transfer));
+            }
+            Set<Account> changed = new LinkedHashSet<>();
+            List<Reason> reasons = new ArrayList<>(transfers.size());
+            List<Transaction> results = transactionTemplate.execute(
+                    status -> applyBatch(attempt, assignedIds, accountIds, changed, reasons));
+            for (Account account : changed) {
+                if (!balanceShards.isSharded(account.getAccountId())) {
+                    accountCache.put(account);
+                }
+            }
+            results.forEach(this::remember);
+            reasons.forEach(transferMetrics::countBatchItem);
+            return results;
+        }));
+        transferMetrics.recordBatch(startNanos);
+        return batchResults;
+    }
+
+    /**
+     * Applies a batch of transfers in memory and writes the results.
+     * 
+     * <p>Must be called inside a database transaction while the locks of all
+     * involved accounts are held.</p>
+     * 
+     * @param transfers new transaction records, one per transfer, without status
+     * @param assignedIds whether the records already have their IDs
+     * @param accountIds every account referenced by the batch
+     * @param changed receives the accounts whose balances were updated
+     * @param reasons receives how each item ended, in request order
+     * @return one persisted {@link Transaction} per request, in request order
+     */
+    private List<Transaction> applyBatch(List<Transaction> transfers, boolean assignedIds,
+                                         Set<Long> accountIds, Set<Account> changed, List<Reason> reasons) {
+        // Sharded senders need their full balance in their own row
+        Set<Long> swept = new HashSet<>();
+        for (Transaction transfer : transfers) {
+            Long fromAccountId = transfer.getFromAccountId();
+            if (fromAccountId != null && accountIds.contains(fromAccountId)
+                    && balanceShards.isSharded(fromAccountId) && swept.add(fromAccountId)) {
+                balanceShards.sweep(fromAccountId);
+            }
+        }
+
+        // Load every involved account in one round-trip
+        Map<Long, Account> accounts = new HashMap<>();
+        for (Account account : accountLocking.isPessimistic()
+                ? accountRepo.findAllByIdForUpdate(accountIds) : accountRepo.findAllById(accountIds)) {
+            accounts.put(account.getAccountId(), account);
+        }
+
+        List<Transaction> results = new ArrayList<>(transfers.size());
+        List<Transaction> transactions = new ArrayList<>(transfers.size());
+        Map<String, Transaction> byKey = new HashMap<>();
+        for (Transaction transaction : transfers) {
+            String key = transaction.getIdempotencyKey();
+            Transaction original = key == null ? null
+                    : byKey.containsKey(key) ? byKey.get(key) : findReplay(key);
+            if (original != null) {
+                results.add(original);
+                reasons.add(Reason.IDEMPOTENT_REPLAY);
+                continue;
+            }
+
+            transactions.add(transaction);
+            results.add(transaction);
+            if (key != null) {
+                byKey.put(key, transaction);
+            }
+
+            Account fromAccount = accounts.get(transaction.getFromAccountId());
+            Account toAccount = accounts.get(transaction.getToAccountId());
+            if (transaction.getFromAccountId() == null || transaction.getToAccountId() == null) {
+                transaction.setStatus("FAILED");
+                reasons.add(Reason.MISSING_ACCOUNT_ID);
+                continue;
+            }
+            if (transaction.getAmount() <= 0) {
+                transaction.setStatus("FAILED");
+                reasons.add(Reason.INVALID_AMOUNT);
+                continue;
+            }
+            if (fromAccount == null || toAccount == null) {
+                transaction.setStatus("FAILED");
+                reasons.add(Reason.ACCOUNT_NOT_FOUND);
+                continue;
+            }
+            if (!"ACTIVE".equals(fromAccount.getStatus()) || !"ACTIVE".equals(toAccount.getStatus())) {
+                transaction.setStatus("FAILED");
+                reasons.add(Reason.ACCOUNT_INACTIVE);
+                continue;
+            }
+            if (fromAccount.getBalance() < transaction.getAmount()) {
+                transaction.setStatus("FAILED");
+                reasons.add(Reason.INSUFFICIENT_FUNDS);
+                continue;
+            }
+
+            long fromBalance;
+            long toBalance;
+            try {
+                fromBalance = Money.subtract(fromAccount.getBalance(), transaction.getAmount());
+                // A self-transfer credits the balance it has just debited
+                toBalance = Money.add(toAccount == fromAccount ? fromBalance : toAccount.getBalance(),
+                        transaction.getAmount());
+            } catch (ArithmeticException e) {
+                transaction.setStatus("FAILED");
+                reasons.add(Reason.BALANCE_OVERFLOW);
+                continue;
+            }
+            fromAccount.setBalance(fromBalance);
+            toAccount.setBalance(toBalance);
+            reasons.add(Reason.COMPLETED);
+            changed.add(fromAccount);
+            changed.add(toAccount);
+            transaction.setStatus("SUCCESS");
+        }
+
+        // Flushed as JDBC batches (see hibernate.jdbc.batch_size)
+        accountRepo.saveAll(changed);
+        if (assignedIds) {
+            auditWriter.insertAll(transactions);
+        } else {
+            // New entities are persisted in place, so the results list sees their IDs
+            auditWriter.recordAll(transactions);
+        }
+        ledger.recordTransfers(transactions);
+        dailyRollups.recordAll(transactions);
+        return results;
+    }
+
+    /**
+     * Creates an unsaved {@link Transaction} record from a transfer request.
+     * 
+     * @param request the transfer details
+     * @return a new transaction stamped with the current time and no status
+     */
+    private Transaction newTransaction(TransferRequest request) {
+        Transaction transaction = new Transaction();
         transaction.setFromAccountId(request.getFromAccountId());
         transaction.setToAccountId(request.getToAccountId());
         transaction.setAmount(request.getAmount());
         transaction.setTimestamp(LocalDateTime.now());
+        transaction.setIdempotencyKey(request.getIdempotencyKey());
+        return transaction;
+    }
 
-        // Fetch sender and receiver accounts
-        Account fromAccount = accountRepo.findById(request.getFromAccountId()).orElse(null);
-        Account toAccount = accountRepo.findById(request.getToAccountId()).orElse(null);
+    /**
+     * Returns the transaction created for an idempotency key, if any.
+     * 
+     * @param key the idempotency key, or {@code null}
+     * @param checkDatabase whether to query the database for a key the
+     *        {@link IdempotencyStore} does not know
+     * @return the original transaction, or {@code null} if none was found
+     */
+    public Transaction findByIdempotencyKey(String key, boolean checkDatabase) {
+        Transaction original = findReplay(key);
+        return original != null || !checkDatabase ? original : findPersistedReplay(key);
+    }
 
-        // Validate both accounts exist
-        if (fromAccount == null || toAccount == null) {
-            transaction.setStatus("FAILED");
-            return transactionRepo.save(transaction);
+    /**
+     * Returns the transaction already created for an idempotency key.
+     * 
+     * <p>Only keys in the {@link IdempotencyStore} are considered, so a new key costs
+     * no database round-trip. A hit is confirmed by comparing the key stored on the
+     * transaction, which rules out hash collisions.</p>
+     * 
+     * @param key the idempotency key, or {@code null}
+     * @return the original transaction, or {@code null} if the key is new
+     */
+    private Transaction findReplay(String key) {
+        if (key == null) {
+            return null;
         }
-
-        // Validate sufficient funds in sender’s account
-        if (fromAccount.getBalance() < request.getAmount()) {
-            transaction.setStatus("FAILED");
-            return transactionRepo.save(transaction);
+        long transactionId = idempotencyStore.lookup(key);
+        if (transactionId == IdempotencyStore.ABSENT) {
+            return null;
         }
+        Transaction original = transactionRepo.findById(transactionId).orElse(null);
+        return original != null && key.equals(original.getIdempotencyKey()) ? original : null;
+    }
 
-        // Perform debit and credit operations
-        fromAccount.setBalance(fromAccount.getBalance() - request.getAmount());
-        accountRepo.save(fromAccount);
-
-        toAccount.setBalance(toAccount.getBalance() + request.getAmount());
-        accountRepo.save(toAccount);
+    /**
+     * Loads the transaction for an idempotency key from the database and remembers it.
+     * 
+     * @param key the idempotency key, or {@code null}
+     * @return the original transaction, or {@code null} if none was persisted
+     */
+    private Transaction findPersistedReplay(String key) {
+        if (key == null) {
+            return null;
+        }
+        return transactionRepo.findByIdempotencyKey(key).map(this::remember).orElse(null);
+    }
 
-        // Mark transaction successful
-        transaction.setStatus("SUCCESS");
-        return transactionRepo.save(transaction);
+    /**
+     * Adds a committed transaction to the {@link IdempotencyStore} if it has a key.
+     * 
+     * @param transaction the committed transaction
+     * @return the same transaction
+     */
+    private Transaction remember(Transaction transaction) {
+        if (transaction.getIdempotencyKey() != null && transaction.getTransactionId() != null) {
+            idempotencyStore.remember(transaction.getIdempotencyKey(), transaction.getTransactionId());
+        }
+        return transaction;
     }
 
     /**
@@ -117,19 +731,70 @@ public class TransactionService {
     }
 
     /**
-     * Retrieves all transactions performed by or received in a specific account.
+     * Retrieves one page of an account's history using keyset pagination.
      * 
-     * <p>This method fetches both debit and credit transactions for a given account ID.</p>
+     * <p>The page holds the transactions that come strictly after the cursor
+     * <i>(afterTimestamp, afterId)</i> in timestamp-then-ID order. Pass {@code null}
+     * for both to start from the beginning.</p>
      * 
      * @param accountId the account ID for which to retrieve transactions
-     * @return a list of {@link Transaction} objects related to the given account
+     * @param afterTimestamp timestamp of the last transaction already seen, or {@code null}
+     * @param afterId ID of the last transaction already seen, or {@code null}
+     * @param size requested page size, capped at {@link #MAX_PAGE_SIZE}
+     * @return the {@link TransactionPage} with the cursor for the next page
+     */
+    public TransactionPage getHistoryPage(Long accountId, LocalDateTime afterTimestamp,
+                                          Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Ask for one extra row to learn whether another page exists
+        List<Transaction> rows = transactionRepo.findHistoryPage(accountId,
+                afterTimestamp != null ? afterTimestamp : HISTORY_START,
+                afterId != null ? afterId : 0L,
+                limit + 1);
+
+        TransactionPage page = new TransactionPage();
+        page.setHasMore(rows.size() > limit);
+        page.setItems(page.isHasMore() ? rows.subList(0, limit) : rows);
+        if (!page.getItems().isEmpty()) {
+            Transaction last = page.getItems().get(page.getItems().size() - 1);
+            page.setNextAfterTimestamp(last.getTimestamp());
+            page.setNextAfterId(last.getTransactionId());
+        }
+        return page;
+    }
+
+    /**
+     * Passes every transaction of an account to the given action, oldest first.
+     * 
+     * <p>The history is read in keyset pages of {@link TransactionRepo#STREAM_PAGE_SIZE}
+     * rows, each a short query that seeks past the previous page on the account's
+     * indexes. Neither the application nor the database ever holds more than a page,
+     * however long the history is, and no connection is held between pages.</p>
+     * 
+     * @param accountId the account ID for which to read transactions
+     * @param action callback invoked once per transaction
      */
-    public List<Transaction> getTransactionByAccount(Long accountId) {
-        return transactionRepo.findByFromAccountIdOrToAccountId(accountId, accountId);
+    public void forEachInHistory(Long accountId, Consumer<Transaction> action) {
+        LocalDateTime afterTimestamp = HISTORY_START;
+        long afterId = 0;
+        List<Transaction> page;
+        do {
+            page = transactionRepo.findHistoryPage(accountId, afterTimestamp, afterId,
+                    TransactionRepo.STREAM_PAGE_SIZE);
+            for (Transaction transaction : page) {
+                action.accept(transaction);
+            }
+            if (!page.isEmpty()) {
+                Transaction last = page.get(page.size() - 1);
+                afterTimestamp = last.getTimestamp();
+                afterId = last.getTransactionId();
+            }
+        } while (page.size() == TransactionRepo.STREAM_PAGE_SIZE);
     }
 
     /**
-     * Retrieves all transactions performed by a specific account within a given date range.
+     * Retrieves all transactions sent or received by a specific account within a given date range.
      * 
      * <p>Useful for generating transaction history statements or reports
      * for a particular account over a specified period.</p>
@@ -142,7 +807,48 @@ public class TransactionService {
     public List<Transaction> getTransactionByACcountAndDateRange(Long accountId,
                                                                  LocalDateTime startDate,
                                                                  LocalDateTime endDate) {
-        return transactionRepo.findByFromAccountIdOrToAccountIdAndTimestampBetween(
-                accountId, accountId, startDate, endDate);
+        return transactionRepo.findHistoryInDateRange(accountId, startDate, endDate);
+    }
+
+    /**
+     * Returns the transfer totals of an account over a range of days.
+     * 
+     * <p>Read from the daily rollups, so the cost grows with the number of days,
+     * not with the number of transactions.</p>
+     * 
+     * @param accountId the account ID
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @return the {@link AccountTotals} of the range
+     */
+    public AccountTotals getAccountTotals(Long accountId, LocalDate startDate, LocalDate endDate) {
+        return dailyRollups.totals(accountId, startDate, endDate);
+    }
+
+    /**
+     * Returns the queue and flush counters of the audit writer.
+     * 
+     * @return current {@link AuditStats}
+     */
+    public AuditStats getAuditStats() {
+        return auditWriter.stats();
+    }
+
+    /**
+     * Thrown inside the transfer's database transaction when a conditional UPDATE
+     * matches no row, so that the transaction rolls back.
+     */
+    private static final class TransferRejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long accountId;
+        private final boolean debit;
+
+        TransferRejectedException(long accountId, boolean debit) {
+            super(null, null, false, false);
+            this.accountId = accountId;
+            this.debit = debit;
+        }
     }
 }
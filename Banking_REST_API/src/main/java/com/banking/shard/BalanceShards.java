@@ -0,0 +1,240 @@
+/**
+ * 
+ */
+package com.banking.shard;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.banking.model.Account;
+import com.banking.model.AccountShard;
+import com.banking.money.Money;
+import com.banking.repository.AccountRepo;
+import com.banking.repository.AccountShardRepo;
+
+/**
+ * Spreads the credits of hot accounts across {@link AccountShard} sub-balances.
+ * 
+ * <p>Accounts such as payroll or merchant settlement receive a large share of all
+ * transfers. Crediting their single row serialises those transfers on one row lock,
+ * and on one {@link com.banking.concurrency.StripedAccountLocks} stripe. An account
+ * switched to N shards is instead credited on a random one of N shard rows, and
+ * {@link com.banking.service.TransactionService#transfer} does not take its stripe
+ * lock for such a credit, so credits from different threads run in parallel.</p>
+ * 
+ * <p>The account's balance is its own row plus the sum of its shards. Reads add the
+ * shards up with one query. A debit first tries the account's row alone; only when
+ * that is not enough does it {@link #sweep} the shards into the row and try again.
+ * Sweeps and reads run under the account's stripe lock, so they never see a shard
+ * balance twice.</p>
+ * 
+ * <p>The shard counts are kept in memory, loaded at startup and updated by
+ * {@link com.banking.service.AccountService#setBalanceShards}. Another application
+ * node that has not seen a change yet credits the account's own row instead, which
+ * is still correct.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class BalanceShards implements SmartInitializingSingleton {
+
+    private final AccountRepo accountRepo;
+
+    private final AccountShardRepo shardRepo;
+
+    /**
+     * Largest shard count an account may be given.
+     */
+    private final int maxShards;
+
+    /**
+     * Shard count of every sharded account, by account ID.
+     */
+    private final ConcurrentHashMap<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the component.
+     * 
+     * @param accountRepo repository for the accounts' own rows
+     * @param shardRepo repository for the shard rows
+     * @param maxShards largest shard count an account may be given
+     */
+    public BalanceShards(AccountRepo accountRepo, AccountShardRepo shardRepo,
+                         @Value("${banking.accounts.max-balance-shards:64}") int maxShards) {
+        this.accountRepo = accountRepo;
+        this.shardRepo = shardRepo;
+        this.maxShards = maxShards;
+    }
+
+    /**
+     * Loads the shard counts of the sharded accounts.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Account account : accountRepo.findByBalanceShardsGreaterThan(0)) {
+            shardCounts.put(account.getAccountId(), account.getBalanceShards());
+        }
+    }
+
+    /**
+     * Tells whether credits to an account are spread across shards.
+     * 
+     * @param accountId the account ID
+     * @return {@code true} if the account is sharded
+     */
+    public boolean isSharded(long accountId) {
+        return !shardCounts.isEmpty() && shardCounts.containsKey(accountId);
+    }
+
+    /**
+     * Returns the number of shards an account's credits are spread across.
+     * 
+     * @param accountId the account ID
+     * @return the shard count, 0 if the account is not sharded
+     */
+    public int shardCount(long accountId) {
+        return shardCounts.isEmpty() ? 0 : shardCounts.getOrDefault(accountId, 0);
+    }
+
+    /**
+     * Credits an active account, on a random shard if it is sharded.
+     * 
+     * <p>The shard UPDATE checks the account's status itself, so the credit costs
+     * one statement. Falls back to the account's own row if it is not sharded, or
+     * the shard UPDATE matched nothing, for example because the shard count was just
+     * lowered; the own row's UPDATE checks the status again.</p>
+     * 
+     * @param accountId the account to credit
+     * @param amount the positive decimal amount to deposit
+     * @param ceiling the largest balance a row may hold before the credit
+     * @return 1 if the account was credited, 0 if it does not exist, is not active or
+     *         the balance would overflow
+     */
+    public int credit(long accountId, BigDecimal amount, BigDecimal ceiling) {
+        Integer shards = shardCounts.get(accountId);
+        if (shards != null) {
+            int shard = ThreadLocalRandom.current().nextInt(shards);
+            if (shardRepo.credit(accountId, shard, amount, ceiling) == 1) {
+                return 1;
+            }
+        }
+        return accountRepo.credit(accountId, amount, ceiling);
+    }
+
+    /**
+     * Moves the balances of all shards of an account into the account's own row.
+     * 
+     * <p>Must be called inside a database transaction while holding the account's
+     * lock stripe. The shards stay write-locked until the transaction ends.</p>
+     * 
+     * @param accountId the account ID
+     * @return {@code true} if anything was moved; {@code false} if the shards were
+     *         empty, or the account is not active or would overflow
+     */
+    public boolean sweep(long accountId) {
+        long total = lockedTotal(accountId);
+        if (total == 0 || !creditOwnRow(accountId, total)) {
+            return false;
+        }
+        shardRepo.zeroBalances(accountId);
+        return true;
+    }
+
+    /**
+     * Changes the shard count of an account, first moving the balances of its old
+     * shards into its own row.
+     * 
+     * <p>Must be called inside a database transaction while holding the account's
+     * lock stripe; call {@link #register} once the transaction has committed.</p>
+     * 
+     * @param accountId the account ID
+     * @param shards the new shard count, 0 to turn sharding off
+     * @return {@code false} if the account does not exist
+     * @throws IllegalArgumentException if the shard count is out of range
+     * @throws IllegalStateException if the account is not active
+     */
+    public boolean reshard(long accountId, int shards) {
+        if (shards < 0 || shards > maxShards) {
+            throw new IllegalArgumentException("balance shards must be 0 to " + maxShards);
+        }
+        // The account's row first, then its shards, like a debit followed by a sweep
+        if (accountRepo.updateBalanceShards(accountId, shards) == 0) {
+            return false;
+        }
+        if (!"ACTIVE".equals(accountRepo.findStatus(accountId))) {
+            throw new IllegalStateException("account " + accountId + " is not active");
+        }
+        long total = lockedTotal(accountId);
+        if (total != 0 && !creditOwnRow(accountId, total)) {
+            throw new IllegalStateException("balance of account " + accountId + " would overflow");
+        }
+        shardRepo.deleteByAccountId(accountId);
+
+        List<AccountShard> rows = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            AccountShard row = new AccountShard();
+            row.setAccountId(accountId);
+            row.setShard(i);
+            rows.add(row);
+        }
+        shardRepo.saveAll(rows);
+        return true;
+    }
+
+    /**
+     * Publishes a committed shard count to this node.
+     * 
+     * @param accountId the account ID
+     * @param shards the shard count, 0 if the account is no longer sharded
+     */
+    public void register(long accountId, int shards) {
+        if (shards > 0) {
+            shardCounts.put(accountId, shards);
+        } else {
+            shardCounts.remove(accountId);
+        }
+    }
+
+    /**
+     * Returns a copy of an account whose balance includes its shards.
+     * 
+     * <p>Call while holding the account's lock stripe, so no sweep runs between
+     * reading the account and adding up its shards.</p>
+     * 
+     * @param account the account as read from its own row
+     * @return a detached copy with the total balance
+     */
+    public Account withShards(Account account) {
+        Account total = Account.copyOf(account);
+        long shards = Money.fromDecimal(shardRepo.sumBalances(account.getAccountId()));
+        total.setBalance(Money.add(account.getBalance(), shards));
+        return total;
+    }
+
+    /**
+     * Write-locks the shards of an account and adds up their balances.
+     */
+    private long lockedTotal(long accountId) {
+        long total = 0;
+        for (BigDecimal balance : shardRepo.lockBalances(accountId)) {
+            total = Money.add(total, Money.fromDecimal(balance));
+        }
+        return total;
+    }
+
+    /**
+     * Adds an amount to the account's own row, unless it is not active or would
+     * overflow.
+     */
+    private boolean creditOwnRow(long accountId, long amount) {
+        return accountRepo.credit(accountId, Money.toDecimal(amount),
+                Money.toDecimal(Long.MAX_VALUE - amount)) == 1;
+    }
+}
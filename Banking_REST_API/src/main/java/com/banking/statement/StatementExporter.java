@@ -0,0 +1,150 @@
+/**
+ * 
+ */
+package com.banking.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.ledger.Ledger;
+import com.banking.money.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exports the statement of an account for a period straight from a database cursor.
+ * 
+ * <p>The statement is built from the account's ledger entries, so deposits and
+ * withdrawals appear alongside transfers and failed transfers do not. The opening
+ * balance comes from {@link Ledger#balanceAt}; each row read from the cursor is
+ * handed to a {@link StatementWriter} and is garbage as soon as it is written. Rows
+ * are read with plain JDBC rather than as entities, so nothing accumulates in a
+ * persistence context either, and memory use does not depend on the number of
+ * entries.</p>
+ * 
+ * <p>The opening balance and the entries are read in one read-only transaction, so
+ * they are consistent with each other. The entries are fetched {@link #FETCH_SIZE}
+ * at a time; on MySQL that needs <code>useCursorFetch=true</code> in the JDBC URL,
+ * otherwise the driver buffers the whole result. They are read in
+ * <i>(timestamp, entry_id)</i> order, which is the order of the
+ * <i>(account_id, timestamp)</i> index on {@link com.banking.model.LedgerEntry},
+ * so no sort is needed.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+@Component
+public class StatementExporter {
+
+    /**
+     * Ledger entries of one account in a period, with the other account of each
+     * transfer.
+     */
+    static final String STATEMENT_SQL =
+            "SELECT e.entry_id, e.timestamp, e.kind, e.transaction_id, e.amount,"
+            + " t.from_account_id, t.to_account_id"
+            + " FROM ledger_entry e LEFT JOIN transaction t ON t.transaction_id = e.transaction_id"
+            + " WHERE e.account_id = ? AND e.timestamp BETWEEN ? AND ?"
+            + " ORDER BY e.timestamp, e.entry_id";
+
+    /**
+     * Rows fetched per round-trip.
+     */
+    static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Ledger ledger;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Creates the exporter.
+     * 
+     * @param jdbcTemplate used to read the ledger entries
+     * @param ledger used to read the opening balance
+     * @param objectMapper whose factory writes NDJSON statements
+     * @param transactionManager transaction manager for the read-only transaction
+     */
+    public StatementExporter(JdbcTemplate jdbcTemplate, Ledger ledger, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledger = ledger;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the statement of an account for a period.
+     * 
+     * <p>Both bounds are inclusive and are used to the microsecond, the precision
+     * the ledger stores. An account without entries, or one that does not exist,
+     * gets a statement with only its opening and closing lines.</p>
+     * 
+     * @param accountId the account ID
+     * @param start start of the period
+     * @param end end of the period
+     * @param format the output format
+     * @param out the stream to write to; it is flushed but not closed
+     * @return the writer, holding the totals of the statement
+     * @throws IllegalArgumentException if the period ends before it starts
+     * @throws UncheckedIOException if the stream cannot be written
+     */
+    public StatementWriter export(long accountId, LocalDateTime start, LocalDateTime end,
+                                  StatementFormat format, OutputStream out) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.MICROS);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        return readOnlyTransaction.execute(status -> {
+            long opening = ledger.balanceAt(accountId, from.minus(1, ChronoUnit.MICROS)).getBalance();
+            try {
+                StatementWriter writer = StatementWriter.create(format, out, objectMapper.getFactory(),
+                        accountId, opening);
+                writer.open(from);
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(STATEMENT_SQL);
+                    statement.setFetchSize(FETCH_SIZE);
+                    statement.setLong(1, accountId);
+                    statement.setTimestamp(2, Timestamp.valueOf(from));
+                    statement.setTimestamp(3, Timestamp.valueOf(to));
+                    return statement;
+                }, (ResultSet row) -> writeEntry(writer, row));
+                writer.close(to);
+                return writer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeEntry(StatementWriter writer, ResultSet row) throws SQLException {
+        long amount = Money.fromDecimal(row.getBigDecimal(5));
+        long transactionId = row.getLong(4);
+        Long transaction = row.wasNull() ? null : transactionId;
+
+        // The other side of a transfer: the receiver of a debit, the sender of a credit
+        long counterparty = row.getLong(amount < 0 ? 7 : 6);
+        Long counterpartyId = row.wasNull() ? null : counterparty;
+        try {
+            writer.entry(row.getLong(1), row.getTimestamp(2).toLocalDateTime(), row.getString(3),
+                    transaction, counterpartyId, amount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
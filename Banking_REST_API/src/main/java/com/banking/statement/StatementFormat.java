@@ -0,0 +1,66 @@
+/**
+ * 
+ */
+package com.banking.statement;
+
+import java.util.Locale;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Output formats of an account statement export.
+ * 
+ * @author Madhusudan Dande
+ */
+public enum StatementFormat {
+
+    /**
+     * Comma-separated values with a header line.
+     */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv"),
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+
+    private final String fileExtension;
+
+    StatementFormat(MediaType mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Returns the content type of a statement in this format.
+     * @return mediaType
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the file name extension of a statement in this format.
+     * @return fileExtension
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Looks up a format by name, ignoring case.
+     * 
+     * @param name "csv" or "ndjson"
+     * @return the format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static StatementFormat of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format must be csv or ndjson");
+        }
+    }
+}
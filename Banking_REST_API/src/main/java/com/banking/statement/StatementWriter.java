@@ -0,0 +1,378 @@
+/**
+ * 
+ */
+package com.banking.statement;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import com.banking.money.Money;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes an account statement one line at a time, keeping the running balance and
+ * the totals as it goes.
+ * 
+ * <p>A statement is an opening line with the balance before the period, one line
+ * per ledger entry with the balance after it, and a closing line with the number of
+ * entries, the total debits and credits and the closing balance. Nothing but those
+ * counters is kept between lines, so a statement of any length is written in
+ * constant memory. A statement whose closing line is missing was cut short.</p>
+ * 
+ * <p>Amounts are written as decimals such as <code>12.34</code> and timestamps in
+ * ISO-8601, like the JSON API. In CSV a debit and a credit have their own column and
+ * are both positive; in NDJSON an entry has one signed <code>amount</code>.</p>
+ * 
+ * @author Madhusudan Dande
+ */
+public abstract class StatementWriter {
+
+    private final long accountId;
+
+    private long balance;
+
+    private long entries;
+
+    private long debits;
+
+    private long credits;
+
+    private StatementWriter(long accountId, long openingBalance) {
+        this.accountId = accountId;
+        this.balance = openingBalance;
+    }
+
+    /**
+     * Creates a writer in the given format.
+     * 
+     * <p>The writer buffers its output; call {@link #close} to write the closing
+     * line and flush. The stream itself is not closed.</p>
+     * 
+     * @param format the output format
+     * @param out the stream to write to
+     * @param jsonFactory factory used for NDJSON output
+     * @param accountId the account the statement is for
+     * @param openingBalance the balance before the first entry, in minor units
+     * @return the writer
+     * @throws IOException if the stream cannot be written
+     */
+    public static StatementWriter create(StatementFormat format, OutputStream out, JsonFactory jsonFactory,
+                                         long accountId, long openingBalance) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(out, accountId, openingBalance);
+            case NDJSON -> new Ndjson(jsonFactory.createGenerator(out), accountId, openingBalance);
+        };
+    }
+
+    /**
+     * Writes the opening line.
+     * 
+     * @param start start of the statement period
+     * @throws IOException if the stream cannot be written
+     */
+    public void open(LocalDateTime start) throws IOException {
+        writeOpening(start);
+    }
+
+    /**
+     * Writes one ledger entry and adds it to the running balance and totals.
+     * 
+     * @param entryId the ledger entry ID
+     * @param timestamp when the entry was recorded
+     * @param kind the entry kind, such as <code>TRANSFER</code>
+     * @param transactionId the transfer the entry belongs to, or {@code null}
+     * @param counterpartyId the other account of the transfer, or {@code null}
+     * @param amount the signed amount in minor units
+     * @throws IOException if the stream cannot be written
+     * @throws ArithmeticException if the balance or a total overflows
+     */
+    public void entry(long entryId, LocalDateTime timestamp, String kind, Long transactionId,
+                      Long counterpartyId, long amount) throws IOException {
+        balance = Money.add(balance, amount);
+        if (amount < 0) {
+            debits = Money.subtract(debits, amount);
+        } else {
+            credits = Money.add(credits, amount);
+        }
+        entries++;
+        writeEntry(entryId, timestamp, kind, transactionId, counterpartyId, amount);
+    }
+
+    /**
+     * Writes the closing line and flushes the output.
+     * 
+     * @param end end of the statement period
+     * @throws IOException if the stream cannot be written
+     */
+    public void close(LocalDateTime end) throws IOException {
+        writeClosing(end);
+        flush();
+    }
+
+    /**
+     * Returns the ID of the account the statement is for.
+     * @return accountId
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Returns the balance after the entries written so far.
+     * @return balance in minor units
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the number of entries written so far.
+     * @return entries
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the sum of the debits written so far, as a positive amount.
+     * @return debits in minor units
+     */
+    public long getDebits() {
+        return debits;
+    }
+
+    /**
+     * Returns the sum of the credits written so far.
+     * @return credits in minor units
+     */
+    public long getCredits() {
+        return credits;
+    }
+
+    protected abstract void writeOpening(LocalDateTime start) throws IOException;
+
+    protected abstract void writeEntry(long entryId, LocalDateTime timestamp, String kind, Long transactionId,
+                                       Long counterpartyId, long amount) throws IOException;
+
+    protected abstract void writeClosing(LocalDateTime end) throws IOException;
+
+    protected abstract void flush() throws IOException;
+
+    /**
+     * Formats a timestamp like {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}, which
+     * is several times slower and would dominate the cost of a long statement.
+     */
+    static String timestamp(LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time);
+        }
+        char[] text = new char[29];
+        digits(text, 0, year, 4);
+        text[4] = '-';
+        digits(text, 5, time.getMonthValue(), 2);
+        text[7] = '-';
+        digits(text, 8, time.getDayOfMonth(), 2);
+        text[10] = 'T';
+        digits(text, 11, time.getHour(), 2);
+        text[13] = ':';
+        digits(text, 14, time.getMinute(), 2);
+        text[16] = ':';
+        digits(text, 17, time.getSecond(), 2);
+        int length = 19;
+        int nano = time.getNano();
+        if (nano != 0) {
+            // Fraction without trailing zeros, as ISO_LOCAL_TIME prints it
+            text[19] = '.';
+            digits(text, 20, nano, 9);
+            length = 29;
+            while (text[length - 1] == '0') {
+                length--;
+            }
+        }
+        return new String(text, 0, length);
+    }
+
+    private static void digits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * CSV lines: <code>type,timestamp,entry_id,kind,transaction_id,counterparty_account_id,debit,credit,balance</code>.
+     */
+    private static final class Csv extends StatementWriter {
+
+        private static final String HEADER =
+                "type,timestamp,entry_id,kind,transaction_id,counterparty_account_id,debit,credit,balance\n";
+
+        private static final long MINOR_PER_MAJOR = BigInteger.TEN.pow(Money.SCALE).longValueExact();
+
+        private final Writer out;
+
+        Csv(OutputStream out, long accountId, long openingBalance) {
+            super(accountId, openingBalance);
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        }
+
+        @Override
+        protected void writeOpening(LocalDateTime start) throws IOException {
+            out.write(HEADER);
+            out.write("OPENING,");
+            out.write(timestamp(start));
+            out.write(",,,,,,,");
+            writeMoney(getBalance());
+            out.write('\n');
+        }
+
+        @Override
+        protected void writeEntry(long entryId, LocalDateTime timestamp, String kind, Long transactionId,
+                                  Long counterpartyId, long amount) throws IOException {
+            out.write("ENTRY,");
+            out.write(timestamp(timestamp));
+            out.write(',');
+            out.write(Long.toString(entryId));
+            out.write(',');
+            out.write(kind);
+            out.write(',');
+            if (transactionId != null) {
+                out.write(transactionId.toString());
+            }
+            out.write(',');
+            if (counterpartyId != null) {
+                out.write(counterpartyId.toString());
+            }
+            out.write(',');
+            if (amount < 0) {
+                writeMoney(-amount);
+                out.write(',');
+            } else {
+                out.write(',');
+                writeMoney(amount);
+            }
+            out.write(',');
+            writeMoney(getBalance());
+            out.write('\n');
+        }
+
+        @Override
+        protected void writeClosing(LocalDateTime end) throws IOException {
+            out.write("CLOSING,");
+            out.write(timestamp(end));
+            out.write(",,,,,");
+            writeMoney(getDebits());
+            out.write(',');
+            writeMoney(getCredits());
+            out.write(',');
+            writeMoney(getBalance());
+            out.write('\n');
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Same text as {@link Money#format}, without a {@link java.math.BigDecimal}
+         * per amount.
+         */
+        private void writeMoney(long minorUnits) throws IOException {
+            if (minorUnits < 0) {
+                out.write('-');
+            }
+            out.write(Long.toString(Math.abs(minorUnits / MINOR_PER_MAJOR)));
+            out.write('.');
+            String fraction = Long.toString(Math.abs(minorUnits % MINOR_PER_MAJOR));
+            for (int i = fraction.length(); i < Money.SCALE; i++) {
+                out.write('0');
+            }
+            out.write(fraction);
+        }
+    }
+
+    /**
+     * NDJSON lines with a <code>type</code> of <code>opening</code>, <code>entry</code>
+     * or <code>closing</code>.
+     */
+    private static final class Ndjson extends StatementWriter {
+
+        private final JsonGenerator json;
+
+        Ndjson(JsonGenerator json, long accountId, long openingBalance) {
+            super(accountId, openingBalance);
+            this.json = json;
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            // Lines are ended explicitly instead of by the default space between root values
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void writeOpening(LocalDateTime start) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", "opening");
+            json.writeNumberField("accountId", getAccountId());
+            json.writeStringField("timestamp", timestamp(start));
+            json.writeNumberField("balance", Money.toDecimal(getBalance()));
+            endLine();
+        }
+
+        @Override
+        protected void writeEntry(long entryId, LocalDateTime timestamp, String kind, Long transactionId,
+                                  Long counterpartyId, long amount) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", "entry");
+            json.writeNumberField("entryId", entryId);
+            json.writeStringField("timestamp", timestamp(timestamp));
+            json.writeStringField("kind", kind);
+            json.writeFieldName("transactionId");
+            writeNullable(transactionId);
+            json.writeFieldName("counterpartyAccountId");
+            writeNullable(counterpartyId);
+            json.writeNumberField("amount", Money.toDecimal(amount));
+            json.writeNumberField("balance", Money.toDecimal(getBalance()));
+            endLine();
+        }
+
+        @Override
+        protected void writeClosing(LocalDateTime end) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", "closing");
+            json.writeNumberField("accountId", getAccountId());
+            json.writeStringField("timestamp", timestamp(end));
+            json.writeNumberField("entries", getEntries());
+            json.writeNumberField("debits", Money.toDecimal(getDebits()));
+            json.writeNumberField("credits", Money.toDecimal(getCredits()));
+            json.writeNumberField("balance", Money.toDecimal(getBalance()));
+            endLine();
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            json.close();
+        }
+
+        private void writeNullable(Long value) throws IOException {
+            if (value == null) {
+                json.writeNull();
+            } else {
+                json.writeNumber(value);
+            }
+        }
+
+        private void endLine() throws IOException {
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.banking;
+
+import com.banking.model.Account;
+import com.banking.model.TransferRequest;
+import com.banking.service.AccountService;
+
+/**
+ * Accounts and transfer requests shared by the tests.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Returns an unsaved savings account.
+     * 
+     * @param balance opening balance in minor units
+     * @return the account, without an ID
+     */
+    public static Account account(long balance) {
+        Account account = new Account();
+        account.setAccountType("SAVINGS");
+        account.setBalance(balance);
+        return account;
+    }
+
+    /**
+     * Creates a savings account through the service, so its opening balance is
+     * also in the ledger.
+     * 
+     * @param accountService the service to create it with
+     * @param balance opening balance in minor units
+     * @return the new account's ID
+     */
+    public static long newAccount(AccountService accountService, long balance) {
+        return accountService.createAccount(account(balance)).getAccountId();
+    }
+
+    /**
+     * Returns a transfer request without an idempotency key.
+     * 
+     * @param from account to debit
+     * @param to account to credit
+     * @param amount amount in minor units
+     * @return the request
+     */
+    public static TransferRequest request(Long from, Long to, long amount) {
+        return request(from, to, amount, null);
+    }
+
+    /**
+     * Returns a transfer request.
+     * 
+     * @param from account to debit
+     * @param to account to credit
+     * @param amount amount in minor units
+     * @param idempotencyKey the client's key, or {@code null}
+     * @return the request
+     */
+    public static TransferRequest request(Long from, Long to, long amount, String idempotencyKey) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(from);
+        request.setToAccountId(to);
+        request.setAmount(amount);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+}
@@ -0,0 +1,82 @@
+package com.banking.audit;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepo;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Tests the asynchronous audit pipeline with a deliberately tiny ring buffer, so
+ * that both group commits and the synchronous fallback are exercised.
+ */
+@SpringBootTest(properties = {
+        "banking.audit.async.enabled=true",
+        "banking.audit.async.buffer-size=8",
+        "banking.audit.async.batch-size=4",
+        "banking.audit.async.max-latency=20ms"
+})
+class TransactionAuditWriterTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private TransactionAuditWriter auditWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyTransferIsEventuallyAuditedExactlyOnce() throws InterruptedException {
+        long from = newAccount(accountService, 1_000);
+        long to = newAccount(accountService, 0);
+        long before = transactionRepo.count();
+        int transfers = 300;
+        Transaction first = null;
+
+        for (int i = 0; i < transfers; i++) {
+            Transaction result = transactionService.transfer(request(from, to, 1));
+            assertEquals("SUCCESS", result.getStatus());
+            assertNotNull(result.getTransactionId(), "async records get their ID before they are saved");
+            if (i == 0) {
+                first = result;
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (transactionRepo.count() < before + transfers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        AuditStats stats = auditWriter.stats();
+        assertEquals(before + transfers, transactionRepo.count());
+        assertEquals(transfers, stats.getRecordsWritten() + stats.getFallbackWrites());
+        assertTrue(stats.getBatchesFlushed() > 0);
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(700, accountService.getAccount(from).getBalance());
+
+        // The ledger entries written before the record was saved refer to it
+        assertEquals(first.getAmount(), transactionRepo.findById(first.getTransactionId()).orElseThrow().getAmount());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_entry WHERE transaction_id = ?", Integer.class, first.getTransactionId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_entry WHERE kind = 'TRANSFER' AND transaction_id IS NULL", Integer.class));
+    }
+}
@@ -0,0 +1,182 @@
+package com.banking.bulk;
+
+import static com.banking.TestFixtures.account;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.banking.cache.CustomerAccountsCache;
+import com.banking.config.IdBlockAllocator;
+import com.banking.model.Account;
+import com.banking.model.AccountImport;
+import com.banking.model.AccountImportResult;
+import com.banking.model.IdGenerators;
+import com.banking.repository.AccountImportChunkRepo;
+import com.banking.repository.AccountImportRepo;
+import com.banking.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests that bulk imports validate their records, commit them chunk by chunk with
+ * opening ledger entries, and resume after a failure without creating duplicates.
+ */
+@SpringBootTest
+class AccountImporterTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountImportRepo importRepo;
+
+    @Autowired
+    private AccountImportChunkRepo chunkRepo;
+
+    @Autowired
+    private IdBlockAllocator idBlocks;
+
+    @Autowired
+    private CustomerAccountsCache customerAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void csvImportValidatesAndCommitsInChunks() {
+        String csv = "balance, AccountType ,customerId,branch\n"
+                + "10.50,savings,7100001,north\n"
+                + "\n"
+                + ",current ,7100002,south\n"
+                + "1.005,SAVINGS,7100003,north\n"   // too many decimals
+                + "5.00,,7100004,north\n"           // no type
+                + "5.00,WALLET,-4,north\n"          // bad customer
+                + "2,wallet,7100005,east\n"
+                + "3,SAVINGS,7100006\n"             // missing column
+                + "7,savings,7100007,west\n";
+        AccountImporter importer = importer(2, 3);
+        // Leaves Hibernate in the middle of a block of account IDs
+        accountService.createAccount(account(0));
+
+        AccountImportResult result = importer.importAccounts("csv-1", ImportFormat.CSV, input(csv));
+
+        assertEquals(AccountImport.COMPLETED, result.getStatus());
+        assertEquals(3, result.getChunks());
+        assertEquals(4, result.getAccepted());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of(
+                "record 3: balance must have at most 2 decimal places",
+                "record 4: accountType is required",
+                "record 5: customerId must be positive",
+                "record 7: expected 4 columns but found 3"), result.getErrors());
+
+        Map<String, Object> first = jdbcTemplate.queryForMap(
+                "SELECT account_id, account_type, balance, status FROM bank_details WHERE customer_id = 7100001");
+        assertEquals("SAVINGS", first.get("account_type"));
+        assertEquals("ACTIVE", first.get("status"));
+        long accountId = ((Number) first.get("account_id")).longValue();
+        assertEquals(1050, accountService.getAccount(accountId).getBalance());
+        assertEquals(1050, accountService.getBalanceAt(accountId, LocalDateTime.now()).getBalance());
+        assertEquals(0, accountService.getAccount(customerAccount(7100002)).getBalance());
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entry e JOIN bank_details a"
+                + " ON a.account_id = e.account_id WHERE a.customer_id BETWEEN 7100001 AND 7100007"
+                + " AND e.kind = 'OPENING'", Integer.class));
+
+        // Hibernate finishes its block and reads the next one; neither may hit a reserved ID
+        for (int i = 0; i < 2 * IdGenerators.ALLOCATION_SIZE; i++) {
+            assertNotNull(accountService.createAccount(account(0)));
+        }
+    }
+
+    @Test
+    void jsonImportIgnoresUnknownProperties() {
+        String json = "[{\"customerId\": 7200001, \"accountType\": \"Wallet\", \"balance\": 99.99,"
+                + " \"tags\": [\"vip\"], \"address\": {\"city\": \"Pune\"}},"
+                + " {\"customerId\": \"7200002\", \"accountType\": \"current\"},"
+                + " {\"customerId\": null, \"accountType\": \"current\"}]";
+
+        AccountImportResult result = importer(4, 100).importAccounts("json-1", ImportFormat.JSON, input(json));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(List.of("record 3: customerId is required"), result.getErrors());
+        Account wallet = accountService.getAccount(customerAccount(7200001));
+        assertEquals("WALLET", wallet.getAccountType());
+        assertEquals(9999, wallet.getBalance());
+    }
+
+    @Test
+    void failedImportResumesAfterLastCommittedChunk() {
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            records.append(i == 0 ? "" : ",").append("{\"customerId\": ").append(7300000 + i)
+                    .append(", \"accountType\": \"SAVINGS\", \"balance\": \"").append(i).append(".00\"}");
+        }
+        String full = "[" + records + "]";
+        // Cut off in the middle of the 38th record
+        String truncated = full.substring(0, full.indexOf("7300037") + 4);
+        AccountImporter importer = importer(3, 10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importAccounts("resume-1", ImportFormat.JSON, input(truncated)));
+        AccountImportResult progress = importer.getProgress("resume-1");
+        assertEquals(AccountImport.FAILED, progress.getStatus());
+        assertEquals(3, progress.getChunks());
+        assertEquals(30, progress.getAccepted());
+        assertThrows(IllegalStateException.class,
+                () -> importer.importAccounts("resume-1", ImportFormat.CSV, input("customerId,accountType\n")));
+
+        AccountImportResult resumed = importer.importAccounts("resume-1", ImportFormat.JSON, input(full));
+        assertEquals(AccountImport.COMPLETED, resumed.getStatus());
+        assertEquals(3, resumed.getSkippedChunks());
+        assertEquals(5, resumed.getChunks());
+        assertEquals(50, resumed.getAccepted());
+        assertEquals(50, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bank_details WHERE customer_id BETWEEN 7300000 AND 7300049", Integer.class));
+        assertEquals(1225_00, jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) * 100 FROM bank_details WHERE customer_id BETWEEN 7300000 AND 7300049",
+                Long.class));
+
+        // A completed import is answered from its chunks without reading the body
+        InputStream unread = new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public int read(byte[] b, int off, int len) {
+                throw new AssertionError("body was read");
+            }
+        };
+        assertEquals(50, importer.importAccounts("resume-1", ImportFormat.JSON, unread).getAccepted());
+        assertTrue(chunkRepo.findChunkNos("resume-1").containsAll(List.of(0, 1, 2, 3, 4)));
+    }
+
+    private AccountImporter importer(int threads, int chunkSize) {
+        return new AccountImporter(jdbcTemplate, importRepo, chunkRepo, idBlocks, customerAccounts,
+                objectMapper, transactionManager, threads, chunkSize);
+    }
+
+    private long customerAccount(long customerId) {
+        return jdbcTemplate.queryForObject("SELECT account_id FROM bank_details WHERE customer_id = ?",
+                Long.class, customerId);
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
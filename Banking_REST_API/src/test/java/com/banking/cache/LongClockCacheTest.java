@@ -0,0 +1,106 @@
+package com.banking.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link LongClockCache}.
+ */
+class LongClockCacheTest {
+
+    @Test
+    void behavesLikeAMapWhileUnderCapacity() {
+        LongClockCache<String> cache = new LongClockCache<>(10_000, 4);
+        Map<Long, String> model = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    cache.put(key, "v" + i);
+                    model.put(key, "v" + i);
+                }
+                case 1 -> {
+                    cache.putIfAbsent(key, "p" + i);
+                    model.putIfAbsent(key, "p" + i);
+                }
+                case 2 -> {
+                    cache.invalidate(key);
+                    model.remove(key);
+                }
+                default -> assertEquals(model.get(key), cache.get(key));
+            }
+        }
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(model.get(key), cache.get(key));
+        }
+        assertEquals(model.size(), cache.stats().getSize());
+    }
+
+    @Test
+    void evictsWhenFullAndCountsIt() {
+        LongClockCache<Long> cache = new LongClockCache<>(100, 1);
+        for (long key = 0; key < 1_000; key++) {
+            cache.put(key, key);
+        }
+
+        CacheStats stats = cache.stats();
+        assertEquals(100, stats.getSize());
+        assertEquals(900, stats.getEvictions());
+        for (long key = 900; key < 1_000; key++) {
+            assertEquals(key, cache.get(key));
+        }
+    }
+
+    @Test
+    void recentlyReadEntriesGetASecondChance() {
+        LongClockCache<Long> cache = new LongClockCache<>(4, 1);
+        for (long key = 1; key <= 4; key++) {
+            cache.put(key, key);
+        }
+        cache.get(1);
+
+        cache.put(5, 5L);
+
+        assertEquals(1L, cache.get(1));
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        LongClockCache<String> cache = new LongClockCache<>(16, 2);
+        cache.put(7, "seven");
+        cache.get(7);
+        cache.get(7);
+        cache.get(8);
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertTrue(stats.getHitRate() > 0.6);
+    }
+
+    @Test
+    void peekIsNeitherCountedNorMarkedAsUsed() {
+        LongClockCache<Long> cache = new LongClockCache<>(4, 1);
+        for (long key = 1; key <= 4; key++) {
+            cache.put(key, key);
+        }
+        assertEquals(1L, cache.peek(1));
+        assertNull(cache.peek(9));
+
+        cache.put(5, 5L);
+
+        assertNull(cache.peek(1));
+        assertEquals(0, cache.stats().getHits());
+        assertEquals(0, cache.stats().getMisses());
+    }
+}
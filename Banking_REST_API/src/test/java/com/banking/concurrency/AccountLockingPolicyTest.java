@@ -0,0 +1,206 @@
+package com.banking.concurrency;
+
+import static com.banking.TestFixtures.newAccount;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.concurrency.AccountLockingPolicy.Mode;
+import com.banking.concurrency.AccountLockingPolicy.Operation;
+import com.banking.model.Account;
+import com.banking.money.Money;
+import com.banking.repository.AccountRepo;
+import com.banking.service.AccountService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests that account versions stop lost updates between writers that do not share
+ * the lock stripes, as in separate instances, and that the optimistic and the
+ * pessimistic mode both keep every update of one contended account.
+ */
+@SpringBootTest
+class AccountLockingPolicyTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 50;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void staleEntityIsNotSavedOverANativeUpdate() throws Exception {
+        long id = newAccount(accountService, 100);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch debited = new CountDownLatch(1);
+
+        ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> debit = otherInstance.submit(() -> {
+                read.await();
+                transactionTemplate.executeWithoutResult(
+                        status -> accountRepo.debit(id, Money.toDecimal(30)));
+                debited.countDown();
+                return null;
+            });
+            assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(
+                    status -> {
+                        Account account = accountRepo.findById(id).orElseThrow();
+                        read.countDown();
+                        await(debited);
+                        account.setBalance(account.getBalance() + 5);
+                    }));
+            debit.get(10, TimeUnit.SECONDS);
+        } finally {
+            otherInstance.shutdown();
+        }
+        assertEquals(70, accountRepo.findById(id).orElseThrow().getBalance());
+    }
+
+    @Test
+    void depositsRacingNativeDebitsLoseNothing() throws Exception {
+        long id = newAccount(accountService, 1_000_000);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AtomicInteger deposits = new AtomicInteger();
+        AtomicInteger gaveUp = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                boolean depositor = t % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        if (depositor) {
+                            try {
+                                accountService.updateBalance(id, 3);
+                                deposits.incrementAndGet();
+                            } catch (ConcurrencyFailureException e) {
+                                // Out of attempts: rolled back, nothing deposited
+                                gaveUp.incrementAndGet();
+                            }
+                        } else {
+                            // A transfer in another instance: no stripe, just the conditional UPDATE
+                            transactionTemplate.executeWithoutResult(
+                                    status -> accountRepo.debit(id, new BigDecimal("0.01")));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long debits = (long) THREADS / 2 * UPDATES_PER_THREAD;
+        assertEquals(debits, deposits.get() + gaveUp.get());
+        assertEquals(1_000_000 + 3L * deposits.get() - debits, accountRepo.findById(id).orElseThrow().getBalance());
+    }
+
+    @Test
+    void retriesAreBoundedAndCounted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AccountLockingPolicy policy = new AccountLockingPolicy(Mode.OPTIMISTIC, 3, Duration.ofMillis(1),
+                Duration.ofMillis(4), registry);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("done", policy.retry(Operation.ACCOUNT_UPDATE, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+            }
+            return "done";
+        }));
+        assertThrows(OptimisticLockingFailureException.class, () -> policy.retry(Operation.TRANSFER_BATCH, () -> {
+            throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+        }));
+
+        assertEquals(2, registry.counter("banking.account.retries", "operation", "account_update").count());
+        assertEquals(5, registry.counter("banking.account.conflicts", "operation", "account_update",
+                "lock", "optimistic").count()
+                + registry.counter("banking.account.conflicts", "operation", "transfer_batch",
+                        "lock", "optimistic").count());
+        assertEquals(1, registry.counter("banking.account.retries.exhausted", "operation", "transfer_batch")
+                .count());
+    }
+
+    @Test
+    void optimisticAndPessimisticKeepEveryUpdateOfAHotAccount() throws Exception {
+        for (Mode mode : Mode.values()) {
+            long id = newAccount(accountService, 0);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            AccountLockingPolicy policy = new AccountLockingPolicy(mode, 100, Duration.ofMillis(1),
+                    Duration.ofMillis(20), registry);
+
+            contendedIncrements(id, policy);
+
+            assertEquals(THREADS * UPDATES_PER_THREAD, accountRepo.findById(id).orElseThrow().getBalance(),
+                    mode.toString());
+        }
+    }
+
+    /**
+     * Increments a balance from several threads, each acting like its own instance:
+     * read, add one and save in one transaction, without the lock stripes. Their
+     * throughput is compared by <code>AccountLockingBenchmark</code>.
+     */
+    private void contendedIncrements(long id, AccountLockingPolicy policy) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        policy.retry(Operation.ACCOUNT_UPDATE, () -> transactionTemplate.execute(status -> {
+                            Account account = (policy.isPessimistic()
+                                    ? accountRepo.findByIdForUpdate(id) : accountRepo.findById(id)).orElseThrow();
+                            account.setBalance(account.getBalance() + 1);
+                            return account;
+                        }));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
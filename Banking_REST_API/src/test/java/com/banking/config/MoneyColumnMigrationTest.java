@@ -0,0 +1,72 @@
+package com.banking.config;
+
+import static com.banking.TestFixtures.account;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.banking.model.Transaction;
+import com.banking.repository.AccountRepo;
+import com.banking.repository.TransactionRepo;
+
+/**
+ * Tests that rows written while the money columns were <code>DOUBLE</code> load,
+ * and are converted, as the nearest cent.
+ */
+@SpringBootTest
+class MoneyColumnMigrationTest {
+
+    @Autowired
+    private MoneyColumnMigration migration;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void driftedDoubleRowsLoadAndAreMigratedToCents() {
+        long accountId = accountRepo.save(account(0)).getAccountId();
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(accountId);
+        transaction.setToAccountId(accountId + 1);
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setStatus("SUCCESS");
+        long transactionId = transactionRepo.save(transaction).getTransactionId();
+
+        // The columns as they were before money became exact, with typical drift
+        jdbcTemplate.execute("ALTER TABLE bank_details MODIFY balance DOUBLE NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE transaction MODIFY amount DOUBLE NOT NULL");
+        try {
+            jdbcTemplate.update("UPDATE bank_details SET balance = CAST(0.1 AS DOUBLE) + CAST(0.2 AS DOUBLE)"
+                    + " WHERE account_id = ?", accountId);
+            jdbcTemplate.update("UPDATE transaction SET amount = CAST(1.005 AS DOUBLE)"
+                    + " WHERE transaction_id = ?", transactionId);
+
+            assertEquals(30, accountRepo.findById(accountId).orElseThrow().getBalance());
+            assertEquals(101, transactionRepo.findById(transactionId).orElseThrow().getAmount());
+        } finally {
+            assertTrue(migration.migrate("bank_details", "balance"));
+            assertTrue(migration.migrate("transaction", "amount"));
+        }
+
+        assertEquals(new BigDecimal("0.30"), jdbcTemplate.queryForObject(
+                "SELECT balance FROM bank_details WHERE account_id = ?", BigDecimal.class, accountId));
+        assertEquals(new BigDecimal("1.01"), jdbcTemplate.queryForObject(
+                "SELECT amount FROM transaction WHERE transaction_id = ?", BigDecimal.class, transactionId));
+        assertFalse(migration.migrate("bank_details", "balance"));
+        assertFalse(migration.migrate("transaction", "amount"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.banking.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link IdempotencyStore}.
+ */
+class IdempotencyStoreTest {
+
+    @Test
+    void remembersKeysAcrossGrowth() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1));
+        int keys = 200_000;
+        for (int i = 0; i < keys; i++) {
+            store.remember("key-" + i, i);
+        }
+
+        for (int i = 0; i < keys; i++) {
+            assertEquals(i, store.lookup("key-" + i));
+        }
+        assertEquals(IdempotencyStore.ABSENT, store.lookup("key-" + keys));
+        assertEquals(keys, store.size());
+    }
+
+    @Test
+    void rememberingAKeyAgainReplacesItsTransaction() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1));
+        store.remember("retry", 1);
+        store.remember("retry", 2);
+
+        assertEquals(2, store.lookup("retry"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void expiredKeysAreAbsentAndDroppedOnRebuild() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ZERO);
+        for (int i = 0; i < 100_000; i++) {
+            store.remember("key-" + i, i);
+        }
+
+        assertEquals(IdempotencyStore.ABSENT, store.lookup("key-0"));
+        // Rebuilds dropped the expired entries instead of growing the tables
+        assertEquals(true, store.size() < 100_000);
+    }
+}
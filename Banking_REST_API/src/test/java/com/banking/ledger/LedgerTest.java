@@ -0,0 +1,127 @@
+package com.banking.ledger;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.model.LedgerBalance;
+import com.banking.model.Transaction;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Tests that point-in-time balances rebuilt from the ledger match the balances
+ * the accounts actually had.
+ */
+@SpringBootTest
+class LedgerTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerSnapshotter snapshotter;
+
+    @Autowired
+    private Ledger ledger;
+
+    @Test
+    void balanceAtAnyTimeIsSnapshotPlusTail() throws Exception {
+        LocalDateTime beforeCreation = tick();
+        long a = newAccount(accountService, 1_000);
+        long b = newAccount(accountService, 0);
+
+        transactionService.transfer(request(a, b, 300));
+        accountService.updateBalance(a, 50);
+        transactionService.transfer(request(a, b, 2_000)); // fails, no entries
+        LocalDateTime first = tick();
+
+        transactionService.transfer(request(b, a, 100));
+        LocalDateTime second = tick();
+
+        snapshotter.takeSnapshot(second);
+        transactionService.transfer(request(a, b, 25));
+        accountService.updateBalance(b, -5);
+        LocalDateTime third = tick();
+
+        assertEquals(0, accountService.getBalanceAt(a, beforeCreation).getBalance());
+        assertEquals(750, accountService.getBalanceAt(a, first).getBalance());
+        assertEquals(300, accountService.getBalanceAt(b, first).getBalance());
+        assertEquals(850, accountService.getBalanceAt(a, second).getBalance());
+
+        LedgerBalance now = accountService.getBalanceAt(a, third);
+        assertEquals(accountService.getAccount(a).getBalance(), now.getBalance());
+        assertEquals(second, now.getSnapshotAsOf());
+        assertEquals(1, now.getReplayedEntries());
+        assertEquals(accountService.getAccount(b).getBalance(), accountService.getBalanceAt(b, third).getBalance());
+    }
+
+    @Test
+    void laterSnapshotsBuildOnEarlierOnes() throws Exception {
+        long a = newAccount(accountService, 500);
+        long b = newAccount(accountService, 500);
+        for (int round = 0; round < 3; round++) {
+            transactionService.transfer(request(a, b, 10));
+            transactionService.transfer(request(b, a, 1));
+            snapshotter.takeSnapshot(tick());
+        }
+        LocalDateTime end = tick();
+
+        LedgerBalance balance = accountService.getBalanceAt(a, end);
+        assertEquals(500 - 3 * 9, balance.getBalance());
+        assertEquals(0, balance.getReplayedEntries());
+        assertEquals(500 + 3 * 9, accountService.getBalanceAt(b, end).getBalance());
+    }
+
+    @Test
+    void accountWithoutSnapshotReplaysItsWholeHistory() throws Exception {
+        long a = newAccount(accountService, 70);
+        LedgerBalance balance = accountService.getBalanceAt(a, tick());
+
+        assertEquals(70, balance.getBalance());
+        assertEquals(1, balance.getReplayedEntries());
+        assertNull(accountService.getBalanceAt(Long.MAX_VALUE, LocalDateTime.of(2000, 1, 1, 0, 0)).getSnapshotAsOf());
+    }
+
+    @Test
+    void transferWrittenAfterACutIsNotLostBehindIt() throws Exception {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+        // Requested before the cut, but only written after it, as after a long lock wait
+        Transaction late = new Transaction();
+        late.setFromAccountId(a);
+        late.setToAccountId(b);
+        late.setAmount(40);
+        late.setTimestamp(tick());
+        late.setStatus("SUCCESS");
+        snapshotter.takeSnapshot(tick());
+
+        ledger.recordTransfer(late);
+        LocalDateTime end = tick();
+
+        assertEquals(60, accountService.getBalanceAt(a, end).getBalance());
+        assertEquals(40, accountService.getBalanceAt(b, end).getBalance());
+    }
+
+    /**
+     * Returns the current time, making sure it differs from the timestamps of the
+     * ledger entries written just before and just after.
+     */
+    private static LocalDateTime tick() throws InterruptedException {
+        Thread.sleep(2);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(2);
+        return now;
+    }
+}
@@ -0,0 +1,147 @@
+package com.banking.listing;
+
+import static com.banking.TestFixtures.account;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.banking.model.Account;
+import com.banking.model.AccountPage;
+import com.banking.model.TransferRequest;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests that account listings page, filter and project correctly, and that the
+ * stream matches the pages.
+ */
+@SpringBootTest
+class AccountListingTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysetAndOffsetPagesCoverTheSameAccounts() {
+        String type = "LISTING_PAGES";
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ids.add(newAccount(type, 100 + i));
+        }
+        // New accounts are always ACTIVE
+        jdbcTemplate.update("UPDATE bank_details SET status = 'CLOSED'"
+                + " WHERE account_type = ? AND MOD(account_id, 2) = 1", type);
+        long active = ids.stream().filter(id -> id % 2 == 0).count();
+        Set<AccountField> fields = AccountField.parse(null);
+
+        List<Long> keyset = new ArrayList<>();
+        Long afterId = null;
+        AccountPage page;
+        do {
+            page = accountService.getAccountPage(fields, null, type, null, afterId, 10);
+            page.getItems().forEach(item -> keyset.add(item.accountId()));
+            afterId = page.getNextAfterId();
+        } while (page.isHasMore());
+        assertEquals(ids, keyset);
+
+        List<Long> offset = new ArrayList<>();
+        for (int number = 0; number < 3; number++) {
+            page = accountService.getAccountPage(fields, null, type, number, null, 10);
+            assertEquals(number, page.getPage());
+            assertEquals(number < 2, page.isHasMore());
+            page.getItems().forEach(item -> offset.add(item.accountId()));
+        }
+        assertEquals(ids, offset);
+
+        AccountPage activePage = accountService.getAccountPage(fields, "ACTIVE", type, null, null, 100);
+        assertEquals(active, activePage.getItems().size());
+        assertTrue(activePage.getItems().stream().allMatch(item -> "ACTIVE".equals(item.status())));
+        assertFalse(activePage.isHasMore());
+
+        AccountPage empty = accountService.getAccountPage(fields, null, "LISTING_NONE", null, null, 10);
+        assertTrue(empty.getItems().isEmpty());
+        assertNull(empty.getNextAfterId());
+    }
+
+    @Test
+    void projectionSelectsOnlyRequestedFields() {
+        String type = "LISTING_FIELDS";
+        long plain = newAccount(type, 1_000);
+        long hot = newAccount(type, 0);
+        accountService.setBalanceShards(hot, 4);
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(plain);
+        request.setToAccountId(hot);
+        request.setAmount(250);
+        transactionService.transfer(request);
+
+        AccountPage page = accountService.getAccountPage(AccountField.parse("balance, customerId"), null, type,
+                null, null, 10);
+        assertEquals(2, page.getItems().size());
+        JsonNode first = objectMapper.valueToTree(page.getItems().get(0));
+        assertEquals(List.of("accountId", "customerId", "balance"), List.copyOf(first.properties().stream()
+                .map(Map.Entry::getKey).toList()));
+        assertEquals(0, new BigDecimal("7.50").compareTo(first.get("balance").decimalValue()));
+        // Credits held in the shards count too
+        assertEquals(250L, page.getItems().get(1).balance());
+
+        assertThrows(IllegalArgumentException.class, () -> AccountField.parse("balance,password"));
+        assertThrows(IllegalArgumentException.class,
+                () -> accountService.getAccountPage(AccountField.parse(null), null, type, 0, plain, 10));
+    }
+
+    @Test
+    void streamWritesOneLinePerAccount() throws Exception {
+        String type = "LISTING_STREAM";
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(newAccount(type, i));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = accountService.streamAccounts(AccountField.parse("status"), null, type, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(30, written);
+        assertEquals(30, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode line = objectMapper.readTree(lines.get(i));
+            assertEquals(ids.get(i), line.get("accountId").asLong());
+            assertEquals("ACTIVE", line.get("status").asText());
+            assertEquals(2, line.size());
+        }
+    }
+
+    private long newAccount(String type, long balance) {
+        Account account = account(balance);
+        account.setCustomerId(7L);
+        account.setAccountType(type);
+        return accountService.createAccount(account).getAccountId();
+    }
+}
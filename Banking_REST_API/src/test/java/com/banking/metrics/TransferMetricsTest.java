@@ -0,0 +1,113 @@
+package com.banking.metrics;
+
+import static com.banking.TestFixtures.newAccount;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.banking.model.Account;
+import com.banking.service.AccountService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tests that transfers, repository calls and HTTP requests are instrumented and
+ * exported in Prometheus format.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class TransferMetricsTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcStatementCounter statementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transfersAreTimedByStepAndCountedByReason() throws Exception {
+        long a = newAccount(accountService, 10_000);
+        long b = newAccount(accountService, 0);
+        double succeeded = transferTimer("SUCCESS", "completed").count();
+        double rejected = transferTimer("FAILED", "insufficient_funds").count();
+        double debits = registry.get("banking.transfer.step").tag("step", "debit").timer().count();
+
+        transfer(a, b, "10.00");
+        transfer(a, b, "500.00");
+
+        assertEquals(succeeded + 1, transferTimer("SUCCESS", "completed").count());
+        assertEquals(rejected + 1, transferTimer("FAILED", "insufficient_funds").count());
+        assertEquals(debits + 2, registry.get("banking.transfer.step").tag("step", "debit").timer().count());
+        assertTrue(registry.get("spring.data.repository.invocations")
+                .tag("repository", "AccountRepo").tag("method", "findById").timer().count() > 0);
+
+        // Debit, credit, audit insert, ledger batch and the rollup upserts from JdbcTemplate
+        DistributionSummary statements = registry.get("banking.http.jdbc.statements")
+                .tag("uri", "/transactions/transfer").summary();
+        assertTrue(statements.count() >= 2);
+        assertTrue(statements.max() >= 5, "max statements " + statements.max());
+    }
+
+    @Test
+    void statementsAreCountedAtTheJdbcLayer() {
+        statementCounter.reset();
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bank_details", Long.class);
+        assertEquals(1, statementCounter.current());
+
+        // One statement sent as three batches is three round-trips
+        statementCounter.reset();
+        jdbcTemplate.batchUpdate("UPDATE bank_details SET balance = balance WHERE account_id = ?",
+                List.of(-1L, -2L, -3L), 1, (ps, id) -> ps.setLong(1, id));
+        assertEquals(3, statementCounter.current());
+    }
+
+    @Test
+    void prometheusEndpointPublishesHistogramBuckets() throws Exception {
+        transfer(newAccount(accountService, 100), newAccount(accountService, 0), "1.00");
+
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("banking_transfer_seconds_bucket{"));
+        assertTrue(body.contains("banking_transfer_step_seconds_bucket{"));
+        assertTrue(body.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(body.contains("banking_http_jdbc_statements_bucket{"));
+    }
+
+    private Timer transferTimer(String outcome, String reason) {
+        return registry.get("banking.transfer").tag("outcome", outcome).tag("reason", reason).timer();
+    }
+
+    private void transfer(long from, long to, String amount) throws Exception {
+        mockMvc.perform(post("/transactions/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromAccountId\":" + from + ",\"toAccountId\":" + to + ",\"amount\":" + amount + "}"))
+                .andExpect(status().isOk());
+    }
+}
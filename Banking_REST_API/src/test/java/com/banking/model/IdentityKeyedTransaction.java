@@ -0,0 +1,48 @@
+package com.banking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Test-only copy of {@link Transaction} that keeps the old
+ * <code>GenerationType.IDENTITY</code> key, used as the "before" side of
+ * {@link TransactionIdGenerationTest}.
+ */
+@Entity
+@Table(name = "Identity_Keyed_Transaction")
+public class IdentityKeyedTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long transactionId;
+
+    private Long fromAccountId;
+
+    private Long toAccountId;
+
+    private long amount;
+
+    private LocalDateTime timestamp;
+
+    private String status;
+
+    public IdentityKeyedTransaction() {
+    }
+
+    public IdentityKeyedTransaction(Long fromAccountId, Long toAccountId, long amount) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+        this.timestamp = LocalDateTime.now();
+        this.status = "SUCCESS";
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+}
@@ -0,0 +1,110 @@
+package com.banking.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.repository.TransactionRepo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Before/after insert benchmark for the pooled {@link IdGenerators} keys.
+ * 
+ * <p>Inserts the same number of rows keyed by <code>IDENTITY</code> and by the pooled
+ * table generator, and compares JDBC statement counts and throughput. Statement
+ * counts are the reliable signal here; throughput against in-memory H2 understates
+ * the gain over a network round-trip to MySQL.</p>
+ */
+@SpringBootTest
+class TransactionIdGenerationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIdGenerationTest.class);
+
+    private static final int ROWS = 2_000;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Test
+    void pooledKeysAreUniqueAndAllocatedInBlocks() {
+        List<Transaction> saved = transactionRepo.saveAll(
+                LongStream.range(0, 120).mapToObj(this::pooled).toList());
+
+        Set<Long> ids = new HashSet<>();
+        saved.forEach(t -> ids.add(t.getTransactionId()));
+        assertEquals(saved.size(), ids.size());
+    }
+
+    @Test
+    void pooledKeysBatchInsertsThatIdentityCannot() {
+        insert(this::identity);   // warm-up
+        insert(this::pooled);
+
+        long[] identity = insert(this::identity);
+        long[] pooled = insert(this::pooled);
+
+        log.info("{} inserts with IDENTITY keys: {} prepared statements, {} rows/s", ROWS, identity[0], identity[1]);
+        log.info("{} inserts with pooled keys:   {} prepared statements, {} rows/s", ROWS, pooled[0], pooled[1]);
+        assertTrue(identity[0] >= ROWS, "IDENTITY should need one statement per row");
+        assertTrue(pooled[0] * 10 < identity[0], "pooled keys should batch inserts");
+    }
+
+    /**
+     * Persists {@link #ROWS} entities in one transaction.
+     * 
+     * @return JDBC statements prepared by the session and rows per second
+     */
+    private long[] insert(LongFunction<Object> factory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (long i = 0; i < ROWS; i++) {
+                entityManager.persist(factory.apply(i));
+            }
+        });
+        long nanos = System.nanoTime() - start;
+        return new long[] { statistics.getPrepareStatementCount(), ROWS * 1_000_000_000L / Math.max(1, nanos) };
+    }
+
+    private Transaction pooled(long i) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(i);
+        transaction.setToAccountId(i + 1);
+        transaction.setAmount(1);
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setStatus("SUCCESS");
+        return transaction;
+    }
+
+    private IdentityKeyedTransaction identity(long i) {
+        return new IdentityKeyedTransaction(i, i + 1, 1);
+    }
+}
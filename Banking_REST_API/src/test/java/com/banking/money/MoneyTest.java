@@ -0,0 +1,89 @@
+package com.banking.money;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.banking.model.Account;
+import com.banking.model.TransferRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+/**
+ * Unit tests for {@link Money}, {@link MoneyConverter} and {@link MoneyJson}.
+ */
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void repeatedAdditionDoesNotDrift() {
+        long balance = 0;
+        for (int i = 0; i < 10; i++) {
+            balance = Money.add(balance, Money.parse("0.10"));
+        }
+        assertEquals("1.00", Money.format(balance));
+    }
+
+    @Test
+    void arithmeticIsChecked() {
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.parse("0.001"));
+    }
+
+    @Test
+    void converterRoundTripsDecimalColumns() {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("-12.34"), converter.convertToDatabaseColumn(-1234L));
+        assertEquals(1234L, converter.convertToEntityAttribute(new BigDecimal("12.34")));
+        assertEquals(1200L, converter.convertToEntityAttribute(new BigDecimal("12.0000")));
+        // Legacy DOUBLE drift is read as the nearest cent
+        assertEquals(30L, converter.convertToEntityAttribute(new BigDecimal("0.30000000000000004")));
+        assertEquals(-101L, converter.convertToEntityAttribute(new BigDecimal("-1.005")));
+    }
+
+    @Test
+    void jsonUsesDecimalAmounts() throws Exception {
+        Account account = objectMapper.readValue("{\"balance\": 5000.25}", Account.class);
+        assertEquals(500_025L, account.getBalance());
+        assertTrue(objectMapper.writeValueAsString(account).contains("\"balance\":5000.25"));
+
+        TransferRequest request = objectMapper.readValue("{\"amount\": \"0.30\"}", TransferRequest.class);
+        assertEquals(30L, request.getAmount());
+
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"amount\": 0.001}", TransferRequest.class));
+    }
+
+    @Test
+    void arithmeticHotPathDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] balances = { 1_000_000, 1_000_000 };
+
+        transferLoop(balances, 10_000);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        transferLoop(balances, 1_000_000);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // A single boxed value per transfer would be megabytes
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    private static void transferLoop(long[] balances, int transfers) {
+        for (int i = 0; i < transfers; i++) {
+            int from = i & 1;
+            if (balances[from] >= 7) {
+                balances[from] = Money.subtract(balances[from], 7);
+                balances[from ^ 1] = Money.add(balances[from ^ 1], 7);
+            }
+        }
+    }
+}
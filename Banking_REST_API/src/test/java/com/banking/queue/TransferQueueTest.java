@@ -0,0 +1,153 @@
+package com.banking.queue;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.config.IdBlockAllocator;
+import com.banking.model.Transaction;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Tests that queued transfers are accepted as PENDING, applied in order per source
+ * account and stored under the ID they were accepted with.
+ */
+@SpringBootTest(properties = "banking.transfer.queue.enabled=true")
+class TransferQueueTest {
+
+    @Autowired
+    private TransferQueue transferQueue;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdBlockAllocator idBlocks;
+
+    @Test
+    void transfersFromOneAccountAreAppliedInOrder() throws Exception {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+
+        Transaction first = transferQueue.submit(request(a, b, 100, null));
+        Transaction second = transferQueue.submit(request(a, b, 1, null));
+        assertEquals("PENDING", first.getStatus());
+        assertNotNull(first.getTransactionId());
+
+        assertEquals("SUCCESS", outcome(first).getStatus());
+        assertEquals("FAILED", outcome(second).getStatus());
+        assertEquals("SUCCESS", transactionService.getTransationById(first.getTransactionId()).getStatus());
+        assertEquals(0, accountService.getAccount(a).getBalance());
+        assertEquals(100, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void repeatedKeyReturnsTheSameTransaction() throws Exception {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+
+        Transaction first = transferQueue.submit(request(a, b, 10, "queued-key-1"));
+        Transaction again = transferQueue.submit(request(a, b, 10, "queued-key-1"));
+        assertEquals(first.getTransactionId(), again.getTransactionId());
+        outcome(first);
+
+        Transaction replay = transferQueue.submit(request(a, b, 10, "queued-key-1"));
+        assertEquals(first.getTransactionId(), replay.getTransactionId());
+        assertEquals("SUCCESS", replay.getStatus());
+        assertEquals(90, accountService.getAccount(a).getBalance());
+    }
+
+    @Test
+    void concurrentTransfersKeepTheTotal() throws Exception {
+        int accounts = 6;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            ids.add(newAccount(accountService, 1_000));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Transaction>> submitted = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            long from = ids.get(i % accounts);
+            long to = ids.get((i * 7 + 1) % accounts);
+            long amount = 1 + i % 50;
+            submitted.add(pool.submit(() -> transferQueue.submit(request(from, to, amount, null))));
+        }
+        pool.shutdown();
+        for (Future<Transaction> future : submitted) {
+            outcome(future.get(30, TimeUnit.SECONDS));
+        }
+
+        long total = 0;
+        for (long id : ids) {
+            total += accountService.getAccount(id).getBalance();
+        }
+        assertEquals(accounts * 1_000L, total);
+        assertEquals(0, transferQueue.stats().getQueueDepth());
+    }
+
+    @Test
+    void transferThatKeepsFailingIsRecordedAsFailed() throws Exception {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+        AtomicInteger tries = new AtomicInteger();
+        // Fails every time for a reason other than its data, like a poison transfer
+        TransactionService poisoned = new TransactionService(null, null, null, null, null, null, null, null,
+                null, null, null, null) {
+            @Override
+            public List<Transaction> transferAccepted(List<Transaction> transfers) {
+                tries.incrementAndGet();
+                throw new IllegalStateException("poison");
+            }
+
+            @Override
+            public Transaction failAccepted(Transaction transfer) {
+                return transactionService.failAccepted(transfer);
+            }
+        };
+        TransferQueue queue = new TransferQueue(poisoned, idBlocks, true, 1, 10, 10, Duration.ofMillis(1), 3, false);
+        queue.start();
+        Transaction pending;
+        Transaction failed;
+        try {
+            pending = queue.submit(request(a, b, 10, null));
+            failed = queue.await(pending.getTransactionId()).get(30, TimeUnit.SECONDS);
+        } finally {
+            queue.stop();
+        }
+
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals(pending.getTransactionId(), failed.getTransactionId());
+        // The batch of one, then three tries on its own
+        assertEquals(4, tries.get());
+        assertEquals("FAILED", transactionService.getTransationById(pending.getTransactionId()).getStatus());
+        assertEquals(100, accountService.getAccount(a).getBalance());
+    }
+
+    private Transaction outcome(Transaction pending) throws Exception {
+        CompletableFuture<Transaction> outcome = transferQueue.await(pending.getTransactionId());
+        if (outcome == null) {
+            // Already applied
+            return transactionService.getTransationById(pending.getTransactionId());
+        }
+        return outcome.get(30, TimeUnit.SECONDS);
+    }
+}
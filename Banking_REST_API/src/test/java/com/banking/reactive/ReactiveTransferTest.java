@@ -0,0 +1,169 @@
+package com.banking.reactive;
+
+import static com.banking.TestFixtures.account;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.banking.model.AccountTotals;
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.banking.repository.TransactionRepo;
+import com.banking.service.AccountService;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Tests the transfers and history of the <code>reactive</code> profile against the
+ * same schema the servlet stack uses.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:banking-reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///banking-reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=" })
+@ActiveProfiles("reactive")
+class ReactiveTransferTest {
+
+    @Autowired
+    private ReactiveAccountService accountService;
+
+    @Autowired
+    private ReactiveTransactionService transactionService;
+
+    @Autowired
+    private AccountService servletAccountService;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transferIsAtomic() {
+        long a = newAccount(1_000);
+        long b = newAccount(0);
+
+        Transaction ok = transactionService.transfer(request(a, b, 300)).block();
+        assertEquals("SUCCESS", ok.getStatus());
+        Transaction failed = transactionService.transfer(request(a, b, 5_000)).block();
+        assertEquals("FAILED", failed.getStatus());
+        Transaction unknown = transactionService.transfer(request(a, 999_999_999L, 10)).block();
+        assertEquals("FAILED", unknown.getStatus());
+
+        assertEquals(700, accountService.getAccount(a).block().getBalance());
+        assertEquals(300, accountService.getAccount(b).block().getBalance());
+        assertEquals("FAILED", transactionService.getTransactionById(failed.getTransactionId()).block().getStatus());
+        assertEquals(2, ledgerEntries(ok.getTransactionId()));
+        // The credit to the unknown account rolled back the debit and its ledger entries
+        assertEquals(0, ledgerEntries(unknown.getTransactionId()));
+
+        LocalDate today = LocalDate.now();
+        AccountTotals totals = transactionService.getAccountTotals(a, today, today).block();
+        assertEquals(1, totals.getDebitCount());
+        assertEquals(300, totals.getDebits());
+        assertEquals(2, totals.getFailedCount());
+    }
+
+    @Test
+    void retriedKeyReturnsTheOriginalTransfer() {
+        long a = newAccount(1_000);
+        long b = newAccount(0);
+        TransferRequest request = request(a, b, 100);
+        request.setIdempotencyKey("reactive-retry-1");
+
+        Transaction first = transactionService.transfer(request).block();
+        Transaction retry = transactionService.transfer(request).block();
+
+        assertEquals(first.getTransactionId(), retry.getTransactionId());
+        assertEquals(900, accountService.getAccount(a).block().getBalance());
+    }
+
+    @Test
+    void concurrentTransfersConserveTotalBalance() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(newAccount(1_000));
+        }
+        long hot = ids.get(0);
+        servletAccountService.setBalanceShards(hot, 4);
+
+        Flux.range(0, 1_000)
+                .flatMap(i -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    return transactionService.transfer(request(ids.get(random.nextInt(ids.size())),
+                            ids.get(random.nextInt(ids.size())), random.nextInt(1, 300)));
+                }, 32)
+                .blockLast();
+
+        long total = 0;
+        for (long id : ids) {
+            long balance = accountService.getAccount(id).block().getBalance();
+            assertTrue(balance >= 0, "negative balance on " + id);
+            total += balance;
+        }
+        assertEquals(10 * 1_000, total);
+    }
+
+    @Test
+    void historyIsFetchedAsRequested() {
+        long a = newAccount(0);
+        long b = newAccount(0);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Transaction> history = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setFromAccountId(i % 2 == 0 ? a : b);
+            transaction.setToAccountId(i % 2 == 0 ? b : a);
+            transaction.setAmount(i + 1);
+            transaction.setStatus("SUCCESS");
+            transaction.setTimestamp(start.plusMinutes(i));
+            history.add(transaction);
+        }
+        transactionRepo.saveAll(history);
+
+        StepVerifier.create(transactionService.getHistory(a), 0)
+                .expectSubscription()
+                .thenRequest(10)
+                .expectNextMatches(first -> first.getAmount() == 1)
+                .expectNextCount(9)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(1_190)
+                .verifyComplete();
+    }
+
+    @Test
+    void idsDoNotCollideWithTheServletStack() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 60; i++) {
+            assertTrue(ids.add(newAccount(0)));
+            assertTrue(ids.add(servletAccountService.createAccount(account(0)).getAccountId()));
+        }
+        assertEquals(120, ids.size());
+    }
+
+    private long ledgerEntries(long transactionId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entry WHERE transaction_id = ?",
+                Long.class, transactionId);
+    }
+
+    private long newAccount(long balance) {
+        return accountService.createAccount(account(balance)).block().getAccountId();
+    }
+}
@@ -0,0 +1,202 @@
+package com.banking.report;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.banking.BankingRestApiApplication;
+import com.banking.model.AccountTotals;
+import com.banking.model.Transaction;
+import com.banking.repository.AccountDailyRollupRepo;
+import com.banking.repository.RollupRebuildRepo;
+import com.banking.repository.TransactionRepo;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Tests that the daily rollups kept by transfers, and those rebuilt from history,
+ * add up to the transfers themselves.
+ */
+@SpringBootTest
+class DailyRollupsTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private AccountDailyRollupRepo rollupRepo;
+
+    @Autowired
+    private RollupRebuildRepo rebuildRepo;
+
+    @Autowired
+    private DailyRollups dailyRollups;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void transfersKeepTodaysTotals() {
+        long a = newAccount(accountService, 1_000);
+        long b = newAccount(accountService, 0);
+        long hot = newAccount(accountService, 0);
+        accountService.setBalanceShards(hot, 4);
+
+        transactionService.transfer(request(a, b, 100));
+        transactionService.transfer(request(a, b, 5_000)); // insufficient funds
+        transactionService.transfer(request(a, a, 10));
+        transactionService.transferBatch(List.of(request(b, a, 30), request(a, hot, 50), request(b, null, 1)));
+        for (int i = 0; i < 10; i++) {
+            transactionService.transfer(request(a, hot, 1));
+        }
+
+        LocalDate today = LocalDate.now();
+        AccountTotals totalsA = transactionService.getAccountTotals(a, today, today);
+        assertEquals(13, totalsA.getDebitCount());
+        assertEquals(100 + 10 + 50 + 10, totalsA.getDebits());
+        assertEquals(2, totalsA.getCreditCount());
+        assertEquals(10 + 30, totalsA.getCredits());
+        assertEquals(1, totalsA.getFailedCount());
+        assertEquals(1, totalsA.getActiveDays());
+
+        AccountTotals totalsB = transactionService.getAccountTotals(b, today.minusDays(7), today);
+        assertEquals(1, totalsB.getDebitCount());
+        assertEquals(1, totalsB.getFailedCount());
+        assertEquals(100, totalsB.getCredits());
+
+        AccountTotals totalsHot = transactionService.getAccountTotals(hot, today, today);
+        assertEquals(11, totalsHot.getCreditCount());
+        assertEquals(60, totalsHot.getCredits());
+        assertEquals(0, transactionService.getAccountTotals(hot, today.minusDays(1), today.minusDays(1)).getCreditCount());
+    }
+
+    @Test
+    void rebuildInParallelChunksMatchesHistoryAndCanBeRepeated() {
+        LocalDate first = LocalDate.of(2020, 3, 1);
+        long a = 9_000_001;
+        long b = 9_000_020;
+        List<Transaction> history = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime time = first.plusDays(i % 5).atTime(i % 24, 0);
+            history.add(transaction(i % 3 == 0 ? b : a, i % 3 == 0 ? a : b, 100 + i,
+                    i % 7 == 0 ? "FAILED" : "SUCCESS", time));
+        }
+        transactionRepo.saveAll(history);
+        // Partial totals a rebuild must replace, not add to
+        dailyRollups.record(transaction(a, b, 999, "SUCCESS", first.atTime(12, 0)));
+
+        RollupBackfill backfill = new RollupBackfill(jdbcTemplate, rollupRepo, rebuildRepo,
+                transactionRepo, transactionManager, 4, 7);
+        backfill.rebuild(first, LocalDate.now());
+        // As a second node, or a retry after a failure, would
+        backfill.rebuild(first, LocalDate.now());
+
+        for (long account : new long[] { a, b }) {
+            for (int day = 0; day < 5; day++) {
+                LocalDate date = first.plusDays(day);
+                long debits = 0, credits = 0, failed = 0;
+                for (Transaction t : history) {
+                    if (!t.getTimestamp().toLocalDate().equals(date)) {
+                        continue;
+                    }
+                    boolean success = "SUCCESS".equals(t.getStatus());
+                    debits += success && t.getFromAccountId() == account ? t.getAmount() : 0;
+                    credits += success && t.getToAccountId() == account ? t.getAmount() : 0;
+                    failed += !success && t.getFromAccountId() == account ? 1 : 0;
+                }
+                AccountTotals totals = dailyRollups.totals(account, date, date);
+                assertEquals(debits, totals.getDebits(), account + " " + date);
+                assertEquals(credits, totals.getCredits(), account + " " + date);
+                assertEquals(failed, totals.getFailedCount(), account + " " + date);
+            }
+        }
+        assertEquals(5, dailyRollups.totals(a, first, first.plusDays(30)).getActiveDays());
+    }
+
+    @Test
+    void deployDayIsRebuiltAfterARestart() {
+        LocalDate deployDay = LocalDate.now().minusDays(1);
+        long a = 9_100_001;
+        long b = 9_100_002;
+        // Kept across both contexts, as a real database would be
+        String[] arguments = {
+                "--spring.datasource.url=jdbc:h2:mem:rollups-" + UUID.randomUUID()
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=update"
+        };
+
+        try (ConfigurableApplicationContext context = start(arguments)) {
+            // Transfers from before the rollups existed, the last of them on the deploy day
+            context.getBean(TransactionRepo.class).saveAll(List.of(
+                    transaction(a, b, 100, "SUCCESS", deployDay.minusDays(2).atTime(9, 0)),
+                    transaction(a, b, 40, "SUCCESS", deployDay.atTime(9, 0))));
+            // Started on the deploy day
+            context.getBean(RollupBackfill.class).buildHistory(deployDay);
+
+            DailyRollups rollups = context.getBean(DailyRollups.class);
+            assertEquals(100, rollups.totals(a, deployDay.minusDays(2), deployDay.minusDays(2)).getDebits());
+            assertEquals(0, rollups.totals(a, deployDay, deployDay).getDebits());
+        }
+
+        try (ConfigurableApplicationContext context = start(arguments)) {
+            RollupRebuildRepo rebuilds = context.getBean(RollupRebuildRepo.class);
+            assertEquals(deployDay, rebuilds.findFirstByOrderByDeployDay().orElseThrow().getDeployDay());
+
+            context.getBean(RollupBackfill.class).rebuildDeployDay();
+
+            DailyRollups rollups = context.getBean(DailyRollups.class);
+            assertEquals(40, rollups.totals(a, deployDay, deployDay).getDebits());
+            assertEquals(140, rollups.totals(b, deployDay.minusDays(7), deployDay).getCredits());
+            assertEquals(0, rebuilds.count());
+        }
+    }
+
+    @Test
+    void onlyEndedDaysCanBeRebuilt() {
+        RollupBackfill backfill = new RollupBackfill(jdbcTemplate, rollupRepo, rebuildRepo,
+                transactionRepo, transactionManager, 1, 100);
+        assertThrows(IllegalArgumentException.class,
+                () -> backfill.rebuild(LocalDate.now(), LocalDate.now().plusDays(1)));
+    }
+
+    private static ConfigurableApplicationContext start(String... arguments) {
+        SpringApplication application = new SpringApplication(BankingRestApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(arguments);
+    }
+
+    private static Transaction transaction(long from, long to, long amount, String status, LocalDateTime time) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(from);
+        transaction.setToAccountId(to);
+        transaction.setAmount(amount);
+        transaction.setStatus(status);
+        transaction.setTimestamp(time);
+        return transaction;
+    }
+}
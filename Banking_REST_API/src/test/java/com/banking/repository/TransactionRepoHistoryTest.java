@@ -0,0 +1,73 @@
+package com.banking.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.banking.model.Transaction;
+
+/**
+ * Tests for {@link TransactionRepo#findHistoryInDateRange}.
+ */
+@SpringBootTest
+class TransactionRepoHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 11, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 11, 8, 23, 59, 59);
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    void returnsOnlyDebitsAndCreditsInsideTheRange() {
+        long account = 900_001L;
+        long other = 900_002L;
+
+        save(account, other, START.minusDays(30));       // old debit, used to leak through the OR
+        Transaction debit = save(account, other, START.plusDays(1));
+        Transaction credit = save(other, account, START.plusDays(2));
+        Transaction self = save(account, account, START.plusDays(3));
+        save(other, account, END.plusDays(1));           // credit after the range
+        save(other, 900_003L, START.plusDays(1));        // unrelated
+
+        List<Long> ids = transactionRepo.findHistoryInDateRange(account, START, END).stream()
+                .map(Transaction::getTransactionId)
+                .toList();
+
+        assertEquals(List.of(debit.getTransactionId(), credit.getTransactionId(), self.getTransactionId()), ids);
+    }
+
+    @Test
+    void planUsesBothCompositeIndexesInsteadOfAFullScan() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "EXPLAIN " + TransactionRepo.HISTORY_IN_DATE_RANGE_SQL,
+                Map.of("accountId", 1L, "startDate", START, "endDate", END));
+        String plan = rows.get(0).values().iterator().next().toString().toLowerCase();
+
+        assertTrue(plan.contains("idx_transaction_from_time"), plan);
+        assertTrue(plan.contains("idx_transaction_to_time"), plan);
+        assertFalse(plan.contains("tablescan"), plan);
+    }
+
+    private Transaction save(long from, long to, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccountId(from);
+        transaction.setToAccountId(to);
+        transaction.setAmount(10);
+        transaction.setTimestamp(timestamp);
+        transaction.setStatus("SUCCESS");
+        return transactionRepo.save(transaction);
+    }
+}
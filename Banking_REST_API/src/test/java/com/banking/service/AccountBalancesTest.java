@@ -0,0 +1,89 @@
+package com.banking.service;
+
+import static com.banking.TestFixtures.newAccount;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.cache.AccountCache;
+import com.banking.metrics.JdbcStatementCounter;
+import com.banking.model.AccountBalance;
+import com.banking.model.TransferRequest;
+
+/**
+ * Tests that several balances are read from the cache first and then with chunked
+ * <code>IN (...)</code> queries, in request order.
+ */
+@SpringBootTest
+class AccountBalancesTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private JdbcStatementCounter statementCounter;
+
+    @Test
+    void cachedAccountsAreServedAndMissesReadTogether() {
+        long cached = newAccount(accountService, 100);
+        long a = newAccount(accountService, 200);
+        long b = newAccount(accountService, 300);
+        long hot = newAccount(accountService, 0);
+        accountService.setBalanceShards(hot, 4);
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(b);
+        request.setToAccountId(hot);
+        request.setAmount(50);
+        transactionService.transfer(request);
+        // Only the first account stays cached
+        accountCache.invalidate(a);
+        accountCache.invalidate(b);
+        accountService.getAccount(cached);
+
+        statementCounter.reset();
+        List<AccountBalance> balances = accountService.getBalances(
+                Arrays.asList(b, 999_999_999L, cached, null, hot, a, b));
+        // One IN query for a and b, plus the sharded account and its shards
+        assertEquals(3, statementCounter.current());
+
+        assertEquals(List.of(b, cached, hot, a), balances.stream().map(AccountBalance::getAccountId).toList());
+        assertEquals(List.of(250L, 100L, 50L, 200L), balances.stream().map(AccountBalance::getBalance).toList());
+        assertEquals("ACTIVE", balances.get(0).getStatus());
+    }
+
+    @Test
+    void longListsAreReadInChunks() {
+        long a = newAccount(accountService, 1);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2 * AccountService.BALANCE_CHUNK_SIZE + 1; id++) {
+            ids.add(900_000_000L + id);
+        }
+        ids.add(a);
+        accountCache.invalidate(a);
+
+        statementCounter.reset();
+        List<AccountBalance> balances = accountService.getBalances(ids);
+        assertEquals(3, statementCounter.current());
+        assertEquals(1, balances.size());
+        assertEquals(a, balances.get(0).getAccountId());
+
+        List<Long> tooMany = new ArrayList<>();
+        for (long id = 0; id <= AccountService.MAX_BALANCE_IDS; id++) {
+            tooMany.add(id);
+        }
+        assertThrows(IllegalArgumentException.class, () -> accountService.getBalances(tooMany));
+    }
+}
@@ -0,0 +1,86 @@
+package com.banking.service;
+
+import static com.banking.TestFixtures.account;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.metrics.JdbcStatementCounter;
+import com.banking.model.Account;
+import com.banking.model.CustomerAccounts;
+import com.banking.model.TransferRequest;
+
+/**
+ * Tests that a customer's accounts are read with one indexed query, then from the
+ * caches, and that changes to a customer's accounts are seen straight away.
+ */
+@SpringBootTest
+class CustomerAccountsTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcStatementCounter statementCounter;
+
+    @Test
+    void accountsAreReadOnceThenServedFromCache() {
+        long a = newAccount(8100, 1_000);
+        long b = newAccount(8100, 250);
+        newAccount(8101, 99);
+
+        statementCounter.reset();
+        CustomerAccounts first = accountService.getCustomerAccounts(8100);
+        assertEquals(1, statementCounter.current());
+        assertEquals(List.of(a, b), ids(first));
+        assertEquals(1_250, first.getTotalBalance());
+
+        statementCounter.reset();
+        CustomerAccounts second = accountService.getCustomerAccounts(8100);
+        assertEquals(0, statementCounter.current());
+        assertEquals(List.of(a, b), ids(second));
+        assertEquals(1_250, second.getTotalBalance());
+    }
+
+    @Test
+    void changesToTheCustomerAreSeenImmediately() {
+        long a = newAccount(8200, 500);
+        long b = newAccount(8201, 300);
+        assertEquals(List.of(a), ids(accountService.getCustomerAccounts(8200)));
+        assertEquals(List.of(b), ids(accountService.getCustomerAccounts(8201)));
+
+        accountService.updateCustomerId(b, 8200L);
+        assertEquals(List.of(a, b), ids(accountService.getCustomerAccounts(8200)));
+        assertEquals(List.of(), ids(accountService.getCustomerAccounts(8201)));
+
+        long c = newAccount(8200, 0);
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(a);
+        request.setToAccountId(c);
+        request.setAmount(200);
+        transactionService.transfer(request);
+        accountService.setBalanceShards(b, 4);
+
+        CustomerAccounts accounts = accountService.getCustomerAccounts(8200);
+        assertEquals(List.of(a, b, c), ids(accounts));
+        assertEquals(800, accounts.getTotalBalance());
+        assertEquals(200, accounts.getAccounts().get(2).getBalance());
+    }
+
+    private long newAccount(long customerId, long balance) {
+        Account account = account(balance);
+        account.setCustomerId(customerId);
+        return accountService.createAccount(account).getAccountId();
+    }
+
+    private static List<Long> ids(CustomerAccounts accounts) {
+        return accounts.getAccounts().stream().map(Account::getAccountId).toList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
+import com.banking.repository.TransactionRepo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for keyset-paginated and streamed transaction history.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionHistoryPagingTest {
+
+    private static final long ACCOUNT = 800_001L;
+    private static final int HISTORY = 25;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<Long> expected;
+
+    @BeforeAll
+    void createHistory() {
+        // Pairs of transactions share a timestamp, so the ID tie-breaker matters
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < HISTORY; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setFromAccountId(i % 2 == 0 ? ACCOUNT : ACCOUNT + 1);
+            transaction.setToAccountId(i % 2 == 0 ? ACCOUNT + 1 : ACCOUNT);
+            transaction.setAmount(i);
+            transaction.setTimestamp(base.plusMinutes(i / 2));
+            transaction.setStatus("SUCCESS");
+            rows.add(transaction);
+        }
+        expected = transactionRepo.saveAll(rows).stream().map(Transaction::getTransactionId).toList();
+    }
+
+    @Test
+    void pagesWalkTheWholeHistoryInOrderWithoutGapsOrRepeats() {
+        List<Long> seen = new ArrayList<>();
+        TransactionPage page = transactionService.getHistoryPage(ACCOUNT, null, null, 10);
+        int pages = 1;
+        while (true) {
+            page.getItems().forEach(t -> seen.add(t.getTransactionId()));
+            if (!page.isHasMore()) {
+                break;
+            }
+            page = transactionService.getHistoryPage(ACCOUNT, page.getNextAfterTimestamp(),
+                    page.getNextAfterId(), 10);
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        TransactionPage page = transactionService.getHistoryPage(ACCOUNT, null, null, 1_000_000);
+        assertEquals(HISTORY, page.getItems().size());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void historyIsStreamedAcrossPageBoundaries() {
+        // Every timestamp is shared by three rows, so page ends fall inside a tie
+        long account = ACCOUNT + 10;
+        LocalDateTime base = LocalDateTime.of(2025, 2, 1, 9, 0);
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 2 * TransactionRepo.STREAM_PAGE_SIZE + 1; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setFromAccountId(account);
+            transaction.setToAccountId(i % 2 == 0 ? account + 1 : account);
+            transaction.setAmount(i);
+            transaction.setTimestamp(base.plusMinutes(i / 3));
+            transaction.setStatus("SUCCESS");
+            rows.add(transaction);
+        }
+        List<Long> ids = transactionRepo.saveAll(rows).stream().map(Transaction::getTransactionId).toList();
+
+        List<Long> seen = new ArrayList<>();
+        transactionService.forEachInHistory(account, t -> seen.add(t.getTransactionId()));
+
+        assertEquals(ids, seen);
+    }
+
+    @Test
+    void streamEndpointWritesOneJsonObjectPerLine() throws Exception {
+        MvcResult started = mockMvc.perform(get("/transactions/history/{id}/stream", ACCOUNT)).andReturn();
+        String body = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(HISTORY, lines.length);
+        assertTrue(lines[0].startsWith("{\"transactionId\":" + expected.get(0) + ","), lines[0]);
+    }
+
+    @Test
+    void historyEndpointWritesTheWholeHistoryAsOneArrayInOrder() throws Exception {
+        MvcResult started = mockMvc.perform(get("/transactions/history/{id}", ACCOUNT)).andReturn();
+        String body = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString();
+
+        List<Long> seen = objectMapper.readTree(body).findValues("transactionId").stream()
+                .map(JsonNode::asLong)
+                .toList();
+        assertEquals(expected, seen);
+    }
+}
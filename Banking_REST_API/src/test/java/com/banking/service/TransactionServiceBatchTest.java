@@ -0,0 +1,82 @@
+package com.banking.service;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+
+/**
+ * Tests for {@link TransactionService#transferBatch}, including a throughput
+ * comparison against the single-transfer path.
+ */
+@SpringBootTest
+class TransactionServiceBatchTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionServiceBatchTest.class);
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void batchReportsPerItemStatusInRequestOrder() {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+
+        List<Transaction> results = transactionService.transferBatch(List.of(
+                request(a, b, 60),
+                request(a, b, 60),        // only 40 left
+                request(b, a, 10),
+                request(-1L, a, 5),       // unknown account
+                request(null, b, 5)));    // missing account ID
+
+        assertEquals(List.of("SUCCESS", "FAILED", "SUCCESS", "FAILED", "FAILED"),
+                results.stream().map(Transaction::getStatus).toList());
+        assertEquals(50, accountService.getAccount(a).getBalance());
+        assertEquals(50, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void batchThroughputComparedWithSingleTransfers() {
+        int transfers = 2_000;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(newAccount(accountService, 1_000_000));
+        }
+        List<TransferRequest> requests = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            requests.add(request(ids.get(i % ids.size()), ids.get((i * 7 + 3) % ids.size()), 1));
+        }
+
+        long start = System.nanoTime();
+        for (TransferRequest request : requests) {
+            transactionService.transfer(request);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Transaction> results = transactionService.transferBatch(requests);
+        long batchNanos = System.nanoTime() - start;
+
+        assertEquals(transfers, results.stream().filter(t -> "SUCCESS".equals(t.getStatus())).count());
+        log.info("{} transfers: single path {} transfers/s, batch path {} transfers/s",
+                transfers, perSecond(transfers, singleNanos), perSecond(transfers, batchNanos));
+    }
+
+    private static long perSecond(int count, long nanos) {
+        return count * 1_000_000_000L / Math.max(1, nanos);
+    }
+}
@@ -0,0 +1,94 @@
+package com.banking.service;
+
+import static com.banking.TestFixtures.account;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+import com.banking.model.TransferRequest;
+import com.banking.repository.AccountRepo;
+
+/**
+ * Stress test for {@link TransactionService#transfer} under high concurrency.
+ * 
+ * <p>Many threads move money randomly between a small set of accounts, so most
+ * transfers contend on the same rows. The total balance must be conserved and no
+ * account may ever go negative.</p>
+ */
+@SpringBootTest
+class TransactionServiceConcurrencyTest {
+
+    private static final int ACCOUNTS = 20;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final long OPENING_BALANCE = 1_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Test
+    void concurrentTransfersConserveTotalBalance() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = account(OPENING_BALANCE);
+            account.setCustomerId(i);
+            ids.add(accountService.createAccount(account).getAccountId());
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        TransferRequest request = new TransferRequest();
+                        request.setFromAccountId(ids.get(random.nextInt(ACCOUNTS)));
+                        request.setToAccountId(ids.get(random.nextInt(ACCOUNTS)));
+                        request.setAmount(random.nextInt(1, 200));
+                        Transaction result = transactionService.transfer(request);
+                        if ("SUCCESS".equals(result.getStatus())) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long total = 0;
+        for (Long id : ids) {
+            long balance = accountService.getAccount(id).getBalance();
+            assertTrue(balance >= 0, "account " + id + " went negative: " + balance);
+            assertEquals(accountRepo.findById(id).orElseThrow().getBalance(), balance,
+                    "cached balance of account " + id + " is stale");
+            total += balance;
+        }
+        assertEquals(ACCOUNTS * OPENING_BALANCE, total);
+        assertTrue(succeeded.get() > 0);
+    }
+}
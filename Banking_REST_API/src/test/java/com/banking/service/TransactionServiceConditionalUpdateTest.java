@@ -0,0 +1,123 @@
+package com.banking.service;
+
+import static com.banking.TestFixtures.account;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.banking.metrics.JdbcStatementCounter;
+import com.banking.model.Account;
+import com.banking.model.IdGenerators;
+import com.banking.model.Transaction;
+import com.banking.repository.AccountRepo;
+
+/**
+ * Tests that single transfers are decided by the conditional debit and credit
+ * UPDATEs alone.
+ */
+@SpringBootTest
+class TransactionServiceConditionalUpdateTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private JdbcStatementCounter statementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void successfulTransferIsTwoUpdatesAndTwoInserts() {
+        long a = newAccount(100, "ACTIVE");
+        long b = newAccount(0, "ACTIVE");
+
+        List<Long> generators = generatorValues();
+        statementCounter.reset();
+        Transaction transaction = transactionService.transfer(request(a, b, 40));
+        int statements = statementCounter.current();
+
+        // Debit, credit, audit row, one JDBC batch of two ledger entries and one of the
+        // two daily rollup upserts. Each ID block read on the way adds a SELECT and an
+        // UPDATE of its generator row.
+        assertEquals(5 + 2 * blocksRead(generators, generatorValues()), statements);
+        assertEquals("SUCCESS", transaction.getStatus());
+        assertEquals(60, accountService.getAccount(a).getBalance());
+        assertEquals(40, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void insufficientFundsLeavesBothBalancesUnchanged() {
+        long a = newAccount(100, "ACTIVE");
+        long b = newAccount(0, "ACTIVE");
+
+        Transaction transaction = transactionService.transfer(request(a, b, 101));
+
+        assertEquals("FAILED", transaction.getStatus());
+        assertEquals(100, accountService.getAccount(a).getBalance());
+        assertEquals(0, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void creditToInactiveAccountRollsBackTheDebit() {
+        long a = newAccount(100, "ACTIVE");
+        long b = newAccount(0, "CLOSED");
+
+        // Credit first, then debit, and the other way round
+        Transaction forward = transactionService.transfer(request(a, b, 10));
+        Transaction backward = transactionService.transfer(request(b, a, 10));
+
+        assertEquals("FAILED", forward.getStatus());
+        assertEquals("FAILED", backward.getStatus());
+        assertEquals(100, accountService.getAccount(a).getBalance());
+        assertEquals(0, accountService.getAccount(b).getBalance());
+        assertEquals(100, accountRepo.findById(a).orElseThrow().getBalance());
+    }
+
+    @Test
+    void unknownAccountAndNonPositiveAmountFail() {
+        long a = newAccount(100, "ACTIVE");
+
+        assertEquals("FAILED", transactionService.transfer(request(a, Long.MAX_VALUE, 10)).getStatus());
+        assertEquals("FAILED", transactionService.transfer(request(a, a, 0)).getStatus());
+        assertEquals("FAILED", transactionService.transfer(request(a, a, -5)).getStatus());
+        assertEquals(100, accountService.getAccount(a).getBalance());
+    }
+
+    @Test
+    void transferToSameAccountKeepsBalance() {
+        long a = newAccount(100, "ACTIVE");
+
+        assertEquals("SUCCESS", transactionService.transfer(request(a, a, 100)).getStatus());
+        assertEquals(100, accountService.getAccount(a).getBalance());
+        assertEquals(100, accountRepo.findById(a).orElseThrow().getBalance());
+    }
+
+    private List<Long> generatorValues() {
+        return jdbcTemplate.queryForList("SELECT " + IdGenerators.VALUE_COLUMN + " FROM " + IdGenerators.TABLE
+                + " ORDER BY " + IdGenerators.NAME_COLUMN, Long.class);
+    }
+
+    private static long blocksRead(List<Long> before, List<Long> after) {
+        return IntStream.range(0, before.size()).filter(i -> !before.get(i).equals(after.get(i))).count();
+    }
+
+    private long newAccount(long balance, String status) {
+        Account account = account(balance);
+        account.setStatus(status);
+        return accountRepo.save(account).getAccountId();
+    }
+}
@@ -0,0 +1,139 @@
+package com.banking.service;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepo;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests that transfers carrying an idempotency key move money at most once.
+ */
+@SpringBootTest
+class TransactionServiceIdempotencyTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void retryReturnsOriginalTransactionWithoutLoadingAccounts() {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+        String key = UUID.randomUUID().toString();
+
+        Transaction first = transactionService.transfer(request(a, b, 30, key));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long accountLoads = statistics.getEntityStatistics(Account.class.getName()).getLoadCount();
+        long accountUpdates = statistics.getEntityStatistics(Account.class.getName()).getUpdateCount();
+
+        Transaction retry = transactionService.transfer(request(a, b, 30, key));
+
+        assertEquals(first.getTransactionId(), retry.getTransactionId());
+        assertEquals("SUCCESS", retry.getStatus());
+        assertEquals(accountLoads, statistics.getEntityStatistics(Account.class.getName()).getLoadCount());
+        assertEquals(accountUpdates, statistics.getEntityStatistics(Account.class.getName()).getUpdateCount());
+        assertEquals(70, accountService.getAccount(a).getBalance());
+        assertEquals(30, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void concurrentRetriesMoveMoneyOnce() throws Exception {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+        String key = UUID.randomUUID().toString();
+
+        List<Callable<Transaction>> attempts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            attempts.add(() -> transactionService.transfer(request(a, b, 10, key)));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        Set<Long> ids;
+        try {
+            List<Transaction> results = new ArrayList<>();
+            for (Future<Transaction> future : pool.invokeAll(attempts)) {
+                results.add(future.get());
+            }
+            ids = results.stream().map(Transaction::getTransactionId).collect(Collectors.toSet());
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, ids.size());
+        assertEquals(90, accountService.getAccount(a).getBalance());
+        assertEquals(10, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void keyPersistedBeforeRestartIsCaughtByUniqueConstraint() {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+        String key = UUID.randomUUID().toString();
+
+        // A transaction the in-memory store has never seen, as after a restart
+        Transaction earlier = new Transaction();
+        earlier.setFromAccountId(a);
+        earlier.setToAccountId(b);
+        earlier.setAmount(25);
+        earlier.setTimestamp(LocalDateTime.now());
+        earlier.setStatus("SUCCESS");
+        earlier.setIdempotencyKey(key);
+        earlier = transactionRepo.save(earlier);
+
+        Transaction retry = transactionService.transfer(request(a, b, 25, key));
+
+        assertEquals(earlier.getTransactionId(), retry.getTransactionId());
+        assertEquals(100, accountService.getAccount(a).getBalance());
+        assertEquals(0, accountService.getAccount(b).getBalance());
+    }
+
+    @Test
+    void batchAppliesEachKeyOnce() {
+        long a = newAccount(accountService, 100);
+        long b = newAccount(accountService, 0);
+        String key = UUID.randomUUID().toString();
+
+        Transaction single = transactionService.transfer(request(a, b, 10, key));
+        String other = UUID.randomUUID().toString();
+        List<Transaction> results = transactionService.transferBatch(List.of(
+                request(a, b, 10, key),       // earlier request
+                request(a, b, 20, other),
+                request(a, b, 20, other),     // earlier in this batch
+                request(a, b, 5, null)));
+
+        assertEquals(single.getTransactionId(), results.get(0).getTransactionId());
+        assertEquals(results.get(1).getTransactionId(), results.get(2).getTransactionId());
+        assertEquals(65, accountService.getAccount(a).getBalance());
+        assertEquals(35, accountService.getAccount(b).getBalance());
+    }
+}
@@ -0,0 +1,150 @@
+package com.banking.shard;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.banking.model.Transaction;
+import com.banking.money.Money;
+import com.banking.repository.AccountRepo;
+import com.banking.repository.AccountShardRepo;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Tests that sharded hot accounts keep exact totals across credits, debits and
+ * shard count changes.
+ */
+@SpringBootTest
+class BalanceShardsTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private AccountShardRepo shardRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentCreditsLandOnShardsAndAddUp() throws Exception {
+        long hot = newAccount(accountService, 1_000);
+        accountService.setBalanceShards(hot, 8);
+
+        List<Callable<Transaction>> credits = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            long sender = newAccount(accountService, 1_000);
+            for (int j = 0; j < 25; j++) {
+                credits.add(() -> transactionService.transfer(request(sender, hot, 10)));
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Transaction> future : pool.invokeAll(credits)) {
+                assertEquals("SUCCESS", future.get().getStatus());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1_000 + 400 * 10, accountService.getAccount(hot).getBalance());
+        assertEquals(1_000, accountRepo.findById(hot).orElseThrow().getBalance());
+        assertEquals(Money.toDecimal(4_000), shardRepo.sumBalances(hot).setScale(Money.SCALE));
+    }
+
+    @Test
+    void debitBeyondOwnRowSweepsTheShards() {
+        long hot = newAccount(accountService, 0);
+        long sender = newAccount(accountService, 500);
+        long receiver = newAccount(accountService, 0);
+        accountService.setBalanceShards(hot, 4);
+        for (int i = 0; i < 10; i++) {
+            transactionService.transfer(request(sender, hot, 10));
+        }
+
+        assertEquals("SUCCESS", transactionService.transfer(request(hot, receiver, 80)).getStatus());
+        assertEquals("FAILED", transactionService.transfer(request(hot, receiver, 21)).getStatus());
+
+        assertEquals(20, accountService.getAccount(hot).getBalance());
+        assertEquals(20, accountRepo.findById(hot).orElseThrow().getBalance());
+        assertEquals(0, shardRepo.sumBalances(hot).signum());
+        assertEquals(80, accountService.getAccount(receiver).getBalance());
+    }
+
+    @Test
+    void changingTheShardCountKeepsTheTotal() {
+        long hot = newAccount(accountService, 100);
+        long sender = newAccount(accountService, 500);
+        accountService.setBalanceShards(hot, 4);
+        transactionService.transfer(request(sender, hot, 50));
+
+        assertEquals(150, accountService.setBalanceShards(hot, 2).getBalance());
+        assertEquals(150, accountService.setBalanceShards(hot, 0).getBalance());
+        assertEquals(0, shardRepo.lockBalances(hot).size());
+
+        // Back to an ordinary, cached account
+        transactionService.transfer(request(sender, hot, 50));
+        assertEquals(200, accountService.getAccount(hot).getBalance());
+    }
+
+    @Test
+    void batchFromShardedSenderSeesTheWholeBalance() {
+        long hot = newAccount(accountService, 0);
+        long sender = newAccount(accountService, 100);
+        long receiver = newAccount(accountService, 0);
+        accountService.setBalanceShards(hot, 4);
+        transactionService.transfer(request(sender, hot, 100));
+
+        List<Transaction> results = transactionService.transferBatch(List.of(
+                request(hot, receiver, 60), request(sender, hot, 0), request(hot, receiver, 40)));
+
+        assertEquals("SUCCESS", results.get(0).getStatus());
+        assertEquals("SUCCESS", results.get(2).getStatus());
+        assertEquals(0, accountService.getAccount(hot).getBalance());
+        assertEquals(100, accountService.getAccount(receiver).getBalance());
+    }
+
+    @Test
+    void frozenShardedAccountIsNotCredited() {
+        long hot = newAccount(accountService, 0);
+        long sender = newAccount(accountService, 100);
+        accountService.setBalanceShards(hot, 4);
+        // Frozen by another instance, without this node's lock stripes
+        jdbcTemplate.update("UPDATE bank_details SET status = 'FROZEN' WHERE account_id = ?", hot);
+
+        assertEquals("FAILED", transactionService.transfer(request(sender, hot, 10)).getStatus());
+        assertEquals(0, shardRepo.sumBalances(hot).signum());
+        assertEquals(100, accountRepo.findById(sender).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shardCountIsValidated() {
+        long hot = newAccount(accountService, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> accountService.setBalanceShards(hot, -1));
+        assertThrows(IllegalArgumentException.class, () -> accountService.setBalanceShards(hot, 1_000));
+        assertNull(accountService.setBalanceShards(Long.MAX_VALUE, 4));
+        assertEquals(0, shardRepo.lockBalances(hot).size());
+    }
+}
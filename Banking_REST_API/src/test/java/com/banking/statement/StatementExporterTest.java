@@ -0,0 +1,100 @@
+package com.banking.statement;
+
+import static com.banking.TestFixtures.newAccount;
+import static com.banking.TestFixtures.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+
+/**
+ * Tests that statements exported from the ledger carry the right opening balance,
+ * entries and totals.
+ */
+@SpringBootTest
+class StatementExporterTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatementExporter exporter;
+
+    @Test
+    void statementCoversOnlyThePeriod() throws Exception {
+        long a = newAccount(accountService, 1_000);
+        long b = newAccount(accountService, 0);
+        transactionService.transfer(request(a, b, 100));
+        LocalDateTime start = tick();
+
+        transactionService.transfer(request(a, b, 250));
+        transactionService.transfer(request(a, b, 5_000)); // fails, not on the statement
+        accountService.updateBalance(a, 40);
+        transactionService.transfer(request(b, a, 10));
+        LocalDateTime end = tick();
+
+        transactionService.transfer(request(a, b, 1));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatementWriter totals = exporter.export(a, start, end, StatementFormat.CSV, out);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+
+        assertEquals(6, lines.size());
+        assertTrue(lines.get(1).matches("OPENING,[^,]+,,,,,,,9\\.00"), lines.get(1));
+        assertTrue(lines.get(2).matches("ENTRY,[^,]+,\\d+,TRANSFER,\\d+," + b + ",2\\.50,,6\\.50"), lines.get(2));
+        assertTrue(lines.get(3).matches("ENTRY,[^,]+,\\d+,DEPOSIT,,,,0\\.40,6\\.90"), lines.get(3));
+        assertTrue(lines.get(4).matches("ENTRY,[^,]+,\\d+,TRANSFER,\\d+," + b + ",,0\\.10,7\\.00"), lines.get(4));
+        assertTrue(lines.get(5).matches("CLOSING,[^,]+,,,,,2\\.50,0\\.50,7\\.00"), lines.get(5));
+        assertEquals(3, totals.getEntries());
+        assertEquals(700, totals.getBalance());
+    }
+
+    @Test
+    void closingBalanceMatchesAccount() throws Exception {
+        long a = newAccount(accountService, 500);
+        long b = newAccount(accountService, 500);
+        for (int i = 0; i < 20; i++) {
+            transactionService.transfer(request(i % 3 == 0 ? b : a, i % 3 == 0 ? a : b, 7 + i));
+        }
+
+        StatementWriter totals = exporter.export(b, LocalDateTime.of(2000, 1, 1, 0, 0), tick(),
+                StatementFormat.NDJSON, new ByteArrayOutputStream());
+
+        assertEquals(21, totals.getEntries());
+        assertEquals(accountService.getAccount(b).getBalance(), totals.getBalance());
+        assertEquals(totals.getCredits() - totals.getDebits(), totals.getBalance());
+    }
+
+    @Test
+    void periodMustNotEndBeforeItStarts() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> exporter.export(1, now, now.minusDays(1), StatementFormat.CSV, new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Returns the current time, making sure it differs from the timestamps of the
+     * ledger entries written just before and just after.
+     */
+    private static LocalDateTime tick() throws InterruptedException {
+        Thread.sleep(2);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(2);
+        return now;
+    }
+}
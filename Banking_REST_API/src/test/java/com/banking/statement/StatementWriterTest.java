@@ -0,0 +1,127 @@
+package com.banking.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests the statement line formats, and that writing a statement does not hold on
+ * to its rows.
+ */
+class StatementWriterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 11, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 11, 30, 23, 59, 59);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvHasRunningBalanceAndTotals() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatementWriter writer = StatementWriter.create(StatementFormat.CSV, out, objectMapper.getFactory(), 7, 10_000);
+        writer.open(START);
+        writer.entry(1, START.plusHours(1), "TRANSFER", 11L, 8L, -2_550);
+        writer.entry(2, START.plusHours(2), "DEPOSIT", null, null, 100);
+        writer.close(END);
+
+        assertEquals(List.of(
+                "type,timestamp,entry_id,kind,transaction_id,counterparty_account_id,debit,credit,balance",
+                "OPENING,2025-11-01T00:00:00,,,,,,,100.00",
+                "ENTRY,2025-11-01T01:00:00,1,TRANSFER,11,8,25.50,,74.50",
+                "ENTRY,2025-11-01T02:00:00,2,DEPOSIT,,,,1.00,75.50",
+                "CLOSING,2025-11-30T23:59:59,,,,,25.50,1.00,75.50"),
+                out.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatementWriter writer = StatementWriter.create(StatementFormat.NDJSON, out, objectMapper.getFactory(), 7, 0);
+        writer.open(START);
+        writer.entry(1, START.plusHours(1), "TRANSFER", 11L, 8L, 500);
+        writer.close(END);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, lines.size());
+        JsonNode entry = objectMapper.readTree(lines.get(1));
+        assertEquals("entry", entry.get("type").asText());
+        assertTrue(lines.get(1).contains("\"amount\":5.00,"), lines.get(1));
+        assertEquals(8, entry.get("counterpartyAccountId").asLong());
+        JsonNode closing = objectMapper.readTree(lines.get(2));
+        assertEquals(1, closing.get("entries").asLong());
+        assertTrue(lines.get(2).endsWith("\"balance\":5.00}"), lines.get(2));
+    }
+
+    @Test
+    void timestampsMatchIsoFormatter() {
+        for (LocalDateTime time : List.of(START, END, START.withNano(500_000_000), START.withNano(123_456_000),
+                START.withNano(1), LocalDateTime.of(12_345, 1, 1, 0, 0))) {
+            assertEquals(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time), StatementWriter.timestamp(time));
+        }
+    }
+
+    @Test
+    void tenMillionRowStatementIsWrittenInConstantMemory() throws IOException {
+        int rows = 10_000_000;
+        CountingOutputStream out = new CountingOutputStream();
+        long heapBefore = usedHeapAfterGc();
+
+        StatementWriter writer = StatementWriter.create(StatementFormat.CSV, out, objectMapper.getFactory(), 7, 0);
+        writer.open(START);
+        LocalDateTime time = START;
+        for (int i = 1; i <= rows; i++) {
+            // Credit 3.00, debit 1.00, credit 3.00, ...: the balance only ever grows
+            long amount = i % 2 == 0 ? -100 : 300;
+            writer.entry(i, time, "TRANSFER", (long) i, 8L, amount);
+            if (i % 1_000 == 0) {
+                time = time.plusSeconds(1);
+            }
+        }
+        writer.close(END);
+        long heapAfter = usedHeapAfterGc();
+
+        assertEquals(rows, writer.getEntries());
+        assertEquals(rows / 2 * 100L, writer.getDebits());
+        assertEquals(rows / 2 * 300L, writer.getCredits());
+        assertEquals(rows / 2 * 200L, writer.getBalance());
+        assertTrue(out.count > rows * 50L, "wrote " + out.count + " bytes");
+        // Keeping the rows would take well over a gigabyte
+        assertTrue(heapAfter - heapBefore < 64L << 20, "heap grew by " + (heapAfter - heapBefore) + " bytes");
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Discards what is written, counting the bytes.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
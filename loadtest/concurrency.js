@@ -0,0 +1,32 @@
+// k6 load test comparing platform-thread and virtual-thread modes.
+//
+// Each virtual user repeatedly issues one blocking, database-backed GET, so the
+// number of in-flight requests equals CLIENTS. The path is read from URL_PATH: __ENV
+// also holds the shell's environment, where PATH is always set. Run it once per mode
+// and client count:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e URL_PATH=/accounts/getAccount/1 -e CLIENTS=1000 loadtest/concurrency.js
+//
+// See loadtest/README.md for the full comparison matrix.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const clients = parseInt(__ENV.CLIENTS || '1000', 10);
+
+export const options = {
+    scenarios: {
+        constant_clients: {
+            executor: 'constant-vus',
+            vus: clients,
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const res = http.get(`${__ENV.BASE_URL || 'http://localhost:8080'}${__ENV.URL_PATH || '/'}`, {
+        timeout: '30s',
+    });
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
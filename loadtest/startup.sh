@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+# Measures the time from "java" to the first successful HTTP response of one service,
+# in three modes:
+#   default     the fat jar as built by "mvn package"
+#   fast-start  the same jar with the fast-start profile (no schema introspection)
+#   aot-cds     the extracted jar of "mvn -Paot-cds package" with its CDS archive,
+#               Spring AOT enabled and the fast-start profile
+#
+# Usage: loadtest/startup.sh <service-dir> <path> [runs]
+#   e.g. loadtest/startup.sh BookAPI /viewAllBooks 5
+#
+# Build the service with "mvn -Paot-cds package" first. Every mode runs against the
+# database in the service's application.properties; pass overrides in APP_ARGS and JVM
+# options in JAVA_OPTS. Run the default mode once beforehand if the schema is new: the
+# other modes do not create it.
+set -euo pipefail
+
+SERVICE_DIR=${1:?service directory}
+REQUEST_PATH=${2:?request path, e.g. /viewAllBooks}
+RUNS=${3:-5}
+PORT=${PORT:-8080}
+JAVA_OPTS=${JAVA_OPTS:-}
+APP_ARGS=${APP_ARGS:-}
+
+TARGET="$SERVICE_DIR/target"
+# The fat jar is the largest one (Banking_REST_API also builds a plain jar)
+FAT_JAR=$(ls -S "$TARGET"/*.jar | head -1)
+CDS_DIR="$TARGET/cds"
+if [[ ! -f "$CDS_DIR/application.jsa" ]]; then
+    echo "No $CDS_DIR/application.jsa; build with: mvn -Paot-cds package" >&2
+    exit 1
+fi
+
+# Prints the milliseconds until the first 2xx/3xx response of one start
+measure() {
+    local log
+    log=$(mktemp)
+    local start
+    start=$(date +%s%N)
+    # shellcheck disable=SC2086
+    java $JAVA_OPTS "$@" --server.port="$PORT" $APP_ARGS > "$log" 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT$REQUEST_PATH"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "service exited before answering; log: $log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    local end
+    end=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" || true
+    rm -f "$log"
+    echo $(( (end - start) / 1000000 ))
+}
+
+# Runs one mode RUNS times and prints its median
+run_mode() {
+    local name=$1
+    shift
+    local times=()
+    for ((i = 0; i < RUNS; i++)); do
+        times+=("$(measure "$@")")
+    done
+    local median
+    median=$(printf '%s\n' "${times[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR + 1) / 2)]}')
+    printf '| %-10s | %6s ms | %s |\n' "$name" "$median" "${times[*]}"
+}
+
+echo "$(basename "$SERVICE_DIR"): time to first response of $REQUEST_PATH, $RUNS runs"
+echo "| Mode       | Median    | Runs (ms) |"
+echo "|------------|-----------|-----------|"
+run_mode default -jar "$FAT_JAR"
+run_mode fast-start -jar "$FAT_JAR" --spring.profiles.active=fast-start
+run_mode aot-cds -XX:SharedArchiveFile="$CDS_DIR/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$CDS_DIR/application.jar" --spring.profiles.active=fast-start
@@ -0,0 +1,49 @@
+// k6 load test comparing the servlet and reactive stacks of Banking_REST_API.
+//
+// Each virtual user loops over a transfer between two random accounts, a history
+// page read and a balance read, so both stacks see the same mix of writes and reads.
+// The accounts 1..ACCOUNTS must exist and be funded before the run:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e ACCOUNTS=1000 -e CLIENTS=1000 loadtest/transfers.js
+//
+// See loadtest/README.md for the full comparison matrix.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8080';
+const accounts = parseInt(__ENV.ACCOUNTS || '1000', 10);
+const clients = parseInt(__ENV.CLIENTS || '1000', 10);
+const params = { headers: { 'Content-Type': 'application/json' }, timeout: '30s' };
+
+export const options = {
+    scenarios: {
+        constant_clients: {
+            executor: 'constant-vus',
+            vus: clients,
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+function randomAccount() {
+    return 1 + Math.floor(Math.random() * accounts);
+}
+
+export default function () {
+    const from = randomAccount();
+    const transfer = http.post(`${baseUrl}/transactions/transfer`, JSON.stringify({
+        fromAccountId: from,
+        toAccountId: randomAccount(),
+        amount: 1,
+    }), Object.assign({ tags: { name: 'transfer' } }, params));
+    check(transfer, { 'transfer is 200': (r) => r.status === 200 });
+
+    const page = http.get(`${baseUrl}/transactions/history/${from}/page?size=20`,
+        Object.assign({ tags: { name: 'history' } }, params));
+    check(page, { 'history is 200': (r) => r.status === 200 });
+
+    const account = http.get(`${baseUrl}/accounts/getAccount/${randomAccount()}`,
+        Object.assign({ tags: { name: 'account' } }, params));
+    check(account, { 'account is 200': (r) => r.status === 200 });
+}